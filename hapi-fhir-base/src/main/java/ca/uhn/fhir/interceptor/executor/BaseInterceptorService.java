@@ -43,20 +43,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
@@ -65,12 +68,20 @@ import java.util.stream.Collectors;
 public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & IPointcut>
 		implements IBaseInterceptorService<POINTCUT>, IBaseInterceptorBroadcaster<POINTCUT> {
 	private static final Logger ourLog = LoggerFactory.getLogger(BaseInterceptorService.class);
+	private static final BaseInvoker[] EMPTY_INVOKER_ARRAY = new BaseInvoker[0];
 	private final List<Object> myInterceptors = new ArrayList<>();
 	private final ListMultimap<POINTCUT, BaseInvoker> myGlobalInvokers = ArrayListMultimap.create();
 	private final ListMultimap<POINTCUT, BaseInvoker> myAnonymousInvokers = ArrayListMultimap.create();
 	private final Object myRegistryMutex = new Object();
 	private final Class<POINTCUT> myPointcutType;
 	private volatile EnumSet<POINTCUT> myRegisteredPointcuts;
+	/**
+	 * Immutable snapshot of the sorted invokers (global and anonymous) for each
+	 * pointcut. This is rebuilt under {@link #myRegistryMutex} every time the
+	 * registry changes and swapped in atomically, so that hook dispatch never needs
+	 * to lock or allocate.
+	 */
+	private volatile Map<POINTCUT, BaseInvoker[]> myInvokerSnapshot;
 	private String myName;
 	private boolean myWarnOnInterceptorWithNoHooks = true;
 
@@ -90,7 +101,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 		super();
 		myName = theName;
 		myPointcutType = thePointcutType;
-		rebuildRegisteredPointcutSet();
+		rebuildInvokerSnapshot();
 	}
 
 	/**
@@ -118,7 +129,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				myInterceptors.add(theInterceptor);
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 		}
 	}
 
@@ -179,7 +190,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				}
 			}
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 		}
 	}
 
@@ -204,16 +215,29 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			myInterceptors.add(theInterceptor);
 			sortByOrderAnnotation(myInterceptors);
 
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 
 			return true;
 		}
 	}
 
-	private void rebuildRegisteredPointcutSet() {
+	/**
+	 * Must be called while holding {@link #myRegistryMutex} (or from the constructor)
+	 * any time the invoker multimaps are modified
+	 */
+	private void rebuildInvokerSnapshot() {
 		EnumSet<POINTCUT> registeredPointcuts = EnumSet.noneOf(myPointcutType);
 		registeredPointcuts.addAll(myAnonymousInvokers.keySet());
 		registeredPointcuts.addAll(myGlobalInvokers.keySet());
+
+		Map<POINTCUT, BaseInvoker[]> invokerSnapshot = new EnumMap<>(myPointcutType);
+		for (POINTCUT nextPointcut : registeredPointcuts) {
+			List<BaseInvoker> invokers =
+					union(myGlobalInvokers.get(nextPointcut), myAnonymousInvokers.get(nextPointcut));
+			invokerSnapshot.put(nextPointcut, invokers.toArray(EMPTY_INVOKER_ARRAY));
+		}
+
+		myInvokerSnapshot = invokerSnapshot;
 		myRegisteredPointcuts = registeredPointcuts;
 	}
 
@@ -232,7 +256,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			boolean removed = myInterceptors.removeIf(t -> t == theInterceptor);
 			removed |= myGlobalInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
 			removed |= myAnonymousInvokers.entries().removeIf(t -> t.getValue().getInterceptor() == theInterceptor);
-			rebuildRegisteredPointcutSet();
+			rebuildInvokerSnapshot();
 			return removed;
 		}
 	}
@@ -279,16 +303,21 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	private Object doCallHooks(POINTCUT thePointcut, HookParams theParams, Object theRetVal) {
-		// use new list for loop to avoid ConcurrentModificationException in case invoker gets added while looping
-		List<BaseInvoker> invokers = new ArrayList<>(getInvokersForPointcut(thePointcut));
+		// The snapshot is never modified, so no copy is needed even if an invoker gets added while looping
+		BaseInvoker[] invokers = getInvokersForPointcut(thePointcut);
+		if (invokers.length == 0) {
+			return theRetVal;
+		}
+
+		Class<?> pointcutReturnType = thePointcut.getReturnType();
+		boolean booleanReturnType = pointcutReturnType.equals(getBooleanReturnType());
 
 		/*
 		 * Call each hook in order
 		 */
 		for (BaseInvoker nextInvoker : invokers) {
 			Object nextOutcome = nextInvoker.invoke(theParams);
-			Class<?> pointcutReturnType = thePointcut.getReturnType();
-			if (pointcutReturnType.equals(getBooleanReturnType())) {
+			if (booleanReturnType) {
 				Boolean nextOutcomeAsBoolean = (Boolean) nextOutcome;
 				if (Boolean.FALSE.equals(nextOutcomeAsBoolean)) {
 					ourLog.trace("callHooks({}) for invoker({}) returned false", thePointcut, nextInvoker);
@@ -310,73 +339,29 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 	@VisibleForTesting
 	List<Object> getInterceptorsWithInvokersForPointcut(POINTCUT thePointcut) {
-		return getInvokersForPointcut(thePointcut).stream()
+		return Arrays.stream(getInvokersForPointcut(thePointcut))
 				.map(BaseInvoker::getInterceptor)
 				.collect(Collectors.toList());
 	}
 
 	/**
-	 * Returns an ordered list of invokers for the given pointcut. Note that
-	 * a new and stable list is returned to.. do whatever you want with it.
+	 * Returns an ordered array of invokers for the given pointcut. The returned
+	 * array is a shared immutable snapshot and must not be modified.
 	 */
-	private List<BaseInvoker> getInvokersForPointcut(POINTCUT thePointcut) {
-		List<BaseInvoker> invokers;
-
-		synchronized (myRegistryMutex) {
-			List<BaseInvoker> globalInvokers = myGlobalInvokers.get(thePointcut);
-			List<BaseInvoker> anonymousInvokers = myAnonymousInvokers.get(thePointcut);
-			List<BaseInvoker> threadLocalInvokers = null;
-			invokers = union(globalInvokers, anonymousInvokers, threadLocalInvokers);
-		}
-
-		return invokers;
+	private BaseInvoker[] getInvokersForPointcut(POINTCUT thePointcut) {
+		BaseInvoker[] invokers = myInvokerSnapshot.get(thePointcut);
+		return invokers != null ? invokers : EMPTY_INVOKER_ARRAY;
 	}
 
 	/**
-	 * First argument must be the global invoker list!!
+	 * Returns a sorted union of the global and anonymous invoker lists. This is
+	 * only used when rebuilding the invoker snapshot.
 	 */
-	@SafeVarargs
-	private List<BaseInvoker> union(List<BaseInvoker>... theInvokersLists) {
-		List<BaseInvoker> haveOne = null;
-		boolean haveMultiple = false;
-		for (List<BaseInvoker> nextInvokerList : theInvokersLists) {
-			if (nextInvokerList == null || nextInvokerList.isEmpty()) {
-				continue;
-			}
-
-			if (haveOne == null) {
-				haveOne = nextInvokerList;
-			} else {
-				haveMultiple = true;
-			}
-		}
-
-		if (haveOne == null) {
-			return Collections.emptyList();
-		}
-
-		List<BaseInvoker> retVal;
-
-		if (!haveMultiple) {
-
-			// The global list doesn't need to be sorted every time since it's sorted on
-			// insertion each time. Doing so is a waste of cycles..
-			if (haveOne == theInvokersLists[0]) {
-				retVal = haveOne;
-			} else {
-				retVal = new ArrayList<>(haveOne);
-				retVal.sort(Comparator.naturalOrder());
-			}
-
-		} else {
-
-			retVal = Arrays.stream(theInvokersLists)
-					.filter(Objects::nonNull)
-					.flatMap(Collection::stream)
-					.sorted()
-					.collect(Collectors.toList());
-		}
-
+	private List<BaseInvoker> union(List<BaseInvoker> theGlobalInvokers, List<BaseInvoker> theAnonymousInvokers) {
+		List<BaseInvoker> retVal = new ArrayList<>(theGlobalInvokers.size() + theAnonymousInvokers.size());
+		retVal.addAll(theGlobalInvokers);
+		retVal.addAll(theAnonymousInvokers);
+		retVal.sort(Comparator.naturalOrder());
 		return retVal;
 	}
 
@@ -478,6 +463,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private class HookInvoker extends BaseInvoker {
 
 		private final Method myMethod;
+		private final MethodHandle myMethodHandle;
 		private final Class<?>[] myParameterTypes;
 		private final int[] myParameterIndexes;
 		private final POINTCUT myPointcut;
@@ -516,6 +502,28 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			}
 
 			myMethod.setAccessible(true);
+			myMethodHandle = createMethodHandle(theInterceptor, theHookMethod, myParameterTypes.length);
+		}
+
+		/**
+		 * Binds the hook method to the interceptor instance once at registration time
+		 * and adapts it to a uniform <code>(Object[])Object</code> shape so that it can
+		 * be called with {@link MethodHandle#invokeExact(Object...)}, which avoids the
+		 * access checks and argument boxing that {@link Method#invoke(Object, Object...)}
+		 * performs on every call.
+		 */
+		private MethodHandle createMethodHandle(Object theInterceptor, Method theHookMethod, int theParameterCount) {
+			MethodHandle retVal;
+			try {
+				retVal = MethodHandles.lookup().unreflect(theHookMethod).asFixedArity();
+			} catch (IllegalAccessException e) {
+				throw new InternalErrorException(Msg.code(1911) + "Unable to access hook method " + theHookMethod, e);
+			}
+			if (!Modifier.isStatic(theHookMethod.getModifiers())) {
+				retVal = retVal.bindTo(theInterceptor);
+			}
+			return retVal.asSpreader(Object[].class, theParameterCount)
+					.asType(MethodType.methodType(Object.class, Object[].class));
 		}
 
 		@Override
@@ -550,8 +558,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 			// Invoke the method
 			try {
 				return invokeMethod(args);
-			} catch (InvocationTargetException e) {
-				Throwable targetException = e.getTargetException();
+			} catch (Throwable targetException) {
 				if (myPointcut.isShouldLogAndSwallowException(targetException)) {
 					ourLog.error("Exception thrown by interceptor: " + targetException.toString(), targetException);
 					return null;
@@ -564,13 +571,11 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 							Msg.code(1910) + "Failure invoking interceptor for pointcut(s) " + getPointcut(),
 							targetException);
 				}
-			} catch (Exception e) {
-				throw new InternalErrorException(Msg.code(1911) + e);
 			}
 		}
 
 		@WithSpan("hapifhir.interceptor")
-		private Object invokeMethod(Object[] args) throws InvocationTargetException, IllegalAccessException {
+		private Object invokeMethod(Object[] args) throws Throwable {
 			// Add attributes to the opentelemetry span
 			Span currentSpan = Span.current();
 			currentSpan.setAttribute("hapifhir.interceptor.pointcut_name", myPointcut.name());
@@ -579,7 +584,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 					myMethod.getDeclaringClass().getName());
 			currentSpan.setAttribute("hapifhir.interceptor.method_name", myMethod.getName());
 
-			return myMethod.invoke(getInterceptor(), args);
+			return (Object) myMethodHandle.invokeExact(args);
 		}
 	}
 
@@ -26,10 +26,16 @@ import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.narrative2.BaseNarrativeGenerator;
 import ca.uhn.fhir.narrative2.INarrativeTemplate;
 import ca.uhn.fhir.narrative2.NarrativeGeneratorTemplateUtils;
+import ca.uhn.fhir.narrative2.NarrativeTemplateManifest;
 import ca.uhn.fhir.narrative2.TemplateTypeEnum;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
 import org.hl7.fhir.instance.model.api.IBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
@@ -57,19 +63,26 @@ import org.thymeleaf.templateresolver.ITemplateResolver;
 import org.thymeleaf.templateresource.ITemplateResource;
 import org.thymeleaf.templateresource.StringTemplateResource;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public abstract class BaseThymeleafNarrativeGenerator extends BaseNarrativeGenerator {
 
 	public static final String FHIRPATH = "fhirpath";
+	private static final Logger ourLog = LoggerFactory.getLogger(BaseThymeleafNarrativeGenerator.class);
+	private final Map<String, TemplateRenderStatistics> myTemplateRenderStatistics = new ConcurrentHashMap<>();
 	private IMessageResolver myMessageResolver;
 	private IFhirPathEvaluationContext myFhirPathEvaluationContext;
+	private volatile CachedTemplateEngine myTemplateEngine;
 
 	/**
 	 * Constructor
@@ -82,7 +95,28 @@ public abstract class BaseThymeleafNarrativeGenerator extends BaseNarrativeGener
 		myFhirPathEvaluationContext = theFhirPathEvaluationContext;
 	}
 
-	private TemplateEngine getTemplateEngine(FhirContext theFhirContext) {
+	/**
+	 * Returns the template engine for the given context. Engines are thread safe and are kept
+	 * on the generator, so that their cache of parsed templates is kept between narrative
+	 * generations. Only the most recently used engine is kept, so a generator never holds on
+	 * to more than one {@link FhirContext}. A new engine is created if the context, the manifest
+	 * or the message resolver changes.
+	 */
+	@VisibleForTesting
+	TemplateEngine getTemplateEngine(FhirContext theFhirContext) {
+		NarrativeTemplateManifest manifest = getManifest();
+		CachedTemplateEngine retVal = myTemplateEngine;
+		if (retVal == null || retVal.myFhirContext != theFhirContext || retVal.myManifest != manifest) {
+			ourLog.debug(
+					"Creating narrative template engine for FHIR version {}",
+					theFhirContext.getVersion().getVersion());
+			retVal = new CachedTemplateEngine(theFhirContext, manifest, newTemplateEngine(theFhirContext));
+			myTemplateEngine = retVal;
+		}
+		return retVal.myEngine;
+	}
+
+	private TemplateEngine newTemplateEngine(FhirContext theFhirContext) {
 		TemplateEngine engine = new TemplateEngine();
 		ITemplateResolver resolver = new NarrativeTemplateResolver(theFhirContext);
 		engine.setTemplateResolver(resolver);
@@ -114,7 +148,27 @@ public abstract class BaseThymeleafNarrativeGenerator extends BaseNarrativeGener
 		context.setVariable(
 				"fhirVersion", theFhirContext.getVersion().getVersion().name());
 
-		return getTemplateEngine(theFhirContext).process(theTemplate.getTemplateName(), context);
+		TemplateEngine engine = getTemplateEngine(theFhirContext);
+		String templateName = theTemplate.getTemplateName();
+		long start = System.nanoTime();
+		try {
+			return engine.process(templateName, context);
+		} finally {
+			myTemplateRenderStatistics
+					.computeIfAbsent(templateName, t -> new TemplateRenderStatistics())
+					.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Returns render time statistics for each template which has been applied by this generator,
+	 * keyed by template name. The time spent rendering a template includes the time spent rendering
+	 * any templates it applies to nested elements.
+	 *
+	 * @since 7.4.0
+	 */
+	public Map<String, TemplateRenderStatistics> getTemplateRenderStatistics() {
+		return Collections.unmodifiableMap(myTemplateRenderStatistics);
 	}
 
 	@Override
@@ -151,6 +205,67 @@ public abstract class BaseThymeleafNarrativeGenerator extends BaseNarrativeGener
 
 	public void setMessageResolver(IMessageResolver theMessageResolver) {
 		myMessageResolver = theMessageResolver;
+		myTemplateEngine = null;
+	}
+
+	private static class CachedTemplateEngine {
+		private final FhirContext myFhirContext;
+		private final NarrativeTemplateManifest myManifest;
+		private final TemplateEngine myEngine;
+
+		private CachedTemplateEngine(
+				FhirContext theFhirContext, NarrativeTemplateManifest theManifest, TemplateEngine theEngine) {
+			myFhirContext = theFhirContext;
+			myManifest = theManifest;
+			myEngine = theEngine;
+		}
+	}
+
+	/**
+	 * Render time statistics for a single narrative template
+	 *
+	 * @since 7.4.0
+	 */
+	public static class TemplateRenderStatistics {
+		private final LongAdder myRenderCount = new LongAdder();
+		private final LongAdder myTotalRenderNanos = new LongAdder();
+		private final AtomicLong myMaxRenderNanos = new AtomicLong();
+
+		private void record(long theRenderNanos) {
+			myRenderCount.increment();
+			myTotalRenderNanos.add(theRenderNanos);
+			myMaxRenderNanos.accumulateAndGet(theRenderNanos, Math::max);
+		}
+
+		/**
+		 * Returns the number of times the template has been rendered
+		 */
+		public long getRenderCount() {
+			return myRenderCount.sum();
+		}
+
+		/**
+		 * Returns the total time spent rendering the template, in nanoseconds
+		 */
+		public long getTotalRenderNanos() {
+			return myTotalRenderNanos.sum();
+		}
+
+		/**
+		 * Returns the longest time spent rendering the template once, in nanoseconds
+		 */
+		public long getMaxRenderNanos() {
+			return myMaxRenderNanos.get();
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+					.append("renderCount", getRenderCount())
+					.append("totalRenderNanos", getTotalRenderNanos())
+					.append("maxRenderNanos", getMaxRenderNanos())
+					.toString();
+		}
 	}
 
 	private class NarrativeTemplateResolver extends DefaultTemplateResolver {
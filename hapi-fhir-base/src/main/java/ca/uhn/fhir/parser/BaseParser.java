@@ -45,7 +45,6 @@ import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.MetaUtil;
 import ca.uhn.fhir.util.UrlUtil;
-import com.google.common.base.Charsets;
 import jakarta.annotation.Nullable;
 import org.apache.commons.io.output.StringBuilderWriter;
 import org.apache.commons.lang3.StringUtils;
@@ -80,6 +79,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -283,6 +283,15 @@ public abstract class BaseParser implements IParser {
 	protected abstract <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader)
 			throws DataFormatException;
 
+	/**
+	 * Parses a UTF-8 encoded resource. Parsers which can work with the raw bytes may override
+	 * this, by default the stream is decoded and passed to {@link #doParseResource(Class, Reader)}.
+	 */
+	protected <T extends IBaseResource> T doParseResource(Class<T> theResourceType, InputStream theInputStream)
+			throws DataFormatException {
+		return doParseResource(theResourceType, new InputStreamReader(theInputStream, Constants.CHARSET_UTF8));
+	}
+
 	@Override
 	public String encodeResourceToString(IBaseResource theResource) throws DataFormatException {
 		Writer stringWriter = new StringBuilderWriter();
@@ -658,13 +667,25 @@ public abstract class BaseParser implements IParser {
 
 	@Override
 	public IBaseResource parseResource(InputStream theInputStream) throws DataFormatException {
-		return parseResource(new InputStreamReader(theInputStream, Charsets.UTF_8));
+		return parseResource(null, theInputStream);
 	}
 
 	@Override
 	public <T extends IBaseResource> T parseResource(Class<T> theResourceType, InputStream theInputStream)
 			throws DataFormatException {
-		return parseResource(theResourceType, new InputStreamReader(theInputStream, Constants.CHARSET_UTF8));
+
+		/*
+		 * We do this so that the context can verify that the structure is for
+		 * the correct FHIR version
+		 */
+		if (theResourceType != null) {
+			myContext.getResourceDefinition(theResourceType);
+		}
+
+		// Actually do the parse
+		T retVal = doParseResource(theResourceType, theInputStream);
+
+		return postProcessParsedResource(retVal);
 	}
 
 	@Override
@@ -682,6 +703,10 @@ public abstract class BaseParser implements IParser {
 		// Actually do the parse
 		T retVal = doParseResource(theResourceType, theReader);
 
+		return postProcessParsedResource(retVal);
+	}
+
+	private <T extends IBaseResource> T postProcessParsedResource(T retVal) {
 		RuntimeResourceDefinition def = myContext.getResourceDefinition(retVal);
 		if ("Bundle".equals(def.getName())) {
 
@@ -748,6 +773,43 @@ public abstract class BaseParser implements IParser {
 		return parseResource(null, theMessageString);
 	}
 
+	@Override
+	public IBaseBundle parseBundleEntries(Reader theReader, Consumer<IBase> theEntryConsumer)
+			throws DataFormatException {
+		Validate.notNull(theEntryConsumer, "theEntryConsumer must not be null");
+
+		RuntimeResourceDefinition bundleDef = myContext.getResourceDefinition("Bundle");
+		BaseRuntimeChildDefinition entryChild = bundleDef.getChildByName("entry");
+		@SuppressWarnings("unchecked")
+		Class<? extends IBaseBundle> bundleType = (Class<? extends IBaseBundle>) bundleDef.getImplementingClass();
+
+		IBaseBundle retVal = doParseBundleEntries(bundleType, theReader, entryBundle -> {
+			postProcessParsedResource(entryBundle);
+			for (IBase nextEntry : entryChild.getAccessor().getValues(entryBundle)) {
+				theEntryConsumer.accept(nextEntry);
+			}
+		});
+
+		return postProcessParsedResource(retVal);
+	}
+
+	/**
+	 * Parses a Bundle for {@link #parseBundleEntries(Reader, Consumer)}. Each entry is passed to
+	 * <code>theEntryBundleConsumer</code> inside a Bundle of its own, and the returned Bundle holds
+	 * the remaining top-level elements. This default implementation parses the complete Bundle
+	 * and then hands over all of its entries at once, so parsers which are able to read their
+	 * format incrementally should override it.
+	 *
+	 * @since 7.4.0
+	 */
+	protected <T extends IBaseBundle> T doParseBundleEntries(
+			Class<T> theBundleType, Reader theReader, Consumer<T> theEntryBundleConsumer) {
+		T retVal = doParseResource(theBundleType, theReader);
+		theEntryBundleConsumer.accept(retVal);
+		myContext.getResourceDefinition(retVal).getChildByName("entry").getMutator().setValue(retVal, null);
+		return retVal;
+	}
+
 	protected List<? extends IBase> preProcessValues(
 			BaseRuntimeChildDefinition theMetaChildUncast,
 			IBaseResource theResource,
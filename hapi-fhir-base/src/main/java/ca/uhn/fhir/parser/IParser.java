@@ -26,6 +26,7 @@ import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
@@ -36,6 +37,7 @@ import java.io.Writer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * A parser, which can be used to convert between HAPI FHIR model/structure objects, and their respective String wire
@@ -276,6 +278,32 @@ public interface IParser {
 	 */
 	IBaseResource parseResource(String theMessageString) throws ConfigurationException, DataFormatException;
 
+	/**
+	 * Parses a Bundle, passing each <code>Bundle.entry</code> to the given consumer as soon as it has
+	 * been read instead of building the complete Bundle in memory first. This allows very large
+	 * Bundles (e.g. transaction or batch Bundles used for bulk loading) to be processed using an
+	 * amount of memory proportional to the largest entry rather than to the whole Bundle.
+	 * <p>
+	 * Each entry is passed to the consumer as an instance of the structure's Bundle entry type
+	 * (e.g. <code>Bundle.BundleEntryComponent</code> for R4). Entries are not retained by the parser
+	 * after they have been passed to the consumer. The returned Bundle contains all of the other
+	 * top-level elements (e.g. <code>Bundle.type</code>) but no entries. Note that elements which
+	 * appear after the entries in the source document will only be available in the returned Bundle,
+	 * not while the entries are being consumed.
+	 * </p>
+	 * <p>
+	 * Parsers which can not read their format incrementally parse the complete Bundle and then
+	 * pass its entries to the consumer.
+	 * </p>
+	 *
+	 * @param theReader        The reader to parse input from. Note that the Reader will not be closed by the parser upon completion.
+	 * @param theEntryConsumer Receives each entry in document order
+	 * @return The Bundle, without its entries
+	 * @throws DataFormatException If the resource can not be parsed because the data is not recognized or invalid for any reason
+	 * @since 7.4.0
+	 */
+	IBaseBundle parseBundleEntries(Reader theReader, Consumer<IBase> theEntryConsumer) throws DataFormatException;
+
 	/**
 	 * If provided, specifies the elements which should NOT be encoded. Valid values for this
 	 * field would include:
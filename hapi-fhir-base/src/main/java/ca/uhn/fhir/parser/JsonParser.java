@@ -59,6 +59,7 @@ import org.apache.commons.lang3.Validate;
 import org.apache.commons.text.WordUtils;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBooleanDatatype;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseDecimalDatatype;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
 import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
@@ -71,6 +72,7 @@ import org.hl7.fhir.instance.model.api.INarrative;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.math.BigDecimal;
@@ -79,6 +81,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.ID_DATATYPE;
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.PRIMITIVE_DATATYPE;
@@ -244,6 +247,41 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	@Override
+	protected <T extends IBaseResource> T doParseResource(Class<T> theResourceType, InputStream theInputStream) {
+		JacksonStructure jsonStructure = new JacksonStructure();
+		jsonStructure.load(theInputStream);
+
+		T retVal = doParseResource(theResourceType, jsonStructure);
+
+		return retVal;
+	}
+
+	/**
+	 * Streams the <code>entry</code> array so that each entry is parsed into its own Bundle as soon
+	 * as it has been read, without loading the other entries
+	 */
+	@Override
+	protected <T extends IBaseBundle> T doParseBundleEntries(
+			Class<T> theBundleType, Reader theReader, Consumer<T> theEntryBundleConsumer) {
+		String bundleTypeName = getContext().getResourceDefinition(theBundleType).getName();
+
+		JacksonStructure jsonStructure = new JacksonStructure();
+		jsonStructure.loadStreaming(theReader, "entry", entry -> {
+			ParserState<T> state =
+					ParserState.getPreResourceInstance(this, theBundleType, getContext(), true, getErrorHandler());
+			state.enteringNewElement(null, bundleTypeName);
+
+			parseChildren(state, "entry", entry, null, null, true);
+
+			state.endingElement();
+			state.endingElement();
+			theEntryBundleConsumer.accept(state.getObject());
+		});
+
+		return doParseResource(theBundleType, jsonStructure);
+	}
+
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, JsonLikeStructure theJsonStructure) {
 		BaseJsonLikeObject object = theJsonStructure.getRootObject();
 
@@ -49,6 +49,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseDatatype;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
 import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
@@ -62,11 +63,14 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import javax.xml.namespace.QName;
 import javax.xml.stream.FactoryConfigurationError;
+import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -91,6 +95,7 @@ public class XmlParser extends BaseParser {
 	static final String FHIR_NS = "http://hl7.org/fhir";
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(XmlParser.class);
 	private boolean myPrettyPrint;
+	private XMLEventFactory myEventFactory;
 
 	/**
 	 * Do not use this constructor, the recommended way to obtain a new instance of the XML parser is to invoke
@@ -179,94 +184,176 @@ public class XmlParser extends BaseParser {
 
 			while (streamReader.hasNext()) {
 				XMLEvent nextEvent = streamReader.nextEvent();
-				try {
-
-					switch (nextEvent.getEventType()) {
-						case XMLStreamConstants.START_ELEMENT: {
-							StartElement elem = nextEvent.asStartElement();
-
-							String namespaceURI = elem.getName().getNamespaceURI();
-
-							String localPart = elem.getName().getLocalPart();
-							if ("extension".equals(localPart)) {
-								Attribute urlAttr = elem.getAttributeByName(new QName("url"));
-								String url;
-								if (urlAttr == null || isBlank(urlAttr.getValue())) {
-									getErrorHandler()
-											.missingRequiredElement(
-													new ParseLocation().setParentElementName("extension"), "url");
-									url = null;
-								} else {
-									url = urlAttr.getValue();
-								}
-								parserState.enteringNewElementExtension(elem, url, false, getServerBaseUrl());
-							} else if ("modifierExtension".equals(localPart)) {
-								Attribute urlAttr = elem.getAttributeByName(new QName("url"));
-								String url;
-								if (urlAttr == null || isBlank(urlAttr.getValue())) {
-									getErrorHandler()
-											.missingRequiredElement(
-													new ParseLocation().setParentElementName("modifierExtension"),
-													"url");
-									url = null;
-								} else {
-									url = urlAttr.getValue();
-								}
-								parserState.enteringNewElementExtension(elem, url, true, getServerBaseUrl());
-							} else {
-								parserState.enteringNewElement(namespaceURI, localPart);
-							}
-
-							if (!heldComments.isEmpty()) {
-								for (String next : heldComments) {
-									parserState.commentPre(next);
-								}
-								heldComments.clear();
-							}
-
-							for (Iterator<Attribute> attributes = elem.getAttributes(); attributes.hasNext(); ) {
-								Attribute next = attributes.next();
-								parserState.attributeValue(next.getName().getLocalPart(), next.getValue());
-							}
+				handleXmlEvent(nextEvent, parserState, heldComments);
+			}
+			return parserState.getObject();
+		} catch (XMLStreamException e) {
+			throw new DataFormatException(Msg.code(1852) + e);
+		}
+	}
 
-							break;
+	private void handleXmlEvent(XMLEvent theEvent, ParserState<?> theParserState, List<String> theHeldComments) {
+		try {
+			switch (theEvent.getEventType()) {
+				case XMLStreamConstants.START_ELEMENT: {
+					StartElement elem = theEvent.asStartElement();
+
+					String namespaceURI = elem.getName().getNamespaceURI();
+
+					String localPart = elem.getName().getLocalPart();
+					if ("extension".equals(localPart)) {
+						Attribute urlAttr = elem.getAttributeByName(new QName("url"));
+						String url;
+						if (urlAttr == null || isBlank(urlAttr.getValue())) {
+							getErrorHandler()
+									.missingRequiredElement(
+											new ParseLocation().setParentElementName("extension"), "url");
+							url = null;
+						} else {
+							url = urlAttr.getValue();
 						}
-						case XMLStreamConstants.END_DOCUMENT:
-						case XMLStreamConstants.END_ELEMENT: {
-							if (!heldComments.isEmpty()) {
-								for (String next : heldComments) {
-									parserState.commentPost(next);
-								}
-								heldComments.clear();
-							}
-							parserState.endingElement();
-							break;
+						theParserState.enteringNewElementExtension(elem, url, false, getServerBaseUrl());
+					} else if ("modifierExtension".equals(localPart)) {
+						Attribute urlAttr = elem.getAttributeByName(new QName("url"));
+						String url;
+						if (urlAttr == null || isBlank(urlAttr.getValue())) {
+							getErrorHandler()
+									.missingRequiredElement(
+											new ParseLocation().setParentElementName("modifierExtension"), "url");
+							url = null;
+						} else {
+							url = urlAttr.getValue();
 						}
-						case XMLStreamConstants.CHARACTERS: {
-							parserState.string(nextEvent.asCharacters().getData());
-							break;
+						theParserState.enteringNewElementExtension(elem, url, true, getServerBaseUrl());
+					} else {
+						theParserState.enteringNewElement(namespaceURI, localPart);
+					}
+
+					if (!theHeldComments.isEmpty()) {
+						for (String next : theHeldComments) {
+							theParserState.commentPre(next);
 						}
-						case XMLStreamConstants.COMMENT: {
-							Comment comment = (Comment) nextEvent;
-							String commentText = comment.getText();
-							heldComments.add(commentText);
-							break;
+						theHeldComments.clear();
+					}
+
+					for (Iterator<Attribute> attributes = elem.getAttributes(); attributes.hasNext(); ) {
+						Attribute next = attributes.next();
+						theParserState.attributeValue(next.getName().getLocalPart(), next.getValue());
+					}
+
+					break;
+				}
+				case XMLStreamConstants.END_DOCUMENT:
+				case XMLStreamConstants.END_ELEMENT: {
+					if (!theHeldComments.isEmpty()) {
+						for (String next : theHeldComments) {
+							theParserState.commentPost(next);
 						}
+						theHeldComments.clear();
 					}
+					theParserState.endingElement();
+					break;
+				}
+				case XMLStreamConstants.CHARACTERS: {
+					theParserState.string(theEvent.asCharacters().getData());
+					break;
+				}
+				case XMLStreamConstants.COMMENT: {
+					Comment comment = (Comment) theEvent;
+					String commentText = comment.getText();
+					theHeldComments.add(commentText);
+					break;
+				}
+			}
+
+			theParserState.xmlEvent(theEvent);
+
+		} catch (DataFormatException e) {
+			throw new DataFormatException(
+					Msg.code(1851) + "DataFormatException at [" + theEvent.getLocation() + "]: " + e.getMessage(), e);
+		}
+	}
 
-					parserState.xmlEvent(nextEvent);
+	/**
+	 * Reads the root element and its direct children as usual, except for <code>entry</code>
+	 * children, which are each parsed into a Bundle of their own as soon as their end tag has been
+	 * read and then passed to the consumer
+	 */
+	@Override
+	protected <T extends IBaseBundle> T doParseBundleEntries(
+			Class<T> theBundleType, Reader theReader, Consumer<T> theEntryBundleConsumer) {
+		XMLEventReader streamReader = createStreamReader(theReader);
+		ParserState<T> parserState =
+				ParserState.getPreResourceInstance(this, theBundleType, getContext(), false, getErrorHandler());
+
+		try {
+			List<String> heldComments = new ArrayList<>(1);
+			StartElement rootElement = null;
+			int depth = 0;
 
-				} catch (DataFormatException e) {
-					throw new DataFormatException(
-							Msg.code(1851) + "DataFormatException at ["
-									+ nextEvent.getLocation().toString() + "]: " + e.getMessage(),
-							e);
+			while (streamReader.hasNext()) {
+				XMLEvent nextEvent = streamReader.nextEvent();
+				if (nextEvent.isStartElement()) {
+					StartElement elem = nextEvent.asStartElement();
+					if (depth == 0) {
+						rootElement = elem;
+					} else if (depth == 1 && "entry".equals(elem.getName().getLocalPart())) {
+						theEntryBundleConsumer.accept(parseBundleEntry(theBundleType, streamReader, rootElement, elem));
+						continue;
+					}
+					depth++;
+				} else if (nextEvent.isEndElement()) {
+					depth--;
 				}
+				handleXmlEvent(nextEvent, parserState, heldComments);
 			}
 			return parserState.getObject();
 		} catch (XMLStreamException e) {
-			throw new DataFormatException(Msg.code(1852) + e);
+			throw new DataFormatException(Msg.code(2556) + e);
+		}
+	}
+
+	/**
+	 * Parses a single <code>Bundle.entry</code> whose start tag has just been read, by replaying the
+	 * Bundle start tag, the entry, and a synthetic Bundle end tag into a fresh parser state
+	 */
+	private <T extends IBaseBundle> T parseBundleEntry(
+			Class<T> theBundleType,
+			XMLEventReader theStreamReader,
+			StartElement theRootElement,
+			StartElement theEntryElement)
+			throws XMLStreamException {
+		ParserState<T> parserState =
+				ParserState.getPreResourceInstance(this, theBundleType, getContext(), false, getErrorHandler());
+		List<String> heldComments = new ArrayList<>(1);
+		handleXmlEvent(theRootElement, parserState, heldComments);
+		handleXmlEvent(theEntryElement, parserState, heldComments);
+
+		int depth = 1;
+		while (depth > 0) {
+			XMLEvent nextEvent = theStreamReader.nextEvent();
+			if (nextEvent.isStartElement()) {
+				depth++;
+			} else if (nextEvent.isEndElement()) {
+				depth--;
+			}
+			handleXmlEvent(nextEvent, parserState, heldComments);
+		}
+
+		XMLEventFactory eventFactory = getOrCreateEventFactory();
+		handleXmlEvent(
+				eventFactory.createEndElement(theRootElement.getName(), Collections.emptyIterator()),
+				parserState,
+				heldComments);
+		handleXmlEvent(eventFactory.createEndDocument(), parserState, heldComments);
+		return parserState.getObject();
+	}
+
+	private XMLEventFactory getOrCreateEventFactory() {
+		if (myEventFactory == null) {
+			myEventFactory = XMLEventFactory.newInstance();
 		}
+		return myEventFactory;
 	}
 
 	private void encodeChildElementToStreamWriter(
@@ -26,9 +26,11 @@ import ca.uhn.fhir.parser.json.BaseJsonLikeObject;
 import ca.uhn.fhir.parser.json.BaseJsonLikeValue;
 import ca.uhn.fhir.parser.json.BaseJsonLikeWriter;
 import ca.uhn.fhir.parser.json.JsonLikeStructure;
+import ca.uhn.fhir.util.Utf8OutputStreamWriter;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -41,6 +43,9 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.io.PushbackReader;
 import java.io.Reader;
 import java.io.Writer;
@@ -50,6 +55,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class JacksonStructure implements JsonLikeStructure {
 
@@ -82,79 +88,170 @@ public class JacksonStructure implements JsonLikeStructure {
 	@Override
 	public void load(Reader theReader, boolean allowArray) throws DataFormatException {
 		PushbackReader pbr = new PushbackReader(theReader);
-		int nextInt;
 		try {
-			while (true) {
-				nextInt = pbr.read();
-				if (nextInt == -1) {
-					throw new DataFormatException(Msg.code(1857) + "Did not find any content to parse");
-				}
-				if (nextInt == '{') {
-					pbr.unread(nextInt);
-					break;
-				}
-				if (Character.isWhitespace(nextInt)) {
-					continue;
-				}
-				if (allowArray) {
-					if (nextInt == '[') {
-						pbr.unread(nextInt);
-						break;
+			int nextInt = readFirstToken(pbr::read, allowArray);
+			pbr.unread(nextInt);
+			setNativeNode(nextInt, OBJECT_MAPPER.readTree(pbr));
+		} catch (Exception e) {
+			throw toDataFormatException(e);
+		}
+	}
+
+	/**
+	 * Loads UTF-8 encoded JSON from a byte stream. This avoids decoding the content into
+	 * characters before it reaches Jackson, which parses bytes directly.
+	 */
+	public void load(InputStream theInputStream) throws DataFormatException {
+		load(theInputStream, false);
+	}
+
+	/**
+	 * Loads UTF-8 encoded JSON from a byte stream. This avoids decoding the content into
+	 * characters before it reaches Jackson, which parses bytes directly.
+	 */
+	public void load(InputStream theInputStream, boolean allowArray) throws DataFormatException {
+		PushbackInputStream pbis = new PushbackInputStream(theInputStream);
+		try {
+			int nextInt = readFirstToken(pbis::read, allowArray);
+			pbis.unread(nextInt);
+			setNativeNode(nextInt, OBJECT_MAPPER.readTree(pbis));
+		} catch (Exception e) {
+			throw toDataFormatException(e);
+		}
+	}
+
+	/**
+	 * Loads a JSON object without materializing the items of one of its top-level arrays. Each item
+	 * of the array named <code>theStreamedArrayName</code> is passed to <code>theItemConsumer</code>
+	 * as soon as it has been read and is then discarded, so that only one item needs to be held in
+	 * memory at a time. All other top-level properties are loaded into this structure as usual.
+	 *
+	 * @since 7.4.0
+	 */
+	public void loadStreaming(
+			Reader theReader, String theStreamedArrayName, Consumer<BaseJsonLikeValue> theItemConsumer)
+			throws DataFormatException {
+		PushbackReader pbr = new PushbackReader(theReader);
+		try {
+			int nextInt = readFirstToken(pbr::read, false);
+			pbr.unread(nextInt);
+
+			ObjectNode root = OBJECT_MAPPER.createObjectNode();
+			try (JsonParser parser = OBJECT_MAPPER.createParser(pbr)) {
+				parser.nextToken();
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String name = parser.currentName();
+					JsonToken valueToken = parser.nextToken();
+					if (theStreamedArrayName.equals(name) && valueToken == JsonToken.START_ARRAY) {
+						while (parser.nextToken() != JsonToken.END_ARRAY) {
+							JsonNode item = OBJECT_MAPPER.readTree(parser);
+							theItemConsumer.accept(new JacksonJsonValue(item));
+						}
+					} else {
+						root.set(name, OBJECT_MAPPER.readTree(parser));
 					}
-					throw new DataFormatException(Msg.code(1858)
-							+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
-							+ (char) nextInt + "' (must be '{' or '[')");
 				}
-				throw new DataFormatException(Msg.code(1859)
-						+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
-						+ (char) nextInt + "' (must be '{')");
+				if (parser.nextToken() != null) {
+					throw new DataFormatException(Msg.code(2551) + "Failed to parse JSON encoded FHIR content: "
+							+ "Unexpected content after the end of the root object");
+				}
 			}
 
+			setNativeObject(root);
+		} catch (IOException e) {
+			throw toDataFormatException(e);
+		}
+	}
+
+	private void setNativeNode(int theFirstToken, JsonNode theNode) {
+		if (theFirstToken == '{') {
+			setNativeObject((ObjectNode) theNode);
+		} else {
+			setNativeArray((ArrayNode) theNode);
+		}
+	}
+
+	/**
+	 * Skips leading whitespace and returns the first token, which must be the start of an object
+	 * (or an array if allowed). The whitespace and token checks only involve ASCII characters,
+	 * so this works the same whether the source returns characters or UTF-8 bytes.
+	 */
+	private static int readFirstToken(ITokenSource theSource, boolean allowArray) throws IOException {
+		while (true) {
+			int nextInt = theSource.read();
+			if (nextInt == -1) {
+				throw new DataFormatException(Msg.code(1857) + "Did not find any content to parse");
+			}
 			if (nextInt == '{') {
-				setNativeObject((ObjectNode) OBJECT_MAPPER.readTree(pbr));
-			} else {
-				setNativeArray((ArrayNode) OBJECT_MAPPER.readTree(pbr));
+				return nextInt;
 			}
-		} catch (Exception e) {
-			String message;
-			if (e instanceof JsonProcessingException) {
-				/*
-				 * Currently there is no way of preventing Jackson from adding this
-				 * annoying REDACTED message from certain messages we get back from
-				 * the parser, so we just manually strip them. Hopefully Jackson
-				 * will accept this request at some point:
-				 * https://github.com/FasterXML/jackson-core/issues/1158
-				 */
-				JsonProcessingException jpe = (JsonProcessingException) e;
-				StringBuilder messageBuilder = new StringBuilder();
-				String originalMessage = jpe.getOriginalMessage();
-				originalMessage = originalMessage.replace(
-						"Source: REDACTED (`StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION` disabled); ", "");
-				messageBuilder.append(originalMessage);
-				if (jpe.getLocation() != null) {
-					messageBuilder.append("\n at [");
-					jpe.getLocation().appendOffsetDescription(messageBuilder);
-					messageBuilder.append("]");
+			if (Character.isWhitespace(nextInt)) {
+				continue;
+			}
+			if (allowArray) {
+				if (nextInt == '[') {
+					return nextInt;
 				}
-				message = messageBuilder.toString();
-			} else {
-				message = e.getMessage();
+				throw new DataFormatException(Msg.code(1858)
+						+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
+						+ (char) nextInt + "' (must be '{' or '[')");
 			}
+			throw new DataFormatException(Msg.code(1859)
+					+ "Content does not appear to be FHIR JSON, first non-whitespace character was: '"
+					+ (char) nextInt + "' (must be '{')");
+		}
+	}
 
-			if (message.startsWith("Unexpected char 39")) {
-				throw new DataFormatException(
-						Msg.code(1860) + "Failed to parse JSON encoded FHIR content: " + message + " - "
-								+ "This may indicate that single quotes are being used as JSON escapes where double quotes are required",
-						e);
+	private static DataFormatException toDataFormatException(Exception e) {
+		String message;
+		if (e instanceof JsonProcessingException) {
+			/*
+			 * Currently there is no way of preventing Jackson from adding this
+			 * annoying REDACTED message from certain messages we get back from
+			 * the parser, so we just manually strip them. Hopefully Jackson
+			 * will accept this request at some point:
+			 * https://github.com/FasterXML/jackson-core/issues/1158
+			 */
+			JsonProcessingException jpe = (JsonProcessingException) e;
+			StringBuilder messageBuilder = new StringBuilder();
+			String originalMessage = jpe.getOriginalMessage();
+			originalMessage = originalMessage.replace(
+					"Source: REDACTED (`StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION` disabled); ", "");
+			messageBuilder.append(originalMessage);
+			if (jpe.getLocation() != null) {
+				messageBuilder.append("\n at [");
+				jpe.getLocation().appendOffsetDescription(messageBuilder);
+				messageBuilder.append("]");
 			}
-			throw new DataFormatException(Msg.code(1861) + "Failed to parse JSON encoded FHIR content: " + message, e);
+			message = messageBuilder.toString();
+		} else {
+			message = e.getMessage();
+		}
+
+		if (message.startsWith("Unexpected char 39")) {
+			return new DataFormatException(
+					Msg.code(1860) + "Failed to parse JSON encoded FHIR content: " + message + " - "
+							+ "This may indicate that single quotes are being used as JSON escapes where double quotes are required",
+					e);
 		}
+		return new DataFormatException(Msg.code(1861) + "Failed to parse JSON encoded FHIR content: " + message, e);
+	}
+
+	@FunctionalInterface
+	private interface ITokenSource {
+		int read() throws IOException;
 	}
 
 	@Override
 	public BaseJsonLikeWriter getJsonLikeWriter(Writer writer) throws IOException {
 		if (null == jacksonWriter) {
-			jacksonWriter = new JacksonWriter(OBJECT_MAPPER.getFactory(), writer);
+			if (writer instanceof Utf8OutputStreamWriter) {
+				// Let Jackson generate UTF-8 bytes directly instead of going through the writer's encoder
+				OutputStream outputStream = ((Utf8OutputStreamWriter) writer).getOutputStream();
+				jacksonWriter = new JacksonWriter(OBJECT_MAPPER.getFactory(), outputStream, writer);
+			} else {
+				jacksonWriter = new JacksonWriter(OBJECT_MAPPER.getFactory(), writer);
+			}
 		}
 
 		return jacksonWriter;
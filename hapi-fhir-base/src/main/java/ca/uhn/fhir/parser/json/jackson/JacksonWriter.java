@@ -20,6 +20,7 @@
 package ca.uhn.fhir.parser.json.jackson;
 
 import ca.uhn.fhir.parser.json.BaseJsonLikeWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
@@ -27,6 +28,7 @@ import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.core.util.Separators;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -40,6 +42,19 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 		setWriter(theWriter);
 	}
 
+	/**
+	 * Constructor which generates UTF-8 bytes directly into the given stream
+	 *
+	 * @param theOutputStream The stream to write to
+	 * @param theWriter       A writer which is backed by the same stream
+	 * @since 7.4.0
+	 */
+	public JacksonWriter(JsonFactory theJsonFactory, OutputStream theOutputStream, Writer theWriter)
+			throws IOException {
+		myJsonGenerator = theJsonFactory.createGenerator(theOutputStream, JsonEncoding.UTF8);
+		setWriter(theWriter);
+	}
+
 	public JacksonWriter() {}
 
 	@Override
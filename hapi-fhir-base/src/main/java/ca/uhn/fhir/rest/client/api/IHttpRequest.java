@@ -22,6 +22,7 @@ package ca.uhn.fhir.rest.client.api;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Http Request. Allows addition of headers and execution of the request.
@@ -43,6 +44,26 @@ public interface IHttpRequest {
 	 */
 	IHttpResponse execute() throws IOException;
 
+	/**
+	 * Execute the request without blocking the calling thread. The default implementation
+	 * simply calls {@link #execute()} on the calling thread and returns an already completed
+	 * future, so implementations backed by an HTTP client with a non-blocking API should
+	 * override this method.
+	 *
+	 * @return a future which completes with the response, or exceptionally with the
+	 * {@link IOException} or other failure which caused the request to fail
+	 * @since 7.4.0
+	 */
+	default CompletableFuture<IHttpResponse> executeAsync() {
+		CompletableFuture<IHttpResponse> retVal = new CompletableFuture<>();
+		try {
+			retVal.complete(execute());
+		} catch (Exception e) {
+			retVal.completeExceptionally(e);
+		}
+		return retVal;
+	}
+
 	/**
 	 * @return all request headers in lower case. Note that this method
 	 * returns an <b>immutable</b> Map
@@ -26,6 +26,7 @@ import ca.uhn.fhir.rest.api.SummaryEnum;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IClientExecutable<T extends IClientExecutable<?, Y>, Y> {
 
@@ -106,6 +107,42 @@ public interface IClientExecutable<T extends IClientExecutable<?, Y>, Y> {
 	 */
 	Y execute();
 
+	/**
+	 * Execute the client operation without blocking the calling thread while waiting for the
+	 * server to respond. The request is sent using the non-blocking API of the underlying HTTP
+	 * client where it has one (see <code>ca.uhn.fhir.rest.client.jdk.JdkRestfulClientFactory</code>),
+	 * and the returned future completes once the response has been received and parsed. Failures
+	 * which would be thrown by {@link #execute()} complete the future exceptionally instead.
+	 * <p>
+	 * With the JDK client, the response is parsed on a thread belonging to the executor of the
+	 * native <code>java.net.http.HttpClient</code>. Unless one is configured, this is the JDK
+	 * client's default executor, which is an unbounded cached thread pool. Applications issuing
+	 * many concurrent requests should supply a bounded executor by overriding
+	 * <code>JdkRestfulClientFactory#getHttpClientBuilder()</code> and calling
+	 * <code>executor(..)</code> on the returned builder.
+	 * </p>
+	 * <p>
+	 * The JDK client also reads the entire body of an asynchronous response into memory before
+	 * it is parsed, whereas {@link #execute()} parses the body as it arrives. Memory use therefore
+	 * grows with the number of requests in flight and the size of their responses, so applications
+	 * issuing many concurrent requests for large responses should limit how many are outstanding.
+	 * </p>
+	 * <p>
+	 * The default implementation calls {@link #execute()} on the calling thread.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	default CompletableFuture<Y> executeAsync() {
+		CompletableFuture<Y> retVal = new CompletableFuture<>();
+		try {
+			retVal.complete(execute());
+		} catch (RuntimeException e) {
+			retVal.completeExceptionally(e);
+		}
+		return retVal;
+	}
+
 	/**
 	 * Explicitly specify a custom structure type to attempt to use when parsing the response. This
 	 * is useful for invocations where the response is a Bundle/Parameters containing nested resources,
@@ -0,0 +1,80 @@
+/*-
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A UTF-8 {@link OutputStreamWriter} which gives encoders that are able to produce UTF-8
+ * bytes themselves (such as the JSON parser) access to the underlying stream, so that they
+ * can skip the intermediate character to byte conversion.
+ *
+ * @since 7.4.0
+ */
+public class Utf8OutputStreamWriter extends OutputStreamWriter {
+
+	private final OutputStream myOutputStream;
+	private boolean myHaveWrittenChars;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theOutputStream The stream to write to
+	 */
+	public Utf8OutputStreamWriter(OutputStream theOutputStream) {
+		super(theOutputStream, StandardCharsets.UTF_8);
+		myOutputStream = theOutputStream;
+	}
+
+	/**
+	 * Returns the underlying stream. Any characters which have already been written to this
+	 * writer are flushed to the stream first, so bytes written to the returned stream will
+	 * follow them. Callers must not interleave writes to this writer and to the returned stream
+	 * without calling this method again.
+	 */
+	public OutputStream getOutputStream() throws IOException {
+		if (myHaveWrittenChars) {
+			flush();
+			myHaveWrittenChars = false;
+		}
+		return myOutputStream;
+	}
+
+	@Override
+	public void write(int theChar) throws IOException {
+		myHaveWrittenChars = true;
+		super.write(theChar);
+	}
+
+	@Override
+	public void write(char[] theChars, int theOffset, int theLength) throws IOException {
+		myHaveWrittenChars = true;
+		super.write(theChars, theOffset, theLength);
+	}
+
+	@Override
+	public void write(String theString, int theOffset, int theLength) throws IOException {
+		myHaveWrittenChars = true;
+		super.write(theString, theOffset, theLength);
+	}
+}
@@ -429,6 +429,33 @@ public class InterceptorServiceTest {
 	}
 
 
+	@Test
+	public void testRegisterInterceptorWhileInvokingHooks() {
+		InterceptorService svc = new InterceptorService();
+
+		MyTestInterceptorManual manualInterceptor = new MyTestInterceptorManual();
+
+		@Interceptor(order = 100)
+		class RegisteringInterceptor {
+			@Hook(Pointcut.TEST_RB)
+			public void testRb() {
+				myInvocations.add("RegisteringInterceptor.testRb");
+				svc.registerInterceptor(manualInterceptor);
+			}
+		}
+		svc.registerInterceptor(new RegisteringInterceptor());
+
+		HookParams params = new HookParams("A", "B");
+
+		// The interceptor registered during the call should not be invoked until the next call
+		assertTrue(svc.callHooks(Pointcut.TEST_RB, params));
+		assertThat(myInvocations, contains("RegisteringInterceptor.testRb"));
+
+		myInvocations.clear();
+		assertTrue(svc.callHooks(Pointcut.TEST_RB, params));
+		assertThat(myInvocations, contains("RegisteringInterceptor.testRb", "MyTestInterceptorManual.testRb"));
+	}
+
 	@Test
 	public void testCallHooksInvokedWithWrongParameters() {
 		InterceptorService svc = new InterceptorService();
@@ -0,0 +1,126 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.ContactPoint;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.DateType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+
+/**
+ * Builds the representative R4 resources which are used as input by the benchmarks
+ * in this module. Resources are built in code rather than loaded from files so that
+ * every run uses exactly the same content.
+ */
+public class BenchmarkResources {
+
+	private BenchmarkResources() {
+		// nothing
+	}
+
+	public static Patient newPatient(int theIndex) {
+		Patient retVal = new Patient();
+		retVal.setId("Patient/P" + theIndex);
+		retVal.getMeta().setVersionId("1").addProfile("http://hl7.org/fhir/us/core/StructureDefinition/us-core-patient");
+		retVal.getText().setStatus(Narrative.NarrativeStatus.GENERATED).setDivAsString("<div>Patient " + theIndex + "</div>");
+		retVal.addExtension("http://hl7.org/fhir/us/core/StructureDefinition/us-core-birthsex", new StringType("F"));
+		retVal.addIdentifier()
+				.setUse(Identifier.IdentifierUse.OFFICIAL)
+				.setSystem("http://hospital.example.org/mrn")
+				.setValue("MRN-" + theIndex);
+		retVal.addIdentifier().setSystem("http://hl7.org/fhir/sid/us-ssn").setValue("000-00-" + theIndex);
+		retVal.setActive(true);
+		retVal.addName()
+				.setUse(HumanName.NameUse.OFFICIAL)
+				.setFamily("Simpson")
+				.addGiven("Marge")
+				.addGiven("Jacqueline");
+		retVal.addName().setUse(HumanName.NameUse.MAIDEN).setFamily("Bouvier").addGiven("Marge");
+		retVal.addTelecom()
+				.setSystem(ContactPoint.ContactPointSystem.PHONE)
+				.setValue("555-555-" + theIndex)
+				.setUse(ContactPoint.ContactPointUse.HOME);
+		retVal.addTelecom().setSystem(ContactPoint.ContactPointSystem.EMAIL).setValue("marge" + theIndex + "@example.org");
+		retVal.setGender(Enumerations.AdministrativeGender.FEMALE);
+		retVal.setBirthDateElement(new DateType("1956-03-19"));
+		retVal.addAddress()
+				.addLine("742 Evergreen Terrace")
+				.setCity("Springfield")
+				.setState("OR")
+				.setPostalCode("97403")
+				.setCountry("US");
+		retVal.getManagingOrganization().setReference("Organization/O1");
+		return retVal;
+	}
+
+	public static Observation newObservation(int theIndex) {
+		Observation retVal = new Observation();
+		retVal.setId("Observation/O" + theIndex);
+		retVal.getMeta().setVersionId("1");
+		retVal.setStatus(Observation.ObservationStatus.FINAL);
+		retVal.addCategory()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+				.setCode("vital-signs");
+		CodeableConcept code = retVal.getCode();
+		code.addCoding().setSystem("http://loinc.org").setCode("29463-7").setDisplay("Body weight");
+		code.setText("Body weight");
+		retVal.setSubject(new Reference("Patient/P" + theIndex));
+		retVal.setEffective(new DateTimeType("2024-01-0" + (1 + theIndex % 9) + "T10:15:00-05:00"));
+		retVal.setValue(new Quantity()
+				.setValue(60 + theIndex % 40)
+				.setUnit("kg")
+				.setSystem("http://unitsofmeasure.org")
+				.setCode("kg"));
+		retVal.addNote().setText("Measured in clinic");
+		return retVal;
+	}
+
+	/**
+	 * Creates a searchset Bundle containing alternating Patient and Observation resources
+	 */
+	public static Bundle newSearchBundle(int theEntryCount) {
+		Bundle retVal = new Bundle();
+		retVal.setType(Bundle.BundleType.SEARCHSET);
+		retVal.setTotal(theEntryCount);
+		retVal.addLink().setRelation("self").setUrl("http://example.org/fhir/Observation?_count=" + theEntryCount);
+		for (int i = 0; i < theEntryCount; i++) {
+			Bundle.BundleEntryComponent entry = retVal.addEntry();
+			if (i % 2 == 0) {
+				entry.setResource(newPatient(i));
+			} else {
+				entry.setResource(newObservation(i));
+			}
+			entry.setFullUrl("http://example.org/fhir/" + entry.getResource().getId());
+			entry.getSearch().setMode(Bundle.SearchEntryMode.MATCH);
+		}
+		return retVal;
+	}
+}
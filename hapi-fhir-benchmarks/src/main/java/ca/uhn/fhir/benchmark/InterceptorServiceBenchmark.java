@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.executor.InterceptorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InterceptorService#callHooks(Pointcut, HookParams)} with a varying number
+ * of registered interceptors, and for a pointcut with no registered interceptors at all.
+ * The threaded variant shows contention between concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InterceptorServiceBenchmark {
+
+	@Param({"1", "10"})
+	public int myInterceptorCount;
+
+	private InterceptorService myInterceptorService;
+	private HookParams myParams;
+
+	@Setup
+	public void setup() {
+		myInterceptorService = new InterceptorService();
+		for (int i = 0; i < myInterceptorCount; i++) {
+			myInterceptorService.registerInterceptor(new CountingInterceptor());
+		}
+		myParams = new HookParams("A", "B");
+	}
+
+	@Benchmark
+	public boolean callHooks() {
+		return myInterceptorService.callHooks(Pointcut.TEST_RB, myParams);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public boolean callHooksConcurrently() {
+		return myInterceptorService.callHooks(Pointcut.TEST_RB, myParams);
+	}
+
+	@Benchmark
+	public boolean hasHooksWithNoRegisteredInterceptors() {
+		return myInterceptorService.hasHooks(Pointcut.TEST_RO);
+	}
+
+	public static class CountingInterceptor {
+
+		private long myCount;
+
+		@Hook(Pointcut.TEST_RB)
+		public boolean testRb(String theA, String theB) {
+			myCount++;
+			return true;
+		}
+	}
+}
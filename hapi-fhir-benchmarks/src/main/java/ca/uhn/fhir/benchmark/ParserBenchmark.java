@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and encoding of a single resource and of a search Bundle using the
+ * JSON and XML parsers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParserBenchmark {
+
+	@Param({"JSON", "XML"})
+	public String myEncoding;
+
+	@Param({"20", "200"})
+	public int myBundleSize;
+
+	private IParser myParser;
+	private Patient myPatient;
+	private Bundle myBundle;
+	private String myEncodedPatient;
+	private String myEncodedBundle;
+
+	@Setup
+	public void setup() {
+		FhirContext ctx = FhirContext.forR4Cached();
+		myParser = "JSON".equals(myEncoding) ? ctx.newJsonParser() : ctx.newXmlParser();
+		myPatient = BenchmarkResources.newPatient(0);
+		myBundle = BenchmarkResources.newSearchBundle(myBundleSize);
+		myEncodedPatient = myParser.encodeResourceToString(myPatient);
+		myEncodedBundle = myParser.encodeResourceToString(myBundle);
+	}
+
+	@Benchmark
+	public Patient parsePatient() {
+		return myParser.parseResource(Patient.class, myEncodedPatient);
+	}
+
+	@Benchmark
+	public Bundle parseBundle() {
+		return myParser.parseResource(Bundle.class, myEncodedBundle);
+	}
+
+	@Benchmark
+	public String encodePatient() {
+		return myParser.encodeResourceToString(myPatient);
+	}
+
+	@Benchmark
+	public String encodeBundle() {
+		return myParser.encodeResourceToString(myBundle);
+	}
+}
@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamDate;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.PathAndRef;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search parameter extraction, per parameter type, for the built-in
+ * search parameters of a few common resource types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SearchParamExtractorBenchmark {
+
+	@Param({"Patient", "Observation"})
+	public String myResourceType;
+
+	private SearchParamExtractorR4 myExtractor;
+	private IBaseResource myResource;
+
+	@Setup
+	public void setup() {
+		FhirContext ctx = FhirContext.forR4Cached();
+		myExtractor = new SearchParamExtractorR4(
+				new StorageSettings(), new PartitionSettings(), ctx, new FhirContextSearchParamRegistry(ctx));
+		if ("Patient".equals(myResourceType)) {
+			myResource = BenchmarkResources.newPatient(0);
+		} else {
+			myResource = BenchmarkResources.newObservation(0);
+		}
+	}
+
+	@Benchmark
+	public ISearchParamExtractor.SearchParamSet<BaseResourceIndexedSearchParam> extractTokens() {
+		return myExtractor.extractSearchParamTokens(myResource);
+	}
+
+	@Benchmark
+	public ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamString> extractStrings() {
+		return myExtractor.extractSearchParamStrings(myResource);
+	}
+
+	@Benchmark
+	public ISearchParamExtractor.SearchParamSet<ResourceIndexedSearchParamDate> extractDates() {
+		return myExtractor.extractSearchParamDates(myResource);
+	}
+
+	@Benchmark
+	public ISearchParamExtractor.SearchParamSet<PathAndRef> extractReferences() {
+		return myExtractor.extractResourceLinks(myResource, false);
+	}
+}
@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmark;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.FhirTerser;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FhirTerser#getValues(IBase, String)} for simple, nested and
+ * Bundle-wide paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TerserBenchmark {
+
+	private FhirTerser myTerser;
+	private Patient myPatient;
+	private Bundle myBundle;
+
+	@Setup
+	public void setup() {
+		myTerser = FhirContext.forR4Cached().newTerser();
+		myPatient = BenchmarkResources.newPatient(0);
+		myBundle = BenchmarkResources.newSearchBundle(50);
+	}
+
+	@Benchmark
+	public List<IBase> getValuesSimplePath() {
+		return myTerser.getValues(myPatient, "Patient.gender");
+	}
+
+	@Benchmark
+	public List<IBase> getValuesNestedPath() {
+		return myTerser.getValues(myPatient, "Patient.name.given");
+	}
+
+	@Benchmark
+	public List<IBase> getValuesExtension() {
+		return myTerser.getValues(
+				myPatient, "Patient.extension('http://hl7.org/fhir/us/core/StructureDefinition/us-core-birthsex')");
+	}
+
+	@Benchmark
+	public List<IBase> getValuesBundleEntries() {
+		return myTerser.getValues(myBundle, "Bundle.entry.resource");
+	}
+}
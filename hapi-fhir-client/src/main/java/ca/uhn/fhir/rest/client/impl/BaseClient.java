@@ -80,6 +80,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -275,84 +277,185 @@ public abstract class BaseClient implements IRestfulClient {
 		// TODO: handle non 2xx status codes by throwing the correct exception,
 		// and ensure it's passed upwards
 		IHttpRequest httpRequest = null;
-		IHttpResponse response = null;
 		try {
-			Map<String, List<String>> params = createExtraParams(theCustomAcceptHeader);
-
-			if (clientInvocation instanceof HttpGetClientInvocation) {
-				if (myRequestFormatParamStyle == RequestFormatParamStyleEnum.SHORT && isBlank(theCustomAcceptHeader)) {
-					if (theEncoding == EncodingEnum.XML) {
-						params.put(Constants.PARAM_FORMAT, Collections.singletonList("xml"));
-					} else if (theEncoding == EncodingEnum.JSON) {
-						params.put(Constants.PARAM_FORMAT, Collections.singletonList("json"));
-					}
-				}
-			}
+			httpRequest = createHttpRequest(
+					clientInvocation,
+					theEncoding,
+					thePrettyPrint,
+					theLogRequestAndResponse,
+					theSummaryMode,
+					theSubsetElements,
+					theCacheControlDirective,
+					theCustomAcceptHeader,
+					theCustomHeaders);
+
+			IHttpResponse response = httpRequest.execute();
+
+			return handleResponse(theContext, binding, httpRequest, response, theLogRequestAndResponse);
+		} catch (Exception e) {
+			throw toClientException(e, httpRequest);
+		}
+	}
 
-			if (theSummaryMode != null) {
-				params.put(Constants.PARAM_SUMMARY, Collections.singletonList(theSummaryMode.getCode()));
-			} else if (mySummary != null) {
-				params.put(Constants.PARAM_SUMMARY, Collections.singletonList(mySummary.getCode()));
-			}
+	/**
+	 * Asynchronous version of {@link #invokeClient(FhirContext, IClientResponseHandler, BaseHttpClientInvocation,
+	 * EncodingEnum, Boolean, boolean, SummaryEnum, Set, CacheControlDirective, String, Map)}. The request is built
+	 * and the {@link Pointcut#CLIENT_REQUEST} hooks are invoked on the calling thread, and the response is handled
+	 * (including the {@link Pointcut#CLIENT_RESPONSE} hooks) once {@link IHttpRequest#executeAsync() the exchange}
+	 * completes, which may be on a thread belonging to the HTTP client. The returned future completes exceptionally
+	 * with the same exceptions that the synchronous version would throw.
+	 *
+	 * @since 7.4.0
+	 */
+	protected <T> CompletableFuture<T> invokeClientAsync(
+			FhirContext theContext,
+			IClientResponseHandler<T> binding,
+			BaseHttpClientInvocation clientInvocation,
+			EncodingEnum theEncoding,
+			Boolean thePrettyPrint,
+			boolean theLogRequestAndResponse,
+			SummaryEnum theSummaryMode,
+			Set<String> theSubsetElements,
+			CacheControlDirective theCacheControlDirective,
+			String theCustomAcceptHeader,
+			Map<String, List<String>> theCustomHeaders) {
 
-			if (thePrettyPrint == Boolean.TRUE) {
-				params.put(Constants.PARAM_PRETTY, Collections.singletonList(Constants.PARAM_PRETTY_VALUE_TRUE));
+		IHttpRequest httpRequest;
+		try {
+			if (!myDontValidateConformance) {
+				myFactory.validateServerBaseIfConfiguredToDoSo(myUrlBase, myClient, this);
 			}
 
-			if (theSubsetElements != null && theSubsetElements.isEmpty() == false) {
-				params.put(
-						Constants.PARAM_ELEMENTS, Collections.singletonList(StringUtils.join(theSubsetElements, ',')));
-			}
+			httpRequest = createHttpRequest(
+					clientInvocation,
+					theEncoding,
+					thePrettyPrint,
+					theLogRequestAndResponse,
+					theSummaryMode,
+					theSubsetElements,
+					theCacheControlDirective,
+					theCustomAcceptHeader,
+					theCustomHeaders);
+		} catch (Exception e) {
+			CompletableFuture<T> retVal = new CompletableFuture<>();
+			retVal.completeExceptionally(toClientException(e, null));
+			return retVal;
+		}
 
-			EncodingEnum encoding = getEncoding();
-			if (theEncoding != null) {
-				encoding = theEncoding;
+		final IHttpRequest request = httpRequest;
+		return request.executeAsync().handle((response, error) -> {
+			if (error != null) {
+				Throwable cause = error instanceof CompletionException && error.getCause() != null
+						? error.getCause()
+						: error;
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw toClientException((Exception) cause, request);
 			}
-
-			httpRequest = clientInvocation.asHttpRequest(myUrlBase, params, encoding, thePrettyPrint);
-
-			if (isNotBlank(theCustomAcceptHeader)) {
-				httpRequest.removeHeaders(Constants.HEADER_ACCEPT);
-				httpRequest.addHeader(Constants.HEADER_ACCEPT, theCustomAcceptHeader);
+			try {
+				return handleResponse(theContext, binding, request, response, theLogRequestAndResponse);
+			} catch (Exception e) {
+				throw toClientException(e, request);
 			}
+		});
+	}
 
-			if (theCacheControlDirective != null) {
-				StringBuilder b = new StringBuilder();
-				addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_CACHE, theCacheControlDirective.isNoCache());
-				addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_STORE, theCacheControlDirective.isNoStore());
-				if (theCacheControlDirective.getMaxResults() != null) {
-					addToCacheControlHeader(
-							b,
-							Constants.CACHE_CONTROL_MAX_RESULTS + "="
-									+ theCacheControlDirective.getMaxResults().intValue(),
-							true);
-				}
-				if (b.length() > 0) {
-					httpRequest.addHeader(Constants.HEADER_CACHE_CONTROL, b.toString());
+	private IHttpRequest createHttpRequest(
+			BaseHttpClientInvocation clientInvocation,
+			EncodingEnum theEncoding,
+			Boolean thePrettyPrint,
+			boolean theLogRequestAndResponse,
+			SummaryEnum theSummaryMode,
+			Set<String> theSubsetElements,
+			CacheControlDirective theCacheControlDirective,
+			String theCustomAcceptHeader,
+			Map<String, List<String>> theCustomHeaders)
+			throws IOException {
+		Map<String, List<String>> params = createExtraParams(theCustomAcceptHeader);
+
+		if (clientInvocation instanceof HttpGetClientInvocation) {
+			if (myRequestFormatParamStyle == RequestFormatParamStyleEnum.SHORT && isBlank(theCustomAcceptHeader)) {
+				if (theEncoding == EncodingEnum.XML) {
+					params.put(Constants.PARAM_FORMAT, Collections.singletonList("xml"));
+				} else if (theEncoding == EncodingEnum.JSON) {
+					params.put(Constants.PARAM_FORMAT, Collections.singletonList("json"));
 				}
 			}
+		}
 
-			if (theLogRequestAndResponse) {
-				ourLog.info("Client invoking: {}", httpRequest);
-				String body = httpRequest.getRequestBodyFromStream();
-				if (body != null) {
-					ourLog.info("Client request body: {}", body);
-				}
+		if (theSummaryMode != null) {
+			params.put(Constants.PARAM_SUMMARY, Collections.singletonList(theSummaryMode.getCode()));
+		} else if (mySummary != null) {
+			params.put(Constants.PARAM_SUMMARY, Collections.singletonList(mySummary.getCode()));
+		}
+
+		if (thePrettyPrint == Boolean.TRUE) {
+			params.put(Constants.PARAM_PRETTY, Collections.singletonList(Constants.PARAM_PRETTY_VALUE_TRUE));
+		}
+
+		if (theSubsetElements != null && theSubsetElements.isEmpty() == false) {
+			params.put(Constants.PARAM_ELEMENTS, Collections.singletonList(StringUtils.join(theSubsetElements, ',')));
+		}
+
+		EncodingEnum encoding = getEncoding();
+		if (theEncoding != null) {
+			encoding = theEncoding;
+		}
+
+		IHttpRequest httpRequest = clientInvocation.asHttpRequest(myUrlBase, params, encoding, thePrettyPrint);
+
+		if (isNotBlank(theCustomAcceptHeader)) {
+			httpRequest.removeHeaders(Constants.HEADER_ACCEPT);
+			httpRequest.addHeader(Constants.HEADER_ACCEPT, theCustomAcceptHeader);
+		}
+
+		if (theCacheControlDirective != null) {
+			StringBuilder b = new StringBuilder();
+			addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_CACHE, theCacheControlDirective.isNoCache());
+			addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_STORE, theCacheControlDirective.isNoStore());
+			if (theCacheControlDirective.getMaxResults() != null) {
+				addToCacheControlHeader(
+						b,
+						Constants.CACHE_CONTROL_MAX_RESULTS + "="
+								+ theCacheControlDirective.getMaxResults().intValue(),
+						true);
+			}
+			if (b.length() > 0) {
+				httpRequest.addHeader(Constants.HEADER_CACHE_CONTROL, b.toString());
 			}
+		}
 
-			if (theCustomHeaders != null) {
-				AdditionalRequestHeadersInterceptor interceptor =
-						new AdditionalRequestHeadersInterceptor(theCustomHeaders);
-				interceptor.interceptRequest(httpRequest);
+		if (theLogRequestAndResponse) {
+			ourLog.info("Client invoking: {}", httpRequest);
+			String body = httpRequest.getRequestBodyFromStream();
+			if (body != null) {
+				ourLog.info("Client request body: {}", body);
 			}
+		}
 
-			HookParams requestParams = new HookParams();
-			requestParams.add(IHttpRequest.class, httpRequest);
-			requestParams.add(IRestfulClient.class, this);
-			getInterceptorService().callHooks(Pointcut.CLIENT_REQUEST, requestParams);
+		if (theCustomHeaders != null) {
+			AdditionalRequestHeadersInterceptor interceptor = new AdditionalRequestHeadersInterceptor(theCustomHeaders);
+			interceptor.interceptRequest(httpRequest);
+		}
 
-			response = httpRequest.execute();
+		HookParams requestParams = new HookParams();
+		requestParams.add(IHttpRequest.class, httpRequest);
+		requestParams.add(IRestfulClient.class, this);
+		getInterceptorService().callHooks(Pointcut.CLIENT_REQUEST, requestParams);
 
+		return httpRequest;
+	}
+
+	private <T> T handleResponse(
+			FhirContext theContext,
+			IClientResponseHandler<T> binding,
+			IHttpRequest httpRequest,
+			IHttpResponse theResponse,
+			boolean theLogRequestAndResponse)
+			throws IOException {
+		IHttpResponse response = theResponse;
+		try {
 			final Class<? extends IBaseResource> returnType = (binding instanceof ResourceResponseHandler)
 					? ((ResourceResponseHandler<? extends IBaseResource>) binding).getReturnType()
 					: null;
@@ -447,46 +550,40 @@ public abstract class BaseClient implements IRestfulClient {
 
 				return binding.invokeClient(mimeType, inputStreamToReturn, response.getStatus(), headers);
 			}
+		} finally {
+			response.close();
+		}
+	}
 
-		} catch (DataFormatException e) {
-			String msg;
-			if (httpRequest != null) {
-				msg = getFhirContext()
-						.getLocalizer()
-						.getMessage(
-								BaseClient.class,
-								"failedToParseResponse",
-								httpRequest.getHttpVerbName(),
-								httpRequest.getUri(),
-								e.toString());
-			} else {
-				msg = getFhirContext()
-						.getLocalizer()
-						.getMessage(BaseClient.class, "failedToParseResponse", "UNKNOWN", "UNKNOWN", e.toString());
-			}
-			throw new FhirClientConnectionException(Msg.code(1359) + msg, e);
-		} catch (IllegalStateException e) {
-			throw new FhirClientConnectionException(Msg.code(1360) + e);
-		} catch (IOException e) {
-			String msg;
-			msg = getFhirContext()
+	private RuntimeException toClientException(Exception theException, IHttpRequest theHttpRequest) {
+		if (theException instanceof DataFormatException) {
+			String msg = createFailedToParseResponseMessage(theException, theHttpRequest);
+			return new FhirClientConnectionException(Msg.code(1359) + msg, theException);
+		} else if (theException instanceof IllegalStateException) {
+			return new FhirClientConnectionException(Msg.code(1360) + theException);
+		} else if (theException instanceof IOException) {
+			String msg = createFailedToParseResponseMessage(theException, theHttpRequest);
+			return new FhirClientConnectionException(Msg.code(1361) + msg, theException);
+		} else if (theException instanceof RuntimeException) {
+			return (RuntimeException) theException;
+		}
+		return new FhirClientConnectionException(Msg.code(1362) + theException);
+	}
+
+	private String createFailedToParseResponseMessage(Exception theException, IHttpRequest theHttpRequest) {
+		if (theHttpRequest != null) {
+			return getFhirContext()
 					.getLocalizer()
 					.getMessage(
 							BaseClient.class,
 							"failedToParseResponse",
-							httpRequest.getHttpVerbName(),
-							httpRequest.getUri(),
-							e.toString());
-			throw new FhirClientConnectionException(Msg.code(1361) + msg, e);
-		} catch (RuntimeException e) {
-			throw e;
-		} catch (Exception e) {
-			throw new FhirClientConnectionException(Msg.code(1362) + e);
-		} finally {
-			if (response != null) {
-				response.close();
-			}
+							theHttpRequest.getHttpVerbName(),
+							theHttpRequest.getUri(),
+							theException.toString());
 		}
+		return getFhirContext()
+				.getLocalizer()
+				.getMessage(BaseClient.class, "failedToParseResponse", "UNKNOWN", "UNKNOWN", theException.toString());
 	}
 
 	private void addToCacheControlHeader(StringBuilder theBuilder, String theDirective, boolean theActive) {
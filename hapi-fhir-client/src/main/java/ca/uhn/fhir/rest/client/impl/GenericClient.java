@@ -163,6 +163,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -219,34 +221,9 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			Set<String> theSubsetElements,
 			String theCustomAcceptHeaderValue,
 			Map<String, List<String>> theCustomHeaders) {
-		String resName = toResourceName(theType);
-		IIdType id = theId;
-		if (!id.hasBaseUrl()) {
-			id = new IdDt(resName, id.getIdPart(), id.getVersionIdPart());
-		}
-
-		HttpGetClientInvocation invocation;
-		if (id.hasBaseUrl()) {
-			if (theVRead) {
-				invocation = ReadMethodBinding.createAbsoluteVReadInvocation(getFhirContext(), id);
-			} else {
-				invocation = ReadMethodBinding.createAbsoluteReadInvocation(getFhirContext(), id);
-			}
-		} else {
-			if (theVRead) {
-				invocation = ReadMethodBinding.createVReadInvocation(getFhirContext(), id, resName);
-			} else {
-				invocation = ReadMethodBinding.createReadInvocation(getFhirContext(), id, resName);
-			}
-		}
-		if (isKeepResponses()) {
-			myLastRequest = invocation.asHttpRequest(
-					getServerBase(), createExtraParams(theCustomAcceptHeaderValue), getEncoding(), isPrettyPrint());
-		}
-
-		if (theIfVersionMatches != null) {
-			invocation.addHeader(Constants.HEADER_IF_NONE_MATCH, '"' + theIfVersionMatches + '"');
-		}
+		IIdType id = toReadOrVReadId(theType, theId);
+		HttpGetClientInvocation invocation =
+				createReadOrVReadInvocation(id, theVRead, theIfVersionMatches, theCustomAcceptHeaderValue);
 
 		boolean allowHtmlResponse = SummaryEnum.TEXT.equals(theSummary);
 		ResourceResponseHandler<T> binding =
@@ -284,6 +261,98 @@ public class GenericClient extends BaseClient implements IGenericClient {
 		}
 	}
 
+	private <T extends IBaseResource> CompletableFuture<T> doReadOrVReadAsync(
+			final Class<T> theType,
+			IIdType theId,
+			boolean theVRead,
+			ICallable<T> theNotModifiedHandler,
+			String theIfVersionMatches,
+			Boolean thePrettyPrint,
+			SummaryEnum theSummary,
+			EncodingEnum theEncoding,
+			Set<String> theSubsetElements,
+			String theCustomAcceptHeaderValue,
+			Map<String, List<String>> theCustomHeaders) {
+		IIdType id;
+		HttpGetClientInvocation invocation;
+		try {
+			id = toReadOrVReadId(theType, theId);
+			invocation = createReadOrVReadInvocation(id, theVRead, theIfVersionMatches, theCustomAcceptHeaderValue);
+		} catch (RuntimeException e) {
+			CompletableFuture<T> retVal = new CompletableFuture<>();
+			retVal.completeExceptionally(e);
+			return retVal;
+		}
+
+		boolean allowHtmlResponse = SummaryEnum.TEXT.equals(theSummary);
+		ResourceResponseHandler<T> binding =
+				new ResourceResponseHandler<>(theType, (Class<? extends IBaseResource>) null, id, allowHtmlResponse);
+
+		CompletableFuture<T> retVal = invokeClientAsync(
+				myContext,
+				binding,
+				invocation,
+				theEncoding,
+				thePrettyPrint,
+				myLogRequestAndResponse,
+				theSummary,
+				theSubsetElements,
+				null,
+				theCustomAcceptHeaderValue,
+				theCustomHeaders);
+		if (theNotModifiedHandler == null) {
+			return retVal;
+		}
+		return retVal.handle((resource, error) -> {
+			if (error == null) {
+				return resource;
+			}
+			Throwable cause = error instanceof CompletionException && error.getCause() != null
+					? error.getCause()
+					: error;
+			if (cause instanceof NotModifiedException) {
+				return theNotModifiedHandler.call();
+			}
+			throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+		});
+	}
+
+	private IIdType toReadOrVReadId(Class<? extends IBaseResource> theType, IIdType theId) {
+		String resName = toResourceName(theType);
+		IIdType id = theId;
+		if (!id.hasBaseUrl()) {
+			id = new IdDt(resName, id.getIdPart(), id.getVersionIdPart());
+		}
+		return id;
+	}
+
+	private HttpGetClientInvocation createReadOrVReadInvocation(
+			IIdType theId, boolean theVRead, String theIfVersionMatches, String theCustomAcceptHeaderValue) {
+		HttpGetClientInvocation invocation;
+		if (theId.hasBaseUrl()) {
+			if (theVRead) {
+				invocation = ReadMethodBinding.createAbsoluteVReadInvocation(getFhirContext(), theId);
+			} else {
+				invocation = ReadMethodBinding.createAbsoluteReadInvocation(getFhirContext(), theId);
+			}
+		} else {
+			if (theVRead) {
+				invocation = ReadMethodBinding.createVReadInvocation(getFhirContext(), theId, theId.getResourceType());
+			} else {
+				invocation = ReadMethodBinding.createReadInvocation(getFhirContext(), theId, theId.getResourceType());
+			}
+		}
+		if (isKeepResponses()) {
+			myLastRequest = invocation.asHttpRequest(
+					getServerBase(), createExtraParams(theCustomAcceptHeaderValue), getEncoding(), isPrettyPrint());
+		}
+
+		if (theIfVersionMatches != null) {
+			invocation.addHeader(Constants.HEADER_IF_NONE_MATCH, '"' + theIfVersionMatches + '"');
+		}
+		return invocation;
+	}
+
 	@Override
 	public IFetchConformanceUntyped fetchConformance() {
 		return new FetchConformanceInternal();
@@ -483,6 +552,8 @@ public class GenericClient extends BaseClient implements IGenericClient {
 		private List<Class<? extends IBaseResource>> myPreferResponseTypes;
 		private boolean myQueryLogRequestAndResponse;
 		private Set<String> mySubsetElements;
+		private boolean myAsync;
+		private CompletableFuture<?> myAsyncResult;
 
 		public String getCustomAcceptHeaderValue() {
 			return myCustomAcceptHeaderValue;
@@ -582,6 +653,22 @@ public class GenericClient extends BaseClient implements IGenericClient {
 				myLastRequest = theInvocation.asHttpRequest(getServerBase(), theParams, getEncoding(), myPrettyPrint);
 			}
 
+			if (myAsync) {
+				myAsyncResult = invokeClientAsync(
+						myContext,
+						theHandler,
+						theInvocation,
+						myParamEncoding,
+						myPrettyPrint,
+						myQueryLogRequestAndResponse || myLogRequestAndResponse,
+						mySummaryMode,
+						mySubsetElements,
+						myCacheControlDirective,
+						myCustomAcceptHeaderValue,
+						myCustomHeaderValues);
+				return null;
+			}
+
 			Z resp = invokeClient(
 					myContext,
 					theHandler,
@@ -597,6 +684,39 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return resp;
 		}
 
+		/**
+		 * Executes this operation with {@link #invoke(Map, IClientResponseHandler, BaseHttpClientInvocation)}
+		 * sending the request asynchronously. Subclasses whose {@link #execute()} post-processes the value
+		 * returned by <code>invoke</code> must override {@link #isAsyncInvocationSupported()}.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public CompletableFuture<Y> executeAsync() {
+			myAsync = isAsyncInvocationSupported();
+			try {
+				Y retVal = execute();
+				if (myAsyncResult == null) {
+					return CompletableFuture.completedFuture(retVal);
+				}
+				return (CompletableFuture<Y>) myAsyncResult;
+			} catch (RuntimeException e) {
+				CompletableFuture<Y> retVal = new CompletableFuture<>();
+				retVal.completeExceptionally(e);
+				return retVal;
+			} finally {
+				myAsync = false;
+				myAsyncResult = null;
+			}
+		}
+
+		/**
+		 * Returns <code>false</code> if {@link #execute()} needs the response before it can return, in which
+		 * case {@link #executeAsync()} executes the operation synchronously
+		 */
+		protected boolean isAsyncInvocationSupported() {
+			return true;
+		}
+
 		protected IBaseResource parseResourceBody(String theResourceBody) {
 			EncodingEnum encoding = EncodingEnum.detectEncodingNoDefault(theResourceBody);
 			if (encoding == null) {
@@ -1370,12 +1490,22 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return this;
 		}
 
+		@Override
+		protected boolean isAsyncInvocationSupported() {
+			// Otherwise execute() wraps the returned resource in a Parameters resource if needed
+			return isProcessMessage() || myReturnResourceType != null || myReturnMethodOutcome;
+		}
+
+		private boolean isProcessMessage() {
+			return myOperationName != null
+					&& myOperationName.equals(Constants.EXTOP_PROCESS_MESSAGE)
+					&& myMsgBundle != null;
+		}
+
 		@SuppressWarnings("unchecked")
 		@Override
 		public Object execute() {
-			if (myOperationName != null
-					&& myOperationName.equals(Constants.EXTOP_PROCESS_MESSAGE)
-					&& myMsgBundle != null) {
+			if (isProcessMessage()) {
 				Map<String, List<String>> urlParams = new LinkedHashMap<String, List<String>>();
 				// Set Url parameter Async and Response-Url
 				if (myIsAsync != null) {
@@ -1875,6 +2005,22 @@ public class GenericClient extends BaseClient implements IGenericClient {
 					myCustomHeaderValues);
 		}
 
+		@Override
+		public CompletableFuture executeAsync() {
+			return doReadOrVReadAsync(
+					myType.getImplementingClass(),
+					myId,
+					myId.hasVersionIdPart(),
+					myNotModifiedHandler,
+					myIfVersionMatches,
+					myPrettyPrint,
+					mySummaryMode,
+					myParamEncoding,
+					getSubsetElements(),
+					getCustomAcceptHeaderValue(),
+					myCustomHeaderValues);
+		}
+
 		@Override
 		public IReadIfNoneMatch ifVersionMatches(String theVersion) {
 			myIfVersionMatches = theVersion;
@@ -0,0 +1,166 @@
+/*
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.jdk;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.client.api.Header;
+import ca.uhn.fhir.rest.client.api.HttpClientUtil;
+import ca.uhn.fhir.rest.client.api.IHttpClient;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.impl.BaseHttpClientInvocation;
+import ca.uhn.fhir.rest.client.method.MethodUtil;
+import ca.uhn.fhir.util.UrlUtil;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
+
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Http Client based on the JDK {@link HttpClient}
+ *
+ * @since 7.4.0
+ */
+public class JdkHttpClient implements IHttpClient {
+
+	private final HttpClient myClient;
+	private final int mySocketTimeout;
+	private final List<Header> myHeaders;
+	private final Map<String, List<String>> myIfNoneExistParams;
+	private final String myIfNoneExistString;
+	private final RequestTypeEnum myRequestType;
+	private final StringBuilder myUrl;
+
+	/**
+	 * Constructor
+	 */
+	public JdkHttpClient(
+			HttpClient theClient,
+			int theSocketTimeout,
+			StringBuilder theUrl,
+			Map<String, List<String>> theIfNoneExistParams,
+			String theIfNoneExistString,
+			RequestTypeEnum theRequestType,
+			List<Header> theHeaders) {
+		myClient = theClient;
+		mySocketTimeout = theSocketTimeout;
+		myUrl = theUrl;
+		myIfNoneExistParams = theIfNoneExistParams;
+		myIfNoneExistString = theIfNoneExistString;
+		myRequestType = theRequestType;
+		myHeaders = theHeaders;
+	}
+
+	@Override
+	public IHttpRequest createBinaryRequest(FhirContext theContext, IBaseBinary theBinary) {
+		JdkHttpRequest retVal = createHttpRequest(theBinary.getContent());
+		addHeadersToRequest(retVal, null, theContext);
+		retVal.addHeader(Constants.HEADER_CONTENT_TYPE, theBinary.getContentType());
+		return retVal;
+	}
+
+	@Override
+	public IHttpRequest createByteRequest(
+			FhirContext theContext, String theContents, String theContentType, EncodingEnum theEncoding) {
+		JdkHttpRequest retVal = createHttpRequest(theContents.getBytes(StandardCharsets.UTF_8));
+		addHeadersToRequest(retVal, theEncoding, theContext);
+		retVal.addHeader(Constants.HEADER_CONTENT_TYPE, theContentType + Constants.HEADER_SUFFIX_CT_UTF_8);
+		return retVal;
+	}
+
+	@Override
+	public IHttpRequest createGetRequest(FhirContext theContext, EncodingEnum theEncoding) {
+		JdkHttpRequest retVal = createHttpRequest(null);
+		addHeadersToRequest(retVal, theEncoding, theContext);
+		return retVal;
+	}
+
+	@Override
+	public IHttpRequest createParamRequest(
+			FhirContext theContext, Map<String, List<String>> theParams, EncodingEnum theEncoding) {
+		StringBuilder b = new StringBuilder();
+		for (Map.Entry<String, List<String>> nextParam : theParams.entrySet()) {
+			for (String nextValue : nextParam.getValue()) {
+				if (b.length() > 0) {
+					b.append('&');
+				}
+				b.append(UrlUtil.escapeUrlParam(nextParam.getKey()));
+				b.append('=');
+				b.append(UrlUtil.escapeUrlParam(nextValue));
+			}
+		}
+
+		JdkHttpRequest retVal = createHttpRequest(b.toString().getBytes(StandardCharsets.UTF_8));
+		addHeadersToRequest(retVal, theEncoding, theContext);
+		retVal.addHeader(Constants.HEADER_CONTENT_TYPE, Constants.CT_X_FORM_URLENCODED);
+		return retVal;
+	}
+
+	private JdkHttpRequest createHttpRequest(byte[] theContent) {
+		String url = myUrl.toString();
+		if (url.endsWith("?")) {
+			url = url.substring(0, url.length() - 1);
+		}
+		return new JdkHttpRequest(myClient, url, myRequestType, theContent, mySocketTimeout);
+	}
+
+	private void addHeadersToRequest(IHttpRequest theHttpRequest, EncodingEnum theEncoding, FhirContext theContext) {
+		if (myHeaders != null) {
+			for (Header next : myHeaders) {
+				theHttpRequest.addHeader(next.getName(), next.getValue());
+			}
+		}
+
+		theHttpRequest.addHeader("User-Agent", HttpClientUtil.createUserAgentString(theContext, "jdk"));
+		theHttpRequest.addHeader("Accept-Charset", "utf-8");
+
+		addHeaderIfNoneExist(theHttpRequest);
+
+		MethodUtil.addAcceptHeaderToRequest(theEncoding, theHttpRequest, theContext);
+	}
+
+	private void addHeaderIfNoneExist(IHttpRequest theHttpRequest) {
+		if (myIfNoneExistParams != null) {
+			StringBuilder b = newHeaderBuilder(myUrl);
+			BaseHttpClientInvocation.appendExtraParamsWithQuestionMark(myIfNoneExistParams, b, b.indexOf("?") == -1);
+			theHttpRequest.addHeader(Constants.HEADER_IF_NONE_EXIST, b.toString());
+		}
+
+		if (myIfNoneExistString != null) {
+			StringBuilder b = newHeaderBuilder(myUrl);
+			b.append(b.indexOf("?") == -1 ? '?' : '&');
+			b.append(myIfNoneExistString.substring(myIfNoneExistString.indexOf('?') + 1));
+			theHttpRequest.addHeader(Constants.HEADER_IF_NONE_EXIST, b.toString());
+		}
+	}
+
+	private StringBuilder newHeaderBuilder(StringBuilder theUrlBase) {
+		StringBuilder b = new StringBuilder();
+		b.append(theUrlBase);
+		if (theUrlBase.length() > 0 && theUrlBase.charAt(theUrlBase.length() - 1) == '/') {
+			b.deleteCharAt(b.length() - 1);
+		}
+		return b;
+	}
+}
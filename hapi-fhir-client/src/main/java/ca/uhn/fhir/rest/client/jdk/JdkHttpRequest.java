@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.jdk;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.client.api.BaseHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import ca.uhn.fhir.util.StopWatch;
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Http Request based on the JDK {@link HttpClient}. Headers are collected by this class, and the
+ * immutable {@link HttpRequest} is only built when the request is executed.
+ *
+ * @since 7.4.0
+ */
+public class JdkHttpRequest extends BaseHttpRequest implements IHttpRequest {
+
+	private final HttpClient myClient;
+	private final RequestTypeEnum myRequestType;
+	private final byte[] myContent;
+	private final int myTimeout;
+	private final Map<String, List<String>> myHeaders = new LinkedHashMap<>();
+	private String myUrl;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theContent The request body, or <code>null</code> if the request does not have one
+	 * @param theTimeout The maximum time in milliseconds to wait for the response to begin, or <code>0</code> to
+	 *                   wait indefinitely
+	 */
+	public JdkHttpRequest(
+			HttpClient theClient, String theUrl, RequestTypeEnum theRequestType, byte[] theContent, int theTimeout) {
+		myClient = theClient;
+		myUrl = theUrl;
+		myRequestType = theRequestType != null ? theRequestType : RequestTypeEnum.GET;
+		myContent = theContent;
+		myTimeout = theTimeout;
+	}
+
+	@Override
+	public void addHeader(String theName, String theValue) {
+		myHeaders.computeIfAbsent(theName, t -> new ArrayList<>()).add(theValue);
+	}
+
+	/**
+	 * Sends the request and waits for the response headers. The response body is then streamed
+	 * to the parser as it is read.
+	 */
+	@Override
+	public IHttpResponse execute() throws IOException {
+		StopWatch responseStopWatch = new StopWatch();
+		try {
+			HttpResponse<?> response = myClient.send(buildRequest(), HttpResponse.BodyHandlers.ofInputStream());
+			return new JdkHttpResponse(response, responseStopWatch);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			InterruptedIOException exception =
+					new InterruptedIOException(Msg.code(2555) + "Interrupted while waiting for the response");
+			exception.initCause(e);
+			throw exception;
+		}
+	}
+
+	/**
+	 * Sends the request without blocking. The returned future completes once the entire response
+	 * body has been received, so that parsing it never blocks the thread which completes the future
+	 * waiting for more data to arrive.
+	 */
+	@Override
+	public CompletableFuture<IHttpResponse> executeAsync() {
+		StopWatch responseStopWatch = new StopWatch();
+		HttpRequest request;
+		try {
+			request = buildRequest();
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return myClient
+				.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.thenApply(response -> new JdkHttpResponse(response, responseStopWatch));
+	}
+
+	private HttpRequest buildRequest() {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(myUrl));
+		for (Map.Entry<String, List<String>> nextHeader : myHeaders.entrySet()) {
+			for (String nextValue : nextHeader.getValue()) {
+				builder.header(nextHeader.getKey(), nextValue);
+			}
+		}
+		if (myTimeout > 0) {
+			builder.timeout(Duration.ofMillis(myTimeout));
+		}
+
+		HttpRequest.BodyPublisher body = myContent != null
+				? HttpRequest.BodyPublishers.ofByteArray(myContent)
+				: HttpRequest.BodyPublishers.noBody();
+		builder.method(getHttpVerbName(), body);
+		return builder.build();
+	}
+
+	@Override
+	public Map<String, List<String>> getAllHeaders() {
+		return Collections.unmodifiableMap(myHeaders);
+	}
+
+	@Override
+	public String getRequestBodyFromStream() {
+		if (myContent == null) {
+			return null;
+		}
+		return new String(myContent, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String getUri() {
+		return myUrl;
+	}
+
+	@Override
+	public void setUri(String theUrl) {
+		myUrl = theUrl;
+	}
+
+	@Override
+	public String getHttpVerbName() {
+		return myRequestType.name();
+	}
+
+	@Override
+	public void removeHeaders(String theHeaderName) {
+		Validate.notBlank(theHeaderName, "theHeaderName must not be null or blank");
+		myHeaders.keySet().removeIf(theHeaderName::equalsIgnoreCase);
+	}
+
+	@Override
+	public String toString() {
+		return getHttpVerbName() + " " + getUri();
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.jdk;
+
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import ca.uhn.fhir.rest.client.impl.BaseHttpResponse;
+import ca.uhn.fhir.util.StopWatch;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.startsWithIgnoreCase;
+
+/**
+ * A Http Response based on the JDK {@link java.net.http.HttpClient}. The response body is either
+ * an {@link InputStream} which is read as the body arrives, or a <code>byte[]</code> containing
+ * the entire body for responses which were received asynchronously.
+ *
+ * @since 7.4.0
+ */
+public class JdkHttpResponse extends BaseHttpResponse implements IHttpResponse {
+	private static final Logger ourLog = LoggerFactory.getLogger(JdkHttpResponse.class);
+
+	private final HttpResponse<?> myResponse;
+	private final InputStream myEntityStream;
+	private boolean myEntityBuffered;
+	private byte[] myEntityBytes;
+
+	public JdkHttpResponse(HttpResponse<?> theResponse, StopWatch theResponseStopWatch) {
+		super(theResponseStopWatch);
+		myResponse = theResponse;
+
+		Object body = theResponse.body();
+		if (body instanceof byte[]) {
+			myEntityStream = null;
+			myEntityBytes = (byte[]) body;
+			myEntityBuffered = true;
+		} else {
+			myEntityStream = (InputStream) body;
+		}
+	}
+
+	@Override
+	public void bufferEntity() throws IOException {
+		if (myEntityBuffered) {
+			return;
+		}
+		try (InputStream responseEntity = readEntity()) {
+			if (responseEntity != null) {
+				myEntityBuffered = true;
+				myEntityBytes = IOUtils.toByteArray(responseEntity);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (myEntityStream != null) {
+			IOUtils.closeQuietly(myEntityStream);
+		}
+	}
+
+	@Override
+	public Reader createReader() throws IOException {
+		InputStream entity = readEntity();
+		if (entity == null) {
+			return new StringReader("");
+		}
+		return new InputStreamReader(entity, getCharset());
+	}
+
+	private Charset getCharset() {
+		String contentType = myResponse.headers().firstValue(Constants.HEADER_CONTENT_TYPE).orElse(null);
+		if (contentType != null) {
+			for (String next : contentType.split(";")) {
+				String parameter = next.trim();
+				if (startsWithIgnoreCase(parameter, "charset=")) {
+					String charsetName = StringUtils.strip(parameter.substring("charset=".length()).trim(), "\"");
+					try {
+						return Charset.forName(charsetName);
+					} catch (IllegalArgumentException e) {
+						ourLog.debug("Response specified unsupported charset {}, defaulting to utf-8", charsetName);
+						return StandardCharsets.UTF_8;
+					}
+				}
+			}
+		}
+		if (Constants.STATUS_HTTP_204_NO_CONTENT != myResponse.statusCode()) {
+			ourLog.debug("Response did not specify a charset, defaulting to utf-8");
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+	@Override
+	public Map<String, List<String>> getAllHeaders() {
+		return myResponse.headers().map();
+	}
+
+	@Override
+	public List<String> getHeaders(String theName) {
+		return myResponse.headers().allValues(theName);
+	}
+
+	@Override
+	public String getMimeType() {
+		String contentType = myResponse.headers().firstValue(Constants.HEADER_CONTENT_TYPE).orElse(null);
+		if (contentType == null) {
+			return null;
+		}
+		int paramIndex = contentType.indexOf(';');
+		if (paramIndex != -1) {
+			contentType = contentType.substring(0, paramIndex);
+		}
+		return contentType.trim();
+	}
+
+	@Override
+	public Object getResponse() {
+		return myResponse;
+	}
+
+	@Override
+	public int getStatus() {
+		return myResponse.statusCode();
+	}
+
+	/**
+	 * HTTP/2 does not transmit a reason phrase, so the standard name of the status code is returned
+	 */
+	@Override
+	public String getStatusInfo() {
+		return defaultString(Constants.HTTP_STATUS_NAMES.get(myResponse.statusCode()));
+	}
+
+	@Override
+	public InputStream readEntity() {
+		if (myEntityBuffered) {
+			return new ByteArrayInputStream(myEntityBytes);
+		}
+		return myEntityStream;
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.jdk;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.client.api.Header;
+import ca.uhn.fhir.rest.client.api.IHttpClient;
+import ca.uhn.fhir.rest.client.impl.RestfulClientFactory;
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * A Restful Factory to create clients, requests and responses based on the {@link HttpClient} which
+ * is built into the JDK. This client negotiates HTTP/2 with servers which support it, in which case
+ * concurrent requests to the same server are multiplexed over a single connection, and it supports
+ * sending requests without blocking the calling thread via
+ * {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}.
+ * <p>
+ * The connect timeout is applied when the native client is created, and the socket timeout is applied
+ * to each request as the maximum time to wait for the response to begin. The connection pool
+ * settings are not used, as the JDK client manages its own connections.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+public class JdkRestfulClientFactory extends RestfulClientFactory {
+
+	private HttpClient myHttpClient;
+	private InetSocketAddress myProxy;
+
+	/**
+	 * Constructor
+	 */
+	public JdkRestfulClientFactory() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theContext
+	 *            The context
+	 */
+	public JdkRestfulClientFactory(FhirContext theContext) {
+		super(theContext);
+	}
+
+	@Override
+	protected synchronized IHttpClient getHttpClient(String theServerBase) {
+		return getHttpClient(new StringBuilder(theServerBase), null, null, null, null);
+	}
+
+	@Override
+	public synchronized IHttpClient getHttpClient(
+			StringBuilder theUrl,
+			Map<String, List<String>> theIfNoneExistParams,
+			String theIfNoneExistString,
+			RequestTypeEnum theRequestType,
+			List<Header> theHeaders) {
+		return new JdkHttpClient(
+				getNativeHttpClient(),
+				getSocketTimeout(),
+				theUrl,
+				theIfNoneExistParams,
+				theIfNoneExistString,
+				theRequestType,
+				theHeaders);
+	}
+
+	public synchronized HttpClient getNativeHttpClient() {
+		if (myHttpClient == null) {
+			HttpClient.Builder builder = getHttpClientBuilder()
+					.version(HttpClient.Version.HTTP_2)
+					.followRedirects(HttpClient.Redirect.NORMAL);
+
+			if (getConnectTimeout() > 0) {
+				builder.connectTimeout(Duration.ofMillis(getConnectTimeout()));
+			}
+
+			if (myProxy != null) {
+				builder.proxy(ProxySelector.of(myProxy));
+				if (isNotBlank(getProxyUsername()) && isNotBlank(getProxyPassword())) {
+					PasswordAuthentication credentials =
+							new PasswordAuthentication(getProxyUsername(), getProxyPassword().toCharArray());
+					builder.authenticator(new Authenticator() {
+						@Override
+						protected PasswordAuthentication getPasswordAuthentication() {
+							return getRequestorType() == RequestorType.PROXY ? credentials : null;
+						}
+					});
+				}
+			}
+
+			myHttpClient = builder.build();
+		}
+
+		return myHttpClient;
+	}
+
+	/**
+	 * Creates the builder for the native {@link HttpClient}. Subclasses may override this in order
+	 * to customize the client. Notably, asynchronous requests are completed and their responses
+	 * parsed on the threads of the client's executor, which is an unbounded cached thread pool
+	 * unless one is supplied, e.g.
+	 * <pre>
+	 * protected HttpClient.Builder getHttpClientBuilder() {
+	 *    return super.getHttpClientBuilder().executor(myBoundedExecutor);
+	 * }
+	 * </pre>
+	 */
+	protected HttpClient.Builder getHttpClientBuilder() {
+		return HttpClient.newBuilder();
+	}
+
+	@Override
+	protected synchronized void resetHttpClient() {
+		this.myHttpClient = null;
+	}
+
+	/**
+	 * Only allows to set an instance of type java.net.http.HttpClient
+	 * @see ca.uhn.fhir.rest.client.api.IRestfulClientFactory#setHttpClient(Object)
+	 */
+	@Override
+	public synchronized void setHttpClient(Object theHttpClient) {
+		this.myHttpClient = (HttpClient) theHttpClient;
+	}
+
+	@Override
+	public synchronized void setProxy(String theHost, Integer thePort) {
+		if (theHost != null) {
+			myProxy = InetSocketAddress.createUnresolved(theHost, thePort);
+		} else {
+			myProxy = null;
+		}
+		resetHttpClient();
+	}
+}
@@ -34,9 +34,12 @@ import ca.uhn.fhir.rest.client.interceptor.BearerTokenAuthInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.CookieInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.UrlTenantSelectionInterceptor;
+import ca.uhn.fhir.rest.client.jdk.JdkRestfulClientFactory;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Patient;
 
+import java.util.concurrent.CompletableFuture;
+
 public class ClientExamples {
 
 	public interface IPatientClient extends IBasicClient {
@@ -134,6 +137,27 @@ public class ClientExamples {
 		// END SNIPPET: okhttp
 	}
 
+	@SuppressWarnings("unused")
+	public void createJdkHttpClient() {
+		// START SNIPPET: jdkHttpClient
+		FhirContext ctx = FhirContext.forR4();
+
+		// Use the HTTP client built into the JDK
+		ctx.setRestfulClientFactory(new JdkRestfulClientFactory(ctx));
+
+		// Create the client
+		IGenericClient client = ctx.newRestfulGenericClient("http://localhost:9999/fhir");
+
+		// Start several reads without waiting for each response
+		CompletableFuture<Patient> patient1 = client.read().resource(Patient.class).withId("123").executeAsync();
+		CompletableFuture<Patient> patient2 = client.read().resource(Patient.class).withId("456").executeAsync();
+
+		// Do something with each response once it arrives
+		patient1.thenAccept(patient -> System.out.println(patient.getIdElement()));
+		patient2.thenAccept(patient -> System.out.println(patient.getIdElement()));
+		// END SNIPPET: jdkHttpClient
+	}
+
 	@SuppressWarnings("unused")
 	public void createTimeouts() {
 		// START SNIPPET: timeouts
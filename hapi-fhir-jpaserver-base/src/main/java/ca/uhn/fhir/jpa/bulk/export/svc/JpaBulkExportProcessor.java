@@ -20,6 +20,7 @@
 package ca.uhn.fhir.jpa.bulk.export.svc;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.fhirpath.IFhirPath;
@@ -35,9 +36,12 @@ import ca.uhn.fhir.jpa.bulk.export.model.ExportPIDIteratorParameters;
 import ca.uhn.fhir.jpa.dao.IResultIterator;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
+import ca.uhn.fhir.jpa.dao.data.IResourceSearchViewDao;
 import ca.uhn.fhir.jpa.dao.mdm.MdmExpansionCacheSvc;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.ResourceSearchView;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.search.SearchBuilderLoadIncludesParameters;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -47,6 +51,7 @@ import ca.uhn.fhir.mdm.dao.IMdmLinkDao;
 import ca.uhn.fhir.mdm.model.MdmPidTuple;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.model.primitive.IdDt;
+import ca.uhn.fhir.model.primitive.InstantDt;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
 import ca.uhn.fhir.rest.param.HasOrListParam;
@@ -57,8 +62,12 @@ import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.util.ExtensionUtil;
 import ca.uhn.fhir.util.HapiExtensions;
 import ca.uhn.fhir.util.Logs;
+import ca.uhn.fhir.util.MetaUtil;
 import ca.uhn.fhir.util.SearchParameterUtil;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.google.common.annotations.VisibleForTesting;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.instance.model.api.IBaseExtension;
@@ -71,6 +80,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -81,8 +92,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static ca.uhn.fhir.jpa.dao.BaseHapiFhirDao.decodeResource;
 import static ca.uhn.fhir.rest.api.Constants.PARAM_HAS;
 import static ca.uhn.fhir.rest.api.Constants.PARAM_ID;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class JpaBulkExportProcessor implements IBulkExportProcessor<JpaPid> {
 	private static final Logger ourLog = LoggerFactory.getLogger(JpaBulkExportProcessor.class);
@@ -125,6 +138,9 @@ public class JpaBulkExportProcessor implements IBulkExportProcessor<JpaPid> {
 	@Autowired
 	private ISearchParamRegistry mySearchParamRegistry;
 
+	@Autowired
+	private IResourceSearchViewDao myResourceSearchViewDao;
+
 	private IFhirPath myFhirPath;
 
 	@Override
@@ -375,6 +391,132 @@ public class JpaBulkExportProcessor implements IBulkExportProcessor<JpaPid> {
 		}
 	}
 
+	@Override
+	public Map<String, String> fetchEncodedResources(
+			String theResourceType, Collection<String> theIds, RequestPartitionId theRequestPartitionId) {
+		Map<Long, String> pidToId = new HashMap<>();
+		for (String next : theIds) {
+			pidToId.put(Long.parseLong(next), next);
+		}
+
+		Map<String, String> retVal = new HashMap<>();
+		myHapiTransactionService
+				.withSystemRequest()
+				.withRequestPartitionId(theRequestPartitionId)
+				.readOnly()
+				.execute(() -> {
+					for (ResourceSearchView next : myResourceSearchViewDao.findByResourceIds(pidToId.keySet())) {
+						String encoded = encodeStoredResource(theResourceType, next);
+						if (encoded != null) {
+							retVal.put(pidToId.get(next.getResourceId()), encoded);
+						}
+					}
+				});
+
+		ourLog.debug(
+				"Passed through {} of {} stored {} resources without parsing",
+				retVal.size(),
+				theIds.size(),
+				theResourceType);
+		return retVal;
+	}
+
+	@Nullable
+	private String encodeStoredResource(String theResourceType, ResourceSearchView theView) {
+		/*
+		 * Tags are stored separately from the resource body (or inline in its meta element,
+		 * which we don't try to merge into), deleted resources aren't exported, and anything
+		 * that isn't plain stored JSON for this FHIR version needs the regular path
+		 */
+		if (theView.getDeleted() != null
+				|| theView.isHasTags()
+				|| !theResourceType.equals(theView.getResourceType())
+				|| theView.getFhirVersion() != myContext.getVersion().getVersion()
+				|| (theView.getEncoding() != ResourceEncodingEnum.JSON
+						&& theView.getEncoding() != ResourceEncodingEnum.JSONC)) {
+			return null;
+		}
+
+		String storedJson = theView.getResourceTextVc();
+		if (storedJson == null) {
+			storedJson = decodeResource(theView.getResource(), theView.getEncoding());
+		}
+
+		String source = MetaUtil.cleanProvenanceSourceUriOrEmpty(theView.getProvenanceSourceUri());
+		if (isNotBlank(theView.getProvenanceRequestId())) {
+			source = source + "#" + theView.getProvenanceRequestId();
+		}
+
+		return addIdAndMetaToStoredJson(
+				myContext,
+				theResourceType,
+				storedJson,
+				theView.getIdDt().getIdPart(),
+				theView.getVersion(),
+				theView.getUpdatedDate(),
+				source);
+	}
+
+	/**
+	 * Adds the <code>id</code> and <code>meta</code> elements to the JSON of a resource as it was
+	 * stored in the database, producing the same output as parsing the stored resource and encoding
+	 * it again with a compact JSON parser.
+	 *
+	 * @return The encoded resource, or <code>null</code> if the stored JSON can't be handled this way
+	 */
+	@VisibleForTesting
+	@Nullable
+	static String addIdAndMetaToStoredJson(
+			FhirContext theContext,
+			String theResourceType,
+			@Nullable String theStoredJson,
+			String theIdPart,
+			long theVersion,
+			Date theUpdated,
+			@Nullable String theSource) {
+		if (theStoredJson == null) {
+			return null;
+		}
+
+		// The stored JSON never contains an id, so the parser always writes the
+		// resourceType first, followed by the meta element if there is one
+		String prefix = "{\"resourceType\":\"" + theResourceType + "\"";
+		if (!theStoredJson.startsWith(prefix) || theStoredJson.length() == prefix.length()) {
+			return null;
+		}
+		char next = theStoredJson.charAt(prefix.length());
+		if (next != ',' && next != '}') {
+			return null;
+		}
+		if (theStoredJson.startsWith("\"meta\"", prefix.length() + 1)) {
+			return null;
+		}
+
+		boolean hasSource = isNotBlank(theSource);
+		if (hasSource && !theContext.getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.R4)) {
+			// DSTU3 stores the source in a meta extension
+			return null;
+		}
+
+		StringBuilder b = new StringBuilder(theStoredJson.length() + 128);
+		b.append(prefix);
+		b.append(",\"id\":\"");
+		JsonStringEncoder.getInstance().quoteAsString(theIdPart, b);
+		b.append("\",\"meta\":{\"versionId\":\"");
+		b.append(theVersion);
+		b.append("\",\"lastUpdated\":\"");
+		b.append(new InstantDt(theUpdated).getValueAsString());
+		b.append('"');
+		if (hasSource) {
+			b.append(",\"source\":\"");
+			JsonStringEncoder.getInstance().quoteAsString(theSource, b);
+			b.append('"');
+		}
+		b.append('}');
+		b.append(theStoredJson, prefix.length(), theStoredJson.length());
+		return b.toString();
+	}
+
 	/**
 	 * For Patient
 	 **/
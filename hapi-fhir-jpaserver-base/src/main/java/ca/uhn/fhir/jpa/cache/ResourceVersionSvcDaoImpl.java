@@ -24,17 +24,24 @@ import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.param.DateRangeParam;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
@@ -58,6 +65,9 @@ public class ResourceVersionSvcDaoImpl implements IResourceVersionSvc {
 	@Autowired
 	IIdHelperService<JpaPid> myIdHelperService;
 
+	@Autowired
+	IHapiTransactionService myTransactionService;
+
 	@Override
 	@Nonnull
 	public ResourceVersionMap getVersionMap(
@@ -74,6 +84,54 @@ public class ResourceVersionSvcDaoImpl implements IResourceVersionSvc {
 		return ResourceVersionMap.fromIdsWithVersions(fhirIds);
 	}
 
+	/**
+	 * Loads the IDs of every resource of the given type updated since <code>theSince</code> straight from
+	 * the resource table (this includes deleted resources, which keep their row with a new update time), and
+	 * then searches for the subset of those which still match <code>theSearchParamMap</code>.
+	 */
+	@Override
+	@Nullable
+	public ResourceVersionChanges getVersionChangesSince(
+			RequestPartitionId theRequestPartitionId,
+			String theResourceName,
+			SearchParameterMap theSearchParamMap,
+			Date theSince,
+			int theMaxChanges) {
+		if (!theRequestPartitionId.isAllPartitions() || theSearchParamMap.getLastUpdated() != null) {
+			return null;
+		}
+
+		Slice<Object[]> changedRows = myTransactionService
+				.withSystemRequest()
+				.read(() -> myResourceTableDao.findFhirIdsAndPidsOfResourcesOfTypeUpdatedSince(
+						PageRequest.of(0, theMaxChanges), theResourceName, theSince));
+		if (changedRows.hasNext()) {
+			ourLog.debug(
+					"More than {} {} resources changed since {}, unable to load changes incrementally",
+					theMaxChanges,
+					theResourceName,
+					theSince);
+			return null;
+		}
+		if (!changedRows.hasContent()) {
+			return new ResourceVersionChanges(List.of(), ResourceVersionMap.empty());
+		}
+
+		List<IIdType> changedIds = new ArrayList<>(changedRows.getNumberOfElements());
+		for (Object[] nextRow : changedRows) {
+			// order matters!
+			String fhirId = (String) nextRow[0];
+			Long pid = (Long) nextRow[1];
+			changedIds.add(new IdDt(theResourceName, fhirId != null ? fhirId : pid.toString()));
+		}
+
+		SearchParameterMap searchParamMap = theSearchParamMap.clone();
+		searchParamMap.setLastUpdated(new DateRangeParam(theSince, null));
+		ResourceVersionMap matchingVersionMap = getVersionMap(theRequestPartitionId, theResourceName, searchParamMap);
+
+		return new ResourceVersionChanges(changedIds, matchingVersionMap);
+	}
+
 	/**
 	 * Retrieves the latest versions for any resourceid that are found.
 	 * If they are not found, they will not be contained in the returned map.
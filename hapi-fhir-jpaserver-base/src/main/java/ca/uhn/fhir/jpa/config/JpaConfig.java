@@ -51,6 +51,7 @@ import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.JpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.MatchResourceUrlService;
+import ca.uhn.fhir.jpa.dao.ResourceCompressionDictionarySvc;
 import ca.uhn.fhir.jpa.dao.ResourceHistoryCalculator;
 import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.TransactionProcessor;
@@ -132,6 +133,7 @@ import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchCacheSvcImpl;
+import ca.uhn.fhir.jpa.search.cache.DatabaseSearchResultBlockCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchResultCacheSvcImpl;
 import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
@@ -363,6 +365,9 @@ public class JpaConfig {
 
 	@Bean
 	public ISearchResultCacheSvc searchResultCacheSvc() {
+		if (myStorageSettings.isSearchResultBlockStorageEnabled()) {
+			return new DatabaseSearchResultBlockCacheSvcImpl();
+		}
 		return new DatabaseSearchResultCacheSvcImpl();
 	}
 
@@ -871,9 +876,17 @@ public class JpaConfig {
 		return new MetaTagSorterAlphabetical();
 	}
 
+	@Bean
+	public ResourceCompressionDictionarySvc resourceCompressionDictionarySvc() {
+		return new ResourceCompressionDictionarySvc();
+	}
+
 	@Bean
 	public ResourceHistoryCalculator resourceHistoryCalculator(
-			FhirContext theFhirContext, HibernatePropertiesProvider theHibernatePropertiesProvider) {
-		return new ResourceHistoryCalculator(theFhirContext, theHibernatePropertiesProvider.isOracleDialect());
+			FhirContext theFhirContext,
+			HibernatePropertiesProvider theHibernatePropertiesProvider,
+			ResourceCompressionDictionarySvc theResourceCompressionDictionarySvc) {
+		return new ResourceHistoryCalculator(
+				theFhirContext, theHibernatePropertiesProvider.isOracleDialect(), theResourceCompressionDictionarySvc);
 	}
 }
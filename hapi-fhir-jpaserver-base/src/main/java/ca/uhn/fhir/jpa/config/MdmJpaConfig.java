@@ -23,9 +23,11 @@ import ca.uhn.fhir.jpa.api.svc.IDeleteExpungeSvc;
 import ca.uhn.fhir.jpa.api.svc.IMdmClearHelperSvc;
 import ca.uhn.fhir.jpa.bulk.mdm.MdmClearHelperSvcImpl;
 import ca.uhn.fhir.jpa.dao.mdm.JpaMdmLinkImplFactory;
+import ca.uhn.fhir.jpa.dao.mdm.MdmBlockingKeyDaoJpaImpl;
 import ca.uhn.fhir.jpa.dao.mdm.MdmLinkDaoJpaImpl;
 import ca.uhn.fhir.jpa.entity.MdmLink;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
 import ca.uhn.fhir.mdm.dao.IMdmLinkDao;
 import ca.uhn.fhir.mdm.dao.IMdmLinkImplFactory;
 import ca.uhn.fhir.mdm.svc.MdmLinkExpandSvc;
@@ -45,6 +47,11 @@ public class MdmJpaConfig {
 		return new MdmLinkDaoJpaImpl();
 	}
 
+	@Bean
+	public IMdmBlockingKeyDao<JpaPid> mdmBlockingKeyDao() {
+		return new MdmBlockingKeyDaoJpaImpl();
+	}
+
 	@Bean
 	public IMdmLinkImplFactory<MdmLink> mdmLinkImplFactory() {
 		return new JpaMdmLinkImplFactory();
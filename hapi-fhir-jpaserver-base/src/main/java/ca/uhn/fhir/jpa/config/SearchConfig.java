@@ -39,6 +39,8 @@ import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.SearchCoordinatorSvcImpl;
 import ca.uhn.fhir.jpa.search.SearchStrategyFactory;
 import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
+import ca.uhn.fhir.jpa.search.builder.SearchResultParsingExecutorProvider;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchSqlTemplateCache;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchContinuationTask;
 import ca.uhn.fhir.jpa.search.builder.tasks.SearchTask;
@@ -153,6 +155,16 @@ public class SearchConfig {
 		return new ExceptionService(myContext);
 	}
 
+	@Bean
+	public SearchResultParsingExecutorProvider searchResultParsingExecutorProvider() {
+		return new SearchResultParsingExecutorProvider(myStorageSettings);
+	}
+
+	@Bean
+	public SearchSqlTemplateCache searchSqlTemplateCache() {
+		return new SearchSqlTemplateCache(myStorageSettings);
+	}
+
 	@Bean(name = ISearchBuilder.SEARCH_BUILDER_BEAN_NAME)
 	@Scope("prototype")
 	public ISearchBuilder newSearchBuilder(
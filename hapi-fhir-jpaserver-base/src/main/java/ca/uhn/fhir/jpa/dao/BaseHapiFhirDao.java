@@ -1255,6 +1255,7 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		 */
 		if (thePerformIndexing) {
 			if (newParams == null) {
+				myDaoSearchParamSynchronizer.discardBatchedIndexWrites(theTransactionDetails, entity);
 				myExpungeService.deleteAllSearchParams(JpaPid.fromId(entity.getId()));
 				entity.clearAllParamsPopulated();
 			} else {
@@ -1262,7 +1263,7 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 				// Synchronize search param indexes
 				AddRemoveCount searchParamAddRemoveCount =
 						myDaoSearchParamSynchronizer.synchronizeSearchParamsToDatabase(
-								newParams, entity, existingParams);
+								newParams, entity, existingParams, theTransactionDetails);
 
 				newParams.populateResourceTableParamCollections(entity);
 
@@ -1405,7 +1406,8 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			getExcludedElements(historyEntity.getResourceType(), excludeElements, theResource.getMeta());
 			String encodedResourceString =
 					myResourceHistoryCalculator.encodeResource(theResource, encoding, excludeElements);
-			byte[] resourceBinary = ResourceHistoryCalculator.getResourceBinary(encoding, encodedResourceString);
+			byte[] resourceBinary = myResourceHistoryCalculator.getResourceBinary(
+					historyEntity.getResourceType(), encoding, encodedResourceString);
 			final boolean changed = myResourceHistoryCalculator.isResourceHistoryChanged(
 					historyEntity, resourceBinary, encodedResourceString);
 
@@ -1938,6 +1940,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceText = GZipUtil.decompress(theResourceBytes);
 				break;
+			case JSOND:
+				throw new InternalErrorException(Msg.code(2528) + "Resources encoded using " + theResourceEncoding
+						+ " must be decoded using the ResourceCompressionDictionarySvc");
 			case DEL:
 			case ESR:
 				break;
@@ -212,6 +212,9 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	@Autowired
 	private MemoryCacheService myMemoryCacheService;
 
+	@Autowired
+	private ResourceCompressionDictionarySvc myResourceCompressionDictionarySvc;
+
 	private TransactionTemplate myTxTemplate;
 
 	@Autowired
@@ -1683,11 +1686,22 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	private void reindexOptimizeStorageHistoryEntity(ResourceTable entity, ResourceHistoryTable historyEntity) {
 		boolean changed = false;
 		if (historyEntity.getEncoding() == ResourceEncodingEnum.JSONC
-				|| historyEntity.getEncoding() == ResourceEncodingEnum.JSON) {
+				|| historyEntity.getEncoding() == ResourceEncodingEnum.JSON
+				|| historyEntity.getEncoding() == ResourceEncodingEnum.JSOND) {
 			byte[] resourceBytes = historyEntity.getResource();
 			if (resourceBytes != null) {
-				String resourceText = decodeResource(resourceBytes, historyEntity.getEncoding());
-				if (myResourceHistoryCalculator.conditionallyAlterHistoryEntity(entity, historyEntity, resourceText)) {
+				String resourceText;
+				if (historyEntity.getEncoding() == ResourceEncodingEnum.JSOND) {
+					resourceText = myResourceCompressionDictionarySvc.decompress(resourceBytes);
+				} else {
+					resourceText = decodeResource(resourceBytes, historyEntity.getEncoding());
+				}
+				ResourceEncodingEnum targetEncoding = myStorageSettings.getResourceEncoding();
+				if (targetEncoding == ResourceEncodingEnum.JSOND) {
+					myResourceCompressionDictionarySvc.trainDictionaryIfMissing(entity.getResourceType());
+				}
+				if (myResourceHistoryCalculator.conditionallyAlterHistoryEntity(
+						entity, historyEntity, resourceText, targetEncoding)) {
 					changed = true;
 				}
 			}
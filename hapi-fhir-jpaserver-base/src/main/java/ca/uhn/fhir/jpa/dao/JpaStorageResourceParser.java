@@ -52,7 +52,6 @@ import ca.uhn.fhir.model.primitive.IdDt;
 import ca.uhn.fhir.model.primitive.InstantDt;
 import ca.uhn.fhir.model.valueset.BundleEntryTransactionMethodEnum;
 import ca.uhn.fhir.parser.DataFormatException;
-import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.parser.LenientErrorHandler;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.util.IMetaTagSorter;
@@ -104,6 +103,9 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 	@Autowired
 	IMetaTagSorter myMetaTagSorter;
 
+	@Autowired
+	private ResourceCompressionDictionarySvc myResourceCompressionDictionarySvc;
+
 	@Override
 	public IBaseResource toResource(IBasePersistedResource theEntity, boolean theForHistoryOperation) {
 		RuntimeResourceDefinition type = myFhirContext.getResourceDefinition(theEntity.getResourceType());
@@ -217,14 +219,17 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 			return null;
 		}
 
-		// 2. get The text
-		String decodedResourceText = decodedResourceText(resourceBytes, resourceText, resourceEncoding);
+		// 2. get The text, unless it's compressed JSON which is parsed straight from the bytes
+		String decodedResourceText = null;
+		if (resourceText != null || resourceEncoding != ResourceEncodingEnum.JSONC) {
+			decodedResourceText = decodedResourceText(resourceBytes, resourceText, resourceEncoding);
+		}
 
 		// 3. Use the appropriate custom type if one is specified in the context
 		Class<R> resourceType = determineTypeToParse(theResourceType, tagList);
 
 		// 4. parse the text to FHIR
-		R retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
+		R retVal = parseResource(theEntity, resourceEncoding, resourceBytes, decodedResourceText, resourceType);
 
 		// 5. fill MetaData
 		retVal = populateResourceMetadata(theEntity, theForHistoryOperation, tagList, version, retVal);
@@ -259,6 +264,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 	private <R extends IBaseResource> R parseResource(
 			IBaseResourceEntity theEntity,
 			ResourceEncodingEnum theResourceEncoding,
+			byte[] theResourceBytes,
 			String theDecodedResourceText,
 			Class<R> theResourceType) {
 		R retVal;
@@ -276,11 +282,15 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 
 		} else if (theResourceEncoding != ResourceEncodingEnum.DEL) {
 
-			IParser parser = new TolerantJsonParser(
+			TolerantJsonParser parser = new TolerantJsonParser(
 					getContext(theEntity.getFhirVersion()), LENIENT_ERROR_HANDLER, theEntity.getId());
 
 			try {
-				retVal = parser.parseResource(theResourceType, theDecodedResourceText);
+				if (theDecodedResourceText == null && theResourceEncoding == ResourceEncodingEnum.JSONC) {
+					retVal = parser.parseCompressedResource(theResourceType, theResourceBytes);
+				} else {
+					retVal = parser.parseResource(theResourceType, theDecodedResourceText);
+				}
 			} catch (Exception e) {
 				StringBuilder b = new StringBuilder();
 				b.append("Failed to parse database resource[");
@@ -536,11 +546,13 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		return FhirContext.forCached(theVersion);
 	}
 
-	private static String decodedResourceText(
+	private String decodedResourceText(
 			byte[] resourceBytes, String resourceText, ResourceEncodingEnum resourceEncoding) {
 		String decodedResourceText;
 		if (resourceText != null) {
 			decodedResourceText = resourceText;
+		} else if (resourceEncoding == ResourceEncodingEnum.JSOND) {
+			decodedResourceText = myResourceCompressionDictionarySvc.decompress(resourceBytes);
 		} else {
 			decodedResourceText = decodeResource(resourceBytes, resourceEncoding);
 		}
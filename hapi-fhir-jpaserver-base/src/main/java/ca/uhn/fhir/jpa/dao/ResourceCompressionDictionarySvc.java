@@ -0,0 +1,454 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.dao.data.IResourceCompressionDictionaryDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.ResourceCompressionDictionary;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import ca.uhn.fhir.jpa.model.sched.HapiJob;
+import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
+import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
+import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses and decompresses resources stored using the {@link ResourceEncodingEnum#JSOND}
+ * encoding, and trains the per-resource-type dictionaries this uses.
+ * <p>
+ * Individual resources are small, so on its own Deflate (as used by GZIP for
+ * {@link ResourceEncodingEnum#JSONC}) finds few repeats within a single resource to exploit. Resources
+ * of the same type share most of their element names, code systems and extension URLs though,
+ * so these are collected from a sample of stored resources into a preset dictionary which
+ * the compressor can refer back to.
+ * </p>
+ * <p>
+ * The compressed contents consist of the ID of the {@link ResourceCompressionDictionary} which was used
+ * (as a variable length integer, with 0 meaning that no dictionary was used) followed by the raw Deflate
+ * stream. Resources are compressed without a dictionary until one has been trained for their type.
+ * </p>
+ * <p>
+ * Resource types which were compressed without a dictionary are remembered, and a scheduled job
+ * trains a dictionary for each of them once enough resources of the type have been stored. The
+ * <code>$reindex</code> operation with <code>optimizeStorage</code> enabled also trains missing
+ * dictionaries, and is needed in order to recompress resources stored before their dictionary existed.
+ * </p>
+ */
+public class ResourceCompressionDictionarySvc implements IHasScheduledJobs {
+
+	/**
+	 * Deflate can only refer back this far, so any more dictionary content would be wasted
+	 */
+	public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+	static final int TRAINING_SAMPLE_SIZE = 1000;
+	static final int MIN_TRAINING_SAMPLES = 10;
+	private static final int MIN_FRAGMENT_LENGTH = 4;
+	private static final long NO_DICTIONARY = 0;
+	private static final long CURRENT_DICTIONARY_CACHE_MILLIS = DateUtils.MILLIS_PER_MINUTE;
+	private static final long TRAINING_RETRY_MILLIS = 10 * DateUtils.MILLIS_PER_MINUTE;
+	private static final Logger ourLog = LoggerFactory.getLogger(ResourceCompressionDictionarySvc.class);
+
+	private final Map<Long, byte[]> myDictionariesById = new ConcurrentHashMap<>();
+	private final Map<String, CurrentDictionary> myCurrentDictionaryByType = new ConcurrentHashMap<>();
+	private final Map<String, Long> myLastTrainingAttemptByType = new ConcurrentHashMap<>();
+	private final Set<String> myTypesAwaitingDictionary = ConcurrentHashMap.newKeySet();
+
+	@Autowired
+	private IResourceCompressionDictionaryDao myResourceCompressionDictionaryDao;
+
+	@Autowired
+	private IResourceHistoryTableDao myResourceHistoryTableDao;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	/**
+	 * Compresses a resource using the current dictionary for its type, if there is one
+	 */
+	public byte[] compress(String theResourceType, String theEncodedResource) {
+		CurrentDictionary dictionary = getCurrentDictionary(theResourceType);
+
+		ByteArrayOutputStream retVal = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			writeVarLong(retVal, dictionary.getId());
+			if (dictionary.getDictionary() != null) {
+				deflater.setDictionary(dictionary.getDictionary());
+			} else {
+				myTypesAwaitingDictionary.add(theResourceType);
+			}
+			DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(retVal, deflater);
+			deflaterOutputStream.write(theEncodedResource.getBytes(StandardCharsets.UTF_8));
+			deflaterOutputStream.finish();
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2524) + "Failed to compress resource", e);
+		} finally {
+			deflater.end();
+		}
+		return retVal.toByteArray();
+	}
+
+	/**
+	 * Decompresses a resource which was compressed by {@link #compress(String, String)}
+	 */
+	public String decompress(byte[] theCompressed) {
+		ByteArrayInputStream inputStream = new ByteArrayInputStream(theCompressed);
+		Inflater inflater = new Inflater(true);
+		try {
+			long dictionaryId = readVarLong(inputStream);
+			if (dictionaryId != NO_DICTIONARY) {
+				inflater.setDictionary(getDictionary(dictionaryId));
+			}
+			return IOUtils.toString(new InflaterInputStream(inputStream, inflater), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2525) + "Failed to decompress resource", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Trains a dictionary for the given resource type if it doesn't have one yet. If there
+	 * aren't enough resources of the type to train on, this won't try again for a while.
+	 *
+	 * @return <code>true</code> if a new dictionary was created
+	 */
+	public boolean trainDictionaryIfMissing(String theResourceType) {
+		if (getCurrentDictionary(theResourceType).getDictionary() != null) {
+			return false;
+		}
+
+		long now = System.currentTimeMillis();
+		Long lastAttempt = myLastTrainingAttemptByType.get(theResourceType);
+		if (lastAttempt != null && now - lastAttempt < TRAINING_RETRY_MILLIS) {
+			return false;
+		}
+		myLastTrainingAttemptByType.put(theResourceType, now);
+
+		return trainDictionary(theResourceType);
+	}
+
+	/**
+	 * Trains a dictionary for each resource type which has been compressed without one since
+	 * this was last called. This is called periodically by a scheduled job.
+	 */
+	public void trainAwaitingDictionaries() {
+		for (String nextResourceType : new ArrayList<>(myTypesAwaitingDictionary)) {
+			if (trainDictionaryIfMissing(nextResourceType)
+					|| getCurrentDictionary(nextResourceType).getDictionary() != null) {
+				myTypesAwaitingDictionary.remove(nextResourceType);
+			}
+		}
+	}
+
+	@Override
+	public void scheduleJobs(ISchedulerService theSchedulerService) {
+		// Each server only knows about the types it has stored itself, so this is a local job
+		ScheduledJobDefinition jobDetail = new ScheduledJobDefinition();
+		jobDetail.setId(getClass().getName());
+		jobDetail.setJobClass(Job.class);
+		theSchedulerService.scheduleLocalJob(DateUtils.MILLIS_PER_MINUTE, jobDetail);
+	}
+
+	/**
+	 * Trains a new dictionary for the given resource type from the most recently stored
+	 * resources of that type. Resources stored after this will be compressed using the new
+	 * dictionary, while existing ones will continue to use the one they were compressed with.
+	 *
+	 * @return <code>true</code> if a new dictionary was created, or <code>false</code> if there
+	 * weren't enough resources of the given type to train on
+	 */
+	public boolean trainDictionary(String theResourceType) {
+		ResourceCompressionDictionary created = myTransactionService
+				.withSystemRequest()
+				.withPropagation(Propagation.REQUIRES_NEW)
+				.execute(() -> {
+					List<String> samples = loadSamples(theResourceType);
+					if (samples.size() < MIN_TRAINING_SAMPLES) {
+						ourLog.info(
+								"Not training compression dictionary for {}, only found {} resources",
+								theResourceType,
+								samples.size());
+						return null;
+					}
+
+					byte[] dictionary = buildDictionary(samples, MAX_DICTIONARY_SIZE);
+					if (dictionary.length == 0) {
+						return null;
+					}
+
+					return myResourceCompressionDictionaryDao.save(
+							new ResourceCompressionDictionary(theResourceType, dictionary));
+				});
+
+		if (created == null) {
+			return false;
+		}
+
+		ourLog.info(
+				"Trained compression dictionary {} of {} bytes for {}",
+				created.getId(),
+				created.getDictionary().length,
+				theResourceType);
+		myDictionariesById.put(created.getId(), created.getDictionary());
+		myCurrentDictionaryByType.put(theResourceType, new CurrentDictionary(created.getId(), created.getDictionary()));
+		return true;
+	}
+
+	/**
+	 * Discards all cached dictionaries, e.g. after they have been deleted from the database
+	 */
+	public void invalidateCaches() {
+		myDictionariesById.clear();
+		myCurrentDictionaryByType.clear();
+		myLastTrainingAttemptByType.clear();
+		myTypesAwaitingDictionary.clear();
+	}
+
+	@VisibleForTesting
+	Set<String> getTypesAwaitingDictionaryForUnitTest() {
+		return myTypesAwaitingDictionary;
+	}
+
+	private List<String> loadSamples(String theResourceType) {
+		List<ResourceHistoryTable> versions = myResourceHistoryTableDao
+				.findNewestForResourceTypeAndEncodings(
+						PageRequest.of(0, TRAINING_SAMPLE_SIZE),
+						theResourceType,
+						List.of(ResourceEncodingEnum.JSON, ResourceEncodingEnum.JSONC, ResourceEncodingEnum.JSOND))
+				.getContent();
+
+		List<String> retVal = new ArrayList<>(versions.size());
+		for (ResourceHistoryTable next : versions) {
+			if (next.getResourceTextVc() != null) {
+				retVal.add(next.getResourceTextVc());
+			} else if (next.getResource() != null) {
+				switch (next.getEncoding()) {
+					case JSON:
+						retVal.add(new String(next.getResource(), StandardCharsets.UTF_8));
+						break;
+					case JSONC:
+						retVal.add(GZipUtil.decompress(next.getResource()));
+						break;
+					case JSOND:
+						retVal.add(decompress(next.getResource()));
+						break;
+					default:
+						break;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private CurrentDictionary getCurrentDictionary(String theResourceType) {
+		CurrentDictionary retVal = myCurrentDictionaryByType.get(theResourceType);
+		if (retVal == null || retVal.isExpired()) {
+			// Another server may have trained a new dictionary, so this is periodically reloaded
+			retVal = myTransactionService.withSystemRequest().read(() -> {
+				List<ResourceCompressionDictionary> newest =
+						myResourceCompressionDictionaryDao.findByResourceTypeNewestFirst(
+								PageRequest.of(0, 1), theResourceType);
+				if (newest.isEmpty()) {
+					return new CurrentDictionary(NO_DICTIONARY, null);
+				}
+				ResourceCompressionDictionary dictionary = newest.get(0);
+				myDictionariesById.put(dictionary.getId(), dictionary.getDictionary());
+				return new CurrentDictionary(dictionary.getId(), dictionary.getDictionary());
+			});
+			myCurrentDictionaryByType.put(theResourceType, retVal);
+		}
+		return retVal;
+	}
+
+	private byte[] getDictionary(long theDictionaryId) {
+		// Dictionaries never change once created, so these are cached indefinitely
+		return myDictionariesById.computeIfAbsent(
+				theDictionaryId,
+				id -> myTransactionService.withSystemRequest().read(() -> myResourceCompressionDictionaryDao
+						.findById(id)
+						.map(ResourceCompressionDictionary::getDictionary)
+						.orElseThrow(() -> new InternalErrorException(
+								Msg.code(2526) + "Unknown resource compression dictionary: " + id))));
+	}
+
+	/**
+	 * Builds a dictionary from the JSON fragments (split before each <code>{</code>, <code>[</code>
+	 * and <code>,</code>) which occur in many of the samples, such as element names and
+	 * commonly used systems and URLs. Fragments are ranked by how many bytes they could save
+	 * in total, and the most valuable ones are placed at the end of the dictionary since Deflate
+	 * encodes nearer matches more cheaply.
+	 */
+	static byte[] buildDictionary(List<String> theSamples, int theMaxSize) {
+		Map<String, Integer> documentFrequencies = new HashMap<>();
+		for (String nextSample : theSamples) {
+			Set<String> fragments = new HashSet<>();
+			int start = 0;
+			for (int i = 1; i <= nextSample.length(); i++) {
+				if (i == nextSample.length() || isFragmentStart(nextSample.charAt(i))) {
+					if (i - start >= MIN_FRAGMENT_LENGTH) {
+						fragments.add(nextSample.substring(start, i));
+					}
+					start = i;
+				}
+			}
+			fragments.forEach(t -> documentFrequencies.merge(t, 1, Integer::sum));
+		}
+
+		int minFrequency = Math.max(2, theSamples.size() / 10);
+		List<Fragment> candidates = new ArrayList<>();
+		documentFrequencies.forEach((fragment, frequency) -> {
+			if (frequency >= minFrequency) {
+				candidates.add(new Fragment(fragment.getBytes(StandardCharsets.UTF_8), frequency));
+			}
+		});
+		candidates.sort(Comparator.comparingLong(Fragment::getScore)
+				.reversed()
+				.thenComparing(Fragment::getBytes, java.util.Arrays::compare));
+
+		List<Fragment> selected = new ArrayList<>();
+		int size = 0;
+		for (Fragment next : candidates) {
+			if (size + next.getBytes().length <= theMaxSize) {
+				selected.add(next);
+				size += next.getBytes().length;
+			}
+		}
+
+		ByteArrayOutputStream retVal = new ByteArrayOutputStream(size);
+		for (int i = selected.size() - 1; i >= 0; i--) {
+			retVal.writeBytes(selected.get(i).getBytes());
+		}
+		return retVal.toByteArray();
+	}
+
+	private static boolean isFragmentStart(char theChar) {
+		return theChar == '{' || theChar == '[' || theChar == ',';
+	}
+
+	private static void writeVarLong(OutputStream theOutputStream, long theValue) throws IOException {
+		long value = theValue;
+		while ((value & ~0x7FL) != 0) {
+			theOutputStream.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		theOutputStream.write((int) value);
+	}
+
+	private static long readVarLong(InputStream theInputStream) throws IOException {
+		long retVal = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int next = theInputStream.read();
+			if (next == -1) {
+				break;
+			}
+			retVal |= (long) (next & 0x7F) << shift;
+			if ((next & 0x80) == 0) {
+				return retVal;
+			}
+		}
+		throw new IOException(Msg.code(2527) + "Malformed dictionary ID");
+	}
+
+	public static class Job implements HapiJob {
+		@Autowired
+		private ResourceCompressionDictionarySvc myTarget;
+
+		@Override
+		public void execute(JobExecutionContext theContext) {
+			myTarget.trainAwaitingDictionaries();
+		}
+	}
+
+	private static class CurrentDictionary {
+		private final long myId;
+		private final byte[] myDictionary;
+		private final long myLoadedAt = System.currentTimeMillis();
+
+		private CurrentDictionary(long theId, @Nullable byte[] theDictionary) {
+			myId = theId;
+			myDictionary = theDictionary;
+		}
+
+		long getId() {
+			return myId;
+		}
+
+		@Nullable
+		byte[] getDictionary() {
+			return myDictionary;
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() - myLoadedAt > CURRENT_DICTIONARY_CACHE_MILLIS;
+		}
+	}
+
+	private static class Fragment {
+		private final byte[] myBytes;
+		private final long myScore;
+
+		private Fragment(byte[] theBytes, int theFrequency) {
+			myBytes = theBytes;
+			myScore = (long) theBytes.length * theFrequency;
+		}
+
+		byte[] getBytes() {
+			return myBytes;
+		}
+
+		long getScore() {
+			return myScore;
+		}
+	}
+}
@@ -30,6 +30,7 @@ import com.google.common.hash.Hashing;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.nio.charset.StandardCharsets;
@@ -48,9 +49,24 @@ public class ResourceHistoryCalculator {
 	private final FhirContext myFhirContext;
 	private final boolean myIsOracleDialect;
 
+	@Nullable
+	private final ResourceCompressionDictionarySvc myResourceCompressionDictionarySvc;
+
 	public ResourceHistoryCalculator(FhirContext theFhirContext, boolean theIsOracleDialect) {
+		this(theFhirContext, theIsOracleDialect, null);
+	}
+
+	/**
+	 * @param theResourceCompressionDictionarySvc Required in order to store resources using the
+	 *                                            {@link ResourceEncodingEnum#JSOND} encoding
+	 */
+	public ResourceHistoryCalculator(
+			FhirContext theFhirContext,
+			boolean theIsOracleDialect,
+			@Nullable ResourceCompressionDictionarySvc theResourceCompressionDictionarySvc) {
 		myFhirContext = theFhirContext;
 		myIsOracleDialect = theIsOracleDialect;
+		myResourceCompressionDictionarySvc = theResourceCompressionDictionarySvc;
 	}
 
 	ResourceHistoryState calculateResourceHistoryState(
@@ -63,9 +79,15 @@ public class ResourceHistoryCalculator {
 
 		if (myIsOracleDialect) {
 			resourceText = null;
-			resourceBinary = getResourceBinary(theEncoding, encodedResource);
+			resourceBinary =
+					getResourceBinary(myFhirContext.getResourceType(theResource), theEncoding, encodedResource);
 			encoding = theEncoding;
-			hashCode = SHA_256.hashBytes(resourceBinary);
+			if (theEncoding == ResourceEncodingEnum.JSOND) {
+				// The compressed bytes change whenever a new dictionary is trained
+				hashCode = SHA_256.hashUnencodedChars(encodedResource);
+			} else {
+				hashCode = SHA_256.hashBytes(resourceBinary);
+			}
 		} else {
 			resourceText = encodedResource;
 			resourceBinary = null;
@@ -77,7 +99,10 @@ public class ResourceHistoryCalculator {
 	}
 
 	boolean conditionallyAlterHistoryEntity(
-			ResourceTable theEntity, ResourceHistoryTable theHistoryEntity, String theResourceText) {
+			ResourceTable theEntity,
+			ResourceHistoryTable theHistoryEntity,
+			String theResourceText,
+			ResourceEncodingEnum theTargetEncoding) {
 		if (!myIsOracleDialect) {
 			ourLog.debug(
 					"Storing text of resource {} version {} as inline VARCHAR",
@@ -89,6 +114,20 @@ public class ResourceHistoryCalculator {
 			return true;
 		}
 
+		if (theTargetEncoding == ResourceEncodingEnum.JSOND
+				&& theHistoryEntity.getEncoding() != ResourceEncodingEnum.JSOND
+				&& myResourceCompressionDictionarySvc != null) {
+			ourLog.debug(
+					"Compressing resource {} version {} using a dictionary",
+					theEntity.getResourceId(),
+					theHistoryEntity.getVersion());
+			theHistoryEntity.setResource(
+					myResourceCompressionDictionarySvc.compress(theEntity.getResourceType(), theResourceText));
+			theHistoryEntity.setResourceTextVc(null);
+			theHistoryEntity.setEncoding(ResourceEncodingEnum.JSOND);
+			return true;
+		}
+
 		return false;
 	}
 
@@ -97,7 +136,22 @@ public class ResourceHistoryCalculator {
 			@Nullable byte[] theResourceBinary,
 			@Nullable String resourceText) {
 		if (myIsOracleDialect) {
-			return !Arrays.equals(theCurrentHistoryVersion.getResource(), theResourceBinary);
+			if (Arrays.equals(theCurrentHistoryVersion.getResource(), theResourceBinary)) {
+				return false;
+			}
+			if (theCurrentHistoryVersion.getEncoding() == ResourceEncodingEnum.JSOND
+					&& myResourceCompressionDictionarySvc != null
+					&& theCurrentHistoryVersion.getResource() != null
+					&& theResourceBinary != null) {
+				// The same resource may have been compressed with a different dictionary
+				String currentText =
+						myResourceCompressionDictionarySvc.decompress(theCurrentHistoryVersion.getResource());
+				String newText = resourceText != null
+						? resourceText
+						: myResourceCompressionDictionarySvc.decompress(theResourceBinary);
+				return !StringUtils.equals(currentText, newText);
+			}
+			return true;
 		}
 
 		return !StringUtils.equals(theCurrentHistoryVersion.getResourceTextVc(), resourceText);
@@ -110,8 +164,30 @@ public class ResourceHistoryCalculator {
 		return parser.encodeResourceToString(theResource);
 	}
 
+	/**
+	 * helper for returning the encoded byte array of the input resource string based on the theEncoding,
+	 * including {@link ResourceEncodingEnum#JSOND}.
+	 *
+	 * @param theResourceType    the type of the resource, which selects the compression dictionary
+	 * @param theEncoding        the theEncoding to used
+	 * @param theEncodedResource the resource to encode
+	 * @return byte array of the resource
+	 */
+	@Nonnull
+	byte[] getResourceBinary(String theResourceType, ResourceEncodingEnum theEncoding, String theEncodedResource) {
+		if (theEncoding == ResourceEncodingEnum.JSOND) {
+			Validate.notNull(
+					myResourceCompressionDictionarySvc,
+					"No ResourceCompressionDictionarySvc available for encoding %s",
+					theEncoding);
+			return myResourceCompressionDictionarySvc.compress(theResourceType, theEncodedResource);
+		}
+		return getResourceBinary(theEncoding, theEncodedResource);
+	}
+
 	/**
 	 * helper for returning the encoded byte array of the input resource string based on the theEncoding.
+	 * This does not support {@link ResourceEncodingEnum#JSOND}, which depends on the resource type.
 	 *
 	 * @param theEncoding        the theEncoding to used
 	 * @param theEncodedResource the resource to encode
@@ -21,6 +21,7 @@ package ca.uhn.fhir.jpa.dao;
 
 import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParserErrorHandler;
 import ca.uhn.fhir.parser.JsonParser;
@@ -33,6 +34,8 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.Objects;
 
@@ -78,9 +81,7 @@ public class TolerantJsonParser extends JsonParser {
 			 * ParserState.Primitive state too.
 			 */
 
-			String msg = defaultString(e.getMessage(), "");
-			if (msg.contains("Unexpected character ('.' (code 46))")
-					|| msg.contains("Invalid numeric value: Leading zeroes not allowed")) {
+			if (isCorrectableNumberError(e)) {
 				Gson gson = new Gson();
 
 				JsonObject object = gson.fromJson(theMessageString, JsonObject.class);
@@ -120,6 +121,31 @@ public class TolerantJsonParser extends JsonParser {
 		}
 	}
 
+	/**
+	 * Parses a GZIP compressed resource by streaming the decompressed bytes straight into
+	 * the parser, so that the decompressed text is never held as a String. If the content
+	 * needs to be corrected as described in {@link #parseResource(Class, String)}, this
+	 * falls back to decompressing it to a String.
+	 */
+	public <T extends IBaseResource> T parseCompressedResource(Class<T> theResourceType, byte[] theCompressedResource) {
+		try (InputStream is = GZipUtil.newDecompressingInputStream(theCompressedResource)) {
+			return super.parseResource(theResourceType, is);
+		} catch (DataFormatException e) {
+			if (isCorrectableNumberError(e)) {
+				return parseResource(theResourceType, GZipUtil.decompress(theCompressedResource));
+			}
+			throw e;
+		} catch (IOException e) {
+			throw new DataFormatException(Msg.code(2523) + "Failed to decompress contents", e);
+		}
+	}
+
+	private static boolean isCorrectableNumberError(DataFormatException e) {
+		String msg = defaultString(e.getMessage(), "");
+		return msg.contains("Unexpected character ('.' (code 46))")
+				|| msg.contains("Invalid numeric value: Leading zeroes not allowed");
+	}
+
 	public static TolerantJsonParser createWithLenientErrorHandling(
 			FhirContext theContext, @Nullable Long theResourcePid) {
 		LenientErrorHandler errorHandler = new LenientErrorHandler(false).disableAllErrors();
@@ -27,6 +27,7 @@ import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.config.HapiFhirHibernateJpaDialect;
+import ca.uhn.fhir.jpa.dao.index.DaoSearchParamSynchronizer;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
@@ -115,6 +116,9 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionSvc;
 
+	@Autowired(required = false)
+	private DaoSearchParamSynchronizer myDaoSearchParamSynchronizer;
+
 	public void setEntityManagerForUnitTest(EntityManager theEntityManager) {
 		myEntityManager = theEntityManager;
 	}
@@ -163,17 +167,33 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 			preFetch(theTransactionDetails, theEntries, versionAdapter, requestPartitionId);
 		}
 
-		return super.doTransactionWriteOperations(
-				theRequest,
-				theActionName,
-				theTransactionDetails,
-				theAllIds,
-				theIdSubstitutions,
-				theIdToPersistedOutcome,
-				theResponse,
-				theOriginalRequestOrder,
-				theEntries,
-				theTransactionStopWatch);
+		boolean batchIndexWrites = isBatchIndexWrites();
+		if (batchIndexWrites) {
+			myDaoSearchParamSynchronizer.startIndexWriteBatch(theTransactionDetails);
+		}
+
+		try {
+			return super.doTransactionWriteOperations(
+					theRequest,
+					theActionName,
+					theTransactionDetails,
+					theAllIds,
+					theIdSubstitutions,
+					theIdToPersistedOutcome,
+					theResponse,
+					theOriginalRequestOrder,
+					theEntries,
+					theTransactionStopWatch);
+		} finally {
+			if (batchIndexWrites) {
+				// Normally the batch has already been written by flushSession(..)
+				myDaoSearchParamSynchronizer.discardIndexWriteBatch(theTransactionDetails);
+			}
+		}
+	}
+
+	private boolean isBatchIndexWrites() {
+		return myDaoSearchParamSynchronizer != null && myStorageSettings.getTransactionIndexJdbcBatchSize() > 0;
 	}
 
 	private void preFetch(
@@ -536,6 +556,18 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		return hashToSearch;
 	}
 
+	@Override
+	protected void flushSession(
+			TransactionDetails theTransactionDetails, Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome) {
+		if (isBatchIndexWrites()) {
+			StopWatch sw = new StopWatch();
+			int rowCount = myDaoSearchParamSynchronizer.flushIndexWriteBatch(
+					theTransactionDetails, myStorageSettings.getTransactionIndexJdbcBatchSize());
+			ourLog.debug("Queued {} batched index row writes in {}ms", rowCount, sw.getMillis());
+		}
+		flushSession(theIdToPersistedOutcome);
+	}
+
 	@Override
 	protected void flushSession(Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome) {
 		try {
@@ -570,6 +602,11 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		}
 	}
 
+	@VisibleForTesting
+	public void setDaoSearchParamSynchronizerForUnitTest(DaoSearchParamSynchronizer theDaoSearchParamSynchronizer) {
+		myDaoSearchParamSynchronizer = theDaoSearchParamSynchronizer;
+	}
+
 	@VisibleForTesting
 	public void setPartitionSettingsForUnitTest(PartitionSettings thePartitionSettings) {
 		myPartitionSettings = thePartitionSettings;
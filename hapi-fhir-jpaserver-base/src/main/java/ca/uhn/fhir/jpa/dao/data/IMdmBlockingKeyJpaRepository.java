@@ -0,0 +1,70 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IMdmBlockingKeyJpaRepository extends JpaRepository<MdmBlockingKey, Long>, IHapiFhirJpaRepository {
+
+	@Query("SELECT k.myKeyHash FROM MdmBlockingKey k WHERE k.myResourcePid = :resId")
+	List<Long> findKeyHashesByResourcePid(@Param("resId") Long theResourcePid);
+
+	@Modifying
+	@Query("DELETE FROM MdmBlockingKey k WHERE k.myResourcePid = :resId AND k.myKeyHash IN (:hashes)")
+	@CanIgnoreReturnValue
+	int deleteByResourcePidAndKeyHashes(
+			@Param("resId") Long theResourcePid, @Param("hashes") Collection<Long> theKeyHashes);
+
+	@Modifying
+	@Query("DELETE FROM MdmBlockingKey k WHERE k.myResourcePid = :resId")
+	int deleteByResourcePid(@Param("resId") Long theResourcePid);
+
+	@Query(
+			"SELECT DISTINCT k.myResourcePid FROM MdmBlockingKey k, ResourceTable t WHERE t.myId = k.myResourcePid AND t.myDeleted IS NULL AND k.myKeyHash IN (:hashes)")
+	List<Long> findResourcePidsByKeyHashes(Pageable thePage, @Param("hashes") Collection<Long> theKeyHashes);
+
+	@Query(
+			"SELECT DISTINCT k.myResourcePid FROM MdmBlockingKey k, ResourceTable t WHERE t.myId = k.myResourcePid AND t.myDeleted IS NULL AND k.myKeyHash IN (:hashes) AND t.myPartitionIdValue IN (:partition_ids)")
+	List<Long> findResourcePidsByKeyHashesAndPartitionIds(
+			Pageable thePage,
+			@Param("hashes") Collection<Long> theKeyHashes,
+			@Param("partition_ids") Collection<Integer> thePartitionIds);
+
+	@Query(
+			"SELECT DISTINCT k.myResourcePid FROM MdmBlockingKey k, ResourceTable t WHERE t.myId = k.myResourcePid AND t.myDeleted IS NULL AND k.myKeyHash IN (:hashes) AND (t.myPartitionIdValue IS NULL OR t.myPartitionIdValue IN (:partition_ids))")
+	List<Long> findResourcePidsByKeyHashesAndPartitionIdsOrDefault(
+			Pageable thePage,
+			@Param("hashes") Collection<Long> theKeyHashes,
+			@Param("partition_ids") Collection<Integer> thePartitionIds);
+
+	@Query(
+			"SELECT DISTINCT k.myResourcePid FROM MdmBlockingKey k, ResourceTable t WHERE t.myId = k.myResourcePid AND t.myDeleted IS NULL AND k.myKeyHash IN (:hashes) AND t.myPartitionIdValue IS NULL")
+	List<Long> findResourcePidsByKeyHashesInDefaultPartition(
+			Pageable thePage, @Param("hashes") Collection<Long> theKeyHashes);
+}
@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.dao.data;
 
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
@@ -27,6 +28,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IResourceHistoryTableDao extends JpaRepository<ResourceHistoryTable, Long>, IHapiFhirJpaRepository {
@@ -76,6 +78,13 @@ public interface IResourceHistoryTableDao extends JpaRepository<ResourceHistoryT
 	void updateVersion(
 			@Param("id") long theId, @Param("oldVersion") long theOldVersion, @Param("newVersion") long theNewVersion);
 
+	@Query(
+			"SELECT t FROM ResourceHistoryTable t WHERE t.myResourceType = :restype AND t.myEncoding IN :encodings ORDER BY t.myId DESC")
+	Slice<ResourceHistoryTable> findNewestForResourceTypeAndEncodings(
+			Pageable thePage,
+			@Param("restype") String theResourceType,
+			@Param("encodings") Collection<ResourceEncodingEnum> theEncodings);
+
 	@Modifying
 	@Query("DELETE FROM ResourceHistoryTable t WHERE t.myId = :pid")
 	void deleteByPid(@Param("pid") Long theId);
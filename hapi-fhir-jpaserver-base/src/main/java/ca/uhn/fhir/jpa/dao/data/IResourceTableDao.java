@@ -52,6 +52,16 @@ public interface IResourceTableDao
 	Slice<Long> findIdsOfDeletedResourcesOfType(
 			Pageable thePageable, @Param("resid") Long theResourceId, @Param("restype") String theResourceName);
 
+	/**
+	 * Returns the FHIR ID and PID of every resource of the given type that was updated at or after the given
+	 * time, including resources that have since been deleted. Each element is an object array where the
+	 * order matters.
+	 */
+	@Query(
+			"SELECT t.myFhirId, t.myId FROM ResourceTable t WHERE t.myResourceType = :restype AND t.myUpdated >= :low")
+	Slice<Object[]> findFhirIdsAndPidsOfResourcesOfTypeUpdatedSince(
+			Pageable thePage, @Param("restype") String theResourceType, @Param("low") Date theLow);
+
 	@Query(
 			"SELECT t.myResourceType as type, COUNT(t.myResourceType) as count FROM ResourceTable t GROUP BY t.myResourceType")
 	List<Map<?, ?>> getResourceCounts();
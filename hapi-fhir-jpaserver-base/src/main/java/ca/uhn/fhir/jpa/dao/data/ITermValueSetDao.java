@@ -24,6 +24,7 @@ import ca.uhn.fhir.jpa.entity.TermValueSetPreExpansionStatusEnum;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -44,6 +45,27 @@ public interface ITermValueSetDao extends JpaRepository<TermValueSet, Long>, IHa
 	Slice<TermValueSet> findByExpansionStatus(
 			Pageable pageable, @Param("expansion_status") TermValueSetPreExpansionStatusEnum theExpansionStatus);
 
+	@Query("SELECT vs.myId FROM TermValueSet vs WHERE vs.myExpansionStatus = :expansion_status ORDER BY vs.myId")
+	Slice<Long> findIdsByExpansionStatus(
+			Pageable pageable, @Param("expansion_status") TermValueSetPreExpansionStatusEnum theExpansionStatus);
+
+	@Query("SELECT COUNT(vs) FROM TermValueSet vs WHERE vs.myExpansionStatus = :expansion_status")
+	long countByExpansionStatus(@Param("expansion_status") TermValueSetPreExpansionStatusEnum theExpansionStatus);
+
+	/**
+	 * Moves a ValueSet to a new expansion status (resetting its concept counts) only if it is currently in the
+	 * expected status. This is used to atomically claim a ValueSet for pre-expansion.
+	 *
+	 * @return The number of rows updated, which is 1 if the status was changed and 0 otherwise
+	 */
+	@Modifying
+	@Query(
+			"UPDATE TermValueSet vs SET vs.myExpansionStatus = :new_status, vs.myTotalConcepts = 0, vs.myTotalConceptDesignations = 0 WHERE vs.myId = :pid AND vs.myExpansionStatus = :expected_status")
+	int updateExpansionStatusIfCurrentStatus(
+			@Param("pid") Long theId,
+			@Param("expected_status") TermValueSetPreExpansionStatusEnum theExpectedStatus,
+			@Param("new_status") TermValueSetPreExpansionStatusEnum theNewStatus);
+
 	@Query(
 			value =
 					"SELECT vs FROM TermValueSet vs INNER JOIN ResourceTable r ON r.myId = vs.myResourcePid WHERE vs.myUrl = :url ORDER BY r.myUpdated DESC")
@@ -23,16 +23,20 @@ import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.ResourceCompressionDictionarySvc;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.entity.Batch2JobInstanceEntity;
 import ca.uhn.fhir.jpa.entity.Batch2WorkChunkEntity;
 import ca.uhn.fhir.jpa.entity.BulkImportJobEntity;
 import ca.uhn.fhir.jpa.entity.BulkImportJobFileEntity;
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
 import ca.uhn.fhir.jpa.entity.MdmLink;
 import ca.uhn.fhir.jpa.entity.PartitionEntity;
+import ca.uhn.fhir.jpa.entity.ResourceCompressionDictionary;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.entity.SearchInclude;
 import ca.uhn.fhir.jpa.entity.SearchResult;
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
 import ca.uhn.fhir.jpa.entity.SubscriptionTable;
 import ca.uhn.fhir.jpa.entity.TermCodeSystem;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
@@ -116,6 +120,9 @@ public class ExpungeEverythingService implements IExpungeEverythingService {
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionHelperSvc;
 
+	@Autowired
+	private ResourceCompressionDictionarySvc myResourceCompressionDictionarySvc;
+
 	private int deletedResourceEntityCount;
 
 	@Override
@@ -194,7 +201,10 @@ public class ExpungeEverythingService implements IExpungeEverythingService {
 		counter.addAndGet(expungeEverythingByTypeWithoutPurging(
 				theRequest, ResourceIndexedComboTokenNonUnique.class, requestPartitionId));
 		counter.addAndGet(expungeEverythingByTypeWithoutPurging(theRequest, ResourceLink.class, requestPartitionId));
+		counter.addAndGet(expungeEverythingByTypeWithoutPurging(theRequest, MdmBlockingKey.class, requestPartitionId));
 		counter.addAndGet(expungeEverythingByTypeWithoutPurging(theRequest, SearchResult.class, requestPartitionId));
+		counter.addAndGet(
+				expungeEverythingByTypeWithoutPurging(theRequest, SearchResultBlock.class, requestPartitionId));
 		counter.addAndGet(expungeEverythingByTypeWithoutPurging(theRequest, SearchInclude.class, requestPartitionId));
 		counter.addAndGet(expungeEverythingByTypeWithoutPurging(
 				theRequest, TermValueSetConceptDesignation.class, requestPartitionId));
@@ -249,6 +259,9 @@ public class ExpungeEverythingService implements IExpungeEverythingService {
 
 		deletedResourceEntityCount = counter.get() - counterBefore;
 
+		counter.addAndGet(expungeEverythingByTypeWithoutPurging(
+				theRequest, ResourceCompressionDictionary.class, requestPartitionId));
+
 		myTxService
 				.withRequest(theRequest)
 				.withPropagation(propagation)
@@ -265,6 +278,7 @@ public class ExpungeEverythingService implements IExpungeEverythingService {
 
 	private void purgeAllCaches() {
 		myMemoryCacheService.invalidateAllCaches();
+		myResourceCompressionDictionarySvc.invalidateCaches();
 	}
 
 	protected <T> int expungeEverythingByTypeWithoutPurging(
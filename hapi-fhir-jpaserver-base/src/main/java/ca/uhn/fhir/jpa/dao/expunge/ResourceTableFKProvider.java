@@ -42,6 +42,7 @@ public class ResourceTableFKProvider {
 		// Add some secondary related records that don't have foreign keys
 		retval.add(new ResourceForeignKey("HFJ_HISTORY_TAG", "RES_ID")); // NOT covered by index.
 		retval.add(new ResourceForeignKey("HFJ_RES_VER_PROV", "RES_PID"));
+		retval.add(new ResourceForeignKey("MPI_BLOCKING_KEY", "RES_ID"));
 
 		// These have the possibility of touching all resource types.
 		retval.add(new ResourceForeignKey("HFJ_IDX_CMP_STRING_UNIQ", "RES_ID"));
@@ -105,6 +106,7 @@ public class ResourceTableFKProvider {
 					"MPI_LINK",
 					"PERSON_PID")); // TODO GGG: I don't even think we need this... this field is deprecated, and the
 			// deletion is covered by GOLDEN_RESOURCE_PID
+			retval.add(new ResourceForeignKey("MPI_BLOCKING_KEY", "RES_ID")); // Covered by index.
 		}
 
 		switch (theResourceType.toLowerCase()) {
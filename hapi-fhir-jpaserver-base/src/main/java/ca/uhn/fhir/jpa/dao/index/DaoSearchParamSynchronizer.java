@@ -23,10 +23,13 @@ import ca.uhn.fhir.jpa.model.entity.BaseResourceIndex;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.util.AddRemoveCount;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceContextType;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -41,6 +44,8 @@ import java.util.Set;
 @Service
 public class DaoSearchParamSynchronizer {
 	private static final Logger ourLog = LoggerFactory.getLogger(DaoSearchParamSynchronizer.class);
+	private static final String INDEX_WRITE_BATCH_KEY =
+			DaoSearchParamSynchronizer.class.getName() + "_INDEX_WRITE_BATCH";
 
 	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
 	protected EntityManager myEntityManager;
@@ -49,18 +54,39 @@ public class DaoSearchParamSynchronizer {
 			ResourceIndexedSearchParams theParams,
 			ResourceTable theEntity,
 			ResourceIndexedSearchParams existingParams) {
+		return synchronizeSearchParamsToDatabase(theParams, theEntity, existingParams, null);
+	}
+
+	/**
+	 * Synchronizes the index rows for a resource. If an index write batch has been started for the
+	 * given transaction (see {@link #startIndexWriteBatch(TransactionDetails)}), rows to be added
+	 * and removed are queued in the batch instead of being passed to the entity manager right away.
+	 *
+	 * @since 7.4.0
+	 */
+	public AddRemoveCount synchronizeSearchParamsToDatabase(
+			ResourceIndexedSearchParams theParams,
+			ResourceTable theEntity,
+			ResourceIndexedSearchParams existingParams,
+			@Nullable TransactionDetails theTransactionDetails) {
 		AddRemoveCount retVal = new AddRemoveCount();
+		IndexWriteBatch batch = getIndexWriteBatch(theTransactionDetails);
 
-		synchronize(theEntity, retVal, theParams.myStringParams, existingParams.myStringParams);
-		synchronize(theEntity, retVal, theParams.myTokenParams, existingParams.myTokenParams);
-		synchronize(theEntity, retVal, theParams.myNumberParams, existingParams.myNumberParams);
-		synchronize(theEntity, retVal, theParams.myQuantityParams, existingParams.myQuantityParams);
-		synchronize(theEntity, retVal, theParams.myQuantityNormalizedParams, existingParams.myQuantityNormalizedParams);
-		synchronize(theEntity, retVal, theParams.myDateParams, existingParams.myDateParams);
-		synchronize(theEntity, retVal, theParams.myUriParams, existingParams.myUriParams);
-		synchronize(theEntity, retVal, theParams.myCoordsParams, existingParams.myCoordsParams);
-		synchronize(theEntity, retVal, theParams.myLinks, existingParams.myLinks);
-		synchronize(theEntity, retVal, theParams.myComboTokenNonUnique, existingParams.myComboTokenNonUnique);
+		synchronize(theEntity, retVal, theParams.myStringParams, existingParams.myStringParams, batch);
+		synchronize(theEntity, retVal, theParams.myTokenParams, existingParams.myTokenParams, batch);
+		synchronize(theEntity, retVal, theParams.myNumberParams, existingParams.myNumberParams, batch);
+		synchronize(theEntity, retVal, theParams.myQuantityParams, existingParams.myQuantityParams, batch);
+		synchronize(
+				theEntity,
+				retVal,
+				theParams.myQuantityNormalizedParams,
+				existingParams.myQuantityNormalizedParams,
+				batch);
+		synchronize(theEntity, retVal, theParams.myDateParams, existingParams.myDateParams, batch);
+		synchronize(theEntity, retVal, theParams.myUriParams, existingParams.myUriParams, batch);
+		synchronize(theEntity, retVal, theParams.myCoordsParams, existingParams.myCoordsParams, batch);
+		synchronize(theEntity, retVal, theParams.myLinks, existingParams.myLinks, batch);
+		synchronize(theEntity, retVal, theParams.myComboTokenNonUnique, existingParams.myComboTokenNonUnique, batch);
 
 		// make sure links are indexed
 		theEntity.setResourceLinks(theParams.myLinks);
@@ -68,16 +94,84 @@ public class DaoSearchParamSynchronizer {
 		return retVal;
 	}
 
+	/**
+	 * Starts collecting the index rows written during the given transaction into an
+	 * {@link IndexWriteBatch}, until {@link #flushIndexWriteBatch(TransactionDetails, int)}
+	 * or {@link #discardIndexWriteBatch(TransactionDetails)} is called.
+	 *
+	 * @since 7.4.0
+	 */
+	public void startIndexWriteBatch(TransactionDetails theTransactionDetails) {
+		theTransactionDetails.putUserData(INDEX_WRITE_BATCH_KEY, new IndexWriteBatch());
+	}
+
+	/**
+	 * Passes all index rows collected for the given transaction to the entity manager, so that
+	 * they are written (table by table) by the next flush, and stops collecting rows.
+	 *
+	 * @param theJdbcBatchSize If greater than 0, the JDBC batch size to use for the session
+	 * @return The number of rows which were added or removed
+	 * @since 7.4.0
+	 */
+	public int flushIndexWriteBatch(TransactionDetails theTransactionDetails, int theJdbcBatchSize) {
+		IndexWriteBatch batch = getIndexWriteBatch(theTransactionDetails);
+		theTransactionDetails.clearUserData(INDEX_WRITE_BATCH_KEY);
+		if (batch == null) {
+			return 0;
+		}
+
+		int retVal = batch.size();
+		if (theJdbcBatchSize > 0) {
+			// This is a no-op if the session is already using this batch size
+			myEntityManager.unwrap(Session.class).setJdbcBatchSize(theJdbcBatchSize);
+		}
+		batch.writeTo(myEntityManager);
+		ourLog.debug("Wrote {} batched index row changes", retVal);
+		return retVal;
+	}
+
+	/**
+	 * Stops collecting index rows for the given transaction, discarding any rows which have
+	 * been collected. This is called if the transaction fails.
+	 *
+	 * @since 7.4.0
+	 */
+	public void discardIndexWriteBatch(TransactionDetails theTransactionDetails) {
+		theTransactionDetails.clearUserData(INDEX_WRITE_BATCH_KEY);
+	}
+
+	/**
+	 * Drops any index rows which were collected for the given resource but not yet written,
+	 * because all of its index rows are being deleted
+	 *
+	 * @since 7.4.0
+	 */
+	public void discardBatchedIndexWrites(@Nullable TransactionDetails theTransactionDetails, ResourceTable theEntity) {
+		IndexWriteBatch batch = getIndexWriteBatch(theTransactionDetails);
+		if (batch != null) {
+			batch.discardAdds(theEntity);
+		}
+	}
+
 	@VisibleForTesting
 	public void setEntityManager(EntityManager theEntityManager) {
 		myEntityManager = theEntityManager;
 	}
 
+	@Nullable
+	private static IndexWriteBatch getIndexWriteBatch(@Nullable TransactionDetails theTransactionDetails) {
+		if (theTransactionDetails == null) {
+			return null;
+		}
+		return theTransactionDetails.getUserData(INDEX_WRITE_BATCH_KEY);
+	}
+
 	private <T extends BaseResourceIndex> void synchronize(
 			ResourceTable theEntity,
 			AddRemoveCount theAddRemoveCount,
 			Collection<T> theNewParams,
-			Collection<T> theExistingParams) {
+			Collection<T> theExistingParams,
+			@Nullable IndexWriteBatch theBatch) {
 		Collection<T> newParams = theNewParams;
 		for (T next : newParams) {
 			next.setPartitionId(theEntity.getPartitionId());
@@ -102,7 +196,11 @@ public class DaoSearchParamSynchronizer {
 			T next = iterator.next();
 			if (!existingParamsAsSet.add(next)) {
 				iterator.remove();
-				myEntityManager.remove(next);
+				if (theBatch != null) {
+					theBatch.remove(next);
+				} else {
+					myEntityManager.remove(next);
+				}
 			}
 		}
 
@@ -116,6 +214,14 @@ public class DaoSearchParamSynchronizer {
 		List<T> paramsToAdd = subtract(newParams, theExistingParams);
 		tryToReuseIndexEntities(paramsToRemove, paramsToAdd);
 
+		if (theBatch != null) {
+			paramsToRemove.forEach(theBatch::remove);
+			paramsToAdd.forEach(t -> theBatch.add(theEntity, t));
+			theAddRemoveCount.addToAddCount(paramsToAdd.size());
+			theAddRemoveCount.addToRemoveCount(paramsToRemove.size());
+			return;
+		}
+
 		for (T next : paramsToRemove) {
 			if (!myEntityManager.contains(next)) {
 				// If a resource is created and deleted in the same transaction, we can end up
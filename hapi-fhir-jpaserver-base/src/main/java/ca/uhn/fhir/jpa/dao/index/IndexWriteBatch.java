@@ -0,0 +1,137 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.index;
+
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndex;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the search parameter index rows which are added and removed while a FHIR
+ * transaction is being processed, so that they can be handed to Hibernate all at once
+ * just before the session is flushed. Rows are grouped by entity type (and therefore
+ * by table), so that with ordered inserts Hibernate writes each table as a series of
+ * full JDBC batches rather than a few rows at a time every time the session happens to
+ * be flushed while the transaction is being processed.
+ * <p>
+ * Instances are not thread safe, and are only used for the duration of a single transaction.
+ * </p>
+ *
+ * @see DaoSearchParamSynchronizer#startIndexWriteBatch(ca.uhn.fhir.rest.api.server.storage.TransactionDetails)
+ * @since 7.4.0
+ */
+public class IndexWriteBatch {
+
+	private final Map<Class<?>, List<BaseResourceIndex>> myRemoves = new LinkedHashMap<>();
+	private final Map<Class<?>, List<PendingAdd>> myAdds = new LinkedHashMap<>();
+	private final Set<BaseResourceIndex> myPendingAdds = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Queues an index row to be stored. Adding a row which is already queued has no effect.
+	 *
+	 * @param theOwner The resource which the row indexes
+	 * @param theIndex The row
+	 */
+	void add(ResourceTable theOwner, BaseResourceIndex theIndex) {
+		if (myPendingAdds.add(theIndex)) {
+			myAdds.computeIfAbsent(theIndex.getClass(), t -> new ArrayList<>()).add(new PendingAdd(theOwner, theIndex));
+		}
+	}
+
+	/**
+	 * Queues an index row to be removed. If the row was queued to be stored by this batch, it
+	 * is simply dropped from the batch instead.
+	 */
+	void remove(BaseResourceIndex theIndex) {
+		if (myPendingAdds.remove(theIndex)) {
+			myAdds.get(theIndex.getClass()).removeIf(t -> t.myIndex == theIndex);
+		} else {
+			myRemoves.computeIfAbsent(theIndex.getClass(), t -> new ArrayList<>()).add(theIndex);
+		}
+	}
+
+	/**
+	 * Drops any rows queued to be stored for the given resource, e.g. because all of its
+	 * index rows are being deleted
+	 */
+	void discardAdds(ResourceTable theOwner) {
+		for (List<PendingAdd> next : myAdds.values()) {
+			next.removeIf(t -> {
+				if (t.myOwner == theOwner) {
+					myPendingAdds.remove(t.myIndex);
+					return true;
+				}
+				return false;
+			});
+		}
+	}
+
+	/**
+	 * Returns the number of rows currently queued to be stored or removed
+	 */
+	public int size() {
+		int retVal = myPendingAdds.size();
+		for (List<BaseResourceIndex> next : myRemoves.values()) {
+			retVal += next.size();
+		}
+		return retVal;
+	}
+
+	/**
+	 * Hands all queued removals and then all queued additions to the entity manager, table by
+	 * table, and empties the batch. The rows are written when the entity manager is next flushed.
+	 */
+	void writeTo(EntityManager theEntityManager) {
+		for (List<BaseResourceIndex> nextTable : myRemoves.values()) {
+			for (BaseResourceIndex next : nextTable) {
+				if (theEntityManager.contains(next)) {
+					theEntityManager.remove(next);
+				}
+			}
+		}
+		for (List<PendingAdd> nextTable : myAdds.values()) {
+			for (PendingAdd next : nextTable) {
+				theEntityManager.merge(next.myIndex);
+			}
+		}
+
+		myRemoves.clear();
+		myAdds.clear();
+		myPendingAdds.clear();
+	}
+
+	private static class PendingAdd {
+		private final ResourceTable myOwner;
+		private final BaseResourceIndex myIndex;
+
+		private PendingAdd(ResourceTable theOwner, BaseResourceIndex theIndex) {
+			myOwner = theOwner;
+			myIndex = theIndex;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.dao.mdm;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.data.IMdmBlockingKeyJpaRepository;
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class MdmBlockingKeyDaoJpaImpl implements IMdmBlockingKeyDao<JpaPid> {
+
+	@Autowired
+	private IMdmBlockingKeyJpaRepository myMdmBlockingKeyJpaRepository;
+
+	@Override
+	public void replaceBlockingKeys(JpaPid theResourcePid, Set<Long> theKeyHashes) {
+		Long resourcePid = theResourcePid.getId();
+		Set<Long> toAdd = new HashSet<>(theKeyHashes);
+		List<Long> toRemove = new ArrayList<>();
+		for (Long next : myMdmBlockingKeyJpaRepository.findKeyHashesByResourcePid(resourcePid)) {
+			if (!toAdd.remove(next)) {
+				toRemove.add(next);
+			}
+		}
+
+		if (!toRemove.isEmpty()) {
+			myMdmBlockingKeyJpaRepository.deleteByResourcePidAndKeyHashes(resourcePid, toRemove);
+		}
+		if (!toAdd.isEmpty()) {
+			myMdmBlockingKeyJpaRepository.saveAll(toAdd.stream()
+					.map(t -> new MdmBlockingKey(resourcePid, t))
+					.collect(Collectors.toList()));
+		}
+	}
+
+	@Override
+	public int deleteBlockingKeys(JpaPid theResourcePid) {
+		return myMdmBlockingKeyJpaRepository.deleteByResourcePid(theResourcePid.getId());
+	}
+
+	@Override
+	public List<JpaPid> findResourcePidsByBlockingKeys(
+			Collection<Long> theKeyHashes, RequestPartitionId theRequestPartitionId, int theMaxResults) {
+		Pageable page = PageRequest.of(0, theMaxResults);
+		List<Long> pids;
+		if (theRequestPartitionId == null || theRequestPartitionId.isAllPartitions()) {
+			pids = myMdmBlockingKeyJpaRepository.findResourcePidsByKeyHashes(page, theKeyHashes);
+		} else {
+			List<Integer> partitionIds = theRequestPartitionId.getPartitionIdsWithoutDefault();
+			if (!theRequestPartitionId.hasDefaultPartitionId()) {
+				pids = myMdmBlockingKeyJpaRepository.findResourcePidsByKeyHashesAndPartitionIds(
+						page, theKeyHashes, partitionIds);
+			} else if (partitionIds.isEmpty()) {
+				pids = myMdmBlockingKeyJpaRepository.findResourcePidsByKeyHashesInDefaultPartition(page, theKeyHashes);
+			} else {
+				pids = myMdmBlockingKeyJpaRepository.findResourcePidsByKeyHashesAndPartitionIdsOrDefault(
+						page, theKeyHashes, partitionIds);
+			}
+		}
+		return JpaPid.fromLongList(pids);
+	}
+}
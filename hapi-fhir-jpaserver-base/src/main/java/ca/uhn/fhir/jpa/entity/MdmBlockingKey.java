@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.io.Serializable;
+
+/**
+ * A single MDM blocking key for a source resource. A blocking key is a hash of the resource
+ * type, the names of the search parameters in one of the candidate search parameter groups
+ * of the MDM rules, and one normalized value for each of those parameters. Two resources
+ * which share a blocking key are candidates for matching each other.
+ * <p>
+ * There is deliberately no foreign key to {@link ca.uhn.fhir.jpa.model.entity.ResourceTable},
+ * so that deleting or expunging resources isn't slowed down by this table. The keys for a resource
+ * are removed along with its MDM links when it is deleted or expunged, and lookups also join to
+ * the resource table in order to ignore keys which belong to deleted resources.
+ * </p>
+ *
+ * @see ca.uhn.fhir.mdm.api.IMdmSettings#isBlockingKeyIndexEnabled()
+ * @since 7.4.0
+ */
+@Entity
+@Table(
+		name = "MPI_BLOCKING_KEY",
+		indexes = {
+			@Index(name = "IDX_MPI_BLOCKKEY_HASH", columnList = "KEY_HASH, RES_ID"),
+			@Index(name = "IDX_MPI_BLOCKKEY_RES", columnList = "RES_ID")
+		})
+public class MdmBlockingKey implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_MPI_BLOCKING_KEY")
+	@SequenceGenerator(name = "SEQ_MPI_BLOCKING_KEY", sequenceName = "SEQ_MPI_BLOCKING_KEY")
+	@Id
+	@Column(name = "PID")
+	private Long myId;
+
+	@Column(name = "RES_ID", nullable = false, updatable = false)
+	private Long myResourcePid;
+
+	@Column(name = "KEY_HASH", nullable = false, updatable = false)
+	private Long myKeyHash;
+
+	/**
+	 * Constructor
+	 */
+	public MdmBlockingKey() {
+		// nothing
+	}
+
+	/**
+	 * Constructor
+	 */
+	public MdmBlockingKey(Long theResourcePid, Long theKeyHash) {
+		myResourcePid = theResourcePid;
+		myKeyHash = theKeyHash;
+	}
+
+	public Long getId() {
+		return myId;
+	}
+
+	public Long getResourcePid() {
+		return myResourcePid;
+	}
+
+	public Long getKeyHash() {
+		return myKeyHash;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("id", myId)
+				.append("resourcePid", myResourcePid)
+				.append("keyHash", myKeyHash)
+				.toString();
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.entity;
+
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hibernate.Length;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A preset dictionary used to compress resources of a single type which are stored using
+ * the {@link ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum#JSOND} encoding. Dictionaries
+ * are never modified once created, since stored resources refer to them by ID. When a
+ * dictionary is retrained, a new row is added and used for newly stored resources.
+ */
+@Entity
+@Table(
+		name = "HFJ_RES_COMPRESS_DICT",
+		indexes = {@Index(name = "IDX_RESCOMPDICT_TYPE", columnList = "RES_TYPE")})
+public class ResourceCompressionDictionary implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_RES_COMPRESS_DICT")
+	@SequenceGenerator(name = "SEQ_RES_COMPRESS_DICT", sequenceName = "SEQ_RES_COMPRESS_DICT")
+	@Id
+	@Column(name = "PID")
+	private Long myId;
+
+	@Column(name = "RES_TYPE", length = ResourceTable.RESTYPE_LEN, nullable = false, updatable = false)
+	private String myResourceType;
+
+	@Column(name = "DICT_BIN", nullable = false, updatable = false, length = Length.LONG32)
+	private byte[] myDictionary;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "CREATED", nullable = false, updatable = false)
+	private Date myCreated;
+
+	/**
+	 * Constructor
+	 */
+	public ResourceCompressionDictionary() {
+		// nothing
+	}
+
+	/**
+	 * Constructor
+	 */
+	public ResourceCompressionDictionary(String theResourceType, byte[] theDictionary) {
+		myResourceType = theResourceType;
+		myDictionary = theDictionary;
+		myCreated = new Date();
+	}
+
+	public Long getId() {
+		return myId;
+	}
+
+	public void setId(Long theId) {
+		myId = theId;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	public byte[] getDictionary() {
+		return myDictionary;
+	}
+
+	public Date getCreated() {
+		return myCreated;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("id", myId)
+				.append("resourceType", myResourceType)
+				.append("size", myDictionary != null ? myDictionary.length : null)
+				.append("created", myCreated)
+				.toString();
+	}
+}
@@ -120,6 +120,65 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 		init680_Part2();
 		init700();
 		init720();
+		init740();
+	}
+
+	protected void init740() {
+		// Start of migrations from 7.2 to 7.4
+
+		Builder version = forVersion(VersionEnum.V7_4_0);
+
+		{
+			// Compact block storage of search results
+			version.addIdGenerator("20240601.1", "SEQ_SEARCH_RES_BLOCK");
+
+			Builder.BuilderAddTableByColumns searchResultBlockTable =
+					version.addTableByColumns("20240601.2", "HFJ_SEARCH_RESULT_BLOCK", "PID");
+			searchResultBlockTable.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+			searchResultBlockTable.addColumn("SEARCH_PID").nonNullable().type(ColumnTypeEnum.LONG);
+			searchResultBlockTable.addColumn("BLOCK_IDX").nonNullable().type(ColumnTypeEnum.INT);
+			searchResultBlockTable.addColumn("PID_COUNT").nonNullable().type(ColumnTypeEnum.INT);
+			searchResultBlockTable.addColumn("PIDS_BIN").nonNullable().type(ColumnTypeEnum.BINARY);
+			searchResultBlockTable
+					.addIndex("20240601.3", "IDX_SEARCHRESBLOCK_IDX")
+					.unique(true)
+					.withColumns("SEARCH_PID", "BLOCK_IDX");
+		}
+
+		{
+			// Dictionaries for the JSOND resource encoding
+			version.addIdGenerator("20240601.4", "SEQ_RES_COMPRESS_DICT");
+
+			Builder.BuilderAddTableByColumns compressionDictionaryTable =
+					version.addTableByColumns("20240601.5", "HFJ_RES_COMPRESS_DICT", "PID");
+			compressionDictionaryTable.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+			compressionDictionaryTable.addColumn("RES_TYPE").nonNullable().type(ColumnTypeEnum.STRING, 40);
+			compressionDictionaryTable.addColumn("DICT_BIN").nonNullable().type(ColumnTypeEnum.BINARY);
+			compressionDictionaryTable.addColumn("CREATED").nonNullable().type(ColumnTypeEnum.DATE_TIMESTAMP);
+			compressionDictionaryTable
+					.addIndex("20240601.6", "IDX_RESCOMPDICT_TYPE")
+					.unique(false)
+					.withColumns("RES_TYPE");
+		}
+
+		{
+			// MDM blocking key index
+			version.addIdGenerator("20240601.7", "SEQ_MPI_BLOCKING_KEY");
+
+			Builder.BuilderAddTableByColumns blockingKeyTable =
+					version.addTableByColumns("20240601.8", "MPI_BLOCKING_KEY", "PID");
+			blockingKeyTable.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+			blockingKeyTable.addColumn("RES_ID").nonNullable().type(ColumnTypeEnum.LONG);
+			blockingKeyTable.addColumn("KEY_HASH").nonNullable().type(ColumnTypeEnum.LONG);
+			blockingKeyTable
+					.addIndex("20240601.9", "IDX_MPI_BLOCKKEY_HASH")
+					.unique(false)
+					.withColumns("KEY_HASH", "RES_ID");
+			blockingKeyTable
+					.addIndex("20240601.10", "IDX_MPI_BLOCKKEY_RES")
+					.unique(false)
+					.withColumns("RES_ID");
+		}
 	}
 
 	protected void init720() {
@@ -59,6 +59,7 @@ import ca.uhn.fhir.jpa.search.builder.models.ResolvedSearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
 import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryExecutor;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchSqlTemplateCache;
 import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
 import ca.uhn.fhir.jpa.search.lastn.IElasticsearchSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -85,6 +86,7 @@ import ca.uhn.fhir.rest.param.ParameterUtil;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
@@ -127,6 +129,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.model.util.JpaConstants.UNDESIRED_RESOURCE_LINKAGES_FOR_EVERYTHING_ON_PATIENT_INSTANCE;
@@ -198,6 +203,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
 
+	@Autowired(required = false)
+	private SearchResultParsingExecutorProvider mySearchResultParsingExecutorProvider;
+
+	@Autowired(required = false)
+	private SearchSqlTemplateCache mySearchSqlTemplateCache;
+
 	/**
 	 * Constructor
 	 */
@@ -597,6 +608,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		QueryStack queryStack3 = new QueryStack(
 				theParams, myStorageSettings, myContext, sqlBuilder, mySearchParamRegistry, myPartitionSettings);
 
+		boolean needResourceTableRoot = false;
 		if (theParams.keySet().size() > 1
 				|| theParams.getSort() != null
 				|| theParams.keySet().contains(Constants.PARAM_HAS)
@@ -605,9 +617,28 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 					mySearchParamRegistry.getActiveComboSearchParams(myResourceName, theParams.keySet());
 			if (activeComboParams.isEmpty()) {
 				sqlBuilder.setNeedResourceTableRoot(true);
+				needResourceTableRoot = true;
 			}
 		}
 
+		/*
+		 * The key has to be created before the predicates are built, since building them
+		 * consumes some of the parameters
+		 */
+		String sqlTemplateKey = null;
+		if (mySearchSqlTemplateCache != null && mySearchSqlTemplateCache.isEnabled() && thePidList == null) {
+			sqlTemplateKey = mySearchSqlTemplateCache.createKey(
+					mySearchParamRegistry,
+					sqlBuilderResourceName,
+					myParams,
+					myRequestPartitionId,
+					sort,
+					theOffset,
+					myMaxResultsToFetch,
+					theCountOnlyFlag,
+					needResourceTableRoot);
+		}
+
 		JdbcTemplate jdbcTemplate = new JdbcTemplate(myEntityManagerFactory.getDataSource());
 		jdbcTemplate.setFetchSize(myFetchSize);
 		if (theMaximumResults != null) {
@@ -709,9 +740,11 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		 * parameters in one query. So we only do this optimization if there aren't too
 		 * many results.
 		 */
+		boolean excludedResourceIds = false;
 		if (myHasNextIteratorQuery) {
 			if (myPidSet.size() + sqlBuilder.countBindVariables() < 900) {
 				sqlBuilder.excludeResourceIdsPredicate(myPidSet);
+				excludedResourceIds = !myPidSet.isEmpty();
 			}
 		}
 
@@ -738,7 +771,11 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		/*
 		 * Now perform the search
 		 */
-		GeneratedSql generatedSql = sqlBuilder.generate(theOffset, myMaxResultsToFetch);
+		if (excludedResourceIds) {
+			sqlTemplateKey = null;
+		}
+		GeneratedSql generatedSql =
+				sqlBuilder.generate(theOffset, myMaxResultsToFetch, mySearchSqlTemplateCache, sqlTemplateKey);
 		if (!generatedSql.isMatchNothing()) {
 			SearchQueryExecutor executor =
 					mySqlBuilderFactory.newSearchQueryExecutor(generatedSql, myMaxResultsToFetch);
@@ -1042,7 +1079,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			Collection<JpaPid> theIncludedPids,
 			List<IBaseResource> theResourceListToPopulate,
 			boolean theForHistoryOperation,
-			Map<JpaPid, Integer> thePosition) {
+			Map<JpaPid, Integer> thePosition,
+			@Nullable Executor theParsingExecutor,
+			Map<Integer, CompletableFuture<IBaseResource>> thePendingResources) {
 
 		Map<Long, Long> resourcePidToVersion = null;
 		for (JpaPid next : thePids) {
@@ -1093,36 +1132,63 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				}
 			}
 
-			IBaseResource resource = null;
-			if (next != null) {
-				resource = myJpaStorageResourceParser.toResource(
-						resourceType, next, tagMap.get(next.getId()), theForHistoryOperation);
-			}
-			if (resource == null) {
-				ourLog.warn(
-						"Unable to find resource {}/{}/_history/{} in database",
-						next.getResourceType(),
-						next.getIdDt().getIdPart(),
-						next.getVersion());
-				continue;
-			}
-
 			Integer index = thePosition.get(resourceId);
 			if (index == null) {
 				ourLog.warn("Got back unexpected resource PID {}", resourceId);
 				continue;
 			}
 
-			if (theIncludedPids.contains(resourceId)) {
-				ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(resource, BundleEntrySearchModeEnum.INCLUDE);
+			BundleEntrySearchModeEnum searchMode = theIncludedPids.contains(resourceId)
+					? BundleEntrySearchModeEnum.INCLUDE
+					: BundleEntrySearchModeEnum.MATCH;
+
+			/*
+			 * Rows from the search view are fully loaded, so they can safely be parsed away
+			 * from the request thread. Entities loaded via the DAO may still need to lazy load
+			 * their history/tags within the current session, so we always parse those here.
+			 */
+			IBaseResourceEntity entity = next;
+			Collection<ResourceTag> tags = tagMap.get(next.getId());
+			if (theParsingExecutor != null && entity instanceof ResourceSearchView) {
+				thePendingResources.put(
+						index,
+						CompletableFuture.supplyAsync(
+								() -> toResource(resourceType, entity, tags, theForHistoryOperation, searchMode),
+								theParsingExecutor));
 			} else {
-				ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(resource, BundleEntrySearchModeEnum.MATCH);
+				IBaseResource resource = toResource(resourceType, entity, tags, theForHistoryOperation, searchMode);
+				if (resource != null) {
+					theResourceListToPopulate.set(index, resource);
+				}
 			}
-
-			theResourceListToPopulate.set(index, resource);
 		}
 	}
 
+	@Nullable
+	private IBaseResource toResource(
+			Class<? extends IBaseResource> theResourceType,
+			@Nullable IBaseResourceEntity theEntity,
+			Collection<ResourceTag> theTags,
+			boolean theForHistoryOperation,
+			BundleEntrySearchModeEnum theSearchMode) {
+		IBaseResource resource = null;
+		if (theEntity != null) {
+			resource =
+					myJpaStorageResourceParser.toResource(theResourceType, theEntity, theTags, theForHistoryOperation);
+		}
+		if (resource == null) {
+			ourLog.warn(
+					"Unable to find resource {}/{}/_history/{} in database",
+					theEntity.getResourceType(),
+					theEntity.getIdDt().getIdPart(),
+					theEntity.getVersion());
+			return null;
+		}
+
+		ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(resource, theSearchMode);
+		return resource;
+	}
+
 	private Map<Long, Collection<ResourceTag>> getResourceTagMap(
 			Collection<? extends IBaseResourceEntity> theResourceSearchViewList) {
 
@@ -1200,12 +1266,48 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			}
 		}
 
+		/*
+		 * If parallel parsing is enabled, each chunk's resources are handed off to the parsing
+		 * pool as soon as they are fetched, so that fetching the next chunk overlaps with parsing
+		 * the current one. Results are only placed in the list once everything has been parsed,
+		 * so ordering is unaffected.
+		 */
+		Executor parsingExecutor = mySearchResultParsingExecutorProvider != null
+				? mySearchResultParsingExecutorProvider.getExecutor()
+				: null;
+		Map<Integer, CompletableFuture<IBaseResource>> pendingResources = new HashMap<>();
+
 		// We only chunk because some jdbc drivers can't handle long param lists.
 		new QueryChunker<JpaPid>()
 				.chunk(
 						thePids,
 						t -> doLoadPids(
-								t, theIncludedPids, theResourceListToPopulate, theForHistoryOperation, position));
+								t,
+								theIncludedPids,
+								theResourceListToPopulate,
+								theForHistoryOperation,
+								position,
+								parsingExecutor,
+								pendingResources));
+
+		for (Map.Entry<Integer, CompletableFuture<IBaseResource>> next : pendingResources.entrySet()) {
+			IBaseResource resource = awaitParsedResource(next.getValue());
+			if (resource != null) {
+				theResourceListToPopulate.set(next.getKey(), resource);
+			}
+		}
+	}
+
+	@Nullable
+	private static IBaseResource awaitParsedResource(CompletableFuture<IBaseResource> theFuture) {
+		try {
+			return theFuture.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2519) + e.getCause().getMessage(), e.getCause());
+		}
 	}
 
 	/**
@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.util.ThreadPoolUtil;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Provides the thread pool used by {@link SearchBuilder} to parse the resources of a
+ * page of search results in parallel. The pool is created lazily, and is recreated if
+ * {@link JpaStorageSettings#getSearchResultParsingThreadCount()} changes.
+ */
+public class SearchResultParsingExecutorProvider {
+
+	/**
+	 * Once this many parse tasks are waiting, the submitting thread blocks until
+	 * a worker frees up
+	 */
+	private static final int QUEUE_CAPACITY = 1000;
+
+	private final JpaStorageSettings myStorageSettings;
+	private volatile PoolHolder myPool;
+
+	/**
+	 * Constructor
+	 */
+	public SearchResultParsingExecutorProvider(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * Returns the executor to parse search results with, or <code>null</code> if
+	 * resources should be parsed on the calling thread. This is called for every page
+	 * of search results, so it only locks when the pool needs to be created, replaced
+	 * or shut down.
+	 */
+	@Nullable
+	public Executor getExecutor() {
+		int threadCount = myStorageSettings.getSearchResultParsingThreadCount();
+		PoolHolder pool = myPool;
+		if (threadCount <= 1) {
+			if (pool != null) {
+				synchronized (this) {
+					shutdownExecutor();
+				}
+			}
+			return null;
+		}
+
+		if (pool == null || pool.myThreadCount != threadCount) {
+			synchronized (this) {
+				pool = myPool;
+				if (pool == null || pool.myThreadCount != threadCount) {
+					shutdownExecutor();
+					ThreadPoolTaskExecutor executor = ThreadPoolUtil.newThreadPool(
+							threadCount, threadCount, "search-result-parsing-", QUEUE_CAPACITY);
+					pool = new PoolHolder(executor, threadCount);
+					myPool = pool;
+				}
+			}
+		}
+		return pool.myExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		shutdownExecutor();
+	}
+
+	private void shutdownExecutor() {
+		PoolHolder pool = myPool;
+		if (pool != null) {
+			myPool = null;
+			// Let any in-flight parse tasks finish, since a search may still be waiting on them
+			pool.myExecutor.setWaitForTasksToCompleteOnShutdown(true);
+			pool.myExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * The pool together with the thread count it was created for, so that both can be
+	 * read with a single volatile read
+	 */
+	private static class PoolHolder {
+		private final ThreadPoolTaskExecutor myExecutor;
+		private final int myThreadCount;
+
+		private PoolHolder(ThreadPoolTaskExecutor theExecutor, int theThreadCount) {
+			myExecutor = theExecutor;
+			myThreadCount = theThreadCount;
+		}
+	}
+}
@@ -473,27 +473,71 @@ public class SearchQueryBuilder {
 	 * Generate and return the SQL generated by this builder
 	 */
 	public GeneratedSql generate(@Nullable Integer theOffset, @Nullable Integer theMaxResultsToFetch) {
+		return generate(theOffset, theMaxResultsToFetch, null, null);
+	}
+
+	/**
+	 * Generate and return the SQL generated by this builder, reusing a previously rendered
+	 * template from the given cache if one exists for the given key.
+	 *
+	 * @param theTemplateCache The template cache, or <code>null</code> to always render the SQL
+	 * @param theTemplateKey   The key identifying the shape of this query (see {@link SearchSqlTemplateCache#createKey}),
+	 *                         or <code>null</code> if this query shouldn't be cached
+	 * @since 7.4.0
+	 */
+	public GeneratedSql generate(
+			@Nullable Integer theOffset,
+			@Nullable Integer theMaxResultsToFetch,
+			@Nullable SearchSqlTemplateCache theTemplateCache,
+			@Nullable String theTemplateKey) {
 
 		getOrCreateFirstPredicateBuilder();
 
+		boolean useTemplateCache = theTemplateCache != null && theTemplateKey != null;
+		SearchSqlTemplate template = null;
+		if (useTemplateCache) {
+			template = theTemplateCache.getTemplate(theTemplateKey, myBindVariableValues);
+		}
+		if (template == null) {
+			template = renderTemplate(theOffset, theMaxResultsToFetch);
+			if (useTemplateCache) {
+				theTemplateCache.putTemplate(theTemplateKey, template);
+			}
+		}
+
+		return template.bind(myMatchNothing, myBindVariableValues);
+	}
+
+	private SearchSqlTemplate renderTemplate(@Nullable Integer theOffset, @Nullable Integer theMaxResultsToFetch) {
 		mySelect.validate();
-		String sql = mySelect.toString();
+		String rawSql = mySelect.toString();
 
+		/*
+		 * Each bind variable is either a SearchSqlTemplate.PlaceholderIndex pointing
+		 * at one of the placeholder values, or a constant which was added for the
+		 * limit/offset clause.
+		 */
 		List<Object> bindVariables = new ArrayList<>();
+		StringBuilder sqlBuilder = new StringBuilder(rawSql.length());
+		int copiedUpTo = 0;
 		while (true) {
 
-			int idx = sql.indexOf(myBindVariableSubstitutionBase);
+			int idx = rawSql.indexOf(myBindVariableSubstitutionBase, copiedUpTo);
 			if (idx == -1) {
 				break;
 			}
 
-			int endIdx = sql.indexOf("'", idx + myBindVariableSubstitutionBase.length());
-			String substitutionIndexString = sql.substring(idx + myBindVariableSubstitutionBase.length(), endIdx);
+			int endIdx = rawSql.indexOf("'", idx + myBindVariableSubstitutionBase.length());
+			String substitutionIndexString = rawSql.substring(idx + myBindVariableSubstitutionBase.length(), endIdx);
 			int substitutionIndex = Integer.parseInt(substitutionIndexString);
-			bindVariables.add(myBindVariableValues.get(substitutionIndex));
+			bindVariables.add(new SearchSqlTemplate.PlaceholderIndex(substitutionIndex));
 
-			sql = sql.substring(0, idx - 1) + "?" + sql.substring(endIdx + 1);
+			// The placeholder is quoted, so drop the opening quote too
+			sqlBuilder.append(rawSql, copiedUpTo, idx - 1).append('?');
+			copiedUpTo = endIdx + 1;
 		}
+		sqlBuilder.append(rawSql, copiedUpTo, rawSql.length());
+		String sql = sqlBuilder.toString();
 
 		Integer maxResultsToFetch = theMaxResultsToFetch;
 		Integer offset = theOffset;
@@ -583,7 +627,7 @@ public class SearchQueryBuilder {
 			}
 		}
 
-		return new GeneratedSql(myMatchNothing, sql, bindVariables);
+		return new SearchSqlTemplate(sql, bindVariables, myBindVariableValues);
 	}
 
 	private int bindCountParameter(
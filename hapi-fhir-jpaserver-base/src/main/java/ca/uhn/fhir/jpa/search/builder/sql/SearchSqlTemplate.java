@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The rendered SQL for a search, with its bind variables replaced by references to the
+ * order in which the values were supplied to {@link SearchQueryBuilder#generatePlaceholder(Object)}.
+ * A template can be reused for any later query whose predicates were built in the same way,
+ * by binding that query's values with {@link #bind(boolean, List)}.
+ *
+ * @see SearchSqlTemplateCache
+ * @since 7.4.0
+ */
+public class SearchSqlTemplate {
+
+	private final String mySql;
+	private final List<Object> myBindVariableSlots;
+	private final List<Class<?>> myPlaceholderValueTypes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSql                  The SQL, using <code>?</code> for bind variables
+	 * @param theBindVariableSlots    One entry per bind variable in the SQL. Each entry is either a
+	 *                                {@link PlaceholderIndex} referring to a placeholder value, or a
+	 *                                constant (e.g. a limit) which is bound as-is.
+	 * @param thePlaceholderValues    The placeholder values the SQL was rendered from, used to
+	 *                                check that later queries supply compatible values
+	 */
+	SearchSqlTemplate(String theSql, List<Object> theBindVariableSlots, List<Object> thePlaceholderValues) {
+		mySql = theSql;
+		myBindVariableSlots = theBindVariableSlots;
+		myPlaceholderValueTypes = new ArrayList<>(thePlaceholderValues.size());
+		for (Object next : thePlaceholderValues) {
+			myPlaceholderValueTypes.add(next != null ? next.getClass() : null);
+		}
+	}
+
+	public String getSql() {
+		return mySql;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given placeholder values could have been produced by a
+	 * query with the same structure as the one this template was rendered from, i.e. there is
+	 * the same number of values and each has the same type.
+	 */
+	boolean isCompatibleWith(List<Object> thePlaceholderValues) {
+		if (thePlaceholderValues.size() != myPlaceholderValueTypes.size()) {
+			return false;
+		}
+		for (int i = 0; i < thePlaceholderValues.size(); i++) {
+			Object next = thePlaceholderValues.get(i);
+			if (!Objects.equals(myPlaceholderValueTypes.get(i), next != null ? next.getClass() : null)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the SQL to execute using this template and the given placeholder values
+	 */
+	public GeneratedSql bind(boolean theMatchNothing, List<Object> thePlaceholderValues) {
+		List<Object> bindVariables = new ArrayList<>(myBindVariableSlots.size());
+		for (Object next : myBindVariableSlots) {
+			if (next instanceof PlaceholderIndex) {
+				bindVariables.add(thePlaceholderValues.get(((PlaceholderIndex) next).getIndex()));
+			} else {
+				bindVariables.add(next);
+			}
+		}
+		return new GeneratedSql(theMatchNothing, mySql, bindVariables);
+	}
+
+	/**
+	 * A bind variable slot which takes its value from a placeholder
+	 */
+	static class PlaceholderIndex {
+
+		private final int myIndex;
+
+		PlaceholderIndex(int theIndex) {
+			myIndex = theIndex;
+		}
+
+		int getIndex() {
+			return myIndex;
+		}
+	}
+}
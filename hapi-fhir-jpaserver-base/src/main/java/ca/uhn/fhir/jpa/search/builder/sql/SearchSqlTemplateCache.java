@@ -0,0 +1,391 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder.sql;
+
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.DateParam;
+import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.param.TokenParamModifier;
+import ca.uhn.fhir.rest.param.UriParam;
+import ca.uhn.fhir.rest.param.UriParamQualifierEnum;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.time.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Caches the rendered SQL of JPA searches, keyed by the shape of the search: the resource type,
+ * the parameters with their modifiers and value kinds (but not their values), the partition
+ * mode, the sort and the paging limits. Searches with the same shape build the same SQL and
+ * differ only in their bind variables, so the SQL rendered for the first one can be reused
+ * by later ones.
+ * <p>
+ * Only search parameter types whose SQL structure doesn't depend on the values being searched
+ * for are considered (chained references, <code>_has</code>, terminology-expanding token
+ * modifiers and the like are never cached). As an additional safeguard a cached template is
+ * only used if the query being executed produced the same number and types of placeholder
+ * values as the query the template was rendered from.
+ * </p>
+ * <p>
+ * The cache is disabled unless {@link JpaStorageSettings#getSearchSqlTemplateCacheSize()} is
+ * greater than 0.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+public class SearchSqlTemplateCache {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchSqlTemplateCache.class);
+	private static final long EXPIRE_AFTER_WRITE_MILLIS = DateUtils.MILLIS_PER_HOUR;
+
+	private final JpaStorageSettings myStorageSettings;
+	private final LongAdder myHitCount = new LongAdder();
+	private final LongAdder myMissCount = new LongAdder();
+	private final LongAdder myMismatchCount = new LongAdder();
+	private volatile Cache<String, SearchSqlTemplate> myTemplates;
+	private volatile int myTemplatesMaximumSize;
+
+	/**
+	 * Constructor
+	 */
+	public SearchSqlTemplateCache(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * Returns <code>true</code> if templates should be cached
+	 */
+	public boolean isEnabled() {
+		return myStorageSettings.getSearchSqlTemplateCacheSize() > 0;
+	}
+
+	/**
+	 * Returns the cached template for the given key if one exists and it was rendered from a
+	 * query which produced placeholder values compatible with the given ones.
+	 */
+	@Nullable
+	SearchSqlTemplate getTemplate(String theKey, List<Object> thePlaceholderValues) {
+		Cache<String, SearchSqlTemplate> templates = getTemplates();
+		if (templates == null) {
+			return null;
+		}
+
+		SearchSqlTemplate retVal = templates.getIfPresent(theKey);
+		if (retVal == null) {
+			myMissCount.increment();
+			return null;
+		}
+
+		if (!retVal.isCompatibleWith(thePlaceholderValues)) {
+			ourLog.debug("Discarding cached SQL template for {} as the query values are not compatible", theKey);
+			myMismatchCount.increment();
+			templates.invalidate(theKey);
+			return null;
+		}
+
+		myHitCount.increment();
+		return retVal;
+	}
+
+	void putTemplate(String theKey, SearchSqlTemplate theTemplate) {
+		Cache<String, SearchSqlTemplate> templates = getTemplates();
+		if (templates != null) {
+			templates.put(theKey, theTemplate);
+		}
+	}
+
+	/**
+	 * Discards all cached templates
+	 */
+	public void invalidateAll() {
+		Cache<String, SearchSqlTemplate> templates = myTemplates;
+		if (templates != null) {
+			templates.invalidateAll();
+		}
+	}
+
+	/**
+	 * Returns the number of searches which reused a cached template
+	 */
+	public long getHitCount() {
+		return myHitCount.sum();
+	}
+
+	/**
+	 * Returns the number of cacheable searches for which no template was cached yet
+	 */
+	public long getMissCount() {
+		return myMissCount.sum();
+	}
+
+	/**
+	 * Returns the number of searches which found a cached template that turned out not to
+	 * be compatible with the search. A non-zero value means that searches with the same key
+	 * produced differently structured SQL.
+	 */
+	public long getMismatchCount() {
+		return myMismatchCount.sum();
+	}
+
+	/**
+	 * Returns the fraction of cacheable searches which reused a cached template, or 0 if no
+	 * cacheable searches have been performed
+	 */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount() + getMismatchCount();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	/**
+	 * Returns the approximate number of templates currently cached
+	 */
+	public long getEstimatedSize() {
+		Cache<String, SearchSqlTemplate> templates = myTemplates;
+		return templates != null ? templates.estimatedSize() : 0;
+	}
+
+	@Nullable
+	private Cache<String, SearchSqlTemplate> getTemplates() {
+		int maximumSize = myStorageSettings.getSearchSqlTemplateCacheSize();
+		if (maximumSize <= 0) {
+			return null;
+		}
+
+		Cache<String, SearchSqlTemplate> retVal = myTemplates;
+		if (retVal == null || myTemplatesMaximumSize != maximumSize) {
+			synchronized (this) {
+				retVal = myTemplates;
+				if (retVal == null || myTemplatesMaximumSize != maximumSize) {
+					retVal = CacheFactory.build(EXPIRE_AFTER_WRITE_MILLIS, maximumSize);
+					myTemplatesMaximumSize = maximumSize;
+					myTemplates = retVal;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Creates the key identifying the shape of the given search, or returns <code>null</code>
+	 * if the SQL for the search may depend on the values being searched for and so must
+	 * not be cached.
+	 */
+	@Nullable
+	public String createKey(
+			ISearchParamRegistry theSearchParamRegistry,
+			String theResourceName,
+			SearchParameterMap theParams,
+			@Nullable RequestPartitionId theRequestPartitionId,
+			@Nullable SortSpec theSort,
+			@Nullable Integer theOffset,
+			@Nullable Integer theMaxResultsToFetch,
+			boolean theCountOnly,
+			boolean theNeedResourceTableRoot) {
+		if (!isEnabled()
+				|| theResourceName == null
+				|| theParams.getEverythingMode() != null
+				|| theParams.getNearDistanceParam() != null) {
+			return null;
+		}
+
+		StringBuilder b = new StringBuilder(128);
+		b.append(theResourceName);
+		b.append("|count=").append(theCountOnly);
+		b.append("|root=").append(theNeedResourceTableRoot);
+		b.append("|offset=").append(theOffset);
+		b.append("|max=").append(theMaxResultsToFetch);
+		b.append("|contained=").append(theParams.getSearchContainedMode());
+
+		b.append("|partition=");
+		if (theRequestPartitionId == null) {
+			b.append("none");
+		} else if (theRequestPartitionId.isAllPartitions()) {
+			b.append("all");
+		} else {
+			for (Integer next : theRequestPartitionId.getPartitionIds()) {
+				b.append(next == null ? 'N' : 'P');
+			}
+		}
+
+		b.append("|sort=");
+		for (SortSpec next = theSort; next != null; next = next.getChain()) {
+			b.append(next.getParamName()).append(' ').append(next.getOrder()).append(',');
+		}
+
+		DateRangeParam lastUpdated = theParams.getLastUpdated();
+		if (lastUpdated != null && !lastUpdated.isEmpty()) {
+			b.append("|_lastUpdated=");
+			appendDateShape(b, lastUpdated.getLowerBound());
+			b.append(',');
+			appendDateShape(b, lastUpdated.getUpperBound());
+		}
+
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextEntry : theParams.entrySet()) {
+			String paramName = nextEntry.getKey();
+			if (paramName.startsWith("_") || paramName.contains(".")) {
+				return null;
+			}
+			RuntimeSearchParam searchParam = theSearchParamRegistry.getActiveSearchParam(theResourceName, paramName);
+			if (searchParam == null) {
+				return null;
+			}
+
+			b.append('|').append(paramName).append('=');
+			for (List<IQueryParameterType> nextAnd : nextEntry.getValue()) {
+				b.append('(');
+				String tokenKind = null;
+				for (IQueryParameterType nextOr : nextAnd) {
+					String shape = getValueShape(searchParam, nextOr);
+					if (shape == null) {
+						return null;
+					}
+					/*
+					 * Token values are sorted before the SQL is built, so if an OR list mixes
+					 * system-only, code-only and system+code values, the order of the resulting
+					 * predicates depends on the values
+					 */
+					if (nextOr instanceof TokenParam) {
+						if (tokenKind != null && !tokenKind.equals(shape)) {
+							return null;
+						}
+						tokenKind = shape;
+					}
+					b.append(shape).append(',');
+				}
+				b.append(')');
+			}
+		}
+
+		return b.toString();
+	}
+
+	@Nullable
+	private static String getValueShape(RuntimeSearchParam theSearchParam, IQueryParameterType theValue) {
+		StringBuilder b = new StringBuilder();
+		b.append(theValue.getClass().getSimpleName());
+		b.append(theValue.getMissing());
+
+		switch (theSearchParam.getParamType()) {
+			case TOKEN:
+				if (!(theValue instanceof TokenParam)) {
+					return null;
+				}
+				TokenParam token = (TokenParam) theValue;
+				TokenParamModifier modifier = token.getModifier();
+				if (modifier != null && modifier != TokenParamModifier.NOT) {
+					return null;
+				}
+				b.append(modifier);
+				if (token.getSystem() == null) {
+					b.append("V");
+				} else if (isBlank(token.getValue())) {
+					b.append("S");
+				} else {
+					b.append("SV");
+				}
+				break;
+			case STRING:
+				if (!(theValue instanceof StringParam)) {
+					return null;
+				}
+				b.append(theValue.getQueryParameterQualifier());
+				break;
+			case DATE:
+				if (!(theValue instanceof DateParam)) {
+					return null;
+				}
+				appendDateShape(b, (DateParam) theValue);
+				break;
+			case NUMBER:
+				if (!(theValue instanceof NumberParam)) {
+					return null;
+				}
+				b.append(((NumberParam) theValue).getPrefix());
+				break;
+			case URI:
+				if (!(theValue instanceof UriParam)) {
+					return null;
+				}
+				UriParamQualifierEnum qualifier = ((UriParam) theValue).getQualifier();
+				if (qualifier == UriParamQualifierEnum.ABOVE) {
+					return null;
+				}
+				b.append(qualifier);
+				break;
+			case REFERENCE:
+				if (!(theValue instanceof ReferenceParam)) {
+					return null;
+				}
+				ReferenceParam reference = (ReferenceParam) theValue;
+				String referenceQualifier = theValue.getQueryParameterQualifier();
+				if (isNotBlank(reference.getChain()) || isNotBlank(reference.getBaseUrl())) {
+					return null;
+				}
+				// Only resource type qualifiers (e.g. subject:Patient) don't depend on the value
+				if (isNotBlank(referenceQualifier)
+						&& (referenceQualifier.length() < 2 || !Character.isUpperCase(referenceQualifier.charAt(1)))) {
+					return null;
+				}
+				b.append(referenceQualifier);
+				b.append(isNotBlank(reference.getResourceType()));
+				break;
+			default:
+				return null;
+		}
+
+		return b.toString();
+	}
+
+	private static void appendDateShape(StringBuilder theBuilder, @Nullable DateParam theDate) {
+		if (theDate == null || theDate.isEmpty()) {
+			theBuilder.append("empty");
+		} else {
+			theBuilder.append(theDate.getPrefix()).append(' ').append(theDate.getPrecision());
+		}
+	}
+
+	@Nonnull
+	@Override
+	public String toString() {
+		return "SearchSqlTemplateCache[hits=" + getHitCount() + ", misses=" + getMissCount() + ", mismatches="
+				+ getMismatchCount() + "]";
+	}
+}
@@ -24,6 +24,7 @@ import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.ISearchDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchIncludeDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
 import ca.uhn.fhir.jpa.dao.data.SearchIdAndResultSize;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
@@ -50,6 +51,7 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -85,6 +87,9 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 	@Autowired
 	private ISearchResultDao mySearchResultDao;
 
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+
 	@Autowired
 	private ISearchIncludeDao mySearchIncludeDao;
 
@@ -299,6 +304,20 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 		 * @param theNumberOfResults the number of search results present
 		 */
 		private void deleteSearchResultsByChunk(long theSearchPid, int theNumberOfResults) {
+			// Searches stored as blocks have no HFJ_SEARCH_RESULT rows, and their blocks hold
+			// many results per row so they can always go in one statement
+			int blockCount = mySearchResultBlockDao.countForSearch(theSearchPid);
+			if (blockCount > 0) {
+				ourLog.debug(
+						"Search {} is large: has {} results in {} blocks.  Deleting blocks.",
+						theSearchPid,
+						theNumberOfResults,
+						blockCount);
+				mySearchResultBlockDao.deleteBySearchIds(List.of(theSearchPid));
+				commitOpenChanges();
+				return;
+			}
+
 			ourLog.debug(
 					"Search {} is large: has {} results.  Deleting results in chunks.",
 					theSearchPid,
@@ -332,6 +351,7 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 					myDeleteSearchResultsBatchCount,
 					myDeleteSearchResultsBatch.size());
 			mySearchResultDao.deleteBySearchIds(myDeleteSearchResultsBatch);
+			mySearchResultBlockDao.deleteBySearchIds(myDeleteSearchResultsBatch);
 			myDeleteSearchResultsBatch.clear();
 			myDeleteSearchResultsBatchCount = 0;
 			commitOpenChanges();
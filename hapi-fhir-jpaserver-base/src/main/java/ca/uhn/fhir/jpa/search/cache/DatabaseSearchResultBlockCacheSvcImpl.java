@@ -0,0 +1,177 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores search results as blocks of up to {@link #DEFAULT_BLOCK_SIZE} delta-encoded and
+ * compressed PIDs (see {@link SearchResultBlockCodec}) in the <code>HFJ_SEARCH_RESULT_BLOCK</code>
+ * table, instead of one <code>HFJ_SEARCH_RESULT</code> row per PID as
+ * {@link DatabaseSearchResultCacheSvcImpl} does. This greatly reduces the number of rows which
+ * need to be inserted for large searches, and later deleted again when the search expires.
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchResultBlockStorageEnabled(boolean)
+ * @since 7.4.0
+ */
+public class DatabaseSearchResultBlockCacheSvcImpl implements ISearchResultCacheSvc {
+	public static final int DEFAULT_BLOCK_SIZE = 10_000;
+	private static final Logger ourLog = LoggerFactory.getLogger(DatabaseSearchResultBlockCacheSvcImpl.class);
+
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+
+	@Autowired
+	private IHapiTransactionService myTransactionService;
+
+	private int myBlockSize = DEFAULT_BLOCK_SIZE;
+
+	@VisibleForTesting
+	public void setBlockSizeForUnitTest(int theBlockSize) {
+		myBlockSize = theBlockSize;
+	}
+
+	@Override
+	public List<JpaPid> fetchResultPids(
+			Search theSearch,
+			int theFrom,
+			int theTo,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		return myTransactionService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> {
+					if (theTo - theFrom < 1) {
+						return Collections.emptyList();
+					}
+
+					// Only read the blocks which overlap the requested range
+					int fromBlock = theFrom / myBlockSize;
+					int toBlock = (theTo - 1) / myBlockSize;
+					List<SearchResultBlock> blocks =
+							mySearchResultBlockDao.findWithSearchPidInRange(theSearch.getId(), fromBlock, toBlock);
+
+					List<Long> retVal = new ArrayList<>(theTo - theFrom);
+					for (SearchResultBlock next : blocks) {
+						List<Long> pids = SearchResultBlockCodec.decode(next.getPids(), next.getPidCount());
+						int blockStart = next.getBlockIndex() * myBlockSize;
+						int start = Math.max(theFrom - blockStart, 0);
+						int end = Math.min(theTo - blockStart, pids.size());
+						if (start < end) {
+							retVal.addAll(pids.subList(start, end));
+						}
+					}
+
+					ourLog.debug(
+							"fetchResultPids for range {}-{} returned {} pids from {} blocks",
+							theFrom,
+							theTo,
+							retVal.size(),
+							blocks.size());
+
+					return JpaPid.fromLongList(retVal);
+				});
+	}
+
+	@Override
+	public List<JpaPid> fetchAllResultPids(
+			Search theSearch, RequestDetails theRequestDetails, RequestPartitionId theRequestPartitionId) {
+		return myTransactionService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> {
+					List<Long> retVal = new ArrayList<>();
+					for (SearchResultBlock next : mySearchResultBlockDao.findWithSearchPid(theSearch.getId())) {
+						retVal.addAll(SearchResultBlockCodec.decode(next.getPids(), next.getPidCount()));
+					}
+					ourLog.trace("fetchAllResultPids returned {} pids", retVal.size());
+					return JpaPid.fromLongList(retVal);
+				});
+	}
+
+	@Override
+	public void storeResults(
+			Search theSearch,
+			List<JpaPid> thePreviouslyStoredResourcePids,
+			List<JpaPid> theNewResourcePids,
+			RequestDetails theRequestDetails,
+			RequestPartitionId theRequestPartitionId) {
+		myTransactionService
+				.withRequest(theRequestDetails)
+				.withRequestPartitionId(theRequestPartitionId)
+				.execute(() -> {
+					ourLog.debug(
+							"Storing {} results with {} previous for search",
+							theNewResourcePids.size(),
+							thePreviouslyStoredResourcePids.size());
+
+					List<SearchResultBlock> blocksToSave = new ArrayList<>();
+					int order = thePreviouslyStoredResourcePids.size();
+					int newIndex = 0;
+					while (newIndex < theNewResourcePids.size()) {
+						int blockIndex = order / myBlockSize;
+						int offsetInBlock = order % myBlockSize;
+
+						// If the previous pass left a partially filled block, we append to it. The PIDs
+						// already in that block are the tail of the previously stored PIDs, so the block
+						// only needs to be re-encoded rather than decoded first.
+						SearchResultBlock block = null;
+						List<Long> pids = new ArrayList<>();
+						if (offsetInBlock > 0) {
+							block = mySearchResultBlockDao
+									.findWithSearchPidAndBlockIndex(theSearch.getId(), blockIndex)
+									.orElse(null);
+							pids.addAll(JpaPid.toLongList(
+									thePreviouslyStoredResourcePids.subList(order - offsetInBlock, order)));
+						}
+						if (block == null) {
+							block = new SearchResultBlock(theSearch, blockIndex);
+						}
+
+						int count = Math.min(myBlockSize - offsetInBlock, theNewResourcePids.size() - newIndex);
+						pids.addAll(JpaPid.toLongList(theNewResourcePids.subList(newIndex, newIndex + count)));
+						block.setPids(SearchResultBlockCodec.encode(pids), pids.size());
+						blocksToSave.add(block);
+
+						ourLog.trace("Saving {} results in block {}", pids.size(), blockIndex);
+
+						order += count;
+						newIndex += count;
+					}
+
+					mySearchResultBlockDao.saveAll(blocksToSave);
+				});
+	}
+}
@@ -0,0 +1,144 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import jakarta.annotation.Nonnull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes a list of resource PIDs into the compact form stored in
+ * {@link ca.uhn.fhir.jpa.entity.SearchResultBlock}.
+ * <p>
+ * Each PID is stored as the (zigzag-encoded) difference from the previous one,
+ * written as a variable length integer, and the whole block is then deflated.
+ * Result sets are often sorted by PID or close to it, so most deltas fit in
+ * one or two bytes before compression.
+ * </p>
+ */
+public final class SearchResultBlockCodec {
+
+	/**
+	 * A 64 bit value needs at most 10 groups of 7 bits
+	 */
+	private static final int MAX_VAR_LONG_BYTES = 10;
+
+	private static final int BUFFER_SIZE = 4096;
+
+	/**
+	 * Non instantiable
+	 */
+	private SearchResultBlockCodec() {
+		super();
+	}
+
+	@Nonnull
+	public static byte[] encode(List<Long> thePids) {
+		byte[] varLongs = new byte[thePids.size() * MAX_VAR_LONG_BYTES];
+		int length = 0;
+		long previous = 0;
+		for (Long next : thePids) {
+			long delta = next - previous;
+			length = writeVarLong(varLongs, length, (delta << 1) ^ (delta >> 63));
+			previous = next;
+		}
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(varLongs, 0, length);
+			deflater.finish();
+			ByteArrayOutputStream retVal = new ByteArrayOutputStream(Math.max(length / 2, 16));
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				retVal.write(buffer, 0, count);
+			}
+			return retVal.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	@Nonnull
+	public static List<Long> decode(byte[] theBytes, int thePidCount) {
+		byte[] varLongs;
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(theBytes);
+			ByteArrayOutputStream inflated = new ByteArrayOutputStream(thePidCount * 2);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new InternalErrorException(Msg.code(2520) + "Search result block is truncated");
+				}
+				inflated.write(buffer, 0, count);
+			}
+			varLongs = inflated.toByteArray();
+		} catch (DataFormatException e) {
+			throw new InternalErrorException(Msg.code(2521) + "Failed to decode search result block", e);
+		} finally {
+			inflater.end();
+		}
+
+		List<Long> retVal = new ArrayList<>(thePidCount);
+		int offset = 0;
+		long previous = 0;
+		for (int i = 0; i < thePidCount; i++) {
+			long zigzag = 0;
+			int shift = 0;
+			while (true) {
+				if (offset >= varLongs.length) {
+					throw new InternalErrorException(Msg.code(2557) + "Search result block has fewer PIDs than expected");
+				}
+				int next = varLongs[offset++];
+				zigzag |= (long) (next & 0x7F) << shift;
+				if ((next & 0x80) == 0) {
+					break;
+				}
+				shift += 7;
+				if (shift >= 64) {
+					throw new InternalErrorException(Msg.code(2522) + "Malformed variable length integer");
+				}
+			}
+			previous += (zigzag >>> 1) ^ -(zigzag & 1);
+			retVal.add(previous);
+		}
+		return retVal;
+	}
+
+	private static int writeVarLong(byte[] theBuffer, int theOffset, long theValue) {
+		int offset = theOffset;
+		long value = theValue;
+		while ((value & ~0x7FL) != 0) {
+			theBuffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		theBuffer[offset++] = (byte) value;
+		return offset;
+	}
+}
@@ -102,6 +102,7 @@ import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
@@ -146,7 +147,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Slice;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
@@ -172,7 +172,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -203,6 +208,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	private static final String OUR_PIPE_CHARACTER = "|";
 	private static final int SECONDS_IN_MINUTE = 60;
 	private static final int INDEXED_ROOTS_LOGGING_COUNT = 50_000;
+	private static final int PRE_EXPANSION_CLAIM_CANDIDATE_COUNT = 10;
 	private static Runnable myInvokeOnNextCallForUnitTest;
 	private static boolean ourForceDisableHibernateSearchForUnitTest;
 	private final Cache<String, TermCodeSystemVersionDetails> myCodeSystemCurrentVersionCache =
@@ -238,7 +244,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	@PersistenceContext(type = PersistenceContextType.TRANSACTION)
 	protected EntityManager myEntityManager;
 
-	private boolean myPreExpandingValueSets = false;
+	private int myPreExpandingValueSetsCount = 0;
 
 	@Autowired
 	private ITermCodeSystemVersionDao myCodeSystemVersionDao;
@@ -923,21 +929,32 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		ourLog.debug("Handling includes");
 		for (ValueSet.ConceptSetComponent include :
 				theValueSetToExpand.getCompose().getInclude()) {
-			myTxTemplate.executeWithoutResult(tx -> expandValueSetHandleIncludeOrExclude(
-					theExpansionOptions, theValueSetCodeAccumulator, theAddedCodes, include, true, theExpansionFilter));
+			myTxTemplate.executeWithoutResult(tx -> {
+				expandValueSetHandleIncludeOrExclude(
+						theExpansionOptions,
+						theValueSetCodeAccumulator,
+						theAddedCodes,
+						include,
+						true,
+						theExpansionFilter);
+				flushPendingWrites(theValueSetCodeAccumulator);
+			});
 		}
 
 		// Handle excludes
 		ourLog.debug("Handling excludes");
 		for (ValueSet.ConceptSetComponent exclude :
 				theValueSetToExpand.getCompose().getExclude()) {
-			myTxTemplate.executeWithoutResult(tx -> expandValueSetHandleIncludeOrExclude(
-					theExpansionOptions,
-					theValueSetCodeAccumulator,
-					theAddedCodes,
-					exclude,
-					false,
-					ExpansionFilter.NO_FILTER));
+			myTxTemplate.executeWithoutResult(tx -> {
+				expandValueSetHandleIncludeOrExclude(
+						theExpansionOptions,
+						theValueSetCodeAccumulator,
+						theAddedCodes,
+						exclude,
+						false,
+						ExpansionFilter.NO_FILTER);
+				flushPendingWrites(theValueSetCodeAccumulator);
+			});
 		}
 
 		if (theValueSetCodeAccumulator instanceof ValueSetConceptAccumulator) {
@@ -948,6 +965,12 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		ourLog.debug("Done working with {} in {}ms", valueSetInfo, sw.getMillis());
 	}
 
+	private static void flushPendingWrites(IValueSetConceptAccumulator theValueSetCodeAccumulator) {
+		if (theValueSetCodeAccumulator instanceof ValueSetConceptAccumulator) {
+			((ValueSetConceptAccumulator) theValueSetCodeAccumulator).flushPendingWrites();
+		}
+	}
+
 	private String getValueSetInfo(ValueSet theValueSet) {
 		StringBuilder sb = new StringBuilder();
 		boolean isIdentified = false;
@@ -2346,11 +2369,15 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	@Override
 	public void scheduleJobs(ISchedulerService theSchedulerService) {
 		// Register scheduled job to pre-expand ValueSets
-		// In the future it would be great to make this a cluster-aware task somehow
 		ScheduledJobDefinition vsJobDefinition = new ScheduledJobDefinition();
 		vsJobDefinition.setId(getClass().getName());
 		vsJobDefinition.setJobClass(Job.class);
-		theSchedulerService.scheduleClusteredJob(10 * DateUtils.MILLIS_PER_MINUTE, vsJobDefinition);
+		if (myStorageSettings.getPreExpandValueSetsThreadCount() > 1) {
+			// ValueSets are claimed atomically in parallel mode, so every server in the cluster can help out
+			theSchedulerService.scheduleLocalJob(10 * DateUtils.MILLIS_PER_MINUTE, vsJobDefinition);
+		} else {
+			theSchedulerService.scheduleClusteredJob(10 * DateUtils.MILLIS_PER_MINUTE, vsJobDefinition);
+		}
 	}
 
 	@Override
@@ -2362,22 +2389,55 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 			ourLog.info("Skipping scheduled pre-expansion of ValueSets while deferred entities are being loaded.");
 			return;
 		}
+
 		TransactionTemplate txTemplate = new TransactionTemplate(myTxManager);
+		Long notExpandedCount = txTemplate.execute(
+				t -> myTermValueSetDao.countByExpansionStatus(TermValueSetPreExpansionStatusEnum.NOT_EXPANDED));
+		if (notExpandedCount == null || notExpandedCount == 0) {
+			return;
+		}
 
-		while (true) {
-			StopWatch sw = new StopWatch();
-			TermValueSet valueSetToExpand = txTemplate.execute(t -> {
-				Optional<TermValueSet> optionalTermValueSet = getNextTermValueSetNotExpanded();
-				if (optionalTermValueSet.isEmpty()) {
-					return null;
-				}
+		PreExpansionProgress progress = new PreExpansionProgress(notExpandedCount);
+		int threadCount = myStorageSettings.getPreExpandValueSetsThreadCount();
+		if (threadCount <= 1) {
+			preExpandValueSetsUntilNoneRemain(progress);
+			return;
+		}
 
-				TermValueSet termValueSet = optionalTermValueSet.get();
-				termValueSet.setTotalConcepts(0L);
-				termValueSet.setTotalConceptDesignations(0L);
-				termValueSet.setExpansionStatus(TermValueSetPreExpansionStatusEnum.EXPANSION_IN_PROGRESS);
-				return myTermValueSetDao.saveAndFlush(termValueSet);
-			});
+		ourLog.info("Pre-expanding {} ValueSets using {} threads", notExpandedCount, threadCount);
+		ExecutorService executor = Executors.newFixedThreadPool(
+				threadCount,
+				new BasicThreadFactory.Builder()
+						.namingPattern("ValueSetPreExpansion-%d")
+						.build());
+		try {
+			List<Future<?>> futures = new ArrayList<>(threadCount);
+			for (int i = 0; i < threadCount; i++) {
+				futures.add(executor.submit(() -> preExpandValueSetsUntilNoneRemain(progress)));
+			}
+			for (Future<?> next : futures) {
+				next.get();
+			}
+		} catch (InterruptedException e) {
+			ourLog.warn("Interrupted while waiting for ValueSet pre-expansion to complete");
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			ourLog.error("Failure during ValueSet pre-expansion: {}", e.getCause().getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Claims and pre-expands ValueSets one at a time until there are none left to claim. This may be
+	 * called concurrently by several threads (and several servers).
+	 */
+	private void preExpandValueSetsUntilNoneRemain(PreExpansionProgress theProgress) {
+		TransactionTemplate txTemplate = new TransactionTemplate(myTxManager);
+
+		while (!Thread.currentThread().isInterrupted()) {
+			StopWatch sw = new StopWatch();
+			TermValueSet valueSetToExpand = txTemplate.execute(t -> claimNextTermValueSetNotExpanded());
 			if (valueSetToExpand == null) {
 				return;
 			}
@@ -2395,6 +2455,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 
 				ValueSetConceptAccumulator accumulator = new ValueSetConceptAccumulator(
 						valueSetToExpand, myTermValueSetDao, myValueSetConceptDao, myValueSetConceptDesignationDao);
+				accumulator.setJdbcBatching(myEntityManager, myStorageSettings.getPreExpandValueSetsJdbcBatchSize());
 				ValueSetExpansionOptions options = new ValueSetExpansionOptions();
 				options.setIncludeHierarchy(true);
 				expandValueSet(options, valueSet, accumulator);
@@ -2414,6 +2475,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 						valueSet.getUrl(),
 						accumulator.getConceptsSaved(),
 						sw);
+				theProgress.valueSetComplete(true);
 
 			} catch (Exception e) {
 				ourLog.error(
@@ -2422,6 +2484,7 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 					valueSetToExpand.setExpansionStatus(TermValueSetPreExpansionStatusEnum.FAILED_TO_EXPAND);
 					myTermValueSetDao.saveAndFlush(valueSetToExpand);
 				});
+				theProgress.valueSetComplete(false);
 
 			} finally {
 				setPreExpandingValueSets(false);
@@ -2441,27 +2504,48 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	}
 
 	private synchronized boolean isPreExpandingValueSets() {
-		return myPreExpandingValueSets;
+		return myPreExpandingValueSetsCount > 0;
 	}
 
 	private synchronized void setPreExpandingValueSets(boolean thePreExpandingValueSets) {
-		myPreExpandingValueSets = thePreExpandingValueSets;
+		myPreExpandingValueSetsCount += thePreExpandingValueSets ? 1 : -1;
 	}
 
 	private boolean isNotSafeToPreExpandValueSets() {
 		return myDeferredStorageSvc != null && !myDeferredStorageSvc.isStorageQueueEmpty(true);
 	}
 
-	private Optional<TermValueSet> getNextTermValueSetNotExpanded() {
-		Optional<TermValueSet> retVal = Optional.empty();
-		Slice<TermValueSet> page = myTermValueSetDao.findByExpansionStatus(
-				PageRequest.of(0, 1), TermValueSetPreExpansionStatusEnum.NOT_EXPANDED);
+	/**
+	 * Claims a ValueSet which has not yet been expanded by atomically moving it to
+	 * {@link TermValueSetPreExpansionStatusEnum#EXPANSION_IN_PROGRESS}. If another thread or server
+	 * claims a candidate first, the update doesn't match any rows and we move on to the next one.
+	 *
+	 * @return The claimed ValueSet, or <code>null</code> if there are none left to expand
+	 */
+	@Nullable
+	private TermValueSet claimNextTermValueSetNotExpanded() {
+		while (true) {
+			List<Long> candidates = new ArrayList<>(myTermValueSetDao
+					.findIdsByExpansionStatus(
+							PageRequest.of(0, PRE_EXPANSION_CLAIM_CANDIDATE_COUNT),
+							TermValueSetPreExpansionStatusEnum.NOT_EXPANDED)
+					.getContent());
+			if (candidates.isEmpty()) {
+				return null;
+			}
 
-		if (!page.getContent().isEmpty()) {
-			retVal = Optional.of(page.getContent().get(0));
+			// Start at a random candidate so that concurrent workers don't all race for the same row
+			Collections.shuffle(candidates);
+			for (Long next : candidates) {
+				int claimed = myTermValueSetDao.updateExpansionStatusIfCurrentStatus(
+						next,
+						TermValueSetPreExpansionStatusEnum.NOT_EXPANDED,
+						TermValueSetPreExpansionStatusEnum.EXPANSION_IN_PROGRESS);
+				if (claimed == 1) {
+					return myTermValueSetDao.findById(next).orElse(null);
+				}
+			}
 		}
-
-		return retVal;
 	}
 
 	@Override
@@ -3165,6 +3249,34 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		}
 	}
 
+	/**
+	 * Tracks and logs the progress of a pre-expansion pass, which may be shared by several threads
+	 */
+	private static final class PreExpansionProgress {
+		private final StopWatch myStopWatch = new StopWatch();
+		private final long myTotal;
+		private final AtomicInteger myCompleted = new AtomicInteger();
+		private final AtomicInteger myFailed = new AtomicInteger();
+
+		private PreExpansionProgress(long theTotal) {
+			myTotal = theTotal;
+		}
+
+		void valueSetComplete(boolean theSuccess) {
+			int completed = myCompleted.incrementAndGet();
+			int failed = theSuccess ? myFailed.get() : myFailed.incrementAndGet();
+			// ValueSets created during the pass can also be picked up, so don't report more than 100%
+			long total = Math.max(myTotal, completed);
+			ourLog.info(
+					"ValueSet pre-expansion progress: {}/{} complete ({} failed) in {} - Estimated time remaining: {}",
+					completed,
+					total,
+					failed,
+					myStopWatch,
+					myStopWatch.getEstimatedTimeRemaining(completed, total));
+		}
+	}
+
 	/**
 	 * Properties returned from method buildSearchScroll
 	 */
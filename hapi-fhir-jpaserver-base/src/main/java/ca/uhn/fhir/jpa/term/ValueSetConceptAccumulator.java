@@ -28,7 +28,10 @@ import ca.uhn.fhir.jpa.entity.TermValueSetConcept;
 import ca.uhn.fhir.jpa.entity.TermValueSetConceptDesignation;
 import ca.uhn.fhir.util.ValidateUtil;
 import jakarta.annotation.Nonnull;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -44,9 +47,13 @@ public class ValueSetConceptAccumulator implements IValueSetConceptAccumulator {
 	private final ITermValueSetDao myValueSetDao;
 	private final ITermValueSetConceptDao myValueSetConceptDao;
 	private final ITermValueSetConceptDesignationDao myValueSetConceptDesignationDao;
+	private final List<TermValueSetConceptDesignation> myPendingDesignations = new ArrayList<>();
 	private int myConceptsSaved;
 	private int myDesignationsSaved;
 	private int myConceptsExcluded;
+	private EntityManager myEntityManager;
+	private int myJdbcBatchSize;
+	private int myConceptsInCurrentBatch;
 
 	public ValueSetConceptAccumulator(
 			@Nonnull TermValueSet theTermValueSet,
@@ -62,6 +69,39 @@ public class ValueSetConceptAccumulator implements IValueSetConceptAccumulator {
 		myConceptsExcluded = 0;
 	}
 
+	/**
+	 * Write concepts in JDBC batches of the given size. Designations are held back and written after each
+	 * batch of concepts, so that the two kinds of insert are not interleaved (which would otherwise prevent
+	 * the JDBC driver from batching them). When this is enabled, {@link #flushPendingWrites()} must be called
+	 * before the current transaction is committed.
+	 *
+	 * @param theEntityManager The entity manager for the current transaction(s)
+	 * @param theJdbcBatchSize The batch size, or 0 to write each concept immediately (the default)
+	 */
+	public void setJdbcBatching(EntityManager theEntityManager, int theJdbcBatchSize) {
+		myEntityManager = theEntityManager;
+		myJdbcBatchSize = theJdbcBatchSize;
+	}
+
+	private boolean isJdbcBatching() {
+		return myEntityManager != null && myJdbcBatchSize > 0;
+	}
+
+	/**
+	 * Writes any concepts and designations which are waiting to be written as part of a JDBC batch. This is a
+	 * no-op unless {@link #setJdbcBatching(EntityManager, int) JDBC batching} is enabled.
+	 */
+	public void flushPendingWrites() {
+		if (!isJdbcBatching() || (myConceptsInCurrentBatch == 0 && myPendingDesignations.isEmpty())) {
+			return;
+		}
+
+		myValueSetConceptDesignationDao.saveAll(myPendingDesignations);
+		myPendingDesignations.clear();
+		myEntityManager.flush();
+		myConceptsInCurrentBatch = 0;
+	}
+
 	@Override
 	public void addMessage(String theMessage) {
 		// ignore for now
@@ -114,6 +154,8 @@ public class ValueSetConceptAccumulator implements IValueSetConceptAccumulator {
 			return false;
 		}
 
+		flushPendingWrites();
+
 		// Get existing entity so it can be deleted.
 		Optional<TermValueSetConcept> optionalConcept;
 		int versionIdx = theSystem.indexOf("|");
@@ -184,6 +226,11 @@ public class ValueSetConceptAccumulator implements IValueSetConceptAccumulator {
 		concept.setSourceConceptPid(theSourceConceptPid);
 		concept.setSourceConceptDirectParentPids(theSourceConceptDirectParentPids);
 
+		if (isJdbcBatching() && myConceptsInCurrentBatch++ == 0) {
+			// This is a no-op if the session is already using this batch size
+			myEntityManager.unwrap(Session.class).setJdbcBatchSize(myJdbcBatchSize);
+		}
+
 		myValueSetConceptDao.save(concept);
 		myValueSetDao.save(myTermValueSet.incrementTotalConcepts());
 
@@ -191,6 +238,10 @@ public class ValueSetConceptAccumulator implements IValueSetConceptAccumulator {
 			ourLog.info("Have pre-expanded {} concepts in ValueSet[{}]", myConceptsSaved, myTermValueSet.getUrl());
 		}
 
+		if (isJdbcBatching() && myConceptsInCurrentBatch >= myJdbcBatchSize) {
+			flushPendingWrites();
+		}
+
 		return concept;
 	}
 
@@ -211,7 +262,11 @@ public class ValueSetConceptAccumulator implements IValueSetConceptAccumulator {
 			}
 		}
 		designation.setValue(theDesignation.getValue());
-		myValueSetConceptDesignationDao.save(designation);
+		if (isJdbcBatching()) {
+			myPendingDesignations.add(designation);
+		} else {
+			myValueSetConceptDesignationDao.save(designation);
+		}
 		myValueSetDao.save(myTermValueSet.incrementTotalConceptDesignations());
 
 		if (++myDesignationsSaved % 250 == 0) {
@@ -35,6 +35,7 @@ import org.hl7.fhir.r4.model.Group;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -64,6 +65,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.AdditionalMatchers.not;
@@ -592,4 +594,46 @@ public class JpaBulkExportProcessorTest {
 		validatePartitionId(thePartitioned, resourceDaoServletRequestDetailsCaptor.getValue().getRequestPartitionId());
 	}
 
+	@ParameterizedTest
+	@CsvSource(value = {
+		"123   , ",
+		"ABC-1 , http://foo/bar#reqid",
+	})
+	public void testAddIdAndMetaToStoredJson_MatchesParseAndEncode(String theIdPart, String theSource) {
+		Patient patient = new Patient();
+		patient.setActive(true);
+		patient.addName().setFamily("Smith").addGiven("John \"Q\"");
+		patient.getText().setDivAsString("<div>hello</div>");
+
+		// Encode the way the DAO stores it
+		List<String> excludes = List.of("id", "Patient.meta");
+		String storedJson = myFhirContext.newJsonParser().setDontEncodeElements(excludes).encodeResourceToString(patient);
+		Date updated = new Date();
+
+		// Parse and populate the way JpaStorageResourceParser does
+		Patient parsed = myFhirContext.newJsonParser().parseResource(Patient.class, storedJson);
+		parsed.setId(new IdType("Patient", theIdPart, "3"));
+		parsed.getMeta().setVersionId("3");
+		parsed.getMeta().setLastUpdated(updated);
+		if (theSource != null) {
+			parsed.getMeta().setSource(theSource);
+		}
+		String expected = myFhirContext.newJsonParser().encodeResourceToString(parsed);
+
+		String actual = JpaBulkExportProcessor.addIdAndMetaToStoredJson(myFhirContext, "Patient", storedJson, theIdPart, 3L, updated, theSource);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testAddIdAndMetaToStoredJson_StoredMetaIsNotPassedThrough() {
+		Patient patient = new Patient();
+		patient.getMeta().addExtension("http://foo", new StringType("bar"));
+		patient.setActive(true);
+		String storedJson = myFhirContext.newJsonParser().setDontEncodeElements(List.of("id", "Patient.meta.versionId")).encodeResourceToString(patient);
+		assertThat(storedJson, containsString("\"meta\""));
+
+		assertNull(JpaBulkExportProcessor.addIdAndMetaToStoredJson(myFhirContext, "Patient", storedJson, "123", 1L, new Date(), null));
+		assertNull(JpaBulkExportProcessor.addIdAndMetaToStoredJson(myFhirContext, "Observation", "{\"resourceType\":\"Patient\"}", "123", 1L, new Date(), null));
+	}
+
 }
@@ -0,0 +1,191 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.dao.data.IResourceCompressionDictionaryDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.dao.tx.NonTransactionalHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.ResourceCompressionDictionary;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ResourceCompressionDictionarySvcTest {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	private final Map<Long, ResourceCompressionDictionary> myDictionaries = new HashMap<>();
+	private final List<ResourceHistoryTable> myHistory = new ArrayList<>();
+	@Mock
+	private IResourceCompressionDictionaryDao myResourceCompressionDictionaryDao;
+	@Mock
+	private IResourceHistoryTableDao myResourceHistoryTableDao;
+	@Spy
+	private IHapiTransactionService myTransactionService = new NonTransactionalHapiTransactionService();
+	@InjectMocks
+	private ResourceCompressionDictionarySvc mySvc;
+
+	@BeforeEach
+	public void before() {
+		when(myResourceCompressionDictionaryDao.save(any())).thenAnswer(t -> {
+			ResourceCompressionDictionary dictionary = t.getArgument(0, ResourceCompressionDictionary.class);
+			dictionary.setId((long) myDictionaries.size() + 1);
+			myDictionaries.put(dictionary.getId(), dictionary);
+			return dictionary;
+		});
+		when(myResourceCompressionDictionaryDao.findById(anyLong()))
+				.thenAnswer(t -> Optional.ofNullable(myDictionaries.get(t.getArgument(0, Long.class))));
+		when(myResourceCompressionDictionaryDao.findByResourceTypeNewestFirst(any(), eq("Observation")))
+				.thenAnswer(t -> myDictionaries.values().stream()
+						.filter(d -> d.getResourceType().equals("Observation"))
+						.sorted((a, b) -> Long.compare(b.getId(), a.getId()))
+						.limit(1)
+						.toList());
+		when(myResourceHistoryTableDao.findNewestForResourceTypeAndEncodings(any(), eq("Observation"), any()))
+				.thenAnswer(t -> new SliceImpl<>(myHistory));
+	}
+
+	@Test
+	public void testCompressWithoutDictionary() {
+		String encoded = encodeObservation(1);
+
+		byte[] compressed = mySvc.compress("Observation", encoded);
+
+		assertEquals(0, compressed[0]);
+		assertEquals(encoded, mySvc.decompress(compressed));
+	}
+
+	@Test
+	public void testTrainAndCompress() {
+		for (int i = 0; i < 100; i++) {
+			addHistory(encodeObservation(i), i % 2 == 0 ? ResourceEncodingEnum.JSON : ResourceEncodingEnum.JSONC);
+		}
+		String encoded = encodeObservation(1000);
+		byte[] withoutDictionary = mySvc.compress("Observation", encoded);
+
+		assertTrue(mySvc.trainDictionary("Observation"));
+		byte[] dictionary = myDictionaries.get(1L).getDictionary();
+		assertTrue(dictionary.length > 0 && dictionary.length <= ResourceCompressionDictionarySvc.MAX_DICTIONARY_SIZE);
+
+		byte[] withDictionary = mySvc.compress("Observation", encoded);
+		assertEquals(1, withDictionary[0]);
+		assertEquals(encoded, mySvc.decompress(withDictionary));
+		assertTrue(
+				withDictionary.length < GZipUtil.compress(encoded).length / 2,
+				"Dictionary compressed to " + withDictionary.length + " bytes, GZip to "
+						+ GZipUtil.compress(encoded).length);
+
+		// Contents compressed before the dictionary existed are still readable
+		assertEquals(encoded, mySvc.decompress(withoutDictionary));
+
+		// The dictionary is loaded from the database if it isn't cached
+		mySvc.invalidateCaches();
+		assertEquals(encoded, mySvc.decompress(withDictionary));
+	}
+
+	@Test
+	public void testTrainWithTooFewSamples() {
+		addHistory(encodeObservation(1), ResourceEncodingEnum.JSON);
+
+		assertFalse(mySvc.trainDictionaryIfMissing("Observation"));
+		// Not retried straight away
+		assertFalse(mySvc.trainDictionaryIfMissing("Observation"));
+
+		verify(myResourceCompressionDictionaryDao, never()).save(any());
+	}
+
+	@Test
+	public void testTrainAwaitingDictionaries() {
+		String encoded = encodeObservation(1000);
+		assertEquals(0, mySvc.compress("Observation", encoded)[0]);
+		assertTrue(mySvc.getTypesAwaitingDictionaryForUnitTest().contains("Observation"));
+		for (int i = 0; i < 100; i++) {
+			addHistory(encodeObservation(i), ResourceEncodingEnum.JSON);
+		}
+
+		mySvc.trainAwaitingDictionaries();
+
+		assertTrue(mySvc.getTypesAwaitingDictionaryForUnitTest().isEmpty());
+		byte[] withDictionary = mySvc.compress("Observation", encoded);
+		assertEquals(1, withDictionary[0]);
+		assertEquals(encoded, mySvc.decompress(withDictionary));
+	}
+
+	@Test
+	public void testBuildDictionaryKeepsOnlyCommonFragments() {
+		List<String> samples = List.of(
+				"{\"resourceType\":\"Patient\",\"id\":\"A\"}",
+				"{\"resourceType\":\"Patient\",\"id\":\"B\"}",
+				"{\"resourceType\":\"Patient\",\"id\":\"C\"}");
+
+		String dictionary = new String(
+				ResourceCompressionDictionarySvc.buildDictionary(samples, 1000), StandardCharsets.UTF_8);
+
+		assertEquals("{\"resourceType\":\"Patient\"", dictionary);
+	}
+
+	private void addHistory(String theEncoded, ResourceEncodingEnum theEncoding) {
+		ResourceHistoryTable history = new ResourceHistoryTable();
+		history.setEncoding(theEncoding);
+		if (theEncoding == ResourceEncodingEnum.JSONC) {
+			history.setResource(GZipUtil.compress(theEncoded));
+		} else {
+			history.setResourceTextVc(theEncoded);
+		}
+		myHistory.add(history);
+	}
+
+	private static String encodeObservation(int theIndex) {
+		Observation obs = new Observation();
+		obs.setId("Observation/" + theIndex);
+		obs.getMeta().setVersionId("1");
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		obs.addCategory()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/observation-category")
+				.setCode("vital-signs")
+				.setDisplay("Vital Signs");
+		obs.getCode()
+				.addCoding()
+				.setSystem("http://loinc.org")
+				.setCode("8867-4")
+				.setDisplay("Heart rate");
+		obs.setSubject(new Reference("Patient/" + (theIndex * 7)));
+		obs.setValue(new Quantity()
+				.setValue(60 + theIndex % 40)
+				.setUnit("beats/minute")
+				.setSystem("http://unitsofmeasure.org")
+				.setCode("/min"));
+		return ourCtx.newJsonParser().encodeResourceToString(obs);
+	}
+}
@@ -11,6 +11,7 @@ import org.hl7.fhir.dstu3.hapi.ctx.FhirDstu3;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.hapi.ctx.FhirR4;
 import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -30,6 +31,10 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class ResourceHistoryCalculatorTest {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(ResourceHistoryCalculatorTest.class);
@@ -133,7 +138,7 @@ class ResourceHistoryCalculatorTest {
 		resourceHistoryTable.setResourceTextVc(RESOURCE_TEXT_VC);
 
 		final boolean isChanged =
-			getCalculator(theIsOracle).conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, theResourceText);
+			getCalculator(theIsOracle).conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, theResourceText, theResourceEncoding);
 
 		if (theIsOracle) {
 			assertFalse(isChanged);
@@ -148,6 +153,68 @@ class ResourceHistoryCalculatorTest {
 		}
 	}
 
+	@Test
+	void conditionallyAlterHistoryEntity_compressesWithDictionaryForOracle() {
+		final ResourceCompressionDictionarySvc dictionarySvc = mock(ResourceCompressionDictionarySvc.class);
+		final byte[] compressed = {1, 2, 3};
+		when(dictionarySvc.compress("Patient", ENCODED_RESOURCE_1)).thenReturn(compressed);
+
+		final ResourceTable resourceTable = new ResourceTable();
+		resourceTable.setId(123L);
+		resourceTable.setResourceType("Patient");
+
+		final ResourceHistoryTable resourceHistoryTable = new ResourceHistoryTable();
+		resourceHistoryTable.setVersion(1);
+		resourceHistoryTable.setResource(GZipUtil.compress(ENCODED_RESOURCE_1));
+		resourceHistoryTable.setEncoding(ResourceEncodingEnum.JSONC);
+
+		final boolean isChanged = new ResourceHistoryCalculator(CONTEXT, true, dictionarySvc)
+			.conditionallyAlterHistoryEntity(resourceTable, resourceHistoryTable, ENCODED_RESOURCE_1, ResourceEncodingEnum.JSOND);
+
+		assertTrue(isChanged);
+		assertArrayEquals(compressed, resourceHistoryTable.getResource());
+		assertNull(resourceHistoryTable.getResourceTextVc());
+		assertEquals(ResourceEncodingEnum.JSOND, resourceHistoryTable.getEncoding());
+	}
+
+	@Test
+	void calculateResourceHistoryState_dictionaryCompressedHashIsOfText() {
+		final ResourceCompressionDictionarySvc dictionarySvc = mock(ResourceCompressionDictionarySvc.class);
+		final byte[] compressed = {1, 2, 3};
+		when(dictionarySvc.compress(eq("Patient"), any())).thenReturn(compressed);
+
+		final IBaseResource patient = getPatientR4();
+		final ResourceHistoryCalculator calculator = new ResourceHistoryCalculator(CONTEXT, true, dictionarySvc);
+		final ResourceHistoryState result = calculator.calculateResourceHistoryState(patient, ResourceEncodingEnum.JSOND, EXCLUDED_ELEMENTS_1);
+
+		assertArrayEquals(compressed, result.getResourceBinary());
+		assertNull(result.getResourceText());
+		assertEquals(ResourceEncodingEnum.JSOND, result.getEncoding());
+		// The compressed bytes depend on the dictionary, so they can't be used to detect changes
+		final String encoded = calculator.encodeResource(patient, ResourceEncodingEnum.JSOND, EXCLUDED_ELEMENTS_1);
+		assertEquals(SHA_256.hashUnencodedChars(encoded), result.getHashCode());
+	}
+
+	@Test
+	void isResourceHistoryChanged_dictionaryCompressedComparesText() {
+		final ResourceCompressionDictionarySvc dictionarySvc = mock(ResourceCompressionDictionarySvc.class);
+		final byte[] existingBytes = {1, 2, 3};
+		final byte[] recompressedBytes = {4, 5, 6};
+		final byte[] changedBytes = {7, 8, 9};
+		when(dictionarySvc.decompress(existingBytes)).thenReturn(ENCODED_RESOURCE_1);
+		when(dictionarySvc.decompress(recompressedBytes)).thenReturn(ENCODED_RESOURCE_1);
+		when(dictionarySvc.decompress(changedBytes)).thenReturn(ENCODED_RESOURCE_2);
+
+		final ResourceHistoryTable resourceHistoryTable = new ResourceHistoryTable();
+		resourceHistoryTable.setResource(existingBytes);
+		resourceHistoryTable.setEncoding(ResourceEncodingEnum.JSOND);
+
+		final ResourceHistoryCalculator calculator = new ResourceHistoryCalculator(CONTEXT, true, dictionarySvc);
+		assertFalse(calculator.isResourceHistoryChanged(resourceHistoryTable, existingBytes, null));
+		assertFalse(calculator.isResourceHistoryChanged(resourceHistoryTable, recompressedBytes, null));
+		assertTrue(calculator.isResourceHistoryChanged(resourceHistoryTable, changedBytes, null));
+	}
+
 	private static Stream<Arguments> encodeResourceArguments() {
 		return Stream.of(
 			Arguments.of(FhirContext.forDstu3Cached(), ResourceEncodingEnum.JSONC, EXCLUDED_ELEMENTS_1),
@@ -6,6 +6,7 @@ import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamNumber;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.util.AddRemoveCount;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,8 +29,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 public class DaoSearchParamSynchronizerTest {
 	private static final String GRITTSCORE = "grittscore";
 
-	private static final ResourceIndexedSearchParamNumber EXISTING_SEARCH_PARAM_NUMBER = new ResourceIndexedSearchParamNumber(new PartitionSettings(), "Patient", GRITTSCORE, BigDecimal.valueOf(10));
-	private static final ResourceIndexedSearchParamNumber THE_SEARCH_PARAM_NUMBER = new ResourceIndexedSearchParamNumber(new PartitionSettings(), "Patient", GRITTSCORE, BigDecimal.valueOf(12));
+	// Not static, since synchronizing may modify these
+	private final ResourceIndexedSearchParamNumber EXISTING_SEARCH_PARAM_NUMBER = new ResourceIndexedSearchParamNumber(new PartitionSettings(), "Patient", GRITTSCORE, BigDecimal.valueOf(10));
+	private final ResourceIndexedSearchParamNumber THE_SEARCH_PARAM_NUMBER = new ResourceIndexedSearchParamNumber(new PartitionSettings(), "Patient", GRITTSCORE, BigDecimal.valueOf(12));
 
 	private final DaoSearchParamSynchronizer subject = new DaoSearchParamSynchronizer();
 
@@ -74,4 +76,36 @@ public class DaoSearchParamSynchronizerTest {
 		verify(entityManager, never()).remove(any(BaseResourceIndex.class));
 		verify(entityManager, times(1)).merge(THE_SEARCH_PARAM_NUMBER);
 	}
+
+	@Test
+	void synchronizeSearchParamsWithIndexWriteBatch() {
+		TransactionDetails transactionDetails = new TransactionDetails();
+		subject.startIndexWriteBatch(transactionDetails);
+
+		final AddRemoveCount addRemoveCount = subject.synchronizeSearchParamsToDatabase(theParams, theEntity, existingParams, transactionDetails);
+
+		assertEquals(0, addRemoveCount.getRemoveCount());
+		assertEquals(1, addRemoveCount.getAddCount());
+		verify(entityManager, never()).merge(any());
+
+		// The rows are only passed to the entity manager when the batch is flushed
+		assertEquals(1, subject.flushIndexWriteBatch(transactionDetails, 0));
+		verify(entityManager, never()).remove(any(BaseResourceIndex.class));
+		verify(entityManager, times(1)).merge(THE_SEARCH_PARAM_NUMBER);
+
+		// Flushing stops batching
+		assertEquals(0, subject.flushIndexWriteBatch(transactionDetails, 0));
+	}
+
+	@Test
+	void synchronizeSearchParamsWithIndexWriteBatch_Discarded() {
+		TransactionDetails transactionDetails = new TransactionDetails();
+		subject.startIndexWriteBatch(transactionDetails);
+		subject.synchronizeSearchParamsToDatabase(theParams, theEntity, existingParams, transactionDetails);
+
+		subject.discardBatchedIndexWrites(transactionDetails, theEntity);
+
+		assertEquals(0, subject.flushIndexWriteBatch(transactionDetails, 0));
+		verify(entityManager, never()).merge(any());
+	}
 }
@@ -0,0 +1,140 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.dao.tx.NonTransactionalHapiTransactionService;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class DatabaseSearchResultBlockCacheSvcImplTest {
+
+	private final TreeMap<Integer, SearchResultBlock> myBlocks = new TreeMap<>();
+	@Mock
+	private ISearchResultBlockDao mySearchResultBlockDao;
+	@Spy
+	private IHapiTransactionService myTransactionService = new NonTransactionalHapiTransactionService();
+	@InjectMocks
+	private DatabaseSearchResultBlockCacheSvcImpl mySvc;
+	@Mock
+	private Search mySearch;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void before() {
+		mySvc.setBlockSizeForUnitTest(10);
+		when(mySearch.getId()).thenReturn(1L);
+
+		// Back the DAO with an in-memory map of blocks keyed by block index
+		when(mySearchResultBlockDao.saveAll(any())).thenAnswer(t -> {
+			List<SearchResultBlock> blocks = t.getArgument(0, List.class);
+			blocks.forEach(b -> myBlocks.put(b.getBlockIndex(), b));
+			return blocks;
+		});
+		when(mySearchResultBlockDao.findWithSearchPidAndBlockIndex(anyLong(), anyInt()))
+				.thenAnswer(t -> Optional.ofNullable(myBlocks.get(t.getArgument(1, Integer.class))));
+		when(mySearchResultBlockDao.findWithSearchPidInRange(anyLong(), anyInt(), anyInt()))
+				.thenAnswer(t -> new ArrayList<>(myBlocks
+						.subMap(t.getArgument(1, Integer.class), true, t.getArgument(2, Integer.class), true)
+						.values()));
+		when(mySearchResultBlockDao.findWithSearchPid(anyLong())).thenAnswer(t -> new ArrayList<>(myBlocks.values()));
+	}
+
+	@Test
+	public void testStoreAndFetchAcrossBlocks() {
+		List<JpaPid> stored = new ArrayList<>();
+
+		// Store in uneven passes so that partially filled blocks need to be appended to
+		storePass(stored, 7);
+		storePass(stored, 8);
+		storePass(stored, 20);
+		storePass(stored, 1);
+		assertEquals(36, stored.size());
+		assertEquals(4, myBlocks.size());
+		assertEquals(6, myBlocks.get(3).getPidCount());
+
+		assertEquals(stored, mySvc.fetchAllResultPids(mySearch, null, null));
+		assertEquals(stored.subList(0, 10), mySvc.fetchResultPids(mySearch, 0, 10, null, null));
+		assertEquals(stored.subList(5, 25), mySvc.fetchResultPids(mySearch, 5, 25, null, null));
+		assertEquals(stored.subList(30, 36), mySvc.fetchResultPids(mySearch, 30, 50, null, null));
+		assertTrue(mySvc.fetchResultPids(mySearch, 40, 50, null, null).isEmpty());
+		assertTrue(mySvc.fetchResultPids(mySearch, 5, 5, null, null).isEmpty());
+	}
+
+	@Test
+	public void testManySmallAppends() {
+		List<JpaPid> stored = new ArrayList<>();
+
+		// Every pass after the first appends to a partially filled block
+		for (int i = 0; i < 100; i++) {
+			storePass(stored, 1 + (i % 3));
+		}
+		assertEquals(199, stored.size());
+		assertEquals(20, myBlocks.size());
+		assertEquals(9, myBlocks.get(19).getPidCount());
+		for (int i = 0; i < 19; i++) {
+			assertEquals(10, myBlocks.get(i).getPidCount());
+		}
+
+		// Each pass only loads the block it appends to, and never reads back the stored results
+		verify(mySearchResultBlockDao, atMost(100)).findWithSearchPidAndBlockIndex(anyLong(), anyInt());
+		verify(mySearchResultBlockDao, never()).findWithSearchPid(anyLong());
+		verify(mySearchResultBlockDao, never()).findWithSearchPidInRange(anyLong(), anyInt(), anyInt());
+
+		assertEquals(stored, mySvc.fetchAllResultPids(mySearch, null, null));
+		assertEquals(stored.subList(95, 123), mySvc.fetchResultPids(mySearch, 95, 123, null, null));
+	}
+
+	@Test
+	public void testCodecRoundTrip() {
+		List<Long> pids = List.of(5L, 1000L, 999L, 1L, Long.MAX_VALUE, 0L, 123456789L, 123456790L);
+		byte[] encoded = SearchResultBlockCodec.encode(pids);
+		assertEquals(pids, SearchResultBlockCodec.decode(encoded, pids.size()));
+	}
+
+	@Test
+	public void testCodecIsCompactForSequentialPids() {
+		List<Long> pids = LongStream.range(1_000_000, 1_010_000).boxed().collect(Collectors.toList());
+		byte[] encoded = SearchResultBlockCodec.encode(pids);
+		assertTrue(encoded.length < 1000, "Encoded length was " + encoded.length);
+		assertEquals(pids, SearchResultBlockCodec.decode(encoded, pids.size()));
+	}
+
+	private void storePass(List<JpaPid> theStored, int theCount) {
+		List<JpaPid> newPids = new ArrayList<>();
+		for (int i = 0; i < theCount; i++) {
+			// Deliberately unordered PIDs
+			newPids.add(JpaPid.fromId((long) ((theStored.size() + i) * 7919 % 1000)));
+		}
+		mySvc.storeResults(mySearch, new ArrayList<>(theStored), newPids, null, null);
+		theStored.addAll(newPids);
+	}
+}
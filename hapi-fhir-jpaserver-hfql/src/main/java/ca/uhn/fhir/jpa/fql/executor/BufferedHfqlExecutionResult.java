@@ -0,0 +1,181 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - HFQL Driver
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.jpa.fql.parser.HfqlStatement;
+import ca.uhn.fhir.util.IoUtil;
+import jakarta.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @see IHfqlExecutionResult for information about the purpose of this class
+ * <p>
+ * This implementation streams rows that the executor has already materialized in order to
+ * satisfy an <code>ORDER BY</code> or <code>GROUP BY</code> clause. The rows may be backed by
+ * temporary spill files, which are deleted when the result is closed or exhausted. Because
+ * the rows can only be produced once, the executor retains these results under their search
+ * ID so that subsequent pages can be fetched using
+ * {@link IHfqlExecutor#executeContinuation IHfqlExecutor#executeContinuation(...)}. Between
+ * pages the remaining rows are {@link #spillRemainingRows(File) moved to disk} so that retained
+ * results don't hold on to any row data in memory.
+ * </p>
+ * <p>
+ * Retained results may be expired by a background thread while they are idle, so access to
+ * the rows is synchronized.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+public class BufferedHfqlExecutionResult implements IHfqlExecutionResult {
+	private final String mySearchId;
+	private final HfqlStatement myStatement;
+	private Iterator<List<Object>> myRowsIterator;
+	private Closeable myResources;
+	private long myRetainedBytes;
+	private boolean mySpilled;
+	private int myNextRowOffset;
+	private boolean myClosed;
+	private volatile long myLastAccessedMillis;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSearchId       The search ID associated with this result
+	 * @param theStatement      The statement
+	 * @param theRowsIterator   The rows
+	 * @param theResources      Will be closed when the result is closed or exhausted
+	 * @param theInMemoryBytes  The estimated size of the row data held in memory by the rows iterator
+	 */
+	BufferedHfqlExecutionResult(
+			String theSearchId,
+			HfqlStatement theStatement,
+			Iterator<List<Object>> theRowsIterator,
+			Closeable theResources,
+			long theInMemoryBytes) {
+		mySearchId = theSearchId;
+		myStatement = theStatement;
+		myRowsIterator = theRowsIterator;
+		myResources = theResources;
+		myRetainedBytes = theInMemoryBytes;
+		touch();
+	}
+
+	@Override
+	public synchronized boolean hasNext() {
+		if (myClosed) {
+			return false;
+		}
+		boolean retVal = myRowsIterator.hasNext();
+		if (!retVal) {
+			close();
+		}
+		return retVal;
+	}
+
+	@Override
+	public synchronized Row getNextRow() {
+		touch();
+		return new Row(myNextRowOffset++, myRowsIterator.next());
+	}
+
+	/**
+	 * Writes the rows which have not been read yet to a single temporary file and releases
+	 * everything else held by this result, including the in-memory sort or aggregation buffers.
+	 * Reading continues from the file. This does nothing if the rows have already been spilled.
+	 *
+	 * @param theSpillDirectory The directory to create the file in, or <code>null</code> to use
+	 *                          the system temporary directory
+	 */
+	synchronized void spillRemainingRows(@Nullable File theSpillDirectory) {
+		if (myClosed || mySpilled) {
+			return;
+		}
+		if (!myRowsIterator.hasNext()) {
+			close();
+			return;
+		}
+
+		HfqlSpillFile spillFile = HfqlSpillFile.write(theSpillDirectory, myRowsIterator);
+		IoUtil.closeQuietly(myResources);
+		HfqlSpillFile.Reader reader = spillFile.newReader();
+		myRowsIterator = reader;
+		myResources = () -> {
+			reader.close();
+			spillFile.close();
+		};
+		myRetainedBytes = spillFile.getSizeInBytes();
+		mySpilled = true;
+	}
+
+	/**
+	 * Returns the estimated number of bytes held by this result, which is the size of the
+	 * in-memory row data before the rows have been spilled, and the size of the spill file after
+	 */
+	synchronized long getRetainedBytes() {
+		return myClosed ? 0 : myRetainedBytes;
+	}
+
+	/**
+	 * Returns the offset that will be assigned to the next row returned by {@link #getNextRow()}
+	 */
+	synchronized int getNextRowOffset() {
+		return myNextRowOffset;
+	}
+
+	long getLastAccessedMillis() {
+		return myLastAccessedMillis;
+	}
+
+	void touch() {
+		myLastAccessedMillis = System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized boolean isClosed() {
+		return myClosed;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!myClosed) {
+			myClosed = true;
+			IoUtil.closeQuietly(myResources);
+		}
+	}
+
+	@Override
+	public String getSearchId() {
+		return mySearchId;
+	}
+
+	@Override
+	public int getLimit() {
+		return -1;
+	}
+
+	@Override
+	public HfqlStatement getStatement() {
+		return myStatement;
+	}
+}
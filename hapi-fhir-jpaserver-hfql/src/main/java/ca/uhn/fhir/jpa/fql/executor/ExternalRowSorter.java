@@ -0,0 +1,213 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - HFQL Driver
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.i18n.Msg;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort for HFQL result rows. Rows are buffered in memory until their
+ * estimated size exceeds the spill threshold, at which point the buffer is sorted and
+ * written to a {@link HfqlSpillFile} as a sorted run. Once all rows have been added,
+ * the runs and whatever is left in memory are combined using a k-way merge, so that
+ * only one row per run needs to be held in memory while the results are streamed.
+ * <p>
+ * The sort is stable: rows which compare as equal are returned in the order they were added.
+ * Closing the sorter deletes any spill files.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+class ExternalRowSorter implements Closeable {
+
+	/**
+	 * Maximum number of runs that are merged at once. If more runs than this are spilled,
+	 * they are merged in several passes so that we don't hold too many files open.
+	 */
+	static final int MAX_MERGE_FAN_IN = 64;
+
+	private static final Logger ourLog = LoggerFactory.getLogger(ExternalRowSorter.class);
+	private final Comparator<List<Object>> myComparator;
+	private final long mySpillThresholdBytes;
+	private final File mySpillDirectory;
+	private final List<HfqlSpillFile> myRuns = new ArrayList<>();
+	private final List<HfqlSpillFile.Reader> myOpenReaders = new ArrayList<>();
+	private List<List<Object>> myBuffer = new ArrayList<>();
+	private long myBufferedBytes;
+	private int mySpilledRunCount;
+	private boolean mySorted;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theComparator          The row ordering
+	 * @param theSpillThresholdBytes The approximate amount of row data to hold in memory before spilling to disk
+	 * @param theSpillDirectory      The directory for spill files, or <code>null</code> to use the system
+	 *                               temporary directory
+	 */
+	ExternalRowSorter(
+			Comparator<List<Object>> theComparator, long theSpillThresholdBytes, @Nullable File theSpillDirectory) {
+		myComparator = theComparator;
+		mySpillThresholdBytes = theSpillThresholdBytes;
+		mySpillDirectory = theSpillDirectory;
+	}
+
+	void add(List<Object> theRowValues) {
+		Validate.isTrue(!mySorted, "Rows can not be added after sorting");
+		myBuffer.add(theRowValues);
+		myBufferedBytes += HfqlSpillFile.estimateSizeInBytes(theRowValues);
+		if (myBufferedBytes > mySpillThresholdBytes) {
+			spillBuffer();
+		}
+	}
+
+	/**
+	 * Returns the estimated size of the rows which are currently held in memory
+	 */
+	long getBufferedBytes() {
+		return myBufferedBytes;
+	}
+
+	/**
+	 * Returns the number of sorted runs that were written to disk
+	 */
+	int getSpilledRunCount() {
+		return mySpilledRunCount;
+	}
+
+	/**
+	 * Sorts the rows that have been added. This may only be called once, and no more rows
+	 * can be added afterwards.
+	 */
+	Iterator<List<Object>> sort() {
+		Validate.isTrue(!mySorted, "Rows have already been sorted");
+		mySorted = true;
+
+		myBuffer.sort(myComparator);
+		if (myRuns.isEmpty()) {
+			return myBuffer.iterator();
+		}
+
+		// Merged runs go back at the front of the list so that the sort stays stable
+		while (myRuns.size() >= MAX_MERGE_FAN_IN) {
+			List<HfqlSpillFile> runsToMerge = new ArrayList<>(myRuns.subList(0, MAX_MERGE_FAN_IN));
+			myRuns.subList(0, MAX_MERGE_FAN_IN).clear();
+			MergingIterator merged = new MergingIterator(openReaders(runsToMerge), myComparator);
+			myRuns.add(0, HfqlSpillFile.write(mySpillDirectory, merged));
+			runsToMerge.forEach(HfqlSpillFile::close);
+		}
+
+		ourLog.info("HFQL sort merging {} spilled run(s) and {} in-memory row(s)", myRuns.size(), myBuffer.size());
+		List<Iterator<List<Object>>> sources = openReaders(myRuns);
+		sources.add(myBuffer.iterator());
+		return new MergingIterator(sources, myComparator);
+	}
+
+	@Override
+	public void close() {
+		myOpenReaders.forEach(HfqlSpillFile.Reader::close);
+		myOpenReaders.clear();
+		myRuns.forEach(HfqlSpillFile::close);
+		myRuns.clear();
+		myBuffer = new ArrayList<>();
+	}
+
+	private List<Iterator<List<Object>>> openReaders(List<HfqlSpillFile> theRuns) {
+		List<Iterator<List<Object>>> retVal = new ArrayList<>(theRuns.size() + 1);
+		for (HfqlSpillFile next : theRuns) {
+			HfqlSpillFile.Reader reader = next.newReader();
+			myOpenReaders.add(reader);
+			retVal.add(reader);
+		}
+		return retVal;
+	}
+
+	private void spillBuffer() {
+		myBuffer.sort(myComparator);
+		myRuns.add(HfqlSpillFile.write(mySpillDirectory, myBuffer.iterator()));
+		mySpilledRunCount++;
+		ourLog.debug("HFQL sort spilled run {} containing {} rows", mySpilledRunCount, myBuffer.size());
+		myBuffer = new ArrayList<>();
+		myBufferedBytes = 0;
+	}
+
+	/**
+	 * K-way merge of several individually sorted row sources. When rows from several sources compare
+	 * as equal, the row from the source that appears first in the list is returned first.
+	 */
+	static class MergingIterator implements Iterator<List<Object>> {
+		private final PriorityQueue<Head> myQueue;
+
+		MergingIterator(List<Iterator<List<Object>>> theSources, Comparator<List<Object>> theComparator) {
+			Comparator<Head> comparator = Comparator.<Head, List<Object>>comparing(t -> t.myRow, theComparator)
+					.thenComparingInt(t -> t.mySourceIndex);
+			myQueue = new PriorityQueue<>(Math.max(1, theSources.size()), comparator);
+			for (int i = 0; i < theSources.size(); i++) {
+				Iterator<List<Object>> source = theSources.get(i);
+				if (source.hasNext()) {
+					myQueue.add(new Head(i, source, source.next()));
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !myQueue.isEmpty();
+		}
+
+		@Override
+		public List<Object> next() {
+			Head head = myQueue.poll();
+			if (head == null) {
+				throw new NoSuchElementException(Msg.code(2547) + "No more rows");
+			}
+			List<Object> retVal = head.myRow;
+			if (head.mySource.hasNext()) {
+				head.myRow = head.mySource.next();
+				myQueue.add(head);
+			}
+			return retVal;
+		}
+
+		private static class Head {
+			private final int mySourceIndex;
+			private final Iterator<List<Object>> mySource;
+			private List<Object> myRow;
+
+			private Head(int theSourceIndex, Iterator<List<Object>> theSource, List<Object> theRow) {
+				mySourceIndex = theSourceIndex;
+				mySource = theSource;
+				myRow = theRow;
+			}
+		}
+	}
+}
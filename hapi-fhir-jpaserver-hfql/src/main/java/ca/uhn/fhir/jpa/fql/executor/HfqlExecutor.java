@@ -31,7 +31,6 @@ import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.fql.parser.HfqlFhirPathParser;
 import ca.uhn.fhir.jpa.fql.parser.HfqlStatement;
 import ca.uhn.fhir.jpa.fql.parser.HfqlStatementParser;
-import ca.uhn.fhir.jpa.fql.util.HfqlConstants;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.util.JpaParamUtil;
 import ca.uhn.fhir.model.api.IQueryParameterAnd;
@@ -50,13 +49,20 @@ import ca.uhn.fhir.rest.server.IPagingProvider;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.rest.server.util.ResourceSearchParams;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
 import ca.uhn.fhir.util.UrlUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
@@ -65,21 +71,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
@@ -95,13 +110,87 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
  * <p>
  * Both of these methods return an {@link IHfqlExecutionResult}, which is essentially
  * a result row iterator.
+ * <p>
+ * Results of statements with an <code>ORDER BY</code> or <code>GROUP BY</code> clause can only
+ * be produced once, so they are retained in memory on the server which executed the initial
+ * search and later pages are served from there. A continuation request which is routed to a
+ * different server (e.g. by a load balancer without session affinity) fails because the search
+ * ID is unknown there. Retained results are spilled to disk between pages, limited in number and
+ * total size, and discarded once they have been idle for a while.
+ * </p>
  */
 public class HfqlExecutor implements IHfqlExecutor {
 	public static final int BATCH_SIZE = 1000;
 	public static final String[] EMPTY_STRING_ARRAY = new String[0];
 	public static final Set<GroupByKey> NULL_GROUP_BY_KEY = Set.of(new GroupByKey(List.of()));
+
+	/**
+	 * Default value for {@link #setSpillThresholdBytes(long)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final long DEFAULT_SPILL_THRESHOLD_BYTES = 64L * 1024 * 1024;
+
+	/**
+	 * Default value for {@link #setRetainedResultIdleTimeoutMillis(long)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final long DEFAULT_RETAINED_RESULT_IDLE_TIMEOUT_MILLIS = 10L * 60 * 1000;
+
+	/**
+	 * Default value for {@link #setMaxRetainedResults(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_MAX_RETAINED_RESULTS = 100;
+
+	/**
+	 * Default value for {@link #setMaxRetainedResultBytes(long)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final long DEFAULT_MAX_RETAINED_RESULT_BYTES = 1024L * 1024 * 1024;
+
+	/**
+	 * Default value for {@link #setEvaluationWindowSize(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_EVALUATION_WINDOW_SIZE = 256;
+
+	static final String RETAINED_RESULT_SEARCH_ID_PREFIX = "hfql-";
+
+	/**
+	 * Upper bound on the number of parsed FHIRPath expressions we keep. Statements normally only use
+	 * a handful of distinct expressions, but we don't want ad-hoc queries to grow the cache indefinitely.
+	 * Once the limit is reached, rarely used expressions are evicted to make room for new ones, and
+	 * every entry expires {@link #PARSED_EXPRESSION_CACHE_TIMEOUT_MILLIS} after it was parsed.
+	 */
+	static final int MAX_PARSED_EXPRESSION_CACHE_SIZE = 1000;
+
+	static final long PARSED_EXPRESSION_CACHE_TIMEOUT_MILLIS = DateUtils.MILLIS_PER_HOUR;
+
 	private static final Logger ourLog = LoggerFactory.getLogger(HfqlExecutor.class);
 
+	private final Map<String, BufferedHfqlExecutionResult> myRetainedResults = new ConcurrentHashMap<>();
+	private final Cache<String, IFhirPath.IParsedExpression> myParsedExpressionCache =
+			HfqlExecutionContext.newParsedExpressionCache();
+	/**
+	 * {@link IFhirPath} instances aren't thread safe, so each thread evaluating rows gets its own
+	 */
+	private final ThreadLocal<IFhirPath> myFhirPath = ThreadLocal.withInitial(() -> myFhirContext.newFhirPath());
+
+	private long mySpillThresholdBytes = DEFAULT_SPILL_THRESHOLD_BYTES;
+	private File mySpillDirectory;
+	private long myRetainedResultIdleTimeoutMillis = DEFAULT_RETAINED_RESULT_IDLE_TIMEOUT_MILLIS;
+	private int myMaxRetainedResults = DEFAULT_MAX_RETAINED_RESULTS;
+	private long myMaxRetainedResultBytes = DEFAULT_MAX_RETAINED_RESULT_BYTES;
+	private ScheduledExecutorService myRetainedResultExpiryExecutor;
+	private int myEvaluationThreadCount = Runtime.getRuntime().availableProcessors();
+	private int myEvaluationWindowSize = DEFAULT_EVALUATION_WINDOW_SIZE;
+	private ForkJoinPool myEvaluationPool;
+
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
@@ -121,6 +210,175 @@ public class HfqlExecutor implements IHfqlExecutor {
 		super();
 	}
 
+	/**
+	 * Sets the approximate amount of row data (in bytes) that a single statement may hold in
+	 * memory while sorting results for an <code>ORDER BY</code> clause or aggregating them for
+	 * a <code>GROUP BY</code> clause. Beyond this, partial results are written to temporary files
+	 * in the {@link #setSpillDirectory(File) spill directory}. Defaults to
+	 * {@link #DEFAULT_SPILL_THRESHOLD_BYTES}.
+	 *
+	 * @since 7.4.0
+	 */
+	public void setSpillThresholdBytes(long theSpillThresholdBytes) {
+		Validate.isTrue(theSpillThresholdBytes > 0, "Spill threshold must be positive");
+		mySpillThresholdBytes = theSpillThresholdBytes;
+	}
+
+	/**
+	 * Sets the directory that temporary files are created in when sorting or grouping a result
+	 * set which exceeds the {@link #setSpillThresholdBytes(long) spill threshold}. If not set
+	 * (the default), the system temporary directory is used.
+	 *
+	 * @since 7.4.0
+	 */
+	public void setSpillDirectory(@Nullable File theSpillDirectory) {
+		mySpillDirectory = theSpillDirectory;
+	}
+
+	/**
+	 * Sorted and grouped results are retained by the executor so that clients can fetch them a
+	 * page at a time using {@link #executeContinuation(HfqlStatement, String, int, Integer, RequestDetails)}.
+	 * Results which have not been accessed for this long are discarded by a background thread,
+	 * along with any temporary files backing them. Defaults to
+	 * {@link #DEFAULT_RETAINED_RESULT_IDLE_TIMEOUT_MILLIS}.
+	 *
+	 * @since 7.4.0
+	 */
+	public synchronized void setRetainedResultIdleTimeoutMillis(long theRetainedResultIdleTimeoutMillis) {
+		Validate.isTrue(theRetainedResultIdleTimeoutMillis > 0, "Idle timeout must be positive");
+		myRetainedResultIdleTimeoutMillis = theRetainedResultIdleTimeoutMillis;
+		if (myRetainedResultExpiryExecutor != null) {
+			// Restart with an interval based on the new timeout
+			shutDownRetainedResultExpiryExecutor();
+			startRetainedResultExpiryExecutorIfNeeded();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of sorted and grouped results which are retained for paging at
+	 * any time. When another result is retained beyond this, the least recently accessed one
+	 * is discarded and continuing it fails. Defaults to {@link #DEFAULT_MAX_RETAINED_RESULTS}.
+	 *
+	 * @since 7.4.0
+	 */
+	public void setMaxRetainedResults(int theMaxRetainedResults) {
+		Validate.isTrue(theMaxRetainedResults > 0, "Maximum retained results must be positive");
+		myMaxRetainedResults = theMaxRetainedResults;
+	}
+
+	/**
+	 * Sets the maximum total size of the sorted and grouped results which are retained for paging,
+	 * counting the temporary files of results which are waiting for their next page and the
+	 * estimated in-memory size of results whose first page is still being read. When this is
+	 * exceeded, the least recently accessed results are discarded. Defaults to
+	 * {@link #DEFAULT_MAX_RETAINED_RESULT_BYTES}.
+	 *
+	 * @since 7.4.0
+	 */
+	public void setMaxRetainedResultBytes(long theMaxRetainedResultBytes) {
+		Validate.isTrue(theMaxRetainedResultBytes > 0, "Maximum retained result bytes must be positive");
+		myMaxRetainedResultBytes = theMaxRetainedResultBytes;
+	}
+
+	/**
+	 * Sets the number of threads used to evaluate the WHERE clause and SELECT columns of a
+	 * statement against the resources returned by the search. Rows are still returned in
+	 * search order. A value of <code>1</code> evaluates every row on the calling thread.
+	 * Defaults to the number of available processors.
+	 *
+	 * @since 7.4.0
+	 */
+	public synchronized void setEvaluationThreadCount(int theEvaluationThreadCount) {
+		Validate.isTrue(theEvaluationThreadCount > 0, "Evaluation thread count must be positive");
+		myEvaluationThreadCount = theEvaluationThreadCount;
+		shutDownEvaluationPool();
+	}
+
+	/**
+	 * Sets the maximum number of resources whose rows may be evaluated ahead of the row that is
+	 * currently being returned when {@link #setEvaluationThreadCount(int) evaluating in parallel}.
+	 * Larger values keep more threads busy at the cost of holding more evaluated rows in memory,
+	 * and of evaluating rows that may never be read if the client stops early. Defaults to
+	 * {@link #DEFAULT_EVALUATION_WINDOW_SIZE}.
+	 *
+	 * @since 7.4.0
+	 */
+	public void setEvaluationWindowSize(int theEvaluationWindowSize) {
+		Validate.isTrue(theEvaluationWindowSize > 0, "Evaluation window size must be positive");
+		myEvaluationWindowSize = theEvaluationWindowSize;
+	}
+
+	/**
+	 * Discards any retained sorted or grouped results and deletes their temporary files, and
+	 * stops the evaluation threads
+	 *
+	 * @since 7.4.0
+	 */
+	@PreDestroy
+	public void stop() {
+		synchronized (this) {
+			shutDownRetainedResultExpiryExecutor();
+			shutDownEvaluationPool();
+		}
+		myRetainedResults.values().forEach(BufferedHfqlExecutionResult::close);
+		myRetainedResults.clear();
+	}
+
+	/**
+	 * Returns the pool used to evaluate rows in parallel, or <code>null</code> if rows should be
+	 * evaluated on the calling thread
+	 */
+	@Nullable
+	private synchronized Executor getEvaluationExecutor() {
+		if (myEvaluationThreadCount <= 1) {
+			return null;
+		}
+		if (myEvaluationPool == null) {
+			ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("hfql-evaluation-" + thread.getPoolIndex());
+				return thread;
+			};
+			myEvaluationPool = new ForkJoinPool(myEvaluationThreadCount, threadFactory, null, false);
+		}
+		return myEvaluationPool;
+	}
+
+	private synchronized void startRetainedResultExpiryExecutorIfNeeded() {
+		if (myRetainedResultExpiryExecutor == null) {
+			BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+					.namingPattern("hfql-retained-result-expiry-%d")
+					.daemon(true)
+					.build();
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+			executor.setRemoveOnCancelPolicy(true);
+			long interval = Math.max(
+					DateUtils.MILLIS_PER_SECOND,
+					Math.min(myRetainedResultIdleTimeoutMillis, DateUtils.MILLIS_PER_MINUTE));
+			executor.scheduleWithFixedDelay(
+					this::expireIdleRetainedResults, interval, interval, TimeUnit.MILLISECONDS);
+			myRetainedResultExpiryExecutor = executor;
+		}
+	}
+
+	private void shutDownRetainedResultExpiryExecutor() {
+		if (myRetainedResultExpiryExecutor != null) {
+			myRetainedResultExpiryExecutor.shutdownNow();
+			myRetainedResultExpiryExecutor = null;
+		}
+	}
+
+	private void shutDownEvaluationPool() {
+		if (myEvaluationPool != null) {
+			myEvaluationPool.shutdown();
+			myEvaluationPool = null;
+		}
+	}
+
+	private HfqlExecutionContext newExecutionContext() {
+		return new HfqlExecutionContext(myFhirPath::get, myParsedExpressionCache);
+	}
+
 	@Override
 	public IHfqlExecutionResult executeInitialSearch(
 			String theStatement, Integer theLimit, RequestDetails theRequestDetails) {
@@ -165,7 +423,7 @@ public class HfqlExecutor implements IHfqlExecutor {
 			limit = limit == null ? statement.getLimit() : Math.min(limit, statement.getLimit());
 		}
 
-		HfqlExecutionContext executionContext = new HfqlExecutionContext(myFhirContext.newFhirPath());
+		HfqlExecutionContext executionContext = newExecutionContext();
 		IBundleProvider outcome = dao.search(map, theRequestDetails);
 		Predicate<IBaseResource> whereClausePredicate = newWhereClausePredicate(executionContext, statement);
 
@@ -174,13 +432,25 @@ public class HfqlExecutor implements IHfqlExecutor {
 			executionResult = executeCountClause(statement, executionContext, outcome, whereClausePredicate);
 		} else {
 			executionResult = new LocalSearchHfqlExecutionResult(
-					statement, outcome, executionContext, limit, 0, whereClausePredicate, myFhirContext);
+					statement,
+					outcome,
+					executionContext,
+					limit,
+					0,
+					whereClausePredicate,
+					myFhirContext,
+					getEvaluationExecutor(),
+					myEvaluationWindowSize);
 		}
 
 		if (statement.hasOrderClause()) {
 			executionResult = createOrderedResult(statement, executionResult);
 		}
 
+		if (executionResult instanceof BufferedHfqlExecutionResult) {
+			retainResult((BufferedHfqlExecutionResult) executionResult);
+		}
+
 		return executionResult;
 	}
 
@@ -328,16 +598,6 @@ public class HfqlExecutor implements IHfqlExecutor {
 
 	private IHfqlExecutionResult createOrderedResult(
 			HfqlStatement theStatement, IHfqlExecutionResult theExecutionResult) {
-		List<IHfqlExecutionResult.Row> rows = new ArrayList<>();
-		while (theExecutionResult.hasNext()) {
-			IHfqlExecutionResult.Row nextRow = theExecutionResult.getNextRow();
-			rows.add(nextRow);
-			Validate.isTrue(
-					rows.size() <= HfqlConstants.ORDER_AND_GROUP_LIMIT,
-					"Can not ORDER BY result sets over %d results",
-					HfqlConstants.ORDER_AND_GROUP_LIMIT);
-		}
-
 		List<Integer> orderColumnIndexes = theStatement.getOrderByClauses().stream()
 				.map(t -> {
 					int index = theStatement.findSelectClauseIndex(t.getClause());
@@ -352,7 +612,7 @@ public class HfqlExecutor implements IHfqlExecutor {
 				.map(HfqlStatement.OrderByClause::isAscending)
 				.collect(Collectors.toList());
 
-		Comparator<IHfqlExecutionResult.Row> comparator = null;
+		Comparator<List<Object>> comparator = null;
 		for (int i = 0; i < orderColumnIndexes.size(); i++) {
 			int columnIndex = orderColumnIndexes.get(i);
 			HfqlDataTypeEnum dataType = theExecutionResult
@@ -360,7 +620,7 @@ public class HfqlExecutor implements IHfqlExecutor {
 					.getSelectClauses()
 					.get(columnIndex)
 					.getDataType();
-			Comparator<IHfqlExecutionResult.Row> nextComparator = newRowComparator(columnIndex, dataType);
+			Comparator<List<Object>> nextComparator = newRowComparator(columnIndex, dataType);
 			if (!orderAscending.get(i)) {
 				nextComparator = nextComparator.reversed();
 			}
@@ -371,14 +631,29 @@ public class HfqlExecutor implements IHfqlExecutor {
 			}
 		}
 
-		rows.sort(comparator);
-		for (int i = 0; i < rows.size(); i++) {
-			rows.set(i, rows.get(i).toRowOffset(i));
+		/*
+		 * Rows are sorted in memory up to the spill threshold, and anything beyond
+		 * that is sorted in runs on disk which are then merged as the results are read
+		 */
+		ExternalRowSorter sorter = new ExternalRowSorter(comparator, mySpillThresholdBytes, mySpillDirectory);
+		try {
+			while (theExecutionResult.hasNext()) {
+				IHfqlExecutionResult.Row nextRow = theExecutionResult.getNextRow();
+				if (nextRow.getRowOffset() == IHfqlExecutionResult.ROW_OFFSET_ERROR) {
+					sorter.close();
+					return StaticHfqlExecutionResult.withError((String) nextRow.getRowValues().get(0));
+				}
+				sorter.add(nextRow.getRowValues());
+			}
+			theExecutionResult.close();
+
+			Iterator<List<Object>> sortedRows = sorter.sort();
+			return new BufferedHfqlExecutionResult(
+					newRetainedResultSearchId(), theStatement, sortedRows, sorter, sorter.getBufferedBytes());
+		} catch (RuntimeException e) {
+			sorter.close();
+			throw e;
 		}
-
-		List<List<Object>> rowData =
-				rows.stream().map(IHfqlExecutionResult.Row::getRowValues).collect(Collectors.toList());
-		return new StaticHfqlExecutionResult(null, theStatement, rowData);
 	}
 
 	@Override
@@ -388,8 +663,12 @@ public class HfqlExecutor implements IHfqlExecutor {
 			int theStartingOffset,
 			Integer theLimit,
 			RequestDetails theRequestDetails) {
+		if (theSearchId != null && theSearchId.startsWith(RETAINED_RESULT_SEARCH_ID_PREFIX)) {
+			return continueRetainedResult(theSearchId, theStartingOffset);
+		}
+
 		IBundleProvider resultList = myPagingProvider.retrieveResultList(theRequestDetails, theSearchId);
-		HfqlExecutionContext executionContext = new HfqlExecutionContext(myFhirContext.newFhirPath());
+		HfqlExecutionContext executionContext = newExecutionContext();
 		Predicate<IBaseResource> whereClausePredicate = newWhereClausePredicate(executionContext, theStatement);
 		return new LocalSearchHfqlExecutionResult(
 				theStatement,
@@ -398,7 +677,107 @@ public class HfqlExecutor implements IHfqlExecutor {
 				theLimit,
 				theStartingOffset,
 				whereClausePredicate,
-				myFhirContext);
+				myFhirContext,
+				getEvaluationExecutor(),
+				myEvaluationWindowSize);
+	}
+
+	/**
+	 * Sorted and grouped results can only be produced once, so rather than re-running the
+	 * statement for each page we hand out the same result object until it has been fully read
+	 */
+	private IHfqlExecutionResult continueRetainedResult(String theSearchId, int theStartingOffset) {
+		BufferedHfqlExecutionResult retVal = myRetainedResults.get(theSearchId);
+		if (retVal == null) {
+			throw new InvalidRequestException(
+					Msg.code(2549) + "Unknown or expired search ID: " + UrlUtil.sanitizeUrlPart(theSearchId));
+		}
+		if (retVal.getNextRowOffset() != theStartingOffset) {
+			throw new InvalidRequestException(Msg.code(2550) + "Sorted and grouped results must be read in order. "
+					+ "Requested offset " + theStartingOffset + " but the next available offset is "
+					+ retVal.getNextRowOffset());
+		}
+
+		retVal.touch();
+		if (retVal.isClosed()) {
+			myRetainedResults.remove(theSearchId);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Once a page of a sorted or grouped result has been returned, the rows which have not been
+	 * read yet are moved to disk so that the retained result doesn't hold any row data in memory
+	 * while waiting for the client to request the next page
+	 */
+	@Override
+	public void suspendResult(IHfqlExecutionResult theResult) {
+		if (theResult instanceof BufferedHfqlExecutionResult) {
+			BufferedHfqlExecutionResult result = (BufferedHfqlExecutionResult) theResult;
+			result.spillRemainingRows(mySpillDirectory);
+			if (result.isClosed()) {
+				myRetainedResults.remove(result.getSearchId());
+			} else {
+				enforceRetainedResultLimits(result);
+			}
+		}
+	}
+
+	private void retainResult(BufferedHfqlExecutionResult theResult) {
+		startRetainedResultExpiryExecutorIfNeeded();
+		myRetainedResults.put(theResult.getSearchId(), theResult);
+		enforceRetainedResultLimits(theResult);
+	}
+
+	/**
+	 * Discards the least recently accessed retained results (other than the given one) until the
+	 * number and total size of the retained results are within their limits
+	 */
+	private void enforceRetainedResultLimits(BufferedHfqlExecutionResult theResultToKeep) {
+		synchronized (myRetainedResults) {
+			myRetainedResults.values().removeIf(BufferedHfqlExecutionResult::isClosed);
+			long totalBytes = myRetainedResults.values().stream()
+					.mapToLong(BufferedHfqlExecutionResult::getRetainedBytes)
+					.sum();
+			while (myRetainedResults.size() > myMaxRetainedResults || totalBytes > myMaxRetainedResultBytes) {
+				Optional<BufferedHfqlExecutionResult> leastRecentlyAccessed = myRetainedResults.values().stream()
+						.filter(t -> t != theResultToKeep)
+						.min(Comparator.comparingLong(BufferedHfqlExecutionResult::getLastAccessedMillis));
+				if (leastRecentlyAccessed.isEmpty()) {
+					break;
+				}
+				BufferedHfqlExecutionResult evicted = leastRecentlyAccessed.get();
+				ourLog.warn(
+						"Discarding HFQL result {}, retained results exceed {} results or {} bytes",
+						evicted.getSearchId(),
+						myMaxRetainedResults,
+						myMaxRetainedResultBytes);
+				totalBytes -= evicted.getRetainedBytes();
+				myRetainedResults.remove(evicted.getSearchId());
+				evicted.close();
+			}
+		}
+	}
+
+	@VisibleForTesting
+	void expireIdleRetainedResults() {
+		long cutoff = System.currentTimeMillis() - myRetainedResultIdleTimeoutMillis;
+		myRetainedResults.values().removeIf(t -> {
+			if (t.isClosed()) {
+				return true;
+			}
+			if (t.getLastAccessedMillis() < cutoff) {
+				ourLog.debug("Discarding idle HFQL result {}", t.getSearchId());
+				t.close();
+				return true;
+			}
+			return false;
+		});
+	}
+
+	@VisibleForTesting
+	int getRetainedResultCount() {
+		return myRetainedResults.size();
 	}
 
 	private IHfqlExecutionResult executeCountClause(
@@ -416,83 +795,92 @@ public class HfqlExecutor implements IHfqlExecutor {
 				throw newInvalidRequestCountWithSelectOnNonGroupedClause(next);
 			}
 		}
-		Set<String> countClauses = theStatement.getSelectClauses().stream()
+		List<String> countClauses = theStatement.getSelectClauses().stream()
 				.filter(t -> t.getOperator() == HfqlStatement.SelectClauseOperator.COUNT)
 				.map(HfqlStatement.SelectClause::getClause)
-				.collect(Collectors.toSet());
-
-		Map<GroupByKey, Map<String, AtomicInteger>> keyCounter = new HashMap<>();
-
-		int offset = 0;
-		int batchSize = 1000;
-		while (theOutcome.size() == null || theOutcome.sizeOrThrowNpe() > offset) {
-			List<IBaseResource> resources = theOutcome.getResources(offset, offset + batchSize);
-
-			for (IBaseResource nextResource : resources) {
+				.distinct()
+				.collect(Collectors.toList());
 
-				if (nextResource != null && theWhereClausePredicate.test(nextResource)) {
+		SpillingCountAggregator aggregator = new SpillingCountAggregator(
+				theStatement.getGroupByClauses().size(), countClauses.size(), mySpillThresholdBytes, mySpillDirectory);
+		try {
+			int offset = 0;
+			int batchSize = 1000;
+			while (theOutcome.size() == null || theOutcome.sizeOrThrowNpe() > offset) {
+				List<IBaseResource> resources = theOutcome.getResources(offset, offset + batchSize);
 
-					List<List<String>> groupByClauseValues = new ArrayList<>();
+				for (IBaseResource nextResource : resources) {
 
-					for (String nextClause : theStatement.getGroupByClauses()) {
-						List<String> nextClauseValues =
-								theExecutionContext.evaluate(nextResource, nextClause, IPrimitiveType.class).stream()
-										.map(IPrimitiveType::getValueAsString)
-										.collect(Collectors.toList());
-						if (nextClauseValues.isEmpty()) {
-							nextClauseValues.add(null);
-						}
-						groupByClauseValues.add(nextClauseValues);
-					}
-					Set<GroupByKey> allKeys = createCrossProduct(groupByClauseValues);
+					if (nextResource != null && theWhereClausePredicate.test(nextResource)) {
 
-					for (GroupByKey nextKey : allKeys) {
+						List<List<String>> groupByClauseValues = new ArrayList<>();
 
-						Map<String, AtomicInteger> counts = keyCounter.computeIfAbsent(nextKey, t -> new HashMap<>());
-						if (keyCounter.size() >= HfqlConstants.ORDER_AND_GROUP_LIMIT) {
-							throw new InvalidRequestException(Msg.code(2402) + "Can not group on > "
-									+ HfqlConstants.ORDER_AND_GROUP_LIMIT + " terms");
+						for (String nextClause : theStatement.getGroupByClauses()) {
+							List<String> nextClauseValues = theExecutionContext
+									.evaluate(nextResource, nextClause, IPrimitiveType.class)
+									.stream()
+									.map(IPrimitiveType::getValueAsString)
+									.collect(Collectors.toList());
+							if (nextClauseValues.isEmpty()) {
+								nextClauseValues.add(null);
+							}
+							groupByClauseValues.add(nextClauseValues);
 						}
-						for (String nextCountClause : countClauses) {
-							if (!nextCountClause.equals("*")) {
-								if (theExecutionContext
-										.evaluateFirst(nextResource, nextCountClause, IBase.class)
-										.isEmpty()) {
-									continue;
+						Set<GroupByKey> allKeys = createCrossProduct(groupByClauseValues);
+
+						for (GroupByKey nextKey : allKeys) {
+
+							int[] counts = aggregator.getCounts(nextKey.getNames());
+							for (int i = 0; i < countClauses.size(); i++) {
+								String nextCountClause = countClauses.get(i);
+								if (!nextCountClause.equals("*")) {
+									if (theExecutionContext
+											.evaluateFirst(nextResource, nextCountClause, IBase.class)
+											.isEmpty()) {
+										continue;
+									}
 								}
+								counts[i]++;
 							}
-							counts.computeIfAbsent(nextCountClause, k -> new AtomicInteger())
-									.incrementAndGet();
 						}
 					}
 				}
+
+				offset += batchSize;
 			}
 
-			offset += batchSize;
+			Iterator<List<Object>> rows = Iterators.transform(
+					aggregator.aggregate(), t -> toCountClauseRow(theStatement, countClauses, t));
+			return new BufferedHfqlExecutionResult(
+					newRetainedResultSearchId(), theStatement, rows, aggregator, aggregator.getBufferedBytes());
+		} catch (RuntimeException e) {
+			aggregator.close();
+			throw e;
 		}
+	}
 
-		List<List<Object>> rows = new ArrayList<>();
-		for (Map.Entry<GroupByKey, Map<String, AtomicInteger>> nextEntry : keyCounter.entrySet()) {
-			List<Object> nextRow = new ArrayList<>();
-
-			for (HfqlStatement.SelectClause nextSelectClause : theStatement.getSelectClauses()) {
-				if (nextSelectClause.getOperator() == HfqlStatement.SelectClauseOperator.SELECT) {
-					int groupByIndex = theStatement.getGroupByClauses().indexOf(nextSelectClause.getClause());
-					nextRow.add(nextEntry.getKey().getNames().get(groupByIndex));
-				} else {
-					AtomicInteger counter = nextEntry.getValue().get(nextSelectClause.getClause());
-					if (counter != null) {
-						nextRow.add(counter.intValue());
-					} else {
-						nextRow.add(0);
-					}
-				}
+	/**
+	 * @param theAggregatedRow The group key values followed by the count values, as produced
+	 *                         by {@link SpillingCountAggregator}
+	 */
+	private static List<Object> toCountClauseRow(
+			HfqlStatement theStatement, List<String> theCountClauses, List<Object> theAggregatedRow) {
+		int groupByClauseCount = theStatement.getGroupByClauses().size();
+		List<Object> retVal = new ArrayList<>();
+		for (HfqlStatement.SelectClause nextSelectClause : theStatement.getSelectClauses()) {
+			if (nextSelectClause.getOperator() == HfqlStatement.SelectClauseOperator.SELECT) {
+				int groupByIndex = theStatement.getGroupByClauses().indexOf(nextSelectClause.getClause());
+				retVal.add(theAggregatedRow.get(groupByIndex));
+			} else {
+				int countIndex = theCountClauses.indexOf(nextSelectClause.getClause());
+				retVal.add(theAggregatedRow.get(groupByClauseCount + countIndex));
 			}
-
-			rows.add(nextRow);
 		}
+		return retVal;
+	}
 
-		return new StaticHfqlExecutionResult(null, theStatement, rows);
+	private static String newRetainedResultSearchId() {
+		return RETAINED_RESULT_SEARCH_ID_PREFIX + UUID.randomUUID();
 	}
 
 	private Set<GroupByKey> createCrossProduct(List<List<String>> theGroupByClauseValues) {
@@ -864,7 +1252,7 @@ public class HfqlExecutor implements IHfqlExecutor {
 	}
 
 	@SuppressWarnings("unchecked")
-	static Comparator<IHfqlExecutionResult.Row> newRowComparator(int columnIndex, HfqlDataTypeEnum dataType) {
+	static Comparator<List<Object>> newRowComparator(int columnIndex, HfqlDataTypeEnum dataType) {
 		return Comparator.comparing(new RowValueExtractor(columnIndex, dataType));
 	}
 
@@ -919,7 +1307,7 @@ public class HfqlExecutor implements IHfqlExecutor {
 				"Unable to select on non-grouped column in a count expression: " + UrlUtil.sanitizeUrlPart(theClause));
 	}
 
-	private static class RowValueExtractor implements Function<IHfqlExecutionResult.Row, Comparable> {
+	private static class RowValueExtractor implements Function<List<Object>, Comparable> {
 		private final int myColumnIndex;
 		private final HfqlDataTypeEnum myDataType;
 
@@ -929,8 +1317,8 @@ public class HfqlExecutor implements IHfqlExecutor {
 		}
 
 		@Override
-		public Comparable apply(IHfqlExecutionResult.Row theRow) {
-			Comparable retVal = (Comparable) theRow.getRowValues().get(myColumnIndex);
+		public Comparable apply(List<Object> theRowValues) {
+			Comparable retVal = (Comparable) theRowValues.get(myColumnIndex);
 			switch (myDataType) {
 				case STRING:
 				case TIME:
@@ -1010,36 +1398,68 @@ public class HfqlExecutor implements IHfqlExecutor {
 		}
 	}
 
+	/**
+	 * Evaluates FHIRPath expressions for a statement, caching the parsed form of each expression.
+	 * A context created with {@link #HfqlExecutionContext(Supplier, Cache)} may be used by
+	 * several threads at once, provided that the supplier returns a separate {@link IFhirPath}
+	 * instance for each thread.
+	 */
 	public static class HfqlExecutionContext {
 
-		private final Map<String, IFhirPath.IParsedExpression> myFhirPathExpressionMap = new HashMap<>();
-		private final IFhirPath myFhirPath;
+		private final Supplier<IFhirPath> myFhirPathSupplier;
+		private final Cache<String, IFhirPath.IParsedExpression> myParsedExpressionCache;
 
+		/**
+		 * Constructor for a context which will only be used by a single thread
+		 */
 		public HfqlExecutionContext(IFhirPath theFhirPath) {
-			myFhirPath = theFhirPath;
+			this(() -> theFhirPath, newParsedExpressionCache());
+		}
+
+		/**
+		 * Constructor
+		 *
+		 * @param theFhirPathSupplier       Supplies the FHIRPath engine for the current thread
+		 * @param theParsedExpressionCache  Cache of parsed expressions, which may be shared between contexts
+		 *                                  (see {@link #newParsedExpressionCache()})
+		 * @since 7.4.0
+		 */
+		public HfqlExecutionContext(
+				Supplier<IFhirPath> theFhirPathSupplier,
+				Cache<String, IFhirPath.IParsedExpression> theParsedExpressionCache) {
+			myFhirPathSupplier = theFhirPathSupplier;
+			myParsedExpressionCache = theParsedExpressionCache;
 		}
 
 		public <T extends IBase> List<T> evaluate(IBase theInput, String thePath, Class<T> theReturnType) {
 			IFhirPath.IParsedExpression parsedExpression = getParsedExpression(thePath);
-			return myFhirPath.evaluate(theInput, parsedExpression, theReturnType);
+			return myFhirPathSupplier.get().evaluate(theInput, parsedExpression, theReturnType);
 		}
 
 		<T extends IBase> Optional<T> evaluateFirst(IBase theInput, String thePath, Class<T> theReturnType) {
 			IFhirPath.IParsedExpression parsedExpression = getParsedExpression(thePath);
-			return myFhirPath.evaluateFirst(theInput, parsedExpression, theReturnType);
+			return myFhirPathSupplier.get().evaluateFirst(theInput, parsedExpression, theReturnType);
 		}
 
 		private IFhirPath.IParsedExpression getParsedExpression(String thePath) {
-			IFhirPath.IParsedExpression parsedExpression = myFhirPathExpressionMap.get(thePath);
-			if (parsedExpression == null) {
-				try {
-					parsedExpression = myFhirPath.parse(thePath);
-				} catch (Exception e) {
-					throw new InvalidRequestException(Msg.code(2404) + e.getMessage(), e);
-				}
-				myFhirPathExpressionMap.put(thePath, parsedExpression);
+			return myParsedExpressionCache.get(thePath, this::parseExpression);
+		}
+
+		private IFhirPath.IParsedExpression parseExpression(String thePath) {
+			try {
+				return myFhirPathSupplier.get().parse(thePath);
+			} catch (Exception e) {
+				throw new InvalidRequestException(Msg.code(2404) + e.getMessage(), e);
 			}
-			return parsedExpression;
+		}
+
+		/**
+		 * Creates a bounded cache of parsed expressions, suitable for sharing between contexts
+		 *
+		 * @since 7.4.0
+		 */
+		public static Cache<String, IFhirPath.IParsedExpression> newParsedExpressionCache() {
+			return CacheFactory.build(PARSED_EXPRESSION_CACHE_TIMEOUT_MILLIS, MAX_PARSED_EXPRESSION_CACHE_SIZE);
 		}
 	}
 }
@@ -0,0 +1,258 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - HFQL Driver
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A temporary file holding a sequence of HFQL result rows. These are written by
+ * {@link ExternalRowSorter} and {@link SpillingCountAggregator} when a result set
+ * being sorted or grouped is too large to hold in memory, and are read back
+ * sequentially. Row values may be <code>null</code>, {@link String}, {@link Integer}
+ * or {@link Long}, which are the only types produced by the executor.
+ * <p>
+ * The file is deleted when this object is closed.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+final class HfqlSpillFile implements Closeable {
+	private static final Logger ourLog = LoggerFactory.getLogger(HfqlSpillFile.class);
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int END_OF_FILE = -1;
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_STRING = 1;
+	private static final byte VALUE_INTEGER = 2;
+	private static final byte VALUE_LONG = 3;
+
+	/**
+	 * Rough per-row and per-value overheads used by {@link #estimateSizeInBytes(List)}
+	 */
+	private static final int ROW_OVERHEAD_BYTES = 48;
+
+	private static final int VALUE_OVERHEAD_BYTES = 24;
+
+	private final File myFile;
+	private final int myRowCount;
+
+	private HfqlSpillFile(File theFile, int theRowCount) {
+		myFile = theFile;
+		myRowCount = theRowCount;
+	}
+
+	int getRowCount() {
+		return myRowCount;
+	}
+
+	long getSizeInBytes() {
+		return myFile.length();
+	}
+
+	/**
+	 * Opens a new reader positioned at the first row of the file. The caller is responsible
+	 * for closing the reader.
+	 */
+	Reader newReader() {
+		try {
+			return new Reader(
+					new DataInputStream(new BufferedInputStream(Files.newInputStream(myFile.toPath()), BUFFER_SIZE)));
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2541) + "Failed to read HFQL spill file: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() {
+		deleteQuietly(myFile);
+	}
+
+	/**
+	 * Writes all of the given rows to a new temporary file
+	 *
+	 * @param theDirectory The directory to create the file in, or <code>null</code> to use the
+	 *                     system temporary directory
+	 */
+	static HfqlSpillFile write(@Nullable File theDirectory, Iterator<List<Object>> theRows) {
+		File file = null;
+		try {
+			file = File.createTempFile("hfql-", ".spill", theDirectory);
+			int rowCount = 0;
+			try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE))) {
+				while (theRows.hasNext()) {
+					writeRow(output, theRows.next());
+					rowCount++;
+				}
+				output.writeInt(END_OF_FILE);
+			}
+			ourLog.debug("Wrote {} rows to HFQL spill file {}", rowCount, file);
+			return new HfqlSpillFile(file, rowCount);
+		} catch (IOException e) {
+			if (file != null) {
+				deleteQuietly(file);
+			}
+			throw new InternalErrorException(Msg.code(2542) + "Failed to write HFQL spill file: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns a rough estimate of the number of bytes of heap used by a row. This doesn't need
+	 * to be exact, it is only used to decide when an in-memory buffer should be spilled to disk.
+	 */
+	static long estimateSizeInBytes(List<?> theRowValues) {
+		long retVal = ROW_OVERHEAD_BYTES;
+		for (Object next : theRowValues) {
+			retVal += VALUE_OVERHEAD_BYTES;
+			if (next instanceof String) {
+				retVal += ((String) next).length();
+			}
+		}
+		return retVal;
+	}
+
+	private static void deleteQuietly(File theFile) {
+		try {
+			Files.deleteIfExists(theFile.toPath());
+		} catch (IOException e) {
+			ourLog.warn("Failed to delete HFQL spill file {}: {}", theFile, e.toString());
+		}
+	}
+
+	private static void writeRow(DataOutputStream theOutput, List<Object> theRowValues) throws IOException {
+		theOutput.writeInt(theRowValues.size());
+		for (Object next : theRowValues) {
+			if (next == null) {
+				theOutput.writeByte(VALUE_NULL);
+			} else if (next instanceof String) {
+				// DataOutputStream#writeUTF is limited to 64KB, which JSON columns can exceed
+				byte[] bytes = ((String) next).getBytes(StandardCharsets.UTF_8);
+				theOutput.writeByte(VALUE_STRING);
+				theOutput.writeInt(bytes.length);
+				theOutput.write(bytes);
+			} else if (next instanceof Integer) {
+				theOutput.writeByte(VALUE_INTEGER);
+				theOutput.writeInt((Integer) next);
+			} else if (next instanceof Long) {
+				theOutput.writeByte(VALUE_LONG);
+				theOutput.writeLong((Long) next);
+			} else {
+				throw new IOException(Msg.code(2543) + "Can not spill value of type " + next.getClass());
+			}
+		}
+	}
+
+	/**
+	 * Sequential reader over the rows in a spill file
+	 */
+	static final class Reader implements Iterator<List<Object>>, Closeable {
+		private final DataInputStream myInput;
+		private List<Object> myNextRow;
+		private boolean myExhausted;
+
+		private Reader(DataInputStream theInput) {
+			myInput = theInput;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (myNextRow == null && !myExhausted) {
+				try {
+					myNextRow = readRow();
+				} catch (IOException e) {
+					throw new InternalErrorException(
+							Msg.code(2544) + "Failed to read HFQL spill file: " + e.getMessage(), e);
+				}
+				if (myNextRow == null) {
+					myExhausted = true;
+					close();
+				}
+			}
+			return myNextRow != null;
+		}
+
+		@Override
+		public List<Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException(Msg.code(2545) + "No more rows in HFQL spill file");
+			}
+			List<Object> retVal = myNextRow;
+			myNextRow = null;
+			return retVal;
+		}
+
+		@Nullable
+		private List<Object> readRow() throws IOException {
+			int columnCount = myInput.readInt();
+			if (columnCount == END_OF_FILE) {
+				return null;
+			}
+			List<Object> retVal = new ArrayList<>(columnCount);
+			for (int i = 0; i < columnCount; i++) {
+				byte valueType = myInput.readByte();
+				switch (valueType) {
+					case VALUE_NULL:
+						retVal.add(null);
+						break;
+					case VALUE_STRING:
+						byte[] bytes = new byte[myInput.readInt()];
+						myInput.readFully(bytes);
+						retVal.add(new String(bytes, StandardCharsets.UTF_8));
+						break;
+					case VALUE_INTEGER:
+						retVal.add(myInput.readInt());
+						break;
+					case VALUE_LONG:
+						retVal.add(myInput.readLong());
+						break;
+					default:
+						throw new IOException(Msg.code(2546) + "Unknown value type in HFQL spill file: " + valueType);
+				}
+			}
+			return retVal;
+		}
+
+		@Override
+		public void close() {
+			try {
+				myInput.close();
+			} catch (IOException e) {
+				ourLog.debug("Failed to close HFQL spill file reader", e);
+			}
+		}
+	}
+}
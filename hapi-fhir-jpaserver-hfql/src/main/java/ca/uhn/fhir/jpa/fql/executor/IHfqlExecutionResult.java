@@ -35,6 +35,11 @@ import java.util.List;
  *    This is used inside the HAPI FHIR server that is handling HFQL queries.
  * </li>
  * <li>
+ *    {@link BufferedHfqlExecutionResult} - Implementation holding the sorted or grouped
+ *    results of a statement with an <code>ORDER BY</code> or <code>GROUP BY</code> clause,
+ *    possibly spilled to temporary files. This is used inside the HAPI FHIR server.
+ * </li>
+ * <li>
  *    {@link StaticHfqlExecutionResult} - Static implementation with fixed results. This is
  *    usually used to represent errors and failed queries inside the HAPI FHIR server.
  * </li>
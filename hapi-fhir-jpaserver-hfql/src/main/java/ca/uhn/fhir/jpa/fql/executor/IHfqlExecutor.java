@@ -51,6 +51,20 @@ public interface IHfqlExecutor {
 			Integer theLimit,
 			RequestDetails theRequestDetails);
 
+	/**
+	 * Notifies the executor that a page of the given result has been returned to the client, and
+	 * that the client may request the next page later using
+	 * {@link #executeContinuation(HfqlStatement, String, int, Integer, RequestDetails)}. Executors
+	 * may use this to release resources held by the result in the meantime.
+	 *
+	 * @param theResult A result returned by {@link #executeInitialSearch(String, Integer, RequestDetails)}
+	 *                  or {@link #executeContinuation(HfqlStatement, String, int, Integer, RequestDetails)}
+	 * @since 7.4.0
+	 */
+	default void suspendResult(IHfqlExecutionResult theResult) {
+		// nothing by default
+	}
+
 	/**
 	 * Provides a list of "tables", which are actually resource types, in order to
 	 * support the JCBC {@link java.sql.DatabaseMetaData#getTables(String, String, String, String[])}
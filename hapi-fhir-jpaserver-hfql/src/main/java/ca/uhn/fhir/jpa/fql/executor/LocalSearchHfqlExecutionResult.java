@@ -23,6 +23,7 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.fql.parser.HfqlStatement;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -31,13 +32,24 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 
 /**
  * @see IHfqlExecutionResult for information about the purpose of this class
+ * <p>
+ * If an evaluation {@link Executor} is supplied, the WHERE clause predicate and the SELECT
+ * columns are evaluated for several resources at once on the executor's threads. At most
+ * <code>theEvaluationWindowSize</code> resources are evaluated ahead of the row being returned,
+ * and rows are always returned in the same order as the underlying search results.
+ * </p>
  */
 public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 	private static final Logger ourLog = LoggerFactory.getLogger(LocalSearchHfqlExecutionResult.class);
@@ -47,16 +59,25 @@ public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 	private final Integer myLimit;
 	private final HfqlStatement myStatement;
 	private final Predicate<IBaseResource> myWhereClausePredicate;
-	private final IParser myParser;
+	private final FhirContext myFhirContext;
+	private final Executor myEvaluationExecutor;
+	private final int myEvaluationWindowSize;
+	private final Deque<CompletableFuture<Row>> myPendingRows = new ArrayDeque<>();
+	/**
+	 * Parsers aren't thread safe, so each thread evaluating rows for this result gets its own
+	 */
+	private final ThreadLocal<IParser> myParser;
 	private int myTotalRowsFetched = 0;
 	private int myNextSearchResultRow;
 	private int myNextBatchRow = 0;
 	private List<IBaseResource> myNextBatch;
-	private IBaseResource myNextResource;
+	private boolean mySearchExhausted = false;
 	private boolean myExhausted = false;
-	private int myNextResourceSearchRow;
-	private Row myErrorRow;
+	private Row myNextRow;
 
+	/**
+	 * Constructor - Rows are evaluated one at a time on the calling thread
+	 */
 	public LocalSearchHfqlExecutionResult(
 			HfqlStatement theStatement,
 			IBundleProvider theSearchResult,
@@ -65,77 +86,154 @@ public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 			int theInitialOffset,
 			Predicate<IBaseResource> theWhereClausePredicate,
 			FhirContext theFhirContext) {
+		this(
+				theStatement,
+				theSearchResult,
+				theExecutionContext,
+				theLimit,
+				theInitialOffset,
+				theWhereClausePredicate,
+				theFhirContext,
+				null,
+				1);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theEvaluationExecutor   If not <code>null</code>, rows are evaluated in parallel using this executor.
+	 *                                The execution context and WHERE clause predicate must be thread safe.
+	 * @param theEvaluationWindowSize The maximum number of resources to evaluate ahead of the current row
+	 * @since 7.4.0
+	 */
+	public LocalSearchHfqlExecutionResult(
+			HfqlStatement theStatement,
+			IBundleProvider theSearchResult,
+			HfqlExecutor.HfqlExecutionContext theExecutionContext,
+			Integer theLimit,
+			int theInitialOffset,
+			Predicate<IBaseResource> theWhereClausePredicate,
+			FhirContext theFhirContext,
+			@Nullable Executor theEvaluationExecutor,
+			int theEvaluationWindowSize) {
+		Validate.isTrue(theEvaluationWindowSize > 0, "Evaluation window size must be positive");
 		myStatement = theStatement;
 		mySearchResult = theSearchResult;
 		myExecutionContext = theExecutionContext;
 		myLimit = theLimit;
 		myNextSearchResultRow = theInitialOffset;
 		myWhereClausePredicate = theWhereClausePredicate;
-		myParser = theFhirContext.newJsonParser();
+		myFhirContext = theFhirContext;
+		myParser = ThreadLocal.withInitial(() -> myFhirContext.newJsonParser());
+		myEvaluationExecutor = theEvaluationExecutor;
+		myEvaluationWindowSize = theEvaluationExecutor != null ? theEvaluationWindowSize : 1;
 	}
 
 	@Override
 	public boolean hasNext() {
-		fetchNextResource();
-		return myNextResource != null;
+		fetchNextRow();
+		return myNextRow != null;
 	}
 
-	private void fetchNextResource() {
-		if (myNextResource != null) {
-			return;
-		}
+	private void fetchNextRow() {
 		try {
-			while (myNextResource == null && !myExhausted) {
-				if (myNextBatch == null) {
-					int from = myNextSearchResultRow;
-					int to = myNextSearchResultRow + HfqlExecutor.BATCH_SIZE;
-					myNextBatch = mySearchResult.getResources(from, to);
-					ourLog.info(
-							"HFQL fetching resources {}-{} - Total {} fetched, {} retained and limit {}",
-							from,
-							to,
-							myNextSearchResultRow,
-							myTotalRowsFetched,
-							myLimit);
-					myNextBatchRow = 0;
-					myNextSearchResultRow += HfqlExecutor.BATCH_SIZE;
-				}
-				if (myNextBatch.isEmpty()) {
+			while (myNextRow == null && !myExhausted) {
+				fillEvaluationWindow();
+				CompletableFuture<Row> nextPendingRow = myPendingRows.pollFirst();
+				if (nextPendingRow == null) {
 					myExhausted = true;
-				} else if (myNextBatch.size() > myNextBatchRow) {
-					myNextResource = myNextBatch.get(myNextBatchRow);
-					myNextResourceSearchRow = (myNextSearchResultRow - HfqlExecutor.BATCH_SIZE) + myNextBatchRow;
-					myNextBatchRow++;
-				} else {
-					myNextBatch = null;
+					break;
 				}
 
-				if (myNextResource != null && !myWhereClausePredicate.test(myNextResource)) {
-					myNextResource = null;
+				Row nextRow = nextPendingRow.join();
+				if (nextRow == null) {
+					// Didn't match the WHERE clause
+					continue;
 				}
-			}
 
-			if (myNextResource != null) {
-				myTotalRowsFetched++;
-				if (myLimit != null && myTotalRowsFetched >= myLimit) {
-					myExhausted = true;
+				myNextRow = nextRow;
+				if (nextRow.getRowOffset() == ROW_OFFSET_ERROR) {
+					stopEvaluating();
+				} else {
+					myTotalRowsFetched++;
+					if (myLimit != null && myTotalRowsFetched >= myLimit) {
+						stopEvaluating();
+					}
 				}
 			}
+		} catch (CompletionException e) {
+			createErrorRow(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
 		} catch (Exception e) {
-			createAndStoreErrorRow(e.getMessage());
+			createErrorRow(e.getMessage());
 		}
 	}
 
-	@Override
-	public Row getNextRow() {
-		fetchNextResource();
-		if (myErrorRow != null) {
-			Row errorRow = myErrorRow;
-			myErrorRow = null;
-			return errorRow;
+	/**
+	 * Starts evaluating resources until the window is full. A new page of search results
+	 * is only loaded once everything from the previous page has been consumed.
+	 */
+	private void fillEvaluationWindow() {
+		while (myPendingRows.size() < myEvaluationWindowSize && !mySearchExhausted) {
+			if (myNextBatch == null || myNextBatchRow >= myNextBatch.size()) {
+				if (!myPendingRows.isEmpty()) {
+					return;
+				}
+				loadNextBatch();
+				continue;
+			}
+
+			IBaseResource nextResource = myNextBatch.get(myNextBatchRow);
+			int nextResourceSearchRow = (myNextSearchResultRow - HfqlExecutor.BATCH_SIZE) + myNextBatchRow;
+			myNextBatchRow++;
+			if (nextResource == null) {
+				continue;
+			}
+
+			if (myEvaluationExecutor == null) {
+				myPendingRows.addLast(
+						CompletableFuture.completedFuture(evaluateResource(nextResource, nextResourceSearchRow)));
+			} else {
+				myPendingRows.addLast(CompletableFuture.supplyAsync(
+						() -> evaluateResource(nextResource, nextResourceSearchRow), myEvaluationExecutor));
+			}
 		}
+	}
 
-		Validate.isTrue(myNextResource != null, "No more results");
+	private void loadNextBatch() {
+		int from = myNextSearchResultRow;
+		int to = myNextSearchResultRow + HfqlExecutor.BATCH_SIZE;
+		myNextBatch = mySearchResult.getResources(from, to);
+		ourLog.info(
+				"HFQL fetching resources {}-{} - Total {} fetched, {} retained and limit {}",
+				from,
+				to,
+				myNextSearchResultRow,
+				myTotalRowsFetched,
+				myLimit);
+		myNextBatchRow = 0;
+		myNextSearchResultRow += HfqlExecutor.BATCH_SIZE;
+		if (myNextBatch.isEmpty()) {
+			mySearchExhausted = true;
+		}
+	}
+
+	/**
+	 * Applies the WHERE clause and evaluates the SELECT columns for a single resource. This
+	 * may be called from an evaluation thread.
+	 *
+	 * @return The row, an error row, or <code>null</code> if the resource doesn't match the WHERE clause
+	 */
+	@Nullable
+	private Row evaluateResource(IBaseResource theResource, int theSearchResultRow) {
+		try {
+			if (!myWhereClausePredicate.test(theResource)) {
+				return null;
+			}
+		} catch (Exception e) {
+			return newErrorRow(e.getMessage());
+		}
+
+		IParser parser = myParser.get();
 
 		List<Object> values = new ArrayList<>();
 		for (int columnIndex = 0; columnIndex < myStatement.getSelectClauses().size(); columnIndex++) {
@@ -145,11 +243,11 @@ public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 			HfqlDataTypeEnum columnDataType = nextColumn.getDataType();
 			List<IBase> columnValues;
 			try {
-				columnValues = myExecutionContext.evaluate(myNextResource, clause, IBase.class);
+				columnValues = myExecutionContext.evaluate(theResource, clause, IBase.class);
 			} catch (Exception e) {
 				String errorMessage =
 						"Failed to evaluate FHIRPath expression \"" + clause + "\". Error: " + e.getMessage();
-				return createAndStoreErrorRow(errorMessage);
+				return newErrorRow(errorMessage);
 			}
 			String value = null;
 			if (columnDataType == HfqlDataTypeEnum.JSON) {
@@ -159,12 +257,12 @@ public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 					IBase next = valueIter.next();
 					if (next instanceof IPrimitiveType) {
 						b.append('"');
-						String encodedValue = encodeValue(next);
+						String encodedValue = encodeValue(parser, next);
 						encodedValue = encodedValue.replace("\\", "\\\\").replace("\"", "\\\"");
 						b.append(encodedValue);
 						b.append('"');
 					} else {
-						b.append(encodeValue(next));
+						b.append(encodeValue(parser, next));
 					}
 					if (valueIter.hasNext()) {
 						b.append(", ");
@@ -175,32 +273,52 @@ public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 			} else {
 				if (!columnValues.isEmpty()) {
 					IBase firstColumnValue = columnValues.get(0);
-					value = encodeValue(firstColumnValue);
+					value = encodeValue(parser, firstColumnValue);
 				}
 			}
 
 			values.add(value);
 		}
 
-		myNextResource = null;
-		return new Row(myNextResourceSearchRow, values);
+		return new Row(theSearchResultRow, values);
+	}
+
+	@Override
+	public Row getNextRow() {
+		fetchNextRow();
+		Validate.isTrue(myNextRow != null, "No more results");
+
+		Row retVal = myNextRow;
+		myNextRow = null;
+		return retVal;
 	}
 
-	private String encodeValue(IBase firstColumnValue) {
+	private static String encodeValue(IParser theParser, IBase firstColumnValue) {
 		String value = null;
 		if (firstColumnValue instanceof IIdType) {
 			value = ((IIdType) firstColumnValue).getIdPart();
 		} else if (firstColumnValue != null) {
-			value = myParser.encodeToString(firstColumnValue);
+			value = theParser.encodeToString(firstColumnValue);
 		}
 		return value;
 	}
 
-	private Row createAndStoreErrorRow(String errorMessage) {
+	private void createErrorRow(String errorMessage) {
+		stopEvaluating();
+		myNextRow = newErrorRow(errorMessage);
+	}
+
+	private static Row newErrorRow(String errorMessage) {
+		return new Row(IHfqlExecutionResult.ROW_OFFSET_ERROR, List.of(errorMessage));
+	}
+
+	/**
+	 * Marks the result as exhausted and abandons any rows still being evaluated
+	 */
+	private void stopEvaluating() {
 		myExhausted = true;
-		myNextResource = null;
-		myErrorRow = new Row(IHfqlExecutionResult.ROW_OFFSET_ERROR, List.of(errorMessage));
-		return myErrorRow;
+		myPendingRows.forEach(t -> t.cancel(false));
+		myPendingRows.clear();
 	}
 
 	@Override
@@ -210,7 +328,7 @@ public class LocalSearchHfqlExecutionResult implements IHfqlExecutionResult {
 
 	@Override
 	public void close() {
-		// ignore
+		stopEvaluating();
 	}
 
 	@Override
@@ -0,0 +1,262 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - HFQL Driver
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.fql.executor;
+
+import ca.uhn.fhir.i18n.Msg;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Hash aggregation of the <code>COUNT(...)</code> columns of an HFQL <code>GROUP BY</code>
+ * statement. Partial counts are accumulated in a hash map keyed by the group values. When
+ * the estimated size of the map exceeds the spill threshold, its entries are sorted by key
+ * and written to a {@link HfqlSpillFile} as a run of partial counts, and the map is cleared.
+ * When all input has been processed the runs are merged, and the partial counts for each
+ * key are summed.
+ * <p>
+ * Each aggregated row contains the group key values followed by one {@link Integer} per
+ * count column. Closing the aggregator deletes any spill files.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+class SpillingCountAggregator implements Closeable {
+	private static final Logger ourLog = LoggerFactory.getLogger(SpillingCountAggregator.class);
+
+	/**
+	 * Rough overhead of a hash map entry and its count array, used when estimating memory usage
+	 */
+	private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+	private final int myKeySize;
+	private final int myCountColumnCount;
+	private final long mySpillThresholdBytes;
+	private final File mySpillDirectory;
+	private final Comparator<List<Object>> myKeyComparator;
+	private final List<HfqlSpillFile> myRuns = new ArrayList<>();
+	private final List<HfqlSpillFile.Reader> myOpenReaders = new ArrayList<>();
+	private Map<List<String>, int[]> myCounts = new HashMap<>();
+	private long myBufferedBytes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theKeySize             The number of values in each group key
+	 * @param theCountColumnCount    The number of count columns to accumulate for each key
+	 * @param theSpillThresholdBytes The approximate amount of data to hold in memory before spilling to disk
+	 * @param theSpillDirectory      The directory for spill files, or <code>null</code> to use the system
+	 *                               temporary directory
+	 */
+	SpillingCountAggregator(
+			int theKeySize, int theCountColumnCount, long theSpillThresholdBytes, @Nullable File theSpillDirectory) {
+		myKeySize = theKeySize;
+		myCountColumnCount = theCountColumnCount;
+		mySpillThresholdBytes = theSpillThresholdBytes;
+		mySpillDirectory = theSpillDirectory;
+		myKeyComparator = (a, b) -> {
+			for (int i = 0; i < myKeySize; i++) {
+				int cmp = ObjectUtils.compare((String) a.get(i), (String) b.get(i));
+				if (cmp != 0) {
+					return cmp;
+				}
+			}
+			return 0;
+		};
+	}
+
+	/**
+	 * Returns the counts for the given group key, creating them (initialized to zero) if needed.
+	 * The returned array may be incremented by the caller, but is only valid until the next call
+	 * to this method since the counts may be spilled to disk at that point.
+	 *
+	 * @param theKey The group key values. Values may be <code>null</code>.
+	 */
+	int[] getCounts(List<String> theKey) {
+		int[] retVal = myCounts.get(theKey);
+		if (retVal == null) {
+			if (myBufferedBytes > mySpillThresholdBytes) {
+				spill();
+			}
+			retVal = new int[myCountColumnCount];
+			List<String> key = new ArrayList<>(theKey);
+			myCounts.put(key, retVal);
+			myBufferedBytes += ENTRY_OVERHEAD_BYTES + HfqlSpillFile.estimateSizeInBytes(key);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the estimated size of the partial counts which are currently held in memory
+	 */
+	long getBufferedBytes() {
+		return myBufferedBytes;
+	}
+
+	/**
+	 * Returns the number of runs of partial counts that were written to disk
+	 */
+	int getSpilledRunCount() {
+		return myRuns.size();
+	}
+
+	/**
+	 * Returns the aggregated rows. If nothing was spilled to disk the rows are returned in no
+	 * particular order, otherwise they are ordered by key.
+	 */
+	Iterator<List<Object>> aggregate() {
+		if (myRuns.isEmpty()) {
+			Iterator<Map.Entry<List<String>, int[]>> entries = myCounts.entrySet().iterator();
+			return new Iterator<>() {
+				@Override
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				@Override
+				public List<Object> next() {
+					Map.Entry<List<String>, int[]> next = entries.next();
+					return toRow(next.getKey(), next.getValue());
+				}
+			};
+		}
+
+		while (myRuns.size() >= ExternalRowSorter.MAX_MERGE_FAN_IN) {
+			List<HfqlSpillFile> runsToMerge = new ArrayList<>(myRuns.subList(0, ExternalRowSorter.MAX_MERGE_FAN_IN));
+			myRuns.subList(0, ExternalRowSorter.MAX_MERGE_FAN_IN).clear();
+			SummingIterator merged = new SummingIterator(
+					new ExternalRowSorter.MergingIterator(openReaders(runsToMerge), myKeyComparator));
+			myRuns.add(HfqlSpillFile.write(mySpillDirectory, merged));
+			runsToMerge.forEach(HfqlSpillFile::close);
+		}
+
+		ourLog.info("HFQL group by merging {} spilled run(s) and {} in-memory key(s)", myRuns.size(), myCounts.size());
+		List<Iterator<List<Object>>> sources = openReaders(myRuns);
+		sources.add(sortedInMemoryRows().iterator());
+		myCounts = new HashMap<>();
+
+		return new SummingIterator(new ExternalRowSorter.MergingIterator(sources, myKeyComparator));
+	}
+
+	@Override
+	public void close() {
+		myOpenReaders.forEach(HfqlSpillFile.Reader::close);
+		myOpenReaders.clear();
+		myRuns.forEach(HfqlSpillFile::close);
+		myRuns.clear();
+		myCounts = new HashMap<>();
+	}
+
+	private List<Iterator<List<Object>>> openReaders(List<HfqlSpillFile> theRuns) {
+		List<Iterator<List<Object>>> retVal = new ArrayList<>(theRuns.size() + 1);
+		for (HfqlSpillFile next : theRuns) {
+			HfqlSpillFile.Reader reader = next.newReader();
+			myOpenReaders.add(reader);
+			retVal.add(reader);
+		}
+		return retVal;
+	}
+
+	private void spill() {
+		List<List<Object>> rows = sortedInMemoryRows();
+		myRuns.add(HfqlSpillFile.write(mySpillDirectory, rows.iterator()));
+		ourLog.debug("HFQL group by spilled run {} containing {} keys", myRuns.size(), rows.size());
+		myCounts = new HashMap<>();
+		myBufferedBytes = 0;
+	}
+
+	private List<List<Object>> sortedInMemoryRows() {
+		List<List<Object>> retVal = new ArrayList<>(myCounts.size());
+		for (Map.Entry<List<String>, int[]> next : myCounts.entrySet()) {
+			retVal.add(toRow(next.getKey(), next.getValue()));
+		}
+		retVal.sort(myKeyComparator);
+		return retVal;
+	}
+
+	private List<Object> toRow(List<String> theKey, int[] theCounts) {
+		List<Object> retVal = new ArrayList<>(myKeySize + myCountColumnCount);
+		retVal.addAll(theKey);
+		for (int next : theCounts) {
+			retVal.add(next);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Combines adjacent rows with the same key (which the merge guarantees are adjacent)
+	 * by summing their counts
+	 */
+	private class SummingIterator implements Iterator<List<Object>> {
+		private final Iterator<List<Object>> mySource;
+		private List<Object> myPending;
+
+		private SummingIterator(Iterator<List<Object>> theSource) {
+			mySource = theSource;
+			myPending = theSource.hasNext() ? theSource.next() : null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return myPending != null;
+		}
+
+		@Override
+		public List<Object> next() {
+			if (myPending == null) {
+				throw new NoSuchElementException(Msg.code(2548) + "No more rows");
+			}
+			List<Object> retVal = myPending;
+			myPending = null;
+			while (mySource.hasNext()) {
+				List<Object> next = mySource.next();
+				if (!isSameKey(retVal, next)) {
+					myPending = next;
+					break;
+				}
+				for (int i = myKeySize; i < myKeySize + myCountColumnCount; i++) {
+					retVal.set(i, (Integer) retVal.get(i) + (Integer) next.get(i));
+				}
+			}
+			return retVal;
+		}
+
+		private boolean isSameKey(List<Object> theFirst, List<Object> theSecond) {
+			for (int i = 0; i < myKeySize; i++) {
+				if (!Objects.equals(theFirst.get(i), theSecond.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
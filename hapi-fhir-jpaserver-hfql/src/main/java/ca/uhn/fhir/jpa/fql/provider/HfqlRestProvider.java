@@ -113,6 +113,7 @@ public class HfqlRestProvider {
 				String query = toStringValue(theQuery);
 				IHfqlExecutionResult outcome = getHfqlExecutor().executeInitialSearch(query, limit, theRequestDetails);
 				streamResponseCsv(theServletResponse, fetchSize, outcome, true, outcome.getStatement());
+				getHfqlExecutor().suspendResult(outcome);
 				break;
 			}
 			case HfqlConstants.PARAM_ACTION_SEARCH_CONTINUATION: {
@@ -129,6 +130,7 @@ public class HfqlRestProvider {
 				IHfqlExecutionResult outcome = myHfqlExecutor.executeContinuation(
 						statementJson, continuation, startingOffset, limit, theRequestDetails);
 				streamResponseCsv(theServletResponse, fetchSize, outcome, false, outcome.getStatement());
+				myHfqlExecutor.suspendResult(outcome);
 				break;
 			}
 			case HfqlConstants.PARAM_ACTION_INTROSPECT_TABLES: {
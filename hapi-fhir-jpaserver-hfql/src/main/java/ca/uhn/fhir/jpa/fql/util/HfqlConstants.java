@@ -40,8 +40,13 @@ public class HfqlConstants {
 	public static final String PARAM_INTROSPECT_TABLE_NAME = "introspectTableName";
 	public static final String PARAM_INTROSPECT_COLUMN_NAME = "introspectColumnName";
 	/**
-	 * This is the maximum number of results that can be sorted or grouped on
+	 * This was previously the maximum number of results that could be sorted or grouped on.
+	 *
+	 * @deprecated Since 7.4.0 this limit is no longer enforced. Sorting and grouping spill to
+	 * disk once {@link ca.uhn.fhir.jpa.fql.executor.HfqlExecutor#setSpillThresholdBytes(long)}
+	 * is exceeded.
 	 */
+	@Deprecated
 	public static final int ORDER_AND_GROUP_LIMIT = 10000;
 
 	private HfqlConstants() {}
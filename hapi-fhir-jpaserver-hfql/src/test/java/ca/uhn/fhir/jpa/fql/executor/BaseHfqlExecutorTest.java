@@ -16,6 +16,7 @@ import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Quantity;
 import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.ArgumentCaptor;
@@ -49,6 +50,11 @@ public abstract class BaseHfqlExecutorTest {
 	@Captor
 	protected ArgumentCaptor<SearchParameterMap> mySearchParameterMapCaptor;
 
+	@AfterEach
+	public void stopExecutor() {
+		myHfqlExecutor.stop();
+	}
+
 	@SuppressWarnings("unchecked")
 	protected <T extends IBaseResource> IFhirResourceDao<T> initDao(Class<T> theType) {
 		IFhirResourceDao<T> retVal = mock(IFhirResourceDao.class);
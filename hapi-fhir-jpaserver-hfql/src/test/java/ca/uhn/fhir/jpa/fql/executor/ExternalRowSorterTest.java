@@ -0,0 +1,102 @@
+package ca.uhn.fhir.jpa.fql.executor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExternalRowSorterTest {
+
+	@TempDir
+	private Path mySpillDirectory;
+
+	@Test
+	public void testSortInMemory() throws IOException {
+		try (ExternalRowSorter sorter = newSorter(Long.MAX_VALUE)) {
+			sorter.add(Arrays.asList(3, "C"));
+			sorter.add(Arrays.asList(1, "A"));
+			sorter.add(Arrays.asList(2, "B"));
+
+			List<List<Object>> sorted = readAll(sorter.sort());
+
+			assertEquals(List.of(List.of(1, "A"), List.of(2, "B"), List.of(3, "C")), sorted);
+			assertEquals(0, sorter.getSpilledRunCount());
+			assertEquals(0, countSpillFiles());
+		}
+	}
+
+	@Test
+	public void testSortWithMultipleMergePasses() throws IOException {
+		int rowCount = ExternalRowSorter.MAX_MERGE_FAN_IN * 3;
+
+		// Every row exceeds the threshold so each one is spilled to its own run
+		try (ExternalRowSorter sorter = newSorter(1)) {
+			for (int i = 0; i < rowCount; i++) {
+				// Lots of duplicate keys, with the insertion order in the second column
+				sorter.add(Arrays.asList((rowCount - i) % 7, i, i % 2 == 0 ? null : "Value " + i));
+			}
+			assertEquals(rowCount, sorter.getSpilledRunCount());
+
+			List<List<Object>> sorted = readAll(sorter.sort());
+
+			assertEquals(rowCount, sorted.size());
+			for (int i = 1; i < sorted.size(); i++) {
+				int previousKey = (Integer) sorted.get(i - 1).get(0);
+				int key = (Integer) sorted.get(i).get(0);
+				assertThat(sorted.toString(), key, greaterThanOrEqualTo(previousKey));
+				if (key == previousKey) {
+					// The sort is stable
+					assertThat((Integer) sorted.get(i).get(1), greaterThan((Integer) sorted.get(i - 1).get(1)));
+				}
+			}
+			int index = (Integer) sorted.get(0).get(1);
+			assertEquals(index % 2 == 0 ? null : "Value " + index, sorted.get(0).get(2));
+		}
+
+		assertEquals(0, countSpillFiles());
+	}
+
+	@Test
+	public void testLargeStringValues() {
+		String largeValue = "A".repeat(100_000);
+		try (ExternalRowSorter sorter = newSorter(1)) {
+			sorter.add(Arrays.asList("B", 2L));
+			sorter.add(Arrays.asList(largeValue, 1L));
+
+			List<List<Object>> sorted = readAll(sorter.sort());
+
+			assertEquals(List.of(List.of(largeValue, 1L), List.of("B", 2L)), sorted);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ExternalRowSorter newSorter(long theSpillThresholdBytes) {
+		Comparator<List<Object>> comparator = (a, b) -> ((Comparable<Object>) a.get(0)).compareTo(b.get(0));
+		return new ExternalRowSorter(comparator, theSpillThresholdBytes, mySpillDirectory.toFile());
+	}
+
+	private long countSpillFiles() throws IOException {
+		try (Stream<Path> files = Files.list(mySpillDirectory)) {
+			return files.count();
+		}
+	}
+
+	private static List<List<Object>> readAll(Iterator<List<Object>> theIterator) {
+		List<List<Object>> retVal = new ArrayList<>();
+		theIterator.forEachRemaining(retVal::add);
+		return retVal;
+	}
+}
@@ -1,6 +1,7 @@
 package ca.uhn.fhir.jpa.fql.executor;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
@@ -15,11 +16,15 @@ import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.IPagingProvider;
 import ca.uhn.fhir.rest.server.SimpleBundleProvider;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.sl.cache.Cache;
 import com.google.common.collect.Lists;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.DateType;
+import org.hl7.fhir.r4.model.HumanName;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Quantity;
@@ -27,6 +32,7 @@ import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
@@ -37,20 +43,30 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import jakarta.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static ca.uhn.fhir.jpa.fql.util.HfqlConstants.ORDER_AND_GROUP_LIMIT;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -131,6 +147,213 @@ public class HfqlExecutorTest extends BaseHfqlExecutorTest {
 	}
 
 
+	@Test
+	public void testSelect_OrderBy_SpillToDisk(@TempDir Path theSpillDirectory) throws IOException {
+
+		// Setup
+
+		myHfqlExecutor.setSpillThresholdBytes(10_000);
+		myHfqlExecutor.setSpillDirectory(theSpillDirectory.toFile());
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			// 7919 is coprime with 5000 so this visits every version exactly once, out of order
+			int version = (i * 7919) % 5000;
+			Patient patient = new Patient();
+			patient.getMeta().setVersionId(Integer.toString(version));
+			patient.addName().setFamily("PT" + version);
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(patients));
+		String statement = """
+					FROM Patient
+					SELECT
+						meta.versionId.toInteger() AS versionId,
+						name[0].family AS family
+					ORDER BY versionId DESC
+			""";
+
+		// Test
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+
+		// Verify
+		assertThat(result.getSearchId(), startsWith("hfql-"));
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertThat(files.count(), greaterThan(1L));
+		}
+
+		IHfqlExecutionResult.Row nextRow;
+		for (int i = 4999; i >= 4000; i--) {
+			assertTrue(result.hasNext());
+			nextRow = result.getNextRow();
+			assertEquals(4999 - i, nextRow.getRowOffset());
+			assertThat(nextRow.getRowValues().toString(), nextRow.getRowValues(), contains(String.valueOf(i), "PT" + i));
+		}
+
+		// Results can only be continued from where the last page ended
+		String searchId = result.getSearchId();
+		HfqlStatement resultStatement = result.getStatement();
+		InvalidRequestException e = assertThrows(InvalidRequestException.class,
+			() -> myHfqlExecutor.executeContinuation(resultStatement, searchId, 0, null, mySrd));
+		assertThat(e.getMessage(), containsString(Msg.code(2550)));
+
+		result = myHfqlExecutor.executeContinuation(resultStatement, searchId, 1000, null, mySrd);
+		for (int i = 3999; i >= 0; i--) {
+			assertTrue(result.hasNext());
+			nextRow = result.getNextRow();
+			assertEquals(4999 - i, nextRow.getRowOffset());
+			assertThat(nextRow.getRowValues().toString(), nextRow.getRowValues(), contains(String.valueOf(i), "PT" + i));
+		}
+		assertFalse(result.hasNext());
+		assertTrue(result.isClosed());
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertEquals(0, files.count());
+		}
+
+		// A continuation after the end returns an empty page, after which the ID is released
+		result = myHfqlExecutor.executeContinuation(resultStatement, searchId, 5000, null, mySrd);
+		assertFalse(result.hasNext());
+		e = assertThrows(InvalidRequestException.class,
+			() -> myHfqlExecutor.executeContinuation(resultStatement, searchId, 5000, null, mySrd));
+		assertThat(e.getMessage(), containsString(Msg.code(2549)));
+	}
+
+	@Test
+	public void testSelect_OrderBy_RetainedResultExpires() {
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		when(patientDao.search(any(), any())).thenReturn(createProviderWithSomeSimpsonsAndFlanders());
+		String statement = """
+					FROM Patient
+					SELECT name[0].family AS family
+					ORDER BY family
+			""";
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+		assertTrue(result.hasNext());
+		result.getNextRow();
+		myHfqlExecutor.suspendResult(result);
+
+		// Idle results are expired in the background, without waiting for another request
+		myHfqlExecutor.setRetainedResultIdleTimeoutMillis(1);
+		await().until(result::isClosed);
+		assertEquals(0, myHfqlExecutor.getRetainedResultCount());
+
+		String searchId = result.getSearchId();
+		HfqlStatement resultStatement = result.getStatement();
+		InvalidRequestException e = assertThrows(InvalidRequestException.class,
+			() -> myHfqlExecutor.executeContinuation(resultStatement, searchId, 1, null, mySrd));
+		assertThat(e.getMessage(), containsString(Msg.code(2549)));
+	}
+
+	@Test
+	public void testSelect_OrderBy_SuspendedResultIsSpilledToDisk(@TempDir Path theSpillDirectory) throws IOException {
+		myHfqlExecutor.setSpillDirectory(theSpillDirectory.toFile());
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		when(patientDao.search(any(), any())).thenReturn(createProviderWithSomeSimpsonsAndFlanders());
+		String statement = """
+					FROM Patient
+					SELECT name[0].given[0] AS given
+					ORDER BY given
+			""";
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertEquals(0, files.count());
+		}
+		List<Object> expected = new ArrayList<>();
+		while (result.hasNext()) {
+			expected.add(result.getNextRow().getRowValues().get(0));
+		}
+		assertThat(expected.size(), greaterThan(2));
+
+		result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+		List<Object> actual = new ArrayList<>();
+		actual.add(result.getNextRow().getRowValues().get(0));
+		actual.add(result.getNextRow().getRowValues().get(0));
+		myHfqlExecutor.suspendResult(result);
+
+		// The remaining rows are held in a single spill file until the next page is read
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertEquals(1, files.count());
+		}
+		result = myHfqlExecutor.executeContinuation(result.getStatement(), result.getSearchId(), 2, null, mySrd);
+		while (result.hasNext()) {
+			actual.add(result.getNextRow().getRowValues().get(0));
+		}
+		assertEquals(expected, actual);
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	public void testSelect_OrderBy_RetainedResultCountIsLimited() {
+		myHfqlExecutor.setMaxRetainedResults(1);
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		when(patientDao.search(any(), any())).thenAnswer(t -> createProviderWithSomeSimpsonsAndFlanders());
+		String statement = """
+					FROM Patient
+					SELECT name[0].family AS family
+					ORDER BY family
+			""";
+
+		IHfqlExecutionResult first = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+		first.getNextRow();
+		myHfqlExecutor.suspendResult(first);
+		IHfqlExecutionResult second = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+
+		// The least recently used result is discarded to make room
+		assertTrue(first.isClosed());
+		assertFalse(second.isClosed());
+		assertEquals(1, myHfqlExecutor.getRetainedResultCount());
+		InvalidRequestException e = assertThrows(InvalidRequestException.class,
+			() -> myHfqlExecutor.executeContinuation(first.getStatement(), first.getSearchId(), 1, null, mySrd));
+		assertThat(e.getMessage(), containsString(Msg.code(2549)));
+	}
+
+	@Test
+	public void testSelect_ParallelEvaluation() {
+
+		// Setup
+
+		myHfqlExecutor.setEvaluationThreadCount(4);
+		myHfqlExecutor.setEvaluationWindowSize(16);
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			Patient patient = new Patient();
+			patient.setId("Patient/PT" + i);
+			patient.setActive(i % 2 == 0);
+			patient.addName().setFamily("PT" + i);
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(patients));
+		String statement = """
+					FROM Patient
+					WHERE active = true
+					SELECT name[0].family
+					LIMIT 300
+			""";
+
+		// Test
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+
+		// Verify
+		try {
+			for (int i = 0; i < 300; i++) {
+				assertTrue(result.hasNext());
+				IHfqlExecutionResult.Row nextRow = result.getNextRow();
+				assertEquals(i * 2, nextRow.getRowOffset());
+				assertThat(nextRow.getRowValues(), contains("PT" + (i * 2)));
+			}
+			assertFalse(result.hasNext());
+		} finally {
+			myHfqlExecutor.stop();
+		}
+	}
+
 	@Test
 	public void testSelect_OrderBy_SparseValues_Date() {
 
@@ -366,7 +589,7 @@ public class HfqlExecutorTest extends BaseHfqlExecutorTest {
 	}
 
 	@Test
-	public void testFromSelectCount_TooMany() {
+	public void testFromSelectCount_ManyGroups() {
 		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
 		List<Patient> patients = new ArrayList<>();
 		for (int i = 0; i < ORDER_AND_GROUP_LIMIT + 10; i++) {
@@ -382,7 +605,48 @@ public class HfqlExecutorTest extends BaseHfqlExecutorTest {
 			""";
 
 		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
-		assertErrorMessage(result, Msg.code(2402) + "Can not group on > 10000 terms");
+		List<List<Object>> rowValues = readAllRowValues(result);
+		assertEquals(ORDER_AND_GROUP_LIMIT + 10, rowValues.size());
+		assertThat(rowValues, hasItem(Lists.newArrayList("PT" + ORDER_AND_GROUP_LIMIT, 1)));
+	}
+
+	@Test
+	public void testFromSelectCount_SpillToDisk(@TempDir Path theSpillDirectory) throws IOException {
+		myHfqlExecutor.setSpillThresholdBytes(2_000);
+		myHfqlExecutor.setSpillDirectory(theSpillDirectory.toFile());
+		IFhirResourceDao<Patient> patientDao = initDao(Patient.class);
+
+		// Each family name appears 4 times, spread out so that its partial counts end up in different spill files
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Patient patient = new Patient();
+			HumanName name = patient.addName().setFamily("PT" + (i % 500));
+			if (i % 2 == 0) {
+				name.addGiven("G");
+			}
+			patients.add(patient);
+		}
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(patients));
+		String statement = """
+					from Patient
+					select name.family, count(*), count(name.given)
+					group by name.family
+			""";
+
+		IHfqlExecutionResult result = myHfqlExecutor.executeInitialSearch(statement, null, mySrd);
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertThat(files.count(), greaterThan(1L));
+		}
+
+		List<List<Object>> rowValues = readAllRowValues(result);
+		assertEquals(500, rowValues.size());
+		for (int i = 0; i < 500; i++) {
+			int expectedGivenCount = i % 2 == 0 ? 4 : 0;
+			assertThat(rowValues, hasItem(Lists.newArrayList("PT" + i, 4, expectedGivenCount)));
+		}
+		try (Stream<Path> files = Files.list(theSpillDirectory)) {
+			assertEquals(0, files.count());
+		}
 	}
 
 	@Test
@@ -1238,4 +1502,19 @@ public class HfqlExecutorTest extends BaseHfqlExecutorTest {
 		assertErrorMessage(result, "HAPI-2429: Resource type Patient does not have a root element named 'Blah'");
 	}
 
+	@Test
+	public void testParsedExpressionCacheIsBounded() {
+		Cache<String, IFhirPath.IParsedExpression> cache = HfqlExecutor.HfqlExecutionContext.newParsedExpressionCache();
+		HfqlExecutor.HfqlExecutionContext context = new HfqlExecutor.HfqlExecutionContext(myCtx::newFhirPath, cache);
+		Patient patient = new Patient();
+		patient.addName().setFamily("Simpson");
+
+		for (int i = 0; i < HfqlExecutor.MAX_PARSED_EXPRESSION_CACHE_SIZE * 2; i++) {
+			assertEquals(2, context.evaluate(patient, "name.family | '" + i + "'", IBase.class).size());
+		}
+		cache.cleanUp();
+
+		assertThat(cache.estimatedSize(), lessThanOrEqualTo((long) HfqlExecutor.MAX_PARSED_EXPRESSION_CACHE_SIZE));
+	}
+
 }
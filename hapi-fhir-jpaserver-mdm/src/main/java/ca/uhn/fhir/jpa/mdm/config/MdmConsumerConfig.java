@@ -45,6 +45,7 @@ import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateSearcher;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.FindCandidateByEidSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.FindCandidateByExampleSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.FindCandidateByLinkSvc;
+import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmBlockingKeySvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchCriteriaBuilderSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmGoldenResourceFindingSvc;
@@ -193,6 +194,11 @@ public class MdmConsumerConfig {
 		return new MdmCandidateSearchSvc();
 	}
 
+	@Bean
+	MdmBlockingKeySvc mdmBlockingKeySvc() {
+		return new MdmBlockingKeySvc();
+	}
+
 	@Bean
 	CandidateSearcher candidateSearcher(
 			DaoRegistry theDaoRegistry, IMdmSettings theMdmSettings, MdmSearchParamSvc theMdmSearchParamSvc) {
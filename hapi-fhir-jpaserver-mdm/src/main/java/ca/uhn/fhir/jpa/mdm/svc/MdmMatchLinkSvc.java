@@ -19,11 +19,13 @@
  */
 package ca.uhn.fhir.jpa.mdm.svc;
 
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.mdm.models.FindGoldenResourceCandidatesParams;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateList;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateStrategyEnum;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MatchedGoldenResourceCandidate;
+import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmBlockingKeySvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmGoldenResourceFindingSvc;
 import ca.uhn.fhir.mdm.api.IMdmLinkSvc;
 import ca.uhn.fhir.mdm.api.IMdmSurvivorshipService;
@@ -77,6 +79,12 @@ public class MdmMatchLinkSvc {
 	@Autowired
 	private IMdmSurvivorshipService myMdmSurvivorshipService;
 
+	@Autowired
+	private MdmBlockingKeySvc myMdmBlockingKeySvc;
+
+	@Autowired
+	private FhirContext myFhirContext;
+
 	/**
 	 * Given an MDM source (consisting of any supported MDM type), find a suitable Golden Resource candidate for them,
 	 * or create one if one does not exist. Performs matching based on rules defined in mdm-rules.json.
@@ -90,7 +98,11 @@ public class MdmMatchLinkSvc {
 	public MdmTransactionContext updateMdmLinksForMdmSource(
 			IAnyResource theResource, MdmTransactionContext theMdmTransactionContext) {
 		if (MdmResourceUtil.isMdmAllowed(theResource)) {
-			return doMdmUpdate(theResource, theMdmTransactionContext);
+			MdmTransactionContext retVal = doMdmUpdate(theResource, theMdmTransactionContext);
+			if (myMdmBlockingKeySvc.isEnabled()) {
+				myMdmBlockingKeySvc.updateBlockingKeys(myFhirContext.getResourceType(theResource), theResource);
+			}
+			return retVal;
 		} else {
 			return null;
 		}
@@ -0,0 +1,260 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.mdm.svc.candidate;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.dao.ISearchBuilder;
+import ca.uhn.fhir.jpa.model.util.Murmur3SearchParamHashFunction;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.mdm.api.IMdmSettings;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
+import ca.uhn.fhir.mdm.log.Logs;
+import ca.uhn.fhir.mdm.rules.json.MdmResourceSearchParamJson;
+import ca.uhn.fhir.mdm.svc.MdmSearchParamSvc;
+import ca.uhn.fhir.mdm.util.MdmResourceUtil;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.util.SearchParameterUtil;
+import ca.uhn.fhir.util.StringUtil;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static ca.uhn.fhir.mdm.api.MdmConstants.ALL_RESOURCE_SEARCH_PARAM_TYPE;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Maintains and queries the MDM blocking key index. For every candidate search parameter group
+ * (i.e. every <code>candidateSearchParams</code> entry in the MDM rules) which applies to a source
+ * resource, the resource gets one blocking key for every combination of its normalized values for
+ * the parameters in the group. Two resources which share a key would both be found by the FHIR
+ * search that the group would otherwise produce, so candidates can be found using a single
+ * indexed query instead of one FHIR search per group.
+ *
+ * @see IMdmSettings#isBlockingKeyIndexEnabled()
+ * @since 7.4.0
+ */
+public class MdmBlockingKeySvc {
+
+	/**
+	 * The maximum number of keys produced by a single candidate search parameter group for a
+	 * single resource. This is only reached by resources with many repetitions of several of the
+	 * parameters in the group.
+	 */
+	static final int MAX_KEYS_PER_GROUP = 1000;
+
+	private static final Logger ourLog = Logs.getMdmTroubleshootingLog();
+
+	/**
+	 * Stored keys must never change, so we don't use the (replaceable) search index hash function
+	 */
+	private static final Murmur3SearchParamHashFunction ourHashFunction = new Murmur3SearchParamHashFunction();
+
+	@Autowired
+	private IMdmSettings myMdmSettings;
+
+	@Autowired
+	private MdmSearchParamSvc myMdmSearchParamSvc;
+
+	@Autowired
+	private IMdmBlockingKeyDao myMdmBlockingKeyDao;
+
+	@Autowired
+	private IIdHelperService myIdHelperService;
+
+	@Autowired
+	private InMemoryResourceMatcher myInMemoryResourceMatcher;
+
+	public boolean isEnabled() {
+		return myMdmSettings.isBlockingKeyIndexEnabled();
+	}
+
+	/**
+	 * Recomputes and stores the blocking keys for a source resource which has been stored.
+	 * Golden resources are never indexed, since they are never used as match candidates.
+	 */
+	@SuppressWarnings("unchecked")
+	public void updateBlockingKeys(String theResourceType, IAnyResource theResource) {
+		IResourcePersistentId<?> pid = myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), theResource);
+		if (pid == null) {
+			return;
+		}
+
+		Set<Long> keys = new HashSet<>();
+		if (!MdmResourceUtil.isGoldenRecord(theResource)) {
+			for (MdmResourceSearchParamJson next : getCandidateSearchParams(theResourceType)) {
+				Collection<Long> groupKeys = computeBlockingKeys(theResourceType, theResource, next);
+				if (groupKeys != null) {
+					keys.addAll(groupKeys);
+				}
+			}
+		}
+
+		myMdmBlockingKeyDao.replaceBlockingKeys(pid, keys);
+		ourLog.debug("Stored {} MDM blocking keys for {}", keys.size(), theResource.getIdElement());
+	}
+
+	/**
+	 * Computes the blocking keys that a resource has for a single candidate search parameter group.
+	 *
+	 * @return The keys (which may be empty if the resource has no values for the parameters
+	 * 		in the group), or <code>null</code> if the candidates for the resource for this group
+	 * 		can't be found using the index and a FHIR search is required instead
+	 */
+	@Nullable
+	public Collection<Long> computeBlockingKeys(
+			String theResourceType, IBaseResource theResource, MdmResourceSearchParamJson theSearchParams) {
+		List<String> paramNames = theSearchParams.getSearchParams();
+		List<List<String>> valuesPerParam = new ArrayList<>(paramNames.size());
+		for (String next : paramNames) {
+			if (!SearchParameterUtil.stripModifier(next).equals(next)) {
+				// Modifiers such as :nickname change how the values are matched
+				return null;
+			}
+			Set<String> values = new LinkedHashSet<>();
+			for (String nextValue : myMdmSearchParamSvc.getValueFromResourceForSearchParam(theResource, next)) {
+				if (!isBlank(nextValue)) {
+					values.add(StringUtil.normalizeStringForSearchIndexing(nextValue));
+				}
+			}
+			if (values.isEmpty()) {
+				// The FHIR search for this group just omits the parameter in this case, so it
+				// matches resources which have any value (or none) for it
+				return null;
+			}
+			valuesPerParam.add(new ArrayList<>(values));
+		}
+		if (valuesPerParam.isEmpty()) {
+			return null;
+		}
+
+		String groupName = theResourceType + "?" + String.join("&", paramNames);
+		List<Long> retVal = new ArrayList<>();
+		String[] hashInput = new String[paramNames.size() + 1];
+		hashInput[0] = groupName;
+		addKeys(valuesPerParam, 0, hashInput, retVal);
+		if (retVal.size() >= MAX_KEYS_PER_GROUP) {
+			ourLog.warn(
+					"Resource {} has too many values for the MDM candidate search parameters {}, using a FHIR search",
+					theResource.getIdElement(),
+					groupName);
+			return null;
+		}
+		return retVal;
+	}
+
+	private void addKeys(
+			List<List<String>> theValuesPerParam, int theIndex, String[] theHashInput, List<Long> theKeys) {
+		if (theKeys.size() >= MAX_KEYS_PER_GROUP) {
+			return;
+		}
+		if (theIndex == theValuesPerParam.size()) {
+			theKeys.add(ourHashFunction.hash(null, theHashInput));
+			return;
+		}
+		for (String next : theValuesPerParam.get(theIndex)) {
+			theHashInput[theIndex + 1] = next;
+			addKeys(theValuesPerParam, theIndex + 1, theHashInput, theKeys);
+		}
+	}
+
+	/**
+	 * Returns the source resources which have at least one of the given blocking keys, and which match
+	 * the given candidate filter criteria.
+	 *
+	 * @param theResourceType       The resource type
+	 * @param theKeys               The keys to look for
+	 * @param theFilterCriteria     The candidate filter criteria (e.g. <code>active=true</code>)
+	 * @param theRequestPartitionId The partition(s) to look in
+	 * @param theMaxResults         The maximum number of resources to look up
+	 * @return The matching resources, or <code>null</code> if there were at least <code>theMaxResults</code>
+	 * 		resources with the given keys
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public List<IBaseResource> findCandidates(
+			String theResourceType,
+			Collection<Long> theKeys,
+			List<String> theFilterCriteria,
+			RequestPartitionId theRequestPartitionId,
+			int theMaxResults) {
+		List<IResourcePersistentId> pids =
+				myMdmBlockingKeyDao.findResourcePidsByBlockingKeys(theKeys, theRequestPartitionId, theMaxResults);
+		if (pids.size() >= theMaxResults) {
+			return null;
+		}
+		if (pids.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<IBaseResource> resources = new ArrayList<>(pids.size());
+		ISearchBuilder searchBuilder = myMdmSearchParamSvc.generateSearchBuilderForType(theResourceType);
+		searchBuilder.loadResourcesByPid(pids, Collections.emptyList(), resources, false, null);
+
+		if (!theFilterCriteria.isEmpty()) {
+			String criteria = toCriteria(theResourceType, theFilterCriteria);
+			resources.removeIf(t -> !myInMemoryResourceMatcher.match(criteria, t, null, null).matched());
+		}
+
+		ourLog.debug(
+				"Found {} {} candidates using {} MDM blocking keys", resources.size(), theResourceType, theKeys.size());
+		return resources;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given candidate filter criteria can be applied to candidates
+	 * found using the index
+	 */
+	public boolean canApplyFilterCriteria(String theResourceType, List<String> theFilterCriteria) {
+		if (theFilterCriteria.isEmpty()) {
+			return true;
+		}
+		InMemoryMatchResult result =
+				myInMemoryResourceMatcher.canBeEvaluatedInMemory(toCriteria(theResourceType, theFilterCriteria));
+		return result.supported();
+	}
+
+	private List<MdmResourceSearchParamJson> getCandidateSearchParams(String theResourceType) {
+		List<MdmResourceSearchParamJson> retVal = new ArrayList<>();
+		for (MdmResourceSearchParamJson next : myMdmSettings.getMdmRules().getCandidateSearchParams()) {
+			String resourceType = next.getResourceType();
+			if (resourceType.equals(theResourceType)
+					|| resourceType.equalsIgnoreCase(ALL_RESOURCE_SEARCH_PARAM_TYPE)) {
+				retVal.add(next);
+			}
+		}
+		return retVal;
+	}
+
+	private static String toCriteria(String theResourceType, List<String> theFilterCriteria) {
+		return theResourceType + "?" + String.join("&", theFilterCriteria);
+	}
+}
@@ -38,9 +38,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateSearcher.idOrType;
@@ -63,6 +65,9 @@ public class MdmCandidateSearchSvc {
 	@Autowired
 	private CandidateSearcher myCandidateSearcher;
 
+	@Autowired
+	private MdmBlockingKeySvc myMdmBlockingKeySvc;
+
 	public MdmCandidateSearchSvc() {}
 
 	/**
@@ -90,12 +95,27 @@ public class MdmCandidateSearchSvc {
 			searchForIdsAndAddToMap(
 					theResourceType, theResource, matchedPidsToResources, filterCriteria, null, theRequestPartitionId);
 		} else {
+			boolean useBlockingKeyIndex = myMdmBlockingKeySvc.isEnabled()
+					&& myMdmBlockingKeySvc.canApplyFilterCriteria(theResourceType, filterCriteria);
+			Set<Long> blockingKeys = new HashSet<>();
+			int indexedSearchParamCount = 0;
+
 			for (MdmResourceSearchParamJson resourceSearchParam : candidateSearchParams) {
 
 				if (!isSearchParamForResource(theResourceType, resourceSearchParam)) {
 					continue;
 				}
 
+				if (useBlockingKeyIndex) {
+					Collection<Long> keys =
+							myMdmBlockingKeySvc.computeBlockingKeys(theResourceType, theResource, resourceSearchParam);
+					if (keys != null) {
+						blockingKeys.addAll(keys);
+						indexedSearchParamCount++;
+						continue;
+					}
+				}
+
 				searchForIdsAndAddToMap(
 						theResourceType,
 						theResource,
@@ -104,6 +124,16 @@ public class MdmCandidateSearchSvc {
 						resourceSearchParam,
 						theRequestPartitionId);
 			}
+
+			if (!blockingKeys.isEmpty()) {
+				findWithBlockingKeysAndAddToMap(
+						theResourceType,
+						blockingKeys,
+						indexedSearchParamCount,
+						matchedPidsToResources,
+						filterCriteria,
+						theRequestPartitionId);
+			}
 		}
 		// Obviously we don't want to consider the incoming resource as a potential candidate.
 		// Sometimes, we are running this function on a resource that has not yet been persisted,
@@ -177,6 +207,33 @@ public class MdmCandidateSearchSvc {
 		}
 	}
 
+	/*
+	 * Finds the candidates for all of the candidate search parameters which can be served by the
+	 * blocking key index using a single query. Each of these would have been a separate search
+	 * limited to the candidate search limit, so the limit for the combined query is scaled by the
+	 * number of search parameters it replaces.
+	 */
+	private void findWithBlockingKeysAndAddToMap(
+			String theResourceType,
+			Collection<Long> theBlockingKeys,
+			int theIndexedSearchParamCount,
+			Map<IResourcePersistentId, IAnyResource> theMatchedPidsToResources,
+			List<String> theFilterCriteria,
+			RequestPartitionId theRequestPartitionId) {
+		int maxResults = myMdmSettings.getCandidateSearchLimit() * theIndexedSearchParamCount;
+		List<IBaseResource> resources = myMdmBlockingKeySvc.findCandidates(
+				theResourceType, theBlockingKeys, theFilterCriteria, theRequestPartitionId, maxResults);
+		if (resources == null) {
+			throw new TooManyCandidatesException(Msg.code(2552) + "More than " + maxResults
+					+ " candidate matches found in the MDM blocking key index for " + theResourceType
+					+ ".  Aborting mdm matching. Updating the candidate search parameters is strongly recommended "
+					+ "for better performance of MDM.");
+		}
+
+		resources.forEach(resource -> theMatchedPidsToResources.put(
+				myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), resource), (IAnyResource) resource));
+	}
+
 	private List<String> buildFilterQuery(
 			List<MdmFilterSearchParamJson> theFilterSearchParams, String theResourceType) {
 		return Collections.unmodifiableList(theFilterSearchParams.stream()
@@ -1,13 +1,18 @@
 package ca.uhn.fhir.jpa.mdm.svc;
 
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
+import ca.uhn.fhir.jpa.dao.data.IMdmBlockingKeyJpaRepository;
 import ca.uhn.fhir.jpa.mdm.BaseMdmR4Test;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.TooManyCandidatesException;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.nickname.INicknameSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.nickname.NicknameInterceptor;
+import ca.uhn.fhir.mdm.interceptor.IMdmStorageInterceptor;
 import ca.uhn.fhir.mdm.rules.config.MdmSettings;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import org.hl7.fhir.instance.model.api.IAnyResource;
@@ -22,8 +27,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -36,6 +44,10 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 	MdmSettings myMdmSettings;
 	@Autowired
 	MatchUrlService myMatchUrlService;
+	@Autowired
+	IMdmBlockingKeyJpaRepository myMdmBlockingKeyJpaRepository;
+	@Autowired
+	IMdmStorageInterceptor myMdmStorageInterceptor;
 
 	@Autowired
 	INicknameSvc myNicknameSvc;
@@ -52,7 +64,10 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 	@AfterEach
 	public void resetMdmSettings() {
 		myMdmSettings.setCandidateSearchLimit(MdmSettings.DEFAULT_CANDIDATE_SEARCH_LIMIT);
+		myMdmSettings.setBlockingKeyIndexEnabled(false);
+		myStorageSettings.setExpungeEnabled(new JpaStorageSettings().isExpungeEnabled());
 		myInterceptorRegistry.unregisterInterceptor(myNicknameInterceptor);
+		myInterceptorRegistry.unregisterInterceptor(myMdmStorageInterceptor);
 	}
 
 	@Test
@@ -153,6 +168,69 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 		}
 	}
 
+	@Test
+	public void testFindCandidatesUsingBlockingKeyIndex() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+
+		Patient jane = buildJanePatient();
+		jane.setActive(true);
+		jane = createPatientAndUpdateLinks(jane);
+
+		// Excluded by the candidate filter since it isn't active
+		createPatientAndUpdateLinks(buildJanePatient());
+
+		// Never processed by MDM, so it doesn't have any blocking keys
+		createActivePatient();
+
+		// Deleted resources are never candidates
+		Patient deletedJane = buildJanePatient();
+		deletedJane.setActive(true);
+		deletedJane = createPatientAndUpdateLinks(deletedJane);
+		myPatientDao.delete(deletedJane.getIdElement().toUnqualifiedVersionless());
+
+		Patient newJane = buildJanePatient();
+		Collection<IAnyResource> result = runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertThat(result, hasSize(1));
+		assertEquals(jane.getIdElement().toUnqualifiedVersionless().getValue(), result.iterator().next().getIdElement().toUnqualifiedVersionless().getValue());
+	}
+
+	@Test
+	public void testBlockingKeysRemovedOnDeleteAndExpunge() {
+		myMdmSettings.setBlockingKeyIndexEnabled(true);
+		myStorageSettings.setExpungeEnabled(true);
+
+		Patient deletedJane = buildJanePatient();
+		deletedJane.setActive(true);
+		deletedJane = createPatientAndUpdateLinks(deletedJane);
+		JpaPid deletedPid = myIdHelperService.getPidOrThrowException(deletedJane);
+
+		Patient expungedJane = buildJanePatient();
+		expungedJane.setActive(true);
+		expungedJane = createPatientAndUpdateLinks(expungedJane);
+		JpaPid expungedPid = myIdHelperService.getPidOrThrowException(expungedJane);
+
+		assertThat(findBlockingKeys(deletedPid), not(empty()));
+		assertThat(findBlockingKeys(expungedPid), not(empty()));
+
+		// Without the MDM storage interceptor, the keys are left behind by a delete
+		myPatientDao.delete(expungedJane.getIdElement().toUnqualifiedVersionless());
+		assertThat(findBlockingKeys(expungedPid), not(empty()));
+
+		myInterceptorRegistry.registerInterceptor(myMdmStorageInterceptor);
+
+		myPatientDao.delete(deletedJane.getIdElement().toUnqualifiedVersionless());
+		assertThat(findBlockingKeys(deletedPid), empty());
+
+		ExpungeOptions expungeOptions = new ExpungeOptions();
+		expungeOptions.setExpungeDeletedResources(true);
+		myPatientDao.expunge(expungedJane.getIdElement().toUnqualifiedVersionless(), expungeOptions, null);
+		assertThat(findBlockingKeys(expungedPid), empty());
+	}
+
+	private List<Long> findBlockingKeys(JpaPid theResourcePid) {
+		return runInTransaction(() -> myMdmBlockingKeyJpaRepository.findKeyHashesByResourcePid(theResourcePid.getId()));
+	}
+
 	private Patient createActivePatient() {
 		Patient jane = buildJanePatient();
 		jane.setActive(true);
@@ -22,21 +22,20 @@ package ca.uhn.fhir.jpa.model.entity;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.util.ISearchParamHashFunction;
+import ca.uhn.fhir.jpa.model.util.Murmur3SearchParamHashFunction;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
-import ca.uhn.fhir.util.UrlUtil;
-import com.google.common.base.Charsets;
-import com.google.common.hash.HashCode;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.persistence.Column;
 import jakarta.persistence.MappedSuperclass;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.Transient;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
 
@@ -49,12 +48,7 @@ public abstract class BaseResourceIndexedSearchParam extends BaseResourceIndex {
 	/**
 	 * Don't change this without careful consideration. You will break existing hashes!
 	 */
-	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128(0);
-
-	/**
-	 * Don't make this public 'cause nobody better be able to modify it!
-	 */
-	private static final byte[] DELIMITER_BYTES = "|".getBytes(Charsets.UTF_8);
+	private static volatile ISearchParamHashFunction ourHashFunction = new Murmur3SearchParamHashFunction();
 
 	private static final long serialVersionUID = 1L;
 
@@ -184,7 +178,8 @@ public abstract class BaseResourceIndexedSearchParam extends BaseResourceIndex {
 			RequestPartitionId theRequestPartitionId,
 			String theResourceType,
 			String theParamName) {
-		return hash(thePartitionSettings, theRequestPartitionId, theResourceType, theParamName);
+		Integer partitionId = determinePartitionIdForHash(thePartitionSettings, theRequestPartitionId);
+		return ourHashFunction.hashIdentity(partitionId, theResourceType, theParamName);
 	}
 
 	public static long calculateHashIdentity(
@@ -208,8 +203,13 @@ public abstract class BaseResourceIndexedSearchParam extends BaseResourceIndex {
 	 */
 	static long hash(
 			PartitionSettings thePartitionSettings, RequestPartitionId theRequestPartitionId, String... theValues) {
-		Hasher hasher = HASH_FUNCTION.newHasher();
+		Integer partitionId = determinePartitionIdForHash(thePartitionSettings, theRequestPartitionId);
+		return ourHashFunction.hash(partitionId, theValues);
+	}
 
+	@Nullable
+	private static Integer determinePartitionIdForHash(
+			PartitionSettings thePartitionSettings, RequestPartitionId theRequestPartitionId) {
 		if (thePartitionSettings.isPartitioningEnabled()
 				&& thePartitionSettings.isIncludePartitionInSearchHashes()
 				&& theRequestPartitionId != null) {
@@ -217,25 +217,29 @@ public abstract class BaseResourceIndexedSearchParam extends BaseResourceIndex {
 				throw new InternalErrorException(Msg.code(1527)
 						+ "Can not search multiple partitions when partitions are included in search hashes");
 			}
-			Integer partitionId = theRequestPartitionId.getFirstPartitionIdOrNull();
-			if (partitionId != null) {
-				hasher.putInt(partitionId);
-			}
+			return theRequestPartitionId.getFirstPartitionIdOrNull();
 		}
+		return null;
+	}
 
-		for (String next : theValues) {
-			if (next == null) {
-				hasher.putByte((byte) 0);
-			} else {
-				next = UrlUtil.escapeUrlParam(next);
-				byte[] bytes = next.getBytes(Charsets.UTF_8);
-				hasher.putBytes(bytes);
-			}
-			hasher.putBytes(DELIMITER_BYTES);
-		}
+	/**
+	 * Returns the function used to calculate all search index hashes
+	 *
+	 * @since 7.4.0
+	 */
+	public static ISearchParamHashFunction getHashFunction() {
+		return ourHashFunction;
+	}
 
-		HashCode hashCode = hasher.hash();
-		long retVal = hashCode.asLong();
-		return retVal;
+	/**
+	 * Replaces the function used to calculate all search index hashes. The replacement
+	 * must produce exactly the same values as {@link Murmur3SearchParamHashFunction} or
+	 * existing indexes will no longer be searchable.
+	 *
+	 * @since 7.4.0
+	 */
+	public static void setHashFunction(@Nonnull ISearchParamHashFunction theHashFunction) {
+		Validate.notNull(theHashFunction, "theHashFunction must not be null");
+		ourHashFunction = theHashFunction;
 	}
 }
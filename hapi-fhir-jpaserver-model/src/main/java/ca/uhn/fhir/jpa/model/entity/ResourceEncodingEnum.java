@@ -40,6 +40,15 @@ public enum ResourceEncodingEnum {
 	 */
 	JSONC,
 
+	/**
+	 * Json Compressed using a dictionary - Compressed using Deflate with a preset dictionary
+	 * trained on previously stored resources of the same type. The ID of the dictionary is
+	 * stored at the start of the compressed contents.
+	 *
+	 * @since 7.4.0
+	 */
+	JSOND,
+
 	/**
 	 * Resource was deleted - No contents expected
 	 */
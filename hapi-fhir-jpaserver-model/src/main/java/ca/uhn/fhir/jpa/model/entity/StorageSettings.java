@@ -71,6 +71,10 @@ public class StorageSettings {
 			"http://hl7.org/fhir/StructureDefinition/*")));
 
 	public static final String DEFAULT_WEBSOCKET_CONTEXT_PATH = "/websocket";
+	/**
+	 * @since 7.4.0
+	 */
+	public static final long DEFAULT_RESOURCE_CHANGE_LISTENER_FULL_REFRESH_INTERVAL_MILLIS = 60 * 60 * 1000L;
 	/*
 	 * <p>
 	 * Note the following database documented limitations:
@@ -154,6 +158,17 @@ public class StorageSettings {
 	 */
 	private boolean myValidateResourceStatusForPackageUpload = true;
 
+	/**
+	 * @since 7.4.0
+	 */
+	private boolean myResourceChangeListenerIncrementalRefreshEnabled = false;
+
+	/**
+	 * @since 7.4.0
+	 */
+	private long myResourceChangeListenerFullRefreshIntervalMillis =
+			DEFAULT_RESOURCE_CHANGE_LISTENER_FULL_REFRESH_INTERVAL_MILLIS;
+
 	/**
 	 * If set to true, the server will prevent the creation of Subscriptions which cannot be evaluated IN-MEMORY. This can improve
 	 * overall server performance.
@@ -1343,6 +1358,63 @@ public class StorageSettings {
 		myValidateResourceStatusForPackageUpload = theValidateResourceStatusForPackageUpload;
 	}
 
+	/**
+	 * If enabled (default is <code>false</code>), resource change listener caches (which are used to keep things
+	 * like the SearchParameter registry and active Subscriptions in sync across a cluster) are refreshed
+	 * incrementally. Instead of reloading every matching resource on each refresh, only resources whose
+	 * last updated time is after the previous refresh (including deleted resources) are loaded.
+	 * A complete reload is still performed periodically, as controlled by
+	 * {@link #setResourceChangeListenerFullRefreshIntervalMillis(long)}.
+	 *
+	 * @since 7.4.0
+	 */
+	public boolean isResourceChangeListenerIncrementalRefreshEnabled() {
+		return myResourceChangeListenerIncrementalRefreshEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), resource change listener caches (which are used to keep things
+	 * like the SearchParameter registry and active Subscriptions in sync across a cluster) are refreshed
+	 * incrementally. Instead of reloading every matching resource on each refresh, only resources whose
+	 * last updated time is after the previous refresh (including deleted resources) are loaded.
+	 * A complete reload is still performed periodically, as controlled by
+	 * {@link #setResourceChangeListenerFullRefreshIntervalMillis(long)}.
+	 *
+	 * @since 7.4.0
+	 */
+	public void setResourceChangeListenerIncrementalRefreshEnabled(
+			boolean theResourceChangeListenerIncrementalRefreshEnabled) {
+		myResourceChangeListenerIncrementalRefreshEnabled = theResourceChangeListenerIncrementalRefreshEnabled;
+	}
+
+	/**
+	 * When {@link #isResourceChangeListenerIncrementalRefreshEnabled() incremental refresh} is enabled, this is the
+	 * interval at which resource change listener caches are nonetheless completely reloaded in order to reconcile
+	 * any changes the incremental refresh could have missed. Default is {@value #DEFAULT_RESOURCE_CHANGE_LISTENER_FULL_REFRESH_INTERVAL_MILLIS}ms
+	 * (one hour).
+	 *
+	 * @since 7.4.0
+	 */
+	public long getResourceChangeListenerFullRefreshIntervalMillis() {
+		return myResourceChangeListenerFullRefreshIntervalMillis;
+	}
+
+	/**
+	 * When {@link #isResourceChangeListenerIncrementalRefreshEnabled() incremental refresh} is enabled, this is the
+	 * interval at which resource change listener caches are nonetheless completely reloaded in order to reconcile
+	 * any changes the incremental refresh could have missed. Default is {@value #DEFAULT_RESOURCE_CHANGE_LISTENER_FULL_REFRESH_INTERVAL_MILLIS}ms
+	 * (one hour).
+	 *
+	 * @since 7.4.0
+	 */
+	public void setResourceChangeListenerFullRefreshIntervalMillis(
+			long theResourceChangeListenerFullRefreshIntervalMillis) {
+		Validate.isTrue(
+				theResourceChangeListenerFullRefreshIntervalMillis > 0,
+				"theResourceChangeListenerFullRefreshIntervalMillis must be greater than 0");
+		myResourceChangeListenerFullRefreshIntervalMillis = theResourceChangeListenerFullRefreshIntervalMillis;
+	}
+
 	private static void validateTreatBaseUrlsAsLocal(String theUrl) {
 		Validate.notBlank(theUrl, "Base URL must not be null or empty");
 
@@ -0,0 +1,58 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.util;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Computes the 64-bit hashes stored in the <code>HASH_IDENTITY</code>, <code>HASH_SYS</code>,
+ * <code>HASH_VALUE</code> (etc.) columns of the search index tables.
+ * <p>
+ * Implementations must produce exactly the same value as the original algorithm: a
+ * Murmur3 128-bit (seed 0) hash over the optional partition ID (as a little-endian int)
+ * followed by each value, URL-escaped and UTF-8 encoded (or a single zero byte if the value
+ * is <code>null</code>), each followed by a <code>|</code> delimiter. Any deviation will
+ * break searches against data that has already been indexed.
+ * </p>
+ *
+ * @see Murmur3SearchParamHashFunction
+ * @see ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam#setHashFunction(ISearchParamHashFunction)
+ * @since 7.4.0
+ */
+public interface ISearchParamHashFunction {
+
+	/**
+	 * Hashes a set of values
+	 *
+	 * @param thePartitionId The partition ID to include in the hash, or <code>null</code> if the
+	 *                       partition should not be included
+	 * @param theValues      The values to hash. Individual values may be <code>null</code>.
+	 */
+	long hash(@Nullable Integer thePartitionId, String... theValues);
+
+	/**
+	 * Computes the <code>HASH_IDENTITY</code> value for a resource type and search parameter name.
+	 * Since there are only a small number of distinct combinations, implementations may
+	 * memoize the result. The default implementation simply delegates to {@link #hash(Integer, String...)}.
+	 */
+	default long hashIdentity(@Nullable Integer thePartitionId, String theResourceType, String theParamName) {
+		return hash(thePartitionId, theResourceType, theParamName);
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.model.util;
+
+import ca.uhn.fhir.i18n.Msg;
+import jakarta.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default {@link ISearchParamHashFunction}. This produces bit-for-bit the same values as
+ * the original Guava <code>Hashing.murmur3_128(0)</code> based implementation, but:
+ * <ul>
+ *    <li>
+ *       Uses a reusable per-thread hasher instead of creating a new Guava hasher
+ *       (and its backing buffer) for every hash
+ *    </li>
+ *    <li>
+ *       URL-escapes and UTF-8 encodes the values directly into the hasher, without
+ *       creating intermediate escaped strings or byte arrays
+ *    </li>
+ *    <li>
+ *       Memoizes <code>HASH_IDENTITY</code> values, which only depend on the partition,
+ *       the resource type and the search parameter name
+ *    </li>
+ * </ul>
+ *
+ * @since 7.4.0
+ */
+public class Murmur3SearchParamHashFunction implements ISearchParamHashFunction {
+
+	/**
+	 * Upper bound on the number of memoized identity hashes. There is normally one entry
+	 * per resource type / search parameter / partition combination so this should never be
+	 * reached, but we don't want a pathological client to be able to grow it indefinitely.
+	 */
+	static final int MAX_IDENTITY_CACHE_SIZE = 100_000;
+
+	private static final ThreadLocal<Murmur3Hasher> ourHasher = ThreadLocal.withInitial(Murmur3Hasher::new);
+	private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	private static final byte DELIMITER = '|';
+
+	private final ConcurrentHashMap<IdentityKey, Long> myIdentityHashes = new ConcurrentHashMap<>();
+
+	@Override
+	public long hash(@Nullable Integer thePartitionId, String... theValues) {
+		Murmur3Hasher hasher = ourHasher.get();
+		hasher.reset();
+
+		if (thePartitionId != null) {
+			hasher.putInt(thePartitionId);
+		}
+
+		for (String next : theValues) {
+			putValue(hasher, next);
+		}
+
+		return hasher.hashAsLong();
+	}
+
+	@Override
+	public long hashIdentity(@Nullable Integer thePartitionId, String theResourceType, String theParamName) {
+		IdentityKey key = new IdentityKey(thePartitionId, theResourceType, theParamName);
+		Long retVal = myIdentityHashes.get(key);
+		if (retVal == null) {
+			retVal = hash(thePartitionId, theResourceType, theParamName);
+			if (myIdentityHashes.size() < MAX_IDENTITY_CACHE_SIZE) {
+				myIdentityHashes.put(key, retVal);
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Discards all memoized identity hashes
+	 */
+	public void clearCache() {
+		myIdentityHashes.clear();
+	}
+
+	int getIdentityCacheSize() {
+		return myIdentityHashes.size();
+	}
+
+	/**
+	 * Feeds a single value to the hasher, applying the same escaping as
+	 * {@link ca.uhn.fhir.util.UrlUtil#escapeUrlParam(String)} (which leaves
+	 * <code>a-z A-Z 0-9 - _ . *</code> untouched and percent-encodes the UTF-8 bytes
+	 * of everything else, using <code>%20</code> for spaces). Because the escaped form
+	 * is always plain ASCII, each escaped character is exactly one UTF-8 byte.
+	 */
+	private static void putValue(Murmur3Hasher theHasher, String theValue) {
+		if (theValue == null) {
+			theHasher.putByte((byte) 0);
+			theHasher.putByte(DELIMITER);
+			return;
+		}
+
+		int length = theValue.length();
+		for (int i = 0; i < length; i++) {
+			char c = theValue.charAt(i);
+			if (isSafe(c)) {
+				theHasher.putByte((byte) c);
+			} else if (c < 0x80) {
+				putPercentEncoded(theHasher, c);
+			} else if (c < 0x800) {
+				putPercentEncoded(theHasher, 0xC0 | (c >>> 6));
+				putPercentEncoded(theHasher, 0x80 | (c & 0x3F));
+			} else if (!Character.isSurrogate(c)) {
+				putPercentEncoded(theHasher, 0xE0 | (c >>> 12));
+				putPercentEncoded(theHasher, 0x80 | ((c >>> 6) & 0x3F));
+				putPercentEncoded(theHasher, 0x80 | (c & 0x3F));
+			} else {
+				char low = i + 1 < length ? theValue.charAt(i + 1) : 0;
+				if (!Character.isHighSurrogate(c) || !Character.isLowSurrogate(low)) {
+					// Same failure the escaper would report
+					throw new IllegalArgumentException(
+							Msg.code(2558) + "Unpaired surrogate at index " + i + " in value: " + theValue);
+				}
+				int codePoint = Character.toCodePoint(c, low);
+				putPercentEncoded(theHasher, 0xF0 | (codePoint >>> 18));
+				putPercentEncoded(theHasher, 0x80 | ((codePoint >>> 12) & 0x3F));
+				putPercentEncoded(theHasher, 0x80 | ((codePoint >>> 6) & 0x3F));
+				putPercentEncoded(theHasher, 0x80 | (codePoint & 0x3F));
+				i++;
+			}
+		}
+
+		theHasher.putByte(DELIMITER);
+	}
+
+	private static boolean isSafe(char theChar) {
+		return (theChar >= 'a' && theChar <= 'z')
+				|| (theChar >= 'A' && theChar <= 'Z')
+				|| (theChar >= '0' && theChar <= '9')
+				|| theChar == '-'
+				|| theChar == '_'
+				|| theChar == '.'
+				|| theChar == '*';
+	}
+
+	private static void putPercentEncoded(Murmur3Hasher theHasher, int theByte) {
+		theHasher.putByte((byte) '%');
+		theHasher.putByte((byte) UPPER_HEX_DIGITS[(theByte >>> 4) & 0xF]);
+		theHasher.putByte((byte) UPPER_HEX_DIGITS[theByte & 0xF]);
+	}
+
+	private static final class IdentityKey {
+		private final Integer myPartitionId;
+		private final String myResourceType;
+		private final String myParamName;
+		private final int myHashCode;
+
+		private IdentityKey(Integer thePartitionId, String theResourceType, String theParamName) {
+			myPartitionId = thePartitionId;
+			myResourceType = theResourceType;
+			myParamName = theParamName;
+			myHashCode = Objects.hash(thePartitionId, theResourceType, theParamName);
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			if (this == theO) {
+				return true;
+			}
+			if (!(theO instanceof IdentityKey)) {
+				return false;
+			}
+			IdentityKey that = (IdentityKey) theO;
+			return myHashCode == that.myHashCode
+					&& Objects.equals(myPartitionId, that.myPartitionId)
+					&& Objects.equals(myResourceType, that.myResourceType)
+					&& Objects.equals(myParamName, that.myParamName);
+		}
+
+		@Override
+		public int hashCode() {
+			return myHashCode;
+		}
+	}
+
+	/**
+	 * Streaming MurmurHash3 x64 128-bit hasher with seed 0, equivalent to Guava's
+	 * <code>Hashing.murmur3_128(0)</code> but resettable so that a single instance can
+	 * be reused. Only the low 64 bits are ever needed, which matches
+	 * <code>HashCode#asLong()</code>.
+	 */
+	static final class Murmur3Hasher {
+		private static final long C1 = 0x87c37b91114253d5L;
+		private static final long C2 = 0x4cf5ad432745937fL;
+
+		private long myH1;
+		private long myH2;
+		private long myK1;
+		private long myK2;
+		private int myBufferedBytes;
+		private long myLength;
+
+		void reset() {
+			myH1 = 0;
+			myH2 = 0;
+			myK1 = 0;
+			myK2 = 0;
+			myBufferedBytes = 0;
+			myLength = 0;
+		}
+
+		void putInt(int theValue) {
+			putByte((byte) theValue);
+			putByte((byte) (theValue >>> 8));
+			putByte((byte) (theValue >>> 16));
+			putByte((byte) (theValue >>> 24));
+		}
+
+		void putByte(byte theByte) {
+			long value = theByte & 0xFFL;
+			if (myBufferedBytes < 8) {
+				myK1 |= value << (myBufferedBytes * 8);
+			} else {
+				myK2 |= value << ((myBufferedBytes - 8) * 8);
+			}
+			myBufferedBytes++;
+			if (myBufferedBytes == 16) {
+				bmix64(myK1, myK2);
+				myLength += 16;
+				myK1 = 0;
+				myK2 = 0;
+				myBufferedBytes = 0;
+			}
+		}
+
+		long hashAsLong() {
+			long h1 = myH1;
+			long h2 = myH2;
+			long length = myLength + myBufferedBytes;
+			if (myBufferedBytes > 0) {
+				h1 ^= mixK1(myK1);
+				h2 ^= mixK2(myK2);
+			}
+
+			h1 ^= length;
+			h2 ^= length;
+			h1 += h2;
+			h2 += h1;
+			h1 = fmix64(h1);
+			h2 = fmix64(h2);
+			h1 += h2;
+			return h1;
+		}
+
+		private void bmix64(long theK1, long theK2) {
+			myH1 ^= mixK1(theK1);
+			myH1 = Long.rotateLeft(myH1, 27);
+			myH1 += myH2;
+			myH1 = myH1 * 5 + 0x52dce729;
+
+			myH2 ^= mixK2(theK2);
+			myH2 = Long.rotateLeft(myH2, 31);
+			myH2 += myH1;
+			myH2 = myH2 * 5 + 0x38495ab5;
+		}
+
+		private static long fmix64(long theK) {
+			long k = theK;
+			k ^= k >>> 33;
+			k *= 0xff51afd7ed558ccdL;
+			k ^= k >>> 33;
+			k *= 0xc4ceb9fe1a85ec53L;
+			k ^= k >>> 33;
+			return k;
+		}
+
+		private static long mixK1(long theK1) {
+			long k1 = theK1 * C1;
+			k1 = Long.rotateLeft(k1, 31);
+			k1 *= C2;
+			return k1;
+		}
+
+		private static long mixK2(long theK2) {
+			long k2 = theK2 * C2;
+			k2 = Long.rotateLeft(k2, 33);
+			k2 *= C1;
+			return k2;
+		}
+	}
+}
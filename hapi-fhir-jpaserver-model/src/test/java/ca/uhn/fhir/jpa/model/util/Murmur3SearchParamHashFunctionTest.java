@@ -0,0 +1,126 @@
+package ca.uhn.fhir.jpa.model.util;
+
+import ca.uhn.fhir.util.UrlUtil;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class Murmur3SearchParamHashFunctionTest {
+
+	private final Murmur3SearchParamHashFunction mySvc = new Murmur3SearchParamHashFunction();
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"",
+		"a",
+		"Patient",
+		"http://loinc.org",
+		"exactly16bytes!!",
+		"value with spaces & ampersands + pluses",
+		"a-b_c.d*e~f'g(h)",
+		"Élève naïve",
+		"東京都",
+		"emoji 😀 here",
+		"%20 already escaped"
+	})
+	public void testMatchesLegacyAlgorithm(String theValue) {
+		assertEquals(legacyHash(null, theValue), mySvc.hash(null, theValue));
+		assertEquals(legacyHash(null, "Observation", "code", theValue), mySvc.hash(null, "Observation", "code", theValue));
+		assertEquals(legacyHash(3, "Observation", "code", theValue), mySvc.hash(3, "Observation", "code", theValue));
+	}
+
+	@Test
+	public void testMatchesLegacyAlgorithm_NullValues() {
+		assertEquals(legacyHash(null, (String) null), mySvc.hash(null, (String) null));
+		assertEquals(legacyHash(null, "Patient", null, "foo"), mySvc.hash(null, "Patient", null, "foo"));
+		assertEquals(legacyHash(-1, null, null), mySvc.hash(-1, null, null));
+		assertEquals(legacyHash(null), mySvc.hash(null));
+	}
+
+	@Test
+	public void testMatchesLegacyAlgorithm_Random() {
+		Random random = new Random(0);
+		for (int i = 0; i < 5000; i++) {
+			String[] values = new String[random.nextInt(5)];
+			for (int j = 0; j < values.length; j++) {
+				values[j] = random.nextInt(10) == 0 ? null : randomString(random);
+			}
+			Integer partitionId = random.nextBoolean() ? null : random.nextInt();
+			assertEquals(legacyHash(partitionId, values), mySvc.hash(partitionId, values));
+		}
+	}
+
+	@Test
+	public void testHashIdentity() {
+		long expected = legacyHash(null, "Patient", "name");
+		assertEquals(expected, mySvc.hashIdentity(null, "Patient", "name"));
+		assertEquals(expected, mySvc.hashIdentity(null, "Patient", "name"));
+		assertEquals(1, mySvc.getIdentityCacheSize());
+
+		assertEquals(legacyHash(1, "Patient", "name"), mySvc.hashIdentity(1, "Patient", "name"));
+		assertEquals(2, mySvc.getIdentityCacheSize());
+
+		mySvc.clearCache();
+		assertEquals(0, mySvc.getIdentityCacheSize());
+	}
+
+	@Test
+	public void testKnownValue() {
+		// Same expectation as ResourceIndexedSearchParamTokenTest
+		assertEquals(-8558989679010582575L, mySvc.hash(null, "Patient", "NAME", "SYSTEM"));
+	}
+
+	@Test
+	public void testUnpairedSurrogate() {
+		assertThrows(IllegalArgumentException.class, () -> mySvc.hash(null, "a\uD800b"));
+	}
+
+	private static String randomString(Random theRandom) {
+		StringBuilder b = new StringBuilder();
+		int length = theRandom.nextInt(40);
+		for (int i = 0; i < length; i++) {
+			switch (theRandom.nextInt(4)) {
+				case 0:
+				case 1:
+					b.append((char) (32 + theRandom.nextInt(95)));
+					break;
+				case 2:
+					b.append((char) (0x80 + theRandom.nextInt(0x800 - 0x80)));
+					break;
+				default:
+					int codePoint = 0x800 + theRandom.nextInt(0x10FFFF - 0x800);
+					if (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE) {
+						b.appendCodePoint(codePoint);
+					}
+			}
+		}
+		return b.toString();
+	}
+
+	/**
+	 * The original Guava based implementation from BaseResourceIndexedSearchParam
+	 */
+	private static long legacyHash(Integer thePartitionId, String... theValues) {
+		Hasher hasher = Hashing.murmur3_128(0).newHasher();
+		if (thePartitionId != null) {
+			hasher.putInt(thePartitionId);
+		}
+		for (String next : theValues) {
+			if (next == null) {
+				hasher.putByte((byte) 0);
+			} else {
+				hasher.putBytes(UrlUtil.escapeUrlParam(next).getBytes(StandardCharsets.UTF_8));
+			}
+			hasher.putBytes("|".getBytes(StandardCharsets.UTF_8));
+		}
+		return hasher.hash().asLong();
+	}
+}
@@ -22,8 +22,10 @@ package ca.uhn.fhir.jpa.cache;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -40,5 +42,26 @@ public interface IResourceVersionSvc {
 		return getVersionMap(RequestPartitionId.allPartitions(), theResourceName, theSearchParamMap);
 	}
 
+	/**
+	 * Returns the resources of the given type that have been created, updated or deleted at or after
+	 * <code>theSince</code>, along with the subset of those that currently match <code>theSearchParamMap</code>.
+	 * This is used to refresh a {@link IResourceChangeListenerCache} incrementally.
+	 *
+	 * @param theMaxChanges If more than this many resources have changed, <code>null</code> is returned and the
+	 *                      caller should fall back to {@link #getVersionMap(RequestPartitionId, String, SearchParameterMap)}
+	 * @return The changes, or <code>null</code> if they can not be determined incrementally. The default
+	 * implementation always returns <code>null</code>.
+	 * @since 7.4.0
+	 */
+	@Nullable
+	default ResourceVersionChanges getVersionChangesSince(
+			RequestPartitionId theRequestPartitionId,
+			String theResourceName,
+			SearchParameterMap theSearchParamMap,
+			Date theSince,
+			int theMaxChanges) {
+		return null;
+	}
+
 	ResourcePersistentIdMap getLatestVersionIdsForResourceIds(RequestPartitionId thePartition, List<IIdType> theIds);
 }
@@ -38,6 +38,7 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.Date;
 
 @Component
 @Scope("prototype")
@@ -61,6 +62,8 @@ public class ResourceChangeListenerCache implements IResourceChangeListenerCache
 
 	private boolean myInitialized = false;
 	private Instant myNextRefreshTime = Instant.MIN;
+	private Date myIncrementalRefreshHighWaterMark;
+	private Instant myNextFullRefreshTime = Instant.MIN;
 
 	public ResourceChangeListenerCache(
 			String theResourceName,
@@ -190,6 +193,29 @@ public class ResourceChangeListenerCache implements IResourceChangeListenerCache
 		return myResourceChangeListener;
 	}
 
+	/**
+	 * The time of the last refresh. Resources updated after this time (less a safety margin) are loaded
+	 * by the next incremental refresh. This is <code>null</code> if the cache has never been fully refreshed.
+	 */
+	public Date getIncrementalRefreshHighWaterMark() {
+		return myIncrementalRefreshHighWaterMark;
+	}
+
+	public void setIncrementalRefreshHighWaterMark(Date theIncrementalRefreshHighWaterMark) {
+		myIncrementalRefreshHighWaterMark = theIncrementalRefreshHighWaterMark;
+	}
+
+	/**
+	 * Is it time to reload the complete set of matching resources, instead of only the changed ones?
+	 */
+	public boolean isFullRefreshDue() {
+		return myIncrementalRefreshHighWaterMark == null || !myNextFullRefreshTime.isAfter(now());
+	}
+
+	public void scheduleNextFullRefresh(long theFullRefreshIntervalMs) {
+		myNextFullRefreshTime = now().plus(Duration.ofMillis(theFullRefreshIntervalMs));
+	}
+
 	/**
 	 * @param theTime has format like "12:34:56" i.e. HH:MM:SS
 	 */
@@ -213,6 +239,7 @@ public class ResourceChangeListenerCache implements IResourceChangeListenerCache
 	public void clearForUnitTest() {
 		requestRefresh();
 		myResourceVersionCache.clear();
+		myIncrementalRefreshHighWaterMark = null;
 	}
 
 	@Override
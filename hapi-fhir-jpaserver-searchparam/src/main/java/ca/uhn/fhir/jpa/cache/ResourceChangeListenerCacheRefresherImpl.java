@@ -19,12 +19,15 @@
  */
 package ca.uhn.fhir.jpa.cache;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.model.sched.HapiJob;
 import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
 import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
 import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nullable;
 import jakarta.transaction.Transactional;
 import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -38,6 +41,7 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
@@ -49,6 +53,10 @@ import java.util.List;
  * Every time a chair passes the bottom it checks to see if it's time to refresh that seat.  If so,
  * the Ferris Wheel stops, removes the riders, and loads a fresh cache for that chair, and calls the listener
  * if any entries in the new cache are different from the last time that cache was loaded.
+ *
+ * If {@link StorageSettings#isResourceChangeListenerIncrementalRefreshEnabled() incremental refresh} is enabled,
+ * only the resources that have been updated (or deleted) since the previous refresh of a chair are loaded, and the
+ * complete cache is only reloaded at {@link StorageSettings#getResourceChangeListenerFullRefreshIntervalMillis()}.
  */
 @Service
 public class ResourceChangeListenerCacheRefresherImpl
@@ -60,12 +68,27 @@ public class ResourceChangeListenerCacheRefresherImpl
 	 */
 	static final long LOCAL_REFRESH_INTERVAL_MS = 10 * DateUtils.MILLIS_PER_SECOND;
 
+	/**
+	 * Incremental refreshes look back this far before the previous refresh. Resource update times are assigned
+	 * before the transaction commits (and potentially on another server in the cluster), so a resource can become
+	 * visible with an update time that is slightly earlier than the previous refresh.
+	 */
+	static final long INCREMENTAL_REFRESH_LOOKBACK_MS = DateUtils.MILLIS_PER_MINUTE;
+
+	/**
+	 * If more than this many resources changed since the previous refresh, a full refresh is performed instead
+	 */
+	static final int INCREMENTAL_REFRESH_MAX_CHANGES = 1000;
+
 	@Autowired
 	private IResourceVersionSvc myResourceVersionSvc;
 
 	@Autowired
 	private ResourceChangeListenerRegistryImpl myResourceChangeListenerRegistry;
 
+	@Autowired(required = false)
+	private StorageSettings myStorageSettings;
+
 	private boolean myStopping = false;
 
 	@Override
@@ -119,6 +142,11 @@ public class ResourceChangeListenerCacheRefresherImpl
 		myResourceVersionSvc = theResourceVersionSvc;
 	}
 
+	@VisibleForTesting
+	public void setStorageSettings(StorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
 	@EventListener(ContextRefreshedEvent.class)
 	public void start() {
 		myStopping = false;
@@ -148,12 +176,61 @@ public class ResourceChangeListenerCacheRefresherImpl
 			ourLog.warn("Requesting cache refresh for unregistered listener {}.  Aborting.", theCache);
 			return retVal;
 		}
+		ResourceChangeListenerCache cache = (ResourceChangeListenerCache) theCache;
+		if (isIncrementalRefreshEnabled() && cache.isInitialized() && !cache.isFullRefreshDue()) {
+			ResourceChangeResult incrementalResult = refreshCacheIncrementallyAndNotifyListener(cache);
+			if (incrementalResult != null) {
+				return retVal.plus(incrementalResult);
+			}
+		}
+
+		// Capture this before loading so that anything updated while we load is picked up next time
+		Date highWaterMark = new Date();
+
 		SearchParameterMap searchParamMap = theCache.getSearchParameterMap();
 		ResourceVersionMap newResourceVersionMap =
 				myResourceVersionSvc.getVersionMap(theCache.getResourceName(), searchParamMap);
 
 		retVal = retVal.plus(notifyListener(theCache, newResourceVersionMap));
 
+		if (isIncrementalRefreshEnabled()) {
+			cache.setIncrementalRefreshHighWaterMark(highWaterMark);
+			cache.scheduleNextFullRefresh(myStorageSettings.getResourceChangeListenerFullRefreshIntervalMillis());
+		}
+
+		return retVal;
+	}
+
+	private boolean isIncrementalRefreshEnabled() {
+		return myStorageSettings != null && myStorageSettings.isResourceChangeListenerIncrementalRefreshEnabled();
+	}
+
+	/**
+	 * Loads only the resources that changed since the previous refresh and notifies the listener of them
+	 *
+	 * @return The changes, or <code>null</code> if the changes could not be loaded incrementally and a full
+	 * refresh is required
+	 */
+	@Nullable
+	private ResourceChangeResult refreshCacheIncrementallyAndNotifyListener(ResourceChangeListenerCache theCache) {
+		Date highWaterMark = new Date();
+		Date since =
+				new Date(theCache.getIncrementalRefreshHighWaterMark().getTime() - INCREMENTAL_REFRESH_LOOKBACK_MS);
+
+		ResourceVersionChanges changes = myResourceVersionSvc.getVersionChangesSince(
+				RequestPartitionId.allPartitions(),
+				theCache.getResourceName(),
+				theCache.getSearchParameterMap(),
+				since,
+				INCREMENTAL_REFRESH_MAX_CHANGES);
+		if (changes == null) {
+			ourLog.debug("Unable to refresh {} incrementally, performing a full refresh", theCache);
+			return null;
+		}
+
+		ResourceChangeResult retVal = applyChangesAndNotifyListener(
+				theCache.getResourceChangeListener(), theCache.getResourceVersionCache(), changes);
+		theCache.setIncrementalRefreshHighWaterMark(highWaterMark);
 		return retVal;
 	}
 
@@ -194,6 +271,37 @@ public class ResourceChangeListenerCacheRefresherImpl
 		});
 		deletedIds.forEach(theOldResourceVersionCache::removeResourceId);
 
+		return putNewVersionsAndNotifyListener(
+				theListener, theOldResourceVersionCache, theNewResourceVersionMap, deletedIds);
+	}
+
+	/**
+	 * Like {@link #compareLastVersionMapToNewVersionMapAndNotifyListenerOfChanges(IResourceChangeListener, ResourceVersionCache, ResourceVersionMap)}
+	 * but only considers the resources that have changed. A changed resource that is in the cache but no longer
+	 * matches (either because it was deleted or because it was updated and no longer matches the search parameters)
+	 * is reported as deleted.
+	 */
+	private ResourceChangeResult applyChangesAndNotifyListener(
+			IResourceChangeListener theListener,
+			ResourceVersionCache theOldResourceVersionCache,
+			ResourceVersionChanges theChanges) {
+		ResourceVersionMap matchingVersionMap = theChanges.getMatchingVersionMap();
+
+		List<IIdType> deletedIds = new ArrayList<>();
+		for (IIdType id : theChanges.getChangedIds()) {
+			if (!matchingVersionMap.containsKey(id) && theOldResourceVersionCache.removeResourceId(id) != null) {
+				deletedIds.add(id);
+			}
+		}
+
+		return putNewVersionsAndNotifyListener(theListener, theOldResourceVersionCache, matchingVersionMap, deletedIds);
+	}
+
+	private ResourceChangeResult putNewVersionsAndNotifyListener(
+			IResourceChangeListener theListener,
+			ResourceVersionCache theOldResourceVersionCache,
+			ResourceVersionMap theNewResourceVersionMap,
+			List<IIdType> theDeletedIds) {
 		List<IIdType> createdIds = new ArrayList<>();
 		List<IIdType> updatedIds = new ArrayList<>();
 
@@ -208,7 +316,7 @@ public class ResourceChangeListenerCacheRefresherImpl
 		}
 
 		IResourceChangeEvent resourceChangeEvent =
-				ResourceChangeEvent.fromCreatedUpdatedDeletedResourceIds(createdIds, updatedIds, deletedIds);
+				ResourceChangeEvent.fromCreatedUpdatedDeletedResourceIds(createdIds, updatedIds, theDeletedIds);
 		if (!resourceChangeEvent.isEmpty()) {
 			theListener.handleChange(resourceChangeEvent);
 		}
@@ -0,0 +1,66 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA - Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.cache;
+
+import ca.uhn.fhir.model.primitive.IdDt;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This immutable object holds the resources of a given type that have changed since a given point in time. It is
+ * used by the {@link IResourceChangeListenerCacheRefresher} to refresh a cache incrementally instead of reloading
+ * the complete {@link ResourceVersionMap}.
+ *
+ * @since 7.4.0
+ */
+public class ResourceVersionChanges {
+	private final Set<IIdType> myChangedIds = new HashSet<>();
+	private final ResourceVersionMap myMatchingVersionMap;
+
+	/**
+	 * @param theChangedIds         The IDs of every resource of the type that was created, updated or deleted
+	 *                              in the window, whether or not it matches the cache's search parameters
+	 * @param theMatchingVersionMap The subset of the changed resources that currently exist and match the cache's
+	 *                              search parameters, along with their current version
+	 */
+	public ResourceVersionChanges(Collection<IIdType> theChangedIds, ResourceVersionMap theMatchingVersionMap) {
+		theChangedIds.forEach(id -> myChangedIds.add(new IdDt(id.toUnqualifiedVersionless())));
+		myMatchingVersionMap = theMatchingVersionMap;
+	}
+
+	/**
+	 * Versionless IDs of every resource that changed, including deleted resources and resources that no
+	 * longer match the search parameters of the cache
+	 */
+	public Set<IIdType> getChangedIds() {
+		return Collections.unmodifiableSet(myChangedIds);
+	}
+
+	/**
+	 * Changed resources that currently match the search parameters of the cache
+	 */
+	public ResourceVersionMap getMatchingVersionMap() {
+		return myMatchingVersionMap;
+	}
+}
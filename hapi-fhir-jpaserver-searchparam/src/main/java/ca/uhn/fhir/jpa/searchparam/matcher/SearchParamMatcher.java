@@ -24,6 +24,7 @@ import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
+import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -43,6 +44,20 @@ public class SearchParamMatcher {
 		return myInMemoryResourceMatcher.match(theCriteria, theResource, null, theRequest);
 	}
 
+	/**
+	 * @param theIndexedSearchParams If the search params have already been extracted for the given resource
+	 *                               they can be passed in, otherwise only the params relevant to the criteria
+	 *                               will be extracted
+	 * @see InMemoryResourceMatcher#match(String, IBaseResource, ResourceIndexedSearchParams, RequestDetails)
+	 */
+	public InMemoryMatchResult match(
+			String theCriteria,
+			IBaseResource theResource,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams,
+			RequestDetails theRequest) {
+		return myInMemoryResourceMatcher.match(theCriteria, theResource, theIndexedSearchParams, theRequest);
+	}
+
 	public InMemoryMatchResult match(SearchParameterMap theSearchParameterMap, IBaseResource theResource) {
 		if (theSearchParameterMap.isEmpty()) {
 			return InMemoryMatchResult.successfulMatch();
@@ -1,11 +1,16 @@
 package ca.uhn.fhir.jpa.cache;
 
 import ca.uhn.fhir.jpa.cache.config.RegisteredResourceListenerFactoryConfig;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.model.sched.ISchedulerService;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.primitive.IdDt;
 import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
@@ -14,10 +19,13 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.Collections;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -49,6 +57,11 @@ class ResourceChangeListenerCacheRefresherImplTest {
 		}
 	}
 
+	@AfterEach
+	public void after() {
+		myResourceChangeListenerCacheRefresher.setStorageSettings(null);
+	}
+
 	@Test
 	public void testNotifyListenersEmptyEmptyNotInitialized() {
 		IResourceChangeListener listener = mock(IResourceChangeListener.class);
@@ -83,4 +96,65 @@ class ResourceChangeListenerCacheRefresherImplTest {
 		verify(myResourceVersionSvc, times(0)).getVersionMap(any(), any());
 	}
 
+	@Test
+	public void testIncrementalRefresh() {
+		StorageSettings storageSettings = new StorageSettings();
+		storageSettings.setResourceChangeListenerIncrementalRefreshEnabled(true);
+		myResourceChangeListenerCacheRefresher.setStorageSettings(storageSettings);
+		when(myResourceChangeListenerRegistry.contains(any())).thenReturn(true);
+
+		IResourceChangeListener listener = mock(IResourceChangeListener.class);
+		ResourceChangeListenerCache cache = new ResourceChangeListenerCache(PATIENT_RESOURCE_NAME, listener, ourMap, TEST_REFRESH_INTERVAL_MS);
+
+		// The first refresh is always a full one
+		when(myResourceVersionSvc.getVersionMap(any(), any())).thenReturn(ResourceVersionMap.fromIdsWithVersions(List.of(
+			new IdDt("Patient/1/_history/1"),
+			new IdDt("Patient/2/_history/1"))));
+		ResourceChangeResult result = myResourceChangeListenerCacheRefresher.refreshCacheAndNotifyListener(cache);
+		assertEquals(2, result.created);
+		verify(listener, times(1)).handleInit(any());
+
+		// Patient/1 updated, Patient/2 deleted, Patient/3 created, Patient/4 changed but doesn't match
+		ResourceVersionChanges changes = new ResourceVersionChanges(
+			List.of(new IdDt("Patient/1"), new IdDt("Patient/2"), new IdDt("Patient/3"), new IdDt("Patient/4")),
+			ResourceVersionMap.fromIdsWithVersions(List.of(
+				new IdDt("Patient/1/_history/2"),
+				new IdDt("Patient/3/_history/1"))));
+		when(myResourceVersionSvc.getVersionChangesSince(any(), any(), any(), any(), anyInt())).thenReturn(changes);
+		result = myResourceChangeListenerCacheRefresher.refreshCacheAndNotifyListener(cache);
+		assertEquals(1, result.created);
+		assertEquals(1, result.updated);
+		assertEquals(1, result.deleted);
+
+		ArgumentCaptor<IResourceChangeEvent> captor = ArgumentCaptor.forClass(IResourceChangeEvent.class);
+		verify(listener, times(1)).handleChange(captor.capture());
+		assertEquals("Patient/3/_history/1", captor.getValue().getCreatedResourceIds().get(0).getValue());
+		assertEquals("Patient/1/_history/2", captor.getValue().getUpdatedResourceIds().get(0).getValue());
+		assertEquals("Patient/2", captor.getValue().getDeletedResourceIds().get(0).getValue());
+		assertEquals(2, cache.getResourceVersionCache().size());
+
+		// Only the first refresh loaded the complete version map
+		verify(myResourceVersionSvc, times(1)).getVersionMap(any(), any());
+	}
+
+	@Test
+	public void testIncrementalRefreshFallsBackToFullRefresh() {
+		StorageSettings storageSettings = new StorageSettings();
+		storageSettings.setResourceChangeListenerIncrementalRefreshEnabled(true);
+		myResourceChangeListenerCacheRefresher.setStorageSettings(storageSettings);
+		when(myResourceChangeListenerRegistry.contains(any())).thenReturn(true);
+		when(myResourceVersionSvc.getVersionMap(any(), any())).thenReturn(ResourceVersionMap.empty());
+
+		IResourceChangeListener listener = mock(IResourceChangeListener.class);
+		ResourceChangeListenerCache cache = new ResourceChangeListenerCache(PATIENT_RESOURCE_NAME, listener, ourMap, TEST_REFRESH_INTERVAL_MS);
+		myResourceChangeListenerCacheRefresher.refreshCacheAndNotifyListener(cache);
+
+		// Too many changes
+		when(myResourceVersionSvc.getVersionChangesSince(any(), any(), any(), any(), anyInt())).thenReturn(null);
+		myResourceChangeListenerCacheRefresher.refreshCacheAndNotifyListener(cache);
+
+		verify(myResourceVersionSvc, times(1)).getVersionChangesSince(any(), any(), any(), any(), anyInt());
+		verify(myResourceVersionSvc, times(2)).getVersionMap(any(), any());
+	}
+
 }
@@ -20,9 +20,11 @@
 package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
+import jakarta.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,9 +47,17 @@ public class CompositeInMemoryDaoSubscriptionMatcher implements ISubscriptionMat
 
 	@Override
 	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg) {
+		return match(theSubscription, theMsg, null);
+	}
+
+	@Override
+	public InMemoryMatchResult match(
+			CanonicalSubscription theSubscription,
+			ResourceModifiedMessage theMsg,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams) {
 		InMemoryMatchResult result;
 		if (myStorageSettings.isEnableInMemorySubscriptionMatching()) {
-			result = myInMemorySubscriptionMatcher.match(theSubscription, theMsg);
+			result = myInMemorySubscriptionMatcher.match(theSubscription, theMsg, theIndexedSearchParams);
 			if (result.supported()) {
 				result.setInMemory(true);
 			} else {
@@ -19,10 +19,27 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
+import jakarta.annotation.Nullable;
 
 public interface ISubscriptionMatcher {
 	InMemoryMatchResult match(CanonicalSubscription subscription, ResourceModifiedMessage msg);
+
+	/**
+	 * Same as {@link #match(CanonicalSubscription, ResourceModifiedMessage)}, but allows the search
+	 * parameters of the modified resource to be extracted once and shared across all of the subscriptions
+	 * being tested against the same message.
+	 *
+	 * @param theIndexedSearchParams The search parameters extracted from the new payload of the message, or
+	 *                               <code>null</code> if they have not been extracted
+	 */
+	default InMemoryMatchResult match(
+			CanonicalSubscription theSubscription,
+			ResourceModifiedMessage theMsg,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams) {
+		return match(theSubscription, theMsg);
+	}
 }
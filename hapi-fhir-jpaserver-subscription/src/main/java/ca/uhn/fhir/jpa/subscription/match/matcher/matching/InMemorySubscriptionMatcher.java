@@ -21,11 +21,13 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import jakarta.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,9 +43,17 @@ public class InMemorySubscriptionMatcher implements ISubscriptionMatcher {
 
 	@Override
 	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg) {
+		return match(theSubscription, theMsg, null);
+	}
+
+	@Override
+	public InMemoryMatchResult match(
+			CanonicalSubscription theSubscription,
+			ResourceModifiedMessage theMsg,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams) {
 		try {
 			return mySearchParamMatcher.match(
-					theSubscription.getCriteriaString(), theMsg.getNewPayload(myContext), null);
+					theSubscription.getCriteriaString(), theMsg.getNewPayload(myContext), theIndexedSearchParams, null);
 		} catch (Exception e) {
 			ourLog.error("Failure in in-memory matcher", e);
 			throw new InternalErrorException(
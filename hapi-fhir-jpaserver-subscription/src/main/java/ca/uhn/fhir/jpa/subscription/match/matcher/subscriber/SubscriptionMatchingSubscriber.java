@@ -23,15 +23,19 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
+import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionCriteriaIndexKeys;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedJsonMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.subscription.api.IResourceModifiedMessagePersistenceSvc;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
@@ -42,9 +46,12 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 import static ca.uhn.fhir.rest.server.messaging.BaseResourceMessage.OperationTypeEnum.DELETE;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class SubscriptionMatchingSubscriber implements MessageHandler {
@@ -69,6 +76,9 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 	@Autowired
 	private IResourceModifiedMessagePersistenceSvc myResourceModifiedMessagePersistenceSvc;
 
+	@Autowired
+	private IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+
 	/**
 	 * Constructor
 	 */
@@ -129,13 +139,30 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 	private void doMatchActiveSubscriptionsAndDeliver(ResourceModifiedMessage theMsg) {
 		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
 
-		Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		/*
+		 * If any subscriptions for this resource type are indexed on one of their criteria
+		 * predicates, extract the search params for the resource once so that they can be
+		 * used to narrow down the candidate subscriptions, and then be shared by every
+		 * in-memory match below instead of being extracted again for each subscription.
+		 */
+		ResourceIndexedSearchParams indexedSearchParams = null;
+		Set<String> criteriaIndexKeys = null;
+		if (isBlank(theMsg.getSubscriptionId())
+				&& mySubscriptionRegistry.hasCriteriaIndexedSubscriptions(resourceId.getResourceType())) {
+			indexedSearchParams = extractIndexedSearchParams(theMsg);
+			if (indexedSearchParams != null) {
+				criteriaIndexKeys = SubscriptionCriteriaIndexKeys.forResource(resourceId, indexedSearchParams);
+			}
+		}
+
+		Collection<ActiveSubscription> subscriptions = getCandidateSubscriptions(theMsg, resourceId, criteriaIndexKeys);
 
 		ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
 		boolean anySubscriptionsMatchedResource = false;
 
 		for (ActiveSubscription nextActiveSubscription : subscriptions) {
-			anySubscriptionsMatchedResource |= processSubscription(theMsg, resourceId, nextActiveSubscription);
+			anySubscriptionsMatchedResource |=
+					processSubscription(theMsg, resourceId, nextActiveSubscription, indexedSearchParams);
 		}
 
 		if (!anySubscriptionsMatchedResource) {
@@ -145,12 +172,48 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 		}
 	}
 
+	private Collection<ActiveSubscription> getCandidateSubscriptions(
+			ResourceModifiedMessage theMsg, IIdType theResourceId, Set<String> theCriteriaIndexKeys) {
+		if (isNotBlank(theMsg.getSubscriptionId())) {
+			// Message is targeted at a single subscription (e.g. $trigger-subscription)
+			ActiveSubscription activeSubscription = mySubscriptionRegistry.get(theMsg.getSubscriptionId());
+			if (activeSubscription == null
+					|| activeSubscription.getSubscription().isTopicSubscription()) {
+				return Collections.emptyList();
+			}
+			return Collections.singletonList(activeSubscription);
+		}
+		return mySubscriptionRegistry.getNonTopicSubscriptionCandidates(
+				theResourceId.getResourceType(), theCriteriaIndexKeys);
+	}
+
+	@Nullable
+	private ResourceIndexedSearchParams extractIndexedSearchParams(ResourceModifiedMessage theMsg) {
+		IBaseResource payload = theMsg.getNewPayload(myFhirContext);
+		if (payload == null) {
+			return null;
+		}
+		try {
+			return myIndexedSearchParamExtractor.extractIndexedSearchParams(payload, null);
+		} catch (Exception e) {
+			// Fall back to testing every subscription for the resource type and letting the matcher extract
+			ourLog.warn(
+					"Failed to extract search parameters for subscription candidate lookup on resource {}: {}",
+					theMsg.getPayloadId(myFhirContext),
+					e.toString());
+			return null;
+		}
+	}
+
 	/**
 	 * Returns true if subscription matched, and processing completed successfully, and the message was sent to the delivery channel. False otherwise.
 	 *
 	 */
 	private boolean processSubscription(
-			ResourceModifiedMessage theMsg, IIdType theResourceId, ActiveSubscription theActiveSubscription) {
+			ResourceModifiedMessage theMsg,
+			IIdType theResourceId,
+			ActiveSubscription theActiveSubscription,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams) {
 		// skip if the partitions don't match
 		CanonicalSubscription subscription = theActiveSubscription.getSubscription();
 		if (subscription != null
@@ -164,7 +227,6 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 
 		if (isNotBlank(theMsg.getSubscriptionId())) {
 			if (!theMsg.getSubscriptionId().equals(nextSubscriptionId)) {
-				// TODO KHS we should use a hash to look it up instead of this full table scan
 				ourLog.debug(
 						"Ignoring subscription {} because it is not {}",
 						nextSubscriptionId,
@@ -186,7 +248,8 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 
 		InMemoryMatchResult matchResult;
 		if (theActiveSubscription.getCriteria().getType() == SubscriptionCriteriaParser.TypeEnum.SEARCH_EXPRESSION) {
-			matchResult = mySubscriptionMatcher.match(theActiveSubscription.getSubscription(), theMsg);
+			matchResult = mySubscriptionMatcher.match(
+					theActiveSubscription.getSubscription(), theMsg, theIndexedSearchParams);
 			if (!matchResult.matched()) {
 				ourLog.trace(
 						"Subscription {} was not matched by resource {} {}",
@@ -19,6 +19,8 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.registry;
 
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import jakarta.annotation.Nullable;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,8 +28,10 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -38,6 +42,15 @@ class ActiveSubscriptionCache {
 
 	private final Map<String, ActiveSubscription> myCache = new ConcurrentHashMap<>();
 
+	/**
+	 * Criteria index for non-topic subscriptions, used to avoid testing every active
+	 * subscription against every modified resource. See {@link SubscriptionCriteriaIndexKeys}.
+	 */
+	private final Map<String, ResourceTypeIndex> myResourceTypeIndexes = new ConcurrentHashMap<>();
+
+	private final Map<String, ActiveSubscription> myStarTypeSubscriptions = new ConcurrentHashMap<>();
+	private final Map<String, IndexEntry> myIndexEntries = new ConcurrentHashMap<>();
+
 	public ActiveSubscription get(String theIdPart) {
 		return myCache.get(theIdPart);
 	}
@@ -51,7 +64,20 @@ class ActiveSubscriptionCache {
 	}
 
 	public void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
+		put(theSubscriptionId, theActiveSubscription, null);
+	}
+
+	/**
+	 * Adds (or replaces) a subscription in the cache, and indexes it for candidate lookup
+	 *
+	 * @param theCriteriaIndexKey The key computed by {@link SubscriptionCriteriaIndexKeys#forCriteria}, or
+	 *                            <code>null</code> if the subscription should be indexed by resource type only
+	 */
+	public synchronized void put(
+			String theSubscriptionId, ActiveSubscription theActiveSubscription, @Nullable String theCriteriaIndexKey) {
+		removeFromIndex(theSubscriptionId);
 		myCache.put(theSubscriptionId, theActiveSubscription);
+		addToIndex(theSubscriptionId, theActiveSubscription, theCriteriaIndexKey);
 	}
 
 	public synchronized ActiveSubscription remove(String theSubscriptionId) {
@@ -62,10 +88,49 @@ class ActiveSubscriptionCache {
 			return null;
 		}
 
+		removeFromIndex(theSubscriptionId);
 		myCache.remove(theSubscriptionId);
 		return activeSubscription;
 	}
 
+	private void addToIndex(
+			String theSubscriptionId, ActiveSubscription theActiveSubscription, @Nullable String theCriteriaIndexKey) {
+		SubscriptionCriteriaParser.SubscriptionCriteria criteria = theActiveSubscription.getCriteria();
+		if (criteria == null || theActiveSubscription.getSubscription().isTopicSubscription()) {
+			return;
+		}
+
+		IndexEntry indexEntry;
+		if (criteria.getType() == SubscriptionCriteriaParser.TypeEnum.STARTYPE_EXPRESSION) {
+			myStarTypeSubscriptions.put(theSubscriptionId, theActiveSubscription);
+			indexEntry = new IndexEntry(Set.of(), null);
+		} else {
+			Set<String> resourceTypes = criteria.getApplicableResourceTypes();
+			for (String nextResourceType : resourceTypes) {
+				myResourceTypeIndexes
+						.computeIfAbsent(nextResourceType, t -> new ResourceTypeIndex())
+						.add(theSubscriptionId, theActiveSubscription, theCriteriaIndexKey);
+			}
+			indexEntry = new IndexEntry(resourceTypes, theCriteriaIndexKey);
+		}
+		myIndexEntries.put(theSubscriptionId, indexEntry);
+	}
+
+	private void removeFromIndex(String theSubscriptionId) {
+		IndexEntry indexEntry = myIndexEntries.remove(theSubscriptionId);
+		if (indexEntry == null) {
+			return;
+		}
+
+		myStarTypeSubscriptions.remove(theSubscriptionId);
+		for (String nextResourceType : indexEntry.myResourceTypes) {
+			ResourceTypeIndex resourceTypeIndex = myResourceTypeIndexes.get(nextResourceType);
+			if (resourceTypeIndex != null) {
+				resourceTypeIndex.remove(theSubscriptionId, indexEntry.myCriteriaIndexKey);
+			}
+		}
+	}
+
 	List<String> markAllSubscriptionsNotInCollectionForDeletionAndReturnIdsToDelete(Collection<String> theAllIds) {
 		List<String> retval = new ArrayList<>();
 		for (String next : new ArrayList<>(myCache.keySet())) {
@@ -98,9 +163,87 @@ class ActiveSubscriptionCache {
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Returns <code>true</code> if any subscription for the given resource type is indexed by a
+	 * criteria index key, meaning that {@link #getNonTopicSubscriptionCandidates(String, Set)}
+	 * can narrow the candidates if it is given the keys of the resource
+	 */
+	public boolean hasCriteriaIndexedSubscriptions(String theResourceType) {
+		ResourceTypeIndex resourceTypeIndex = myResourceTypeIndexes.get(theResourceType);
+		return resourceTypeIndex != null && !resourceTypeIndex.myIndexedSubscriptions.isEmpty();
+	}
+
+	/**
+	 * Returns the non-topic subscriptions that could match a resource of the given type.
+	 *
+	 * @param theResourceType       The resource type
+	 * @param theCriteriaIndexKeys  The keys computed by {@link SubscriptionCriteriaIndexKeys#forResource} for the
+	 *                              modified resource, or <code>null</code> to return every subscription applicable
+	 *                              to the resource type
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionCandidates(
+			String theResourceType, @Nullable Set<String> theCriteriaIndexKeys) {
+		// Keyed by ID since a multitype subscription can be indexed more than once
+		Map<String, ActiveSubscription> retVal = new LinkedHashMap<>(myStarTypeSubscriptions);
+
+		ResourceTypeIndex resourceTypeIndex = myResourceTypeIndexes.get(theResourceType);
+		if (resourceTypeIndex != null) {
+			retVal.putAll(resourceTypeIndex.myUnindexedSubscriptions);
+			if (theCriteriaIndexKeys == null) {
+				resourceTypeIndex.myIndexedSubscriptions.values().forEach(retVal::putAll);
+			} else {
+				for (String nextKey : theCriteriaIndexKeys) {
+					Map<String, ActiveSubscription> indexed = resourceTypeIndex.myIndexedSubscriptions.get(nextKey);
+					if (indexed != null) {
+						retVal.putAll(indexed);
+					}
+				}
+			}
+		}
+
+		return new ArrayList<>(retVal.values());
+	}
+
 	public List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return getAll().stream()
 				.filter(as -> !as.getSubscription().isTopicSubscription())
 				.collect(Collectors.toList());
 	}
+
+	private static class IndexEntry {
+		private final Set<String> myResourceTypes;
+		private final String myCriteriaIndexKey;
+
+		private IndexEntry(Set<String> theResourceTypes, String theCriteriaIndexKey) {
+			myResourceTypes = theResourceTypes;
+			myCriteriaIndexKey = theCriteriaIndexKey;
+		}
+	}
+
+	private static class ResourceTypeIndex {
+		private final Map<String, ActiveSubscription> myUnindexedSubscriptions = new ConcurrentHashMap<>();
+		private final Map<String, Map<String, ActiveSubscription>> myIndexedSubscriptions = new ConcurrentHashMap<>();
+
+		private void add(
+				String theSubscriptionId, ActiveSubscription theActiveSubscription, String theCriteriaIndexKey) {
+			if (theCriteriaIndexKey == null) {
+				myUnindexedSubscriptions.put(theSubscriptionId, theActiveSubscription);
+			} else {
+				myIndexedSubscriptions
+						.computeIfAbsent(theCriteriaIndexKey, t -> new ConcurrentHashMap<>())
+						.put(theSubscriptionId, theActiveSubscription);
+			}
+		}
+
+		private void remove(String theSubscriptionId, String theCriteriaIndexKey) {
+			if (theCriteriaIndexKey == null) {
+				myUnindexedSubscriptions.remove(theSubscriptionId);
+			} else {
+				myIndexedSubscriptions.computeIfPresent(theCriteriaIndexKey, (k, v) -> {
+					v.remove(theSubscriptionId);
+					return v.isEmpty() ? null : v;
+				});
+			}
+		}
+	}
 }
@@ -0,0 +1,192 @@
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.subscription.match.registry;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.UrlUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Computes the keys used by the criteria index in {@link ActiveSubscriptionCache}.
+ * <p>
+ * A subscription whose criteria contains a single-valued equality predicate on
+ * <code>_id</code>, a reference or a token is indexed under a key describing that
+ * predicate. A modified resource is then only tested against the indexed subscriptions
+ * whose key is found in the set of keys computed from the resource itself.
+ * </p>
+ * <p>
+ * Keys are deliberately more lenient than the matchers (token values are compared
+ * case-insensitively and without their system, references are compared by target ID
+ * only) so that the keys of a resource always cover every subscription that could
+ * possibly match it.
+ * </p>
+ */
+public class SubscriptionCriteriaIndexKeys {
+
+	private static final String ID_PREFIX = "id|";
+	private static final String REFERENCE_PREFIX = "reference|";
+	private static final String TOKEN_PREFIX = "token|";
+
+	/**
+	 * Non instantiable
+	 */
+	private SubscriptionCriteriaIndexKeys() {
+		super();
+	}
+
+	/**
+	 * Returns the index key for the given subscription criteria, or <code>null</code> if
+	 * the criteria does not contain a predicate that can be indexed.
+	 */
+	@Nullable
+	public static String forCriteria(
+			FhirContext theFhirContext,
+			ISearchParamRegistry theSearchParamRegistry,
+			@Nullable SubscriptionCriteriaParser.SubscriptionCriteria theCriteria) {
+		if (theCriteria == null || theCriteria.getType() != SubscriptionCriteriaParser.TypeEnum.SEARCH_EXPRESSION) {
+			return null;
+		}
+
+		String criteria = theCriteria.getCriteria();
+		int questionMarkIdx = criteria.indexOf('?');
+		if (questionMarkIdx == -1) {
+			return null;
+		}
+
+		String resourceType = criteria.substring(0, questionMarkIdx);
+		Map<String, String[]> parameters = UrlUtil.parseQueryString(criteria.substring(questionMarkIdx + 1));
+
+		String referenceKey = null;
+		String tokenKey = null;
+		for (Map.Entry<String, String[]> next : parameters.entrySet()) {
+			String paramName = next.getKey();
+
+			// Repetitions of a parameter are ANDed together so each one of them is required
+			String value = next.getValue()[0];
+			if (isBlank(value) || value.indexOf(',') != -1 || value.indexOf('\\') != -1) {
+				continue;
+			}
+
+			if (IAnyResource.SP_RES_ID.equals(paramName)) {
+				if (value.indexOf('/') == -1) {
+					// This is the most selective key possible, so no need to keep looking
+					return ID_PREFIX + value;
+				}
+				continue;
+			}
+
+			if (paramName.startsWith("_") || paramName.indexOf(':') != -1 || paramName.indexOf('.') != -1) {
+				continue;
+			}
+
+			RuntimeSearchParam paramDef = theSearchParamRegistry.getActiveSearchParam(resourceType, paramName);
+			if (paramDef == null) {
+				continue;
+			}
+
+			switch (paramDef.getParamType()) {
+				case REFERENCE:
+					// Skip absolute, canonical and conditional references
+					if (referenceKey == null && value.indexOf(':') == -1 && value.indexOf('?') == -1) {
+						ReferenceParam referenceParam = new ReferenceParam();
+						referenceParam.setValueAsQueryToken(theFhirContext, paramName, null, value);
+						if (isBlank(referenceParam.getChain()) && isNotBlank(referenceParam.getIdPart())) {
+							referenceKey = REFERENCE_PREFIX + referenceParam.getIdPart();
+						}
+					}
+					break;
+				case TOKEN:
+					if (tokenKey == null) {
+						TokenParam tokenParam = new TokenParam();
+						tokenParam.setValueAsQueryToken(theFhirContext, paramName, null, value);
+						if (isNotBlank(tokenParam.getValue())) {
+							tokenKey = toTokenKey(paramName, tokenParam.getValue());
+						}
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		return referenceKey != null ? referenceKey : tokenKey;
+	}
+
+	/**
+	 * Returns the keys of every indexed subscription that could match the given resource.
+	 *
+	 * @param theResourceId           The ID of the modified resource
+	 * @param theIndexedSearchParams  The search parameters extracted from the modified resource
+	 */
+	@Nonnull
+	public static Set<String> forResource(IIdType theResourceId, ResourceIndexedSearchParams theIndexedSearchParams) {
+		Set<String> retVal = new HashSet<>();
+		if (theResourceId.hasIdPart()) {
+			retVal.add(ID_PREFIX + theResourceId.getIdPart());
+		}
+		for (ResourceLink next : theIndexedSearchParams.myLinks) {
+			String targetResourceId = next.getTargetResourceId();
+			if (isNotBlank(targetResourceId)) {
+				retVal.add(REFERENCE_PREFIX + targetResourceId);
+			}
+		}
+		for (ResourceIndexedSearchParamToken next : theIndexedSearchParams.myTokenParams) {
+			if (isNotBlank(next.getValue())) {
+				retVal.add(toTokenKey(next.getParamName(), next.getValue()));
+			}
+		}
+		return retVal;
+	}
+
+	private static String toTokenKey(String theParamName, String theValue) {
+		return TOKEN_PREFIX + normalizeCase(theParamName) + "|" + normalizeCase(theValue);
+	}
+
+	/**
+	 * Folds the case of each character the same way {@link String#equalsIgnoreCase(String)}
+	 * compares them, so that two strings are equal after normalization exactly when they
+	 * are equal ignoring case.
+	 */
+	private static String normalizeCase(String theValue) {
+		StringBuilder retVal = new StringBuilder(theValue.length());
+		for (int i = 0; i < theValue.length(); i++) {
+			retVal.append(Character.toLowerCase(Character.toUpperCase(theValue.charAt(i))));
+		}
+		return retVal.toString();
+	}
+}
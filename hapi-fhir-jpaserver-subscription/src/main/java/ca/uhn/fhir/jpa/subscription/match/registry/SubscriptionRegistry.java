@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.registry;
 
+import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
@@ -26,7 +27,9 @@ import ca.uhn.fhir.jpa.subscription.channel.subscription.ISubscriptionDeliveryCh
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ChannelRetryConfiguration;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import ca.uhn.fhir.util.HapiExtensions;
+import jakarta.annotation.Nullable;
 import jakarta.annotation.PreDestroy;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -40,6 +43,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Cache of active subscriptions.  When a new subscription is added to the cache, a new Spring Channel is created
@@ -62,6 +66,12 @@ public class SubscriptionRegistry {
 	@Autowired
 	private IInterceptorBroadcaster myInterceptorBroadcaster;
 
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+
 	/**
 	 * Constructor
 	 */
@@ -131,7 +141,7 @@ public class SubscriptionRegistry {
 
 		// add to our registries
 		mySubscriptionChannelRegistry.add(activeSubscription);
-		myActiveSubscriptionCache.put(subscriptionId, activeSubscription);
+		myActiveSubscriptionCache.put(subscriptionId, activeSubscription, getCriteriaIndexKey(activeSubscription));
 
 		ourLog.info(
 				"Registered active subscription Subscription/{} - Have {} registered",
@@ -214,12 +224,23 @@ public class SubscriptionRegistry {
 		Validate.notNull(activeSubscription);
 		CanonicalSubscription canonicalized = mySubscriptionCanonicalizer.canonicalize(theSubscription);
 		activeSubscription.setSubscription(canonicalized);
+		// The criteria may have changed, so re-index the subscription
+		myActiveSubscriptionCache.put(theId.getIdPart(), activeSubscription, getCriteriaIndexKey(activeSubscription));
 
 		// Interceptor call: SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED
 		HookParams params = new HookParams().add(CanonicalSubscription.class, canonicalized);
 		myInterceptorBroadcaster.callHooks(Pointcut.SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED, params);
 	}
 
+	@Nullable
+	private String getCriteriaIndexKey(ActiveSubscription theActiveSubscription) {
+		if (theActiveSubscription.getSubscription().isTopicSubscription()) {
+			return null;
+		}
+		return SubscriptionCriteriaIndexKeys.forCriteria(
+				myFhirContext, mySearchParamRegistry, theActiveSubscription.getCriteria());
+	}
+
 	private boolean channelTypeSame(
 			CanonicalSubscription theExistingSubscription, CanonicalSubscription theNewSubscription) {
 		return theExistingSubscription.getChannelType().equals(theNewSubscription.getChannelType());
@@ -232,4 +253,23 @@ public class SubscriptionRegistry {
 	public synchronized List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return myActiveSubscriptionCache.getAllNonTopicSubscriptions();
 	}
+
+	/**
+	 * @see ActiveSubscriptionCache#hasCriteriaIndexedSubscriptions(String)
+	 */
+	public boolean hasCriteriaIndexedSubscriptions(String theResourceType) {
+		return myActiveSubscriptionCache.hasCriteriaIndexedSubscriptions(theResourceType);
+	}
+
+	/**
+	 * Returns the non-topic subscriptions that could match a resource of the given type. Unlike
+	 * {@link #getAllNonTopicSubscriptions()} this does not lock the registry, since it is called
+	 * for every modified resource.
+	 *
+	 * @see ActiveSubscriptionCache#getNonTopicSubscriptionCandidates(String, Set)
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionCandidates(
+			String theResourceType, @Nullable Set<String> theCriteriaIndexKeys) {
+		return myActiveSubscriptionCache.getNonTopicSubscriptionCandidates(theResourceType, theCriteriaIndexKeys);
+	}
 }
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -132,6 +133,43 @@ public class ActiveSubscriptionCacheTest {
 		assertEquals(ID3, match.getId());
 	}
 
+	@Test
+	public void getNonTopicSubscriptionCandidates() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		ActiveSubscription patientSub = buildActiveSubscription(ID1, "Patient?name=smith");
+		activeSubscriptionCache.put(ID1, patientSub);
+		ActiveSubscription observationSub = buildActiveSubscription(ID2, "Observation?patient=Patient/123");
+		activeSubscriptionCache.put(ID2, observationSub, "reference|123");
+		ActiveSubscription starSub = buildActiveSubscription(ID3, "[*]");
+		activeSubscriptionCache.put(ID3, starSub);
+		activeSubscriptionCache.put("topic", buildTopicSubscription("topic", TEST_TOPIC_URL));
+
+		assertFalse(activeSubscriptionCache.hasCriteriaIndexedSubscriptions("Patient"));
+		assertTrue(activeSubscriptionCache.hasCriteriaIndexedSubscriptions("Observation"));
+
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Patient", null), containsInAnyOrder(patientSub, starSub));
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Observation", null), containsInAnyOrder(observationSub, starSub));
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Observation", Set.of("reference|123")), containsInAnyOrder(observationSub, starSub));
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Observation", Set.of("reference|456")), containsInAnyOrder(starSub));
+
+		// Re-indexing under a new key replaces the old one
+		activeSubscriptionCache.put(ID2, observationSub, "reference|456");
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Observation", Set.of("reference|123")), containsInAnyOrder(starSub));
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Observation", Set.of("reference|456")), containsInAnyOrder(observationSub, starSub));
+
+		activeSubscriptionCache.remove(ID2);
+		activeSubscriptionCache.remove(ID3);
+		assertFalse(activeSubscriptionCache.hasCriteriaIndexedSubscriptions("Observation"));
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionCandidates("Observation", null), hasSize(0));
+	}
+
+	private ActiveSubscription buildActiveSubscription(String theId, String theCriteria) {
+		CanonicalSubscription canonicalSubscription = new CanonicalSubscription();
+		canonicalSubscription.setIdElement(new IdDt(theId));
+		canonicalSubscription.setCriteriaString(theCriteria);
+		return new ActiveSubscription(canonicalSubscription, null);
+	}
+
 	@NotNull
 	private ActiveSubscription buildTopicSubscription(String theId, String theTopicUrl) {
 		ActiveSubscription activeSub2 = buildActiveSubscription(theId);
@@ -0,0 +1,100 @@
+package ca.uhn.fhir.jpa.subscription.match.registry;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.hl7.fhir.r4.model.IdType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Date;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class SubscriptionCriteriaIndexKeysTest {
+	private static final FhirContext ourFhirContext = FhirContext.forR4Cached();
+
+	@Mock
+	private ISearchParamRegistry mySearchParamRegistry;
+
+	@BeforeEach
+	public void before() {
+		when(mySearchParamRegistry.getActiveSearchParam(anyString(), anyString())).thenAnswer(t -> ourFhirContext
+			.getResourceDefinition(t.getArgument(0, String.class))
+			.getSearchParam(t.getArgument(1, String.class)));
+	}
+
+	@ParameterizedTest
+	@CsvSource(value = {
+		"Observation?_id=123                                            , id|123",
+		"Observation?patient=Patient/123                                , reference|123",
+		"Observation?subject=123&code=http://loinc.org|1234-5           , reference|123",
+		"Observation?code=http://loinc.org|1234-5                       , token|code|1234-5",
+		"Observation?code=ABC&_id=123                                   , id|123",
+		"Patient?gender=Male                                            , token|gender|male",
+		"'Observation?code=http://loinc.org|1234-5,http://loinc.org|4567' , ",
+		"Observation?code:not=1234-5                                    , ",
+		"Observation?code=http://loinc.org|                             , ",
+		"Observation?patient.name=smith                                 , ",
+		"Observation?patient=http://example.com/fhir/Patient/123        , ",
+		"Observation?_id=Observation/123                                , ",
+		"Patient?name=smith                                             , ",
+		"Patient?_tag=http://foo|bar                                    , ",
+		"Patient                                                        , ",
+		"'[Patient,Observation]'                                        , ",
+	})
+	public void testForCriteria(String theCriteria, String theExpectedKey) {
+		SubscriptionCriteriaParser.SubscriptionCriteria criteria = SubscriptionCriteriaParser.parse(theCriteria);
+		assertEquals(theExpectedKey, SubscriptionCriteriaIndexKeys.forCriteria(ourFhirContext, mySearchParamRegistry, criteria));
+	}
+
+	@Test
+	public void testForCriteria_NoCriteria() {
+		assertNull(SubscriptionCriteriaIndexKeys.forCriteria(ourFhirContext, mySearchParamRegistry, null));
+	}
+
+	@Test
+	public void testForResource() {
+		PartitionSettings partitionSettings = new PartitionSettings();
+		ResourceIndexedSearchParams params = ResourceIndexedSearchParams.withSets();
+		params.myTokenParams.add(new ResourceIndexedSearchParamToken(partitionSettings, "Observation", "code", "http://loinc.org", "1234-5"));
+		params.myTokenParams.add(new ResourceIndexedSearchParamToken(partitionSettings, "Observation", "status", null, "FINAL"));
+		params.myLinks.add(ResourceLink.forLocalReference("Observation.subject", new ResourceTable(), "Patient", 1L, "123", new Date(), null));
+
+		Set<String> keys = SubscriptionCriteriaIndexKeys.forResource(new IdType("Observation/OBS1/_history/2"), params);
+		assertThat(keys, containsInAnyOrder("id|OBS1", "token|code|1234-5", "token|status|final", "reference|123"));
+	}
+
+	@Test
+	public void testForResource_MatchesCriteriaKeys() {
+		ResourceIndexedSearchParams params = ResourceIndexedSearchParams.withSets();
+		params.myTokenParams.add(new ResourceIndexedSearchParamToken(new PartitionSettings(), "Patient", "gender", "http://hl7.org/fhir/administrative-gender", "male"));
+
+		Set<String> keys = SubscriptionCriteriaIndexKeys.forResource(new IdType("Patient/A"), params);
+
+		// Token values are matched case-insensitively, so the keys must be too
+		String criteriaKey = SubscriptionCriteriaIndexKeys.forCriteria(ourFhirContext, mySearchParamRegistry, SubscriptionCriteriaParser.parse("Patient?gender=MALE"));
+		assertTrue(keys.contains(criteriaKey));
+	}
+}
@@ -480,6 +480,7 @@ public class SubscriptionMatchingSubscriberTest extends BaseBlockingQueueSubscri
 			when(myInterceptorBroadcaster.callHooks(
 				eq(Pointcut.SUBSCRIPTION_BEFORE_PERSISTED_RESOURCE_CHECKED), any(HookParams.class))).thenReturn(true);
 			when(mySubscriptionRegistry.getAll()).thenReturn(Collections.emptyList());
+			when(message.getPayloadId(null)).thenReturn(new IdDt("Patient", 123L));
 			when(myResourceModifiedMessagePersistenceSvc.inflatePersistedResourceModifiedMessageOrNull(any())).thenReturn(Optional.ofNullable(message));
 
 			subscriber.matchActiveSubscriptionsAndDeliver(message);
@@ -496,7 +497,7 @@ public class SubscriptionMatchingSubscriberTest extends BaseBlockingQueueSubscri
 			when(myInterceptorBroadcaster.callHooks(
 				eq(Pointcut.SUBSCRIPTION_BEFORE_PERSISTED_RESOURCE_CHECKED), any(HookParams.class))).thenReturn(true);
 			when(message.getPayloadId(null)).thenReturn(new IdDt("Patient", 123L));
-			when(mySubscriptionRegistry.getAllNonTopicSubscriptions()).thenReturn(Collections.singletonList(myActiveSubscription));
+			when(mySubscriptionRegistry.getNonTopicSubscriptionCandidates(eq("Patient"), any())).thenReturn(Collections.singletonList(myActiveSubscription));
 			when(myActiveSubscription.getSubscription()).thenReturn(myCanonicalSubscription);
 			when(myActiveSubscription.getCriteria()).thenReturn(mySubscriptionCriteria);
 			when(myActiveSubscription.getId()).thenReturn("Patient/123");
@@ -515,7 +516,7 @@ public class SubscriptionMatchingSubscriberTest extends BaseBlockingQueueSubscri
 				eq(Pointcut.SUBSCRIPTION_BEFORE_PERSISTED_RESOURCE_CHECKED), any(HookParams.class))).thenReturn(true);
 			when(message.getPayloadId(null)).thenReturn(new IdDt("Patient", 123L));
 			when(myNonDeleteCanonicalSubscription.getSendDeleteMessages()).thenReturn(false);
-			when(mySubscriptionRegistry.getAllNonTopicSubscriptions()).thenReturn(List.of(myNonDeleteSubscription, myActiveSubscription));
+			when(mySubscriptionRegistry.getNonTopicSubscriptionCandidates(eq("Patient"), any())).thenReturn(List.of(myNonDeleteSubscription, myActiveSubscription));
 			when(myActiveSubscription.getSubscription()).thenReturn(myCanonicalSubscription);
 			when(myActiveSubscription.getCriteria()).thenReturn(mySubscriptionCriteria);
 			when(myActiveSubscription.getId()).thenReturn("Patient/123");
@@ -537,7 +538,7 @@ public class SubscriptionMatchingSubscriberTest extends BaseBlockingQueueSubscri
 			when(myInterceptorBroadcaster.callHooks(
 				eq(Pointcut.SUBSCRIPTION_BEFORE_PERSISTED_RESOURCE_CHECKED), any(HookParams.class))).thenReturn(true);
 			when(message.getPayloadId(null)).thenReturn(new IdDt("Patient", 123L));
-			when(mySubscriptionRegistry.getAllNonTopicSubscriptions()).thenReturn(Collections.singletonList(myActiveSubscription));
+			when(mySubscriptionRegistry.getNonTopicSubscriptionCandidates(eq("Patient"), any())).thenReturn(Collections.singletonList(myActiveSubscription));
 			when(myActiveSubscription.getSubscription()).thenReturn(myCanonicalSubscription);
 			when(myActiveSubscription.getCriteria()).thenReturn(mySubscriptionCriteria);
 			when(myActiveSubscription.getId()).thenReturn("Patient/123");
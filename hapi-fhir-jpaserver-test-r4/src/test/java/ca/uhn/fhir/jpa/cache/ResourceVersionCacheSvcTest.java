@@ -1,14 +1,21 @@
 package ca.uhn.fhir.jpa.cache;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.model.primitive.IdDt;
+import ca.uhn.fhir.rest.param.TokenParam;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Date;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class ResourceVersionCacheSvcTest extends BaseJpaR4Test {
 	@Autowired
@@ -29,4 +36,35 @@ public class ResourceVersionCacheSvcTest extends BaseJpaR4Test {
 		assertEquals(1, versionMap.size());
 		assertEquals(2L, versionMap.getVersion(patientId));
 	}
+
+	@Test
+	public void testGetVersionChangesSince() {
+		Patient patient = new Patient();
+		patient.setActive(true);
+		IIdType updatedId = myPatientDao.create(patient).getId().toUnqualifiedVersionless();
+		IIdType deletedId = myPatientDao.create(patient).getId().toUnqualifiedVersionless();
+		myPatientDao.create(patient);
+
+		sleepUntilTimeChanges();
+		Date since = new Date();
+		sleepUntilTimeChanges();
+
+		patient.setId(updatedId);
+		patient.setActive(false);
+		myPatientDao.update(patient);
+		myPatientDao.delete(deletedId);
+		patient = new Patient();
+		patient.setActive(true);
+		IIdType createdId = myPatientDao.create(patient).getId();
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous("active", new TokenParam("true"));
+		ResourceVersionChanges changes = myResourceVersionCacheSvc.getVersionChangesSince(RequestPartitionId.allPartitions(), "Patient", map, since, 100);
+
+		assertEquals(Set.of(new IdDt(updatedId), new IdDt(deletedId), new IdDt(createdId.toUnqualifiedVersionless())), changes.getChangedIds());
+		assertEquals(1, changes.getMatchingVersionMap().size());
+		assertEquals(1L, changes.getMatchingVersionMap().getVersion(createdId));
+
+		// Too many changes to load incrementally
+		assertNull(myResourceVersionCacheSvc.getVersionChangesSince(RequestPartitionId.allPartitions(), "Patient", map, since, 2));
+	}
 }
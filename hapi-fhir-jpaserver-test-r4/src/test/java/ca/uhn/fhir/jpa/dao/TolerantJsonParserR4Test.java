@@ -81,4 +81,29 @@ public class TolerantJsonParserR4Test {
 
 	}
 
+	@Test
+	public void testParseCompressed() {
+		String input = "{\"resourceType\": \"Observation\", \"status\": \"final\", \"valueString\": \"é\"}";
+
+		TolerantJsonParser parser = new TolerantJsonParser(myFhirContext, new LenientErrorHandler(), 123L);
+		Observation obs = parser.parseCompressedResource(Observation.class, GZipUtil.compress(input));
+
+		assertEquals("final", obs.getStatusElement().getValueAsString());
+		assertEquals("é", obs.getValueStringType().getValue());
+	}
+
+	@Test
+	public void testParseCompressedInvalidNumeric_LeadingZeros() {
+		String input = "{\n" +
+			"\"resourceType\": \"Observation\",\n" +
+			"\"valueQuantity\": {\n" +
+			"      \"value\": 00.5\n" +
+			"   }\n" +
+			"}";
+
+		TolerantJsonParser parser = new TolerantJsonParser(myFhirContext, new LenientErrorHandler(), 123L);
+		Observation obs = parser.parseCompressedResource(Observation.class, GZipUtil.compress(input));
+
+		assertEquals("0.5", obs.getValueQuantity().getValueElement().getValueAsString());
+	}
 }
@@ -1,5 +1,7 @@
 package ca.uhn.fhir.jpa.dao.expunge;
 
+import ca.uhn.fhir.jpa.dao.ResourceCompressionDictionarySvc;
+import ca.uhn.fhir.jpa.dao.data.IResourceCompressionDictionaryDao;
 import ca.uhn.fhir.jpa.entity.PartitionEntity;
 import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -12,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class ExpungeEverythingServiceTest extends BaseJpaR4Test {
@@ -19,6 +22,10 @@ class ExpungeEverythingServiceTest extends BaseJpaR4Test {
 	private ExpungeEverythingService myExpungeEverythingService;
 	@Autowired
 	private IPartitionLookupSvc myPartitionLookupSvc;
+	@Autowired
+	private ResourceCompressionDictionarySvc myResourceCompressionDictionarySvc;
+	@Autowired
+	private IResourceCompressionDictionaryDao myResourceCompressionDictionaryDao;
 
 	@Test
 	public void testExpungeEverythingInvalidatesPartitionCache() {
@@ -55,4 +62,22 @@ class ExpungeEverythingServiceTest extends BaseJpaR4Test {
 		}
 		assertDoesntExist(p1);
 	}
+
+	@Test
+	public void testExpungeEverythingDeletesCompressionDictionaries() {
+		// Setup
+		for (int i = 0; i < 20; i++) {
+			createPatient(withActiveTrue(), withFamily("Family" + i));
+		}
+		assertTrue(myResourceCompressionDictionarySvc.trainDictionary("Patient"));
+		assertEquals(1, myResourceCompressionDictionaryDao.count());
+
+		// execute
+		myExpungeEverythingService.expungeEverything(mySrd);
+
+		// Validate
+		assertEquals(0, myResourceCompressionDictionaryDao.count());
+		byte[] compressed = myResourceCompressionDictionarySvc.compress("Patient", "{\"resourceType\":\"Patient\"}");
+		assertEquals(0, compressed[0], "Stale dictionary used after expunge");
+	}
 }
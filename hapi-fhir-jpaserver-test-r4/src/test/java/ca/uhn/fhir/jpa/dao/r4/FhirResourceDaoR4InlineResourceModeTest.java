@@ -1,6 +1,10 @@
 package ca.uhn.fhir.jpa.dao.r4;
 
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.BaseHapiFhirDao;
 import ca.uhn.fhir.jpa.dao.GZipUtil;
+import ca.uhn.fhir.jpa.dao.ResourceCompressionDictionarySvc;
+import ca.uhn.fhir.jpa.dao.ResourceHistoryCalculator;
 import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
@@ -13,6 +17,7 @@ import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
 
 import java.util.HashMap;
 
@@ -23,6 +28,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FhirResourceDaoR4InlineResourceModeTest extends BaseJpaR4Test {
 
+	@Autowired
+	private ResourceCompressionDictionarySvc myResourceCompressionDictionarySvc;
+	@Autowired
+	private ResourceHistoryCalculator myResourceHistoryCalculator;
+
 	@Test
 	public void testRetrieveNonInlinedResource() {
 		IIdType id = createPatient(withActiveTrue());
@@ -53,6 +63,60 @@ public class FhirResourceDaoR4InlineResourceModeTest extends BaseJpaR4Test {
 		validatePatient(myPatientDao.history(id, new HistorySearchDateRangeParam(new HashMap<>(), new DateRangeParam(), 0), mySrd).getResources(0, 1).get(0));
 	}
 
+	@Test
+	public void testRetrieveDictionaryCompressedResource() {
+		for (int i = 0; i < 20; i++) {
+			createPatient(withActiveTrue(), withFamily("Family" + i));
+		}
+		assertTrue(myResourceCompressionDictionarySvc.trainDictionary("Patient"));
+
+		IIdType id = createPatient(withActiveTrue());
+		Long pid = id.getIdPartAsLong();
+
+		runInTransaction(()->{
+			ResourceHistoryTable historyEntity = myResourceHistoryTableDao.findForIdAndVersionAndFetchProvenance(pid, 1);
+			historyEntity.setResource(myResourceCompressionDictionarySvc.compress("Patient", historyEntity.getResourceTextVc()));
+			historyEntity.setResourceTextVc(null);
+			historyEntity.setEncoding(ResourceEncodingEnum.JSOND);
+			myResourceHistoryTableDao.save(historyEntity);
+		});
+
+		// Read
+		validatePatient(myPatientDao.read(id.withVersion(null), mySrd));
+
+		// VRead
+		validatePatient(myPatientDao.read(id.withVersion("1"), mySrd));
+	}
+
+	@Test
+	public void testStoreDictionaryCompressedResource() {
+		// Dictionary compression only applies where resources are stored as binary, i.e. on Oracle
+		BaseHapiFhirDao<?> patientDao = AopTestUtils.getTargetObject(myPatientDao);
+		patientDao.setResourceHistoryCalculator(new ResourceHistoryCalculator(myFhirContext, true, myResourceCompressionDictionarySvc));
+		myStorageSettings.setResourceEncoding(ResourceEncodingEnum.JSOND);
+		try {
+			IIdType id = createPatient(withActiveTrue());
+			Long pid = id.getIdPartAsLong();
+
+			runInTransaction(()->{
+				ResourceHistoryTable historyEntity = myResourceHistoryTableDao.findForIdAndVersionAndFetchProvenance(pid, 1);
+				assertNotNull(historyEntity.getResource());
+				assertNull(historyEntity.getResourceTextVc());
+				assertEquals(ResourceEncodingEnum.JSOND, historyEntity.getEncoding());
+			});
+
+			validatePatient(myPatientDao.read(id.withVersion(null), mySrd));
+
+			// Updating with no changes doesn't create a new version
+			Patient patient = new Patient();
+			patient.setId(id.toUnqualifiedVersionless());
+			patient.setActive(true);
+			assertEquals("1", myPatientDao.update(patient, mySrd).getId().getVersionIdPart());
+		} finally {
+			patientDao.setResourceHistoryCalculator(myResourceHistoryCalculator);
+			myStorageSettings.setResourceEncoding(new JpaStorageSettings().getResourceEncoding());
+		}
+	}
 
 	private void validatePatient(IBaseResource theRead) {
 		assertTrue(((Patient)theRead).getActive());
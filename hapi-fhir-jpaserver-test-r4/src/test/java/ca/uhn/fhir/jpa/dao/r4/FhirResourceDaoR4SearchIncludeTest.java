@@ -5,6 +5,9 @@ import ca.uhn.fhir.jpa.search.PersistedJpaSearchFirstPageBundleProvider;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -14,6 +17,7 @@ import ca.uhn.fhir.rest.server.SimpleBundleProvider;
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 import org.hamcrest.collection.IsIterableContainingInAnyOrder;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.BodyStructure;
 import org.hl7.fhir.r4.model.CarePlan;
@@ -49,6 +53,7 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 	@AfterEach
 	public void afterEach() {
 		myStorageSettings.setMaximumIncludesToLoadPerPage(JpaStorageSettings.DEFAULT_MAXIMUM_INCLUDES_TO_LOAD_PER_PAGE);
+		myStorageSettings.setSearchResultParsingThreadCount(JpaStorageSettings.DEFAULT_SEARCH_RESULT_PARSING_THREAD_COUNT);
 	}
 
 	@Test
@@ -239,6 +244,27 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	public void testIncludesWithParallelResultParsing() {
+		myStorageSettings.setSearchResultParsingThreadCount(4);
+		createOrganizationWithReferencingEpisodesOfCare(10);
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.setSort(new SortSpec("_id"))
+			.addInclude(EpisodeOfCare.INCLUDE_ORGANIZATION);
+		List<IBaseResource> resources = myEpisodeOfCareDao.search(map).getAllResources();
+
+		List<String> ids = toUnqualifiedVersionlessIdValues(resources);
+		List<String> expected = IntStream.range(0, 10).mapToObj(t -> "EpisodeOfCare/EOC-" + t).collect(Collectors.toList());
+		expected.add("Organization/ORG-0");
+		assertEquals(expected, ids);
+
+		for (IBaseResource next : resources) {
+			BundleEntrySearchModeEnum expectedMode = next instanceof Organization ? BundleEntrySearchModeEnum.INCLUDE : BundleEntrySearchModeEnum.MATCH;
+			assertEquals(expectedMode, ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.get(next), next.getIdElement().getValue());
+		}
+	}
+
 	private void createOrganizationWithReferencingEpisodesOfCare(int theEocCount) {
 		Organization org = new Organization();
 		org.setId("Organization/ORG-P");
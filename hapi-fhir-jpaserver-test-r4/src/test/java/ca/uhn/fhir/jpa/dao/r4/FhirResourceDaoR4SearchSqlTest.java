@@ -1,15 +1,18 @@
 package ca.uhn.fhir.jpa.dao.r4;
 
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchSqlTemplateCache;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.param.UriParam;
 import org.hamcrest.Matchers;
 import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.SearchParameter;
 import org.junit.jupiter.api.AfterEach;
@@ -40,9 +43,14 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 		myStorageSettings.setAdvancedHSearchIndexing(false);
 	}
 
+	@Autowired
+	private SearchSqlTemplateCache mySearchSqlTemplateCache;
+
 	@AfterEach
 	public void after() {
 		myStorageSettings.setTagStorageMode(JpaStorageSettings.DEFAULT_TAG_STORAGE_MODE);
+		myStorageSettings.setSearchSqlTemplateCacheSize(JpaStorageSettings.DEFAULT_SEARCH_SQL_TEMPLATE_CACHE_SIZE);
+		mySearchSqlTemplateCache.invalidateAll();
 	}
 
 	/**
@@ -145,5 +153,66 @@ public class FhirResourceDaoR4SearchSqlTest extends BaseJpaR4Test {
 		myStorageSettings.setMarkResourcesForReindexingUponSearchParameterChange(reindexParamCache);
 	}
 
+	@Test
+	public void testSqlTemplateCache_SameShapeReusesSql() {
+		myStorageSettings.setSearchSqlTemplateCacheSize(100);
+		IIdType patientId = createPatient(withFamily("SIMPSON"));
+		IIdType obsA = createObservation(withSubject(patientId), withObservationCode("http://foo", "A"));
+		IIdType obsB = createObservation(withSubject(patientId), withObservationCode("http://foo", "B"));
+		long hits = mySearchSqlTemplateCache.getHitCount();
+
+		myCaptureQueriesListener.clear();
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add(Observation.SP_SUBJECT, new ReferenceParam(patientId.getValue()))
+			.add(Observation.SP_CODE, new TokenParam("http://foo", "A"));
+		assertThat(toUnqualifiedVersionlessIds(myObservationDao.search(map, mySrd)), Matchers.contains(obsA));
+		String firstSql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertEquals(hits, mySearchSqlTemplateCache.getHitCount());
+
+		myCaptureQueriesListener.clear();
+		map = SearchParameterMap.newSynchronous()
+			.add(Observation.SP_SUBJECT, new ReferenceParam(patientId.getValue()))
+			.add(Observation.SP_CODE, new TokenParam("http://foo", "B"));
+		assertThat(toUnqualifiedVersionlessIds(myObservationDao.search(map, mySrd)), Matchers.contains(obsB));
+		String secondSql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertEquals(hits + 1, mySearchSqlTemplateCache.getHitCount());
+		assertEquals(firstSql, secondSql);
+	}
+
+	@Test
+	public void testSqlTemplateCache_DifferentTokenShapesAreNotShared() {
+		myStorageSettings.setSearchSqlTemplateCacheSize(100);
+		IIdType obsA = createObservation(withObservationCode("http://foo", "A"));
+		long hits = mySearchSqlTemplateCache.getHitCount();
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous(Observation.SP_CODE, new TokenParam("http://foo", "A"));
+		assertThat(toUnqualifiedVersionlessIds(myObservationDao.search(map, mySrd)), Matchers.contains(obsA));
+
+		// Code only, so a different hash column
+		myCaptureQueriesListener.clear();
+		map = SearchParameterMap.newSynchronous(Observation.SP_CODE, new TokenParam(null, "A"));
+		assertThat(toUnqualifiedVersionlessIds(myObservationDao.search(map, mySrd)), Matchers.contains(obsA));
+		String sql = myCaptureQueriesListener.getSelectQueriesForCurrentThread().get(0).getSql(false, false);
+		assertThat(sql, containsString("HASH_VALUE = ?"));
+
+		assertEquals(hits, mySearchSqlTemplateCache.getHitCount());
+	}
+
+	@Test
+	public void testSqlTemplateCache_ChainedSearchIsNotCached() {
+		myStorageSettings.setSearchSqlTemplateCacheSize(100);
+		IIdType patientId = createPatient(withFamily("SIMPSON"));
+		IIdType obsA = createObservation(withSubject(patientId));
+		long hits = mySearchSqlTemplateCache.getHitCount();
+		long misses = mySearchSqlTemplateCache.getMissCount();
+
+		for (int i = 0; i < 2; i++) {
+			SearchParameterMap map = SearchParameterMap.newSynchronous(Observation.SP_SUBJECT, new ReferenceParam("family", "SIMPSON"));
+			assertThat(toUnqualifiedVersionlessIds(myObservationDao.search(map, mySrd)), Matchers.contains(obsA));
+		}
+
+		assertEquals(hits, mySearchSqlTemplateCache.getHitCount());
+		assertEquals(misses, mySearchSqlTemplateCache.getMissCount());
+	}
 
 }
@@ -0,0 +1,189 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Transactions with {@link JpaStorageSettings#setTransactionIndexJdbcBatchSize(int)} enabled, which
+ * collect the index rows for the whole bundle and write them in JDBC batches at the end
+ */
+public class FhirSystemDaoTransactionIndexBatchR4Test extends BaseJpaR4SystemTest {
+
+	@BeforeEach
+	public void beforeEnableIndexBatching() {
+		myStorageSettings.setTransactionIndexJdbcBatchSize(10);
+	}
+
+	@AfterEach
+	public void after() {
+		JpaStorageSettings defaults = new JpaStorageSettings();
+		myStorageSettings.setTransactionIndexJdbcBatchSize(defaults.getTransactionIndexJdbcBatchSize());
+		myStorageSettings.setAllowInlineMatchUrlReferences(defaults.isAllowInlineMatchUrlReferences());
+		myStorageSettings.setAutoCreatePlaceholderReferenceTargets(defaults.isAutoCreatePlaceholderReferenceTargets());
+	}
+
+	@Test
+	public void testUpdateReusesExistingIndexRows() {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://foo").setValue("1");
+		patient.addName().setFamily("Smith");
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+		Long pid = id.getIdPartAsLong();
+		Set<Long> stringRowIdsBefore = getStringRowIds(pid);
+
+		patient = new Patient();
+		patient.setId(id);
+		patient.addIdentifier().setSystem("http://foo").setValue("1");
+		patient.addName().setFamily("Jones");
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.addEntry().setResource(patient).getRequest().setMethod(Bundle.HTTPVerb.PUT).setUrl(id.getValue());
+		mySystemDao.transaction(mySrd, input);
+
+		// The rows for the old name are repurposed for the new name rather than deleted and inserted
+		assertEquals(stringRowIdsBefore, getStringRowIds(pid));
+		List<ResourceIndexedSearchParamString> familyRows = getStringRows(pid, Patient.SP_FAMILY);
+		assertThat(familyRows, hasSize(1));
+		assertEquals("Jones", familyRows.get(0).getValueExact());
+
+		assertThat(searchPatients(Patient.SP_FAMILY, new StringParam("Jones")), contains(id.getValue()));
+		assertThat(searchPatients(Patient.SP_FAMILY, new StringParam("Smith")), empty());
+		assertThat(searchPatients(Patient.SP_IDENTIFIER, new TokenParam("http://foo", "1")), contains(id.getValue()));
+	}
+
+	@Test
+	public void testDeleteAndCreateSameResourceInOneBundle() {
+		Patient patient = new Patient();
+		patient.addName().setFamily("Smith");
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+		Long pid = id.getIdPartAsLong();
+
+		patient = new Patient();
+		patient.setId(id);
+		patient.addName().setFamily("Jones");
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.addEntry().getRequest().setMethod(Bundle.HTTPVerb.DELETE).setUrl(id.getValue());
+		input.addEntry().setResource(patient).getRequest().setMethod(Bundle.HTTPVerb.PUT).setUrl(id.getValue());
+		mySystemDao.transaction(mySrd, input);
+
+		assertEquals("Jones", myPatientDao.read(id, mySrd).getNameFirstRep().getFamily());
+		List<ResourceIndexedSearchParamString> familyRows = getStringRows(pid, Patient.SP_FAMILY);
+		assertThat(familyRows, hasSize(1));
+		assertEquals("Jones", familyRows.get(0).getValueExact());
+
+		assertThat(searchPatients(Patient.SP_FAMILY, new StringParam("Jones")), contains(id.getValue()));
+		assertThat(searchPatients(Patient.SP_FAMILY, new StringParam("Smith")), empty());
+	}
+
+	@Test
+	public void testPlaceholderReferenceTargets() {
+		myStorageSettings.setAutoCreatePlaceholderReferenceTargets(true);
+
+		Patient patient = new Patient();
+		patient.setId(IdType.newRandomUuid());
+		patient.addName().setFamily("Smith");
+
+		Observation observation = new Observation();
+		observation.setStatus(Observation.ObservationStatus.FINAL);
+		observation.setSubject(new Reference(patient.getId()));
+		observation.addPerformer(new Reference("Practitioner/PLACEHOLDER"));
+
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.addEntry().setResource(patient).setFullUrl(patient.getId()).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+		input.addEntry().setResource(observation).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		Bundle output = mySystemDao.transaction(mySrd, input);
+
+		IdType patientId = new IdType(output.getEntry().get(0).getResponse().getLocation()).toUnqualifiedVersionless();
+		IdType observationId = new IdType(output.getEntry().get(1).getResponse().getLocation()).toUnqualifiedVersionless();
+		assertEquals("PLACEHOLDER", myPractitionerDao.read(new IdType("Practitioner/PLACEHOLDER"), mySrd).getIdElement().getIdPart());
+
+		Set<String> linkTargets = runInTransaction(() -> myResourceLinkDao.findAllForSourceResourceId(observationId.getIdPartAsLong()).stream()
+			.map(t -> t.getTargetResourceType() + "/" + t.getTargetResourceId())
+			.collect(Collectors.toSet()));
+		assertEquals(Set.of(patientId.getValue(), "Practitioner/PLACEHOLDER"), linkTargets);
+		assertThat(getStringRows(patientId.getIdPartAsLong(), Patient.SP_FAMILY), hasSize(1));
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous(Observation.SP_SUBJECT, new ReferenceParam(patientId.getValue()));
+		assertThat(toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd)), contains(observationId.getValue()));
+		map = SearchParameterMap.newSynchronous(Observation.SP_PERFORMER, new ReferenceParam("Practitioner/PLACEHOLDER"));
+		assertThat(toUnqualifiedVersionlessIdValues(myObservationDao.search(map, mySrd)), contains(observationId.getValue()));
+	}
+
+	@Test
+	public void testInlineMatchUrlReferences() {
+		myStorageSettings.setAllowInlineMatchUrlReferences(true);
+
+		Organization organization = new Organization();
+		organization.addIdentifier().setSystem("http://foo").setValue("ORG");
+		IIdType organizationId = myOrganizationDao.create(organization, mySrd).getId().toUnqualifiedVersionless();
+
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("Family" + i);
+			patient.setManagingOrganization(new Reference("Organization?identifier=http://foo|ORG"));
+			input.addEntry().setResource(patient).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+		}
+		Bundle output = mySystemDao.transaction(mySrd, input);
+
+		List<String> patientIds = output.getEntry().stream()
+			.map(t -> new IdType(t.getResponse().getLocation()).toUnqualifiedVersionless().getValue())
+			.collect(Collectors.toList());
+		for (String next : patientIds) {
+			Set<Long> linkTargetPids = runInTransaction(() -> myResourceLinkDao.findAllForSourceResourceId(new IdType(next).getIdPartAsLong()).stream()
+				.map(ResourceLink::getTargetResourcePid)
+				.collect(Collectors.toSet()));
+			assertEquals(Set.of(organizationId.getIdPartAsLong()), linkTargetPids);
+		}
+
+		assertThat(searchPatients(Patient.SP_ORGANIZATION, new ReferenceParam(organizationId.getValue())), containsInAnyOrder(patientIds.toArray()));
+		assertThat(searchPatients(Patient.SP_FAMILY, new StringParam("Family1")), contains(patientIds.get(1)));
+	}
+
+	private List<String> searchPatients(String theParamName, IQueryParameterType theParam) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous(theParamName, theParam);
+		return toUnqualifiedVersionlessIdValues(myPatientDao.search(map, mySrd));
+	}
+
+	private List<ResourceIndexedSearchParamString> getStringRows(Long thePid, String theParamName) {
+		return runInTransaction(() -> myResourceIndexedSearchParamStringDao.findAllForResourceId(thePid).stream()
+			.filter(t -> t.getParamName().equals(theParamName))
+			.collect(Collectors.toList()));
+	}
+
+	private Set<Long> getStringRowIds(Long thePid) {
+		return runInTransaction(() -> myResourceIndexedSearchParamStringDao.findAllForResourceId(thePid).stream()
+			.map(ResourceIndexedSearchParamString::getId)
+			.collect(Collectors.toSet()));
+	}
+}
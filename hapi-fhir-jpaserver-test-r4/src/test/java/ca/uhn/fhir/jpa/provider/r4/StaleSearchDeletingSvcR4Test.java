@@ -1,14 +1,18 @@
 package ca.uhn.fhir.jpa.provider.r4;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.dao.data.ISearchDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.entity.SearchResult;
 import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
 import ca.uhn.fhir.jpa.provider.BaseResourceProviderR4Test;
 import ca.uhn.fhir.jpa.search.cache.DatabaseSearchCacheSvcImpl;
+import ca.uhn.fhir.jpa.search.cache.DatabaseSearchResultBlockCacheSvcImpl;
 import ca.uhn.fhir.rest.gclient.IClientExecutable;
 import ca.uhn.fhir.rest.gclient.IQuery;
 import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
@@ -23,12 +27,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.util.AopTestUtils;
 
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static ca.uhn.fhir.util.TestUtil.sleepAtLeast;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.blankOrNullString;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -41,6 +49,8 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 	private ISearchDao mySearchEntityDao;
 	@Autowired
 	private ISearchResultDao mySearchResultDao;
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
 
 	@Override
 	@AfterEach()
@@ -141,6 +151,64 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 
 	}
 
+	@Test
+	public void testDeleteSearchWithResultBlocks() {
+		createSearchWithResultBlocks();
+
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+		runInTransaction(() -> {
+			assertEquals(0, mySearchEntityDao.count());
+			assertEquals(0, mySearchResultBlockDao.count());
+		});
+	}
+
+	@Test
+	public void testDeleteLargeSearchWithResultBlocks() {
+		// The search has more results than can be deleted in one pass
+		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOnePassForUnitTest(10);
+		createSearchWithResultBlocks();
+
+		myCaptureQueriesListener.clear();
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+		runInTransaction(() -> {
+			assertEquals(0, mySearchEntityDao.count());
+			assertEquals(0, mySearchResultBlockDao.count());
+		});
+
+		// No rows were stored in HFJ_SEARCH_RESULT, so there's no need to delete them in ranges
+		List<String> searchResultDeletes = myCaptureQueriesListener.getDeleteQueries().stream()
+			.map(t -> t.getSql(false, false).toUpperCase())
+			.filter(t -> t.matches(".*HFJ_SEARCH_RESULT\\b.*"))
+			.collect(Collectors.toList());
+		assertThat(searchResultDeletes.toString(), searchResultDeletes, empty());
+	}
+
+	private void createSearchWithResultBlocks() {
+		DatabaseSearchResultBlockCacheSvcImpl blockCacheSvc = myAppCtx
+			.getAutowireCapableBeanFactory()
+			.createBean(DatabaseSearchResultBlockCacheSvcImpl.class);
+		blockCacheSvc.setBlockSizeForUnitTest(10);
+
+		Search search = runInTransaction(() -> {
+			Search newSearch = new Search();
+			newSearch.setStatus(SearchStatusEnum.FINISHED);
+			newSearch.setUuid(UUID.randomUUID().toString());
+			newSearch.setCreated(DateUtils.addDays(new Date(), -10000));
+			newSearch.setSearchType(SearchTypeEnum.SEARCH);
+			newSearch.setResourceType("Patient");
+			newSearch.setNumFound(25);
+			return mySearchEntityDao.save(newSearch);
+		});
+
+		List<JpaPid> pids = LongStream.range(0, 25).mapToObj(t -> JpaPid.fromId(1000 - t)).collect(Collectors.toList());
+		blockCacheSvc.storeResults(search, List.of(), pids.subList(0, 15), mySrd, RequestPartitionId.allPartitions());
+		blockCacheSvc.storeResults(search, pids.subList(0, 15), pids.subList(15, 25), mySrd, RequestPartitionId.allPartitions());
+
+		runInTransaction(() -> assertEquals(3, mySearchResultBlockDao.count()));
+		assertEquals(pids.subList(8, 22), blockCacheSvc.fetchResultPids(search, 8, 22, mySrd, RequestPartitionId.allPartitions()));
+		assertEquals(pids, blockCacheSvc.fetchAllResultPids(search, mySrd, RequestPartitionId.allPartitions()));
+	}
+
 	@Test
 	public void testDeleteVerySmallSearch() {
 		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOneStatement(10);
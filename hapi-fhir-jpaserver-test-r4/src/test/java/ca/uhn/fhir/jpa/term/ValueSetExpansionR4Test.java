@@ -5,6 +5,7 @@ import ca.uhn.fhir.context.support.ConceptValidationOptions;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValueSetExpansionOptions;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.entity.TermCodeSystem;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
 import ca.uhn.fhir.jpa.entity.TermConcept;
@@ -75,6 +76,8 @@ public class ValueSetExpansionR4Test extends BaseTermR4Test {
 	@AfterEach
 	public void afterEach() {
 		SearchBuilder.setMaxPageSize50ForTest(false);
+		myStorageSettings.setPreExpandValueSetsThreadCount(new JpaStorageSettings().getPreExpandValueSetsThreadCount());
+		myStorageSettings.setPreExpandValueSetsJdbcBatchSize(new JpaStorageSettings().getPreExpandValueSetsJdbcBatchSize());
 	}
 
 	@Test
@@ -635,6 +638,35 @@ public class ValueSetExpansionR4Test extends BaseTermR4Test {
 		assertExpandedValueSetContainsConcept(expandedValueSet, "http://acme.org", "8492-1", "Systolic blood pressure 8 hour minimum", 0);
 	}
 
+	@Test
+	public void testExpandTermValueSetAndChildren_ParallelWithJdbcBatching() throws Exception {
+		myStorageSettings.setPreExpandValueSets(true);
+		myStorageSettings.setPreExpandValueSetsThreadCount(3);
+		myStorageSettings.setPreExpandValueSetsJdbcBatchSize(5);
+
+		loadAndPersistCodeSystemAndValueSetWithDesignations(HttpVerb.POST);
+
+		CodeSystem codeSystem = myCodeSystemDao.read(myExtensionalCsId);
+		ValueSet valueSet = myValueSetDao.read(myExtensionalVsId);
+
+		myTermSvc.preExpandDeferredValueSetsToTerminologyTables();
+
+		runInTransaction(() -> {
+			assertEquals(0, myTermValueSetDao.countByExpansionStatus(TermValueSetPreExpansionStatusEnum.NOT_EXPANDED));
+			TermValueSet termValueSet = myTermValueSetDao.findByResourcePid(myExtensionalVsIdOnResourceTable).orElseThrow();
+			assertEquals(TermValueSetPreExpansionStatusEnum.EXPANDED, termValueSet.getExpansionStatus());
+			assertEquals(codeSystem.getConcept().size(), termValueSet.getTotalConcepts().intValue());
+			assertEquals(termValueSet.getTotalConceptDesignations().intValue(), myTermValueSetConceptDesignationDao.count());
+		});
+
+		ValueSet expandedValueSet = myTermSvc.expandValueSet(null, valueSet);
+		assertEquals(codeSystem.getConcept().size(), expandedValueSet.getExpansion().getContains().size());
+
+		ValueSet.ValueSetExpansionContainsComponent concept = assertExpandedValueSetContainsConcept(expandedValueSet, "http://acme.org", "8450-9", "Systolic blood pressure--expiration", 2);
+		assertConceptContainsDesignation(concept, "nl", "http://snomed.info/sct", "900000000000013009", "Synonym", "Systolische bloeddruk - expiratie");
+		assertConceptContainsDesignation(concept, "sv", "http://snomed.info/sct", "900000000000013009", "Synonym", "Systoliskt blodtryck - utgång");
+	}
+
 	@Test
 	public void testExpandTermValueSetAndChildrenWithCountWithDisplayLanguage() throws Exception {
 		myStorageSettings.setPreExpandValueSets(true);
@@ -72,4 +72,15 @@ public interface IMdmSettings {
 	default void setAutoExpungeGoldenResources(boolean theShouldAutoExpunge) {
 		throw new UnsupportedOperationException(Msg.code(2427));
 	}
+
+	/**
+	 * If enabled, MDM maintains a table of blocking keys for the source resources it processes,
+	 * and candidate searches are resolved using a single query against this table instead of
+	 * one FHIR search per candidate search parameter.
+	 *
+	 * @since 7.4.0
+	 */
+	default boolean isBlockingKeyIndexEnabled() {
+		return false;
+	}
 }
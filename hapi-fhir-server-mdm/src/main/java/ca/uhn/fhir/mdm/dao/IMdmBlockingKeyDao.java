@@ -0,0 +1,66 @@
+/*-
+ * #%L
+ * HAPI FHIR - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.mdm.dao;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Storage for the MDM blocking key index, which maps hashed blocking keys to the
+ * source resources which have them.
+ *
+ * @see ca.uhn.fhir.mdm.api.IMdmSettings#isBlockingKeyIndexEnabled()
+ * @since 7.4.0
+ */
+public interface IMdmBlockingKeyDao<P extends IResourcePersistentId> {
+
+	/**
+	 * Replaces the blocking keys stored for the given resource. Keys which are unchanged
+	 * are left in place.
+	 *
+	 * @param theResourcePid The resource
+	 * @param theKeyHashes   The new keys, may be empty in order to remove all keys for the resource
+	 */
+	void replaceBlockingKeys(P theResourcePid, Set<Long> theKeyHashes);
+
+	/**
+	 * Removes all blocking keys stored for the given resource. This is called when the
+	 * resource is deleted or expunged.
+	 *
+	 * @param theResourcePid The resource
+	 * @return The number of keys removed
+	 */
+	int deleteBlockingKeys(P theResourcePid);
+
+	/**
+	 * Returns the IDs of the resources which have at least one of the given blocking keys.
+	 * Deleted resources are not returned.
+	 *
+	 * @param theKeyHashes          The keys to look for
+	 * @param theRequestPartitionId The partition(s) to look in
+	 * @param theMaxResults         The maximum number of IDs to return
+	 */
+	List<P> findResourcePidsByBlockingKeys(
+			Collection<Long> theKeyHashes, RequestPartitionId theRequestPartitionId, int theMaxResults);
+}
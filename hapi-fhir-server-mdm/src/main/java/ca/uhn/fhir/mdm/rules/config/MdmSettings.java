@@ -57,6 +57,8 @@ public class MdmSettings implements IMdmSettings {
 	 */
 	private int myCandidateSearchLimit = DEFAULT_CANDIDATE_SEARCH_LIMIT;
 
+	private boolean myBlockingKeyIndexEnabled;
+
 	@Autowired
 	public MdmSettings(IMdmRuleValidator theMdmRuleValidator) {
 		myMdmRuleValidator = theMdmRuleValidator;
@@ -169,4 +171,31 @@ public class MdmSettings implements IMdmSettings {
 	public void setAutoExpungeGoldenResources(boolean theShouldAutoExpunge) {
 		myShouldAutoDeleteGoldenResources = theShouldAutoExpunge;
 	}
+
+	@Override
+	public boolean isBlockingKeyIndexEnabled() {
+		return myBlockingKeyIndexEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), MDM stores a set of blocking keys for each source
+	 * resource it processes. A blocking key is a hash of the normalized values of the search parameters
+	 * in one of the <code>candidateSearchParams</code> of the MDM rules. Candidate searches are then
+	 * resolved using a single indexed query against these keys instead of running one FHIR search per
+	 * <code>candidateSearchParams</code> entry.
+	 * <p>
+	 * Keys match on exact (normalized) values, so unlike a FHIR string search they do not match on
+	 * prefixes. Candidate search parameters with modifiers (e.g. <code>:nickname</code>), and incoming
+	 * resources which are missing a value for one of the parameters, are still handled using a FHIR
+	 * search. Resources processed before this setting was enabled, or before the MDM rules were changed,
+	 * are only found using the index once they have been processed again (e.g. using
+	 * <code>$mdm-submit</code>).
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public MdmSettings setBlockingKeyIndexEnabled(boolean theBlockingKeyIndexEnabled) {
+		myBlockingKeyIndexEnabled = theBlockingKeyIndexEnabled;
+		return this;
+	}
 }
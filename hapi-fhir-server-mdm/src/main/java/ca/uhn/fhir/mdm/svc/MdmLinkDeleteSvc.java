@@ -22,6 +22,7 @@ package ca.uhn.fhir.mdm.svc;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.mdm.api.MdmMatchResultEnum;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
 import ca.uhn.fhir.mdm.dao.IMdmLinkDao;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -37,14 +38,18 @@ public class MdmLinkDeleteSvc {
 	@Autowired
 	private IMdmLinkDao myMdmLinkDao;
 
+	@Autowired
+	private IMdmBlockingKeyDao myMdmBlockingKeyDao;
+
 	@Autowired
 	private IIdHelperService myIdHelperService;
 
 	/**
-	 * Delete all {@link ca.uhn.fhir.mdm.api.IMdmLink} records that implements this interface.  (Used by Expunge.)
+	 * Delete all {@link ca.uhn.fhir.mdm.api.IMdmLink} records that implements this interface, as well as
+	 * the MDM blocking keys stored for the resource.  (Used by Delete and Expunge.)
 	 *
 	 * @param theResource
-	 * @return the number of records deleted
+	 * @return the number of MDM link records deleted
 	 */
 	public int deleteWithAnyReferenceTo(IBaseResource theResource) {
 		IResourcePersistentId pid = myIdHelperService.getPidOrThrowException(
@@ -56,6 +61,10 @@ public class MdmLinkDeleteSvc {
 					removed,
 					theResource.getIdElement().toVersionless());
 		}
+		int removedKeys = myMdmBlockingKeyDao.deleteBlockingKeys(pid);
+		if (removedKeys > 0) {
+			ourLog.debug("Removed {} MDM blocking keys for {}", removedKeys, theResource.getIdElement().toVersionless());
+		}
 		return removed;
 	}
 
@@ -0,0 +1,185 @@
+/*-
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-memory paging provider which, unlike {@link FifoMemoryPagingProvider}, doesn't
+ * synchronize storing and retrieving result lists, and which discards result lists once
+ * they haven't been accessed for a while. This is backed by a cache from the
+ * {@link CacheFactory}, so one of the <code>hapi-fhir-caching-*</code> modules must be
+ * on the classpath.
+ * <p>
+ * Custom {@link ca.uhn.fhir.sl.cache.CacheProvider} implementations must support caches which
+ * expire after access, otherwise creating this paging provider fails with an
+ * {@link UnsupportedOperationException} (HAPI-2529).
+ * </p>
+ * <p>
+ * By default the number of stored result lists is limited, but the total number of
+ * resources they contain can be limited instead using
+ * {@link #forMaximumResourceCount(long, long)}.
+ * </p>
+ *
+ * @since 7.4.0
+ */
+public class CachingMemoryPagingProvider extends BasePagingProvider {
+
+	public static final long DEFAULT_EXPIRE_AFTER_ACCESS_MILLIS = DateUtils.MILLIS_PER_HOUR;
+
+	private final Cache<String, IBundleProvider> myBundleProviders;
+	private final LongAdder myHitCount = new LongAdder();
+	private final LongAdder myMissCount = new LongAdder();
+	private final LongAdder myEvictionCount = new LongAdder();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSize The maximum number of result lists to store
+	 */
+	public CachingMemoryPagingProvider(int theSize) {
+		this(theSize, DEFAULT_EXPIRE_AFTER_ACCESS_MILLIS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSize                    The maximum number of result lists to store
+	 * @param theExpireAfterAccessMillis Result lists which haven't been accessed for this long are discarded
+	 */
+	public CachingMemoryPagingProvider(int theSize, long theExpireAfterAccessMillis) {
+		this(theSize, theExpireAfterAccessMillis, false, System::nanoTime);
+	}
+
+	/**
+	 * Constructor for unit tests, which uses the given ticker (returning nanoseconds) to
+	 * determine when result lists expire
+	 */
+	@VisibleForTesting
+	CachingMemoryPagingProvider(int theSize, long theExpireAfterAccessMillis, LongSupplier theTicker) {
+		this(theSize, theExpireAfterAccessMillis, false, theTicker);
+	}
+
+	private CachingMemoryPagingProvider(
+			long theMaximumWeight,
+			long theExpireAfterAccessMillis,
+			boolean theWeighByResourceCount,
+			LongSupplier theTicker) {
+		Validate.isTrue(theMaximumWeight > 0, "The maximum size must be greater than 0");
+		Validate.isTrue(theExpireAfterAccessMillis > 0, "theExpireAfterAccessMillis must be greater than 0");
+		myBundleProviders = CacheFactory.buildExpiringAfterAccess(
+				theExpireAfterAccessMillis,
+				theMaximumWeight,
+				(k, v) -> theWeighByResourceCount ? estimateResourceCount(v) : 1,
+				(k, v) -> myEvictionCount.increment(),
+				theTicker);
+	}
+
+	@Override
+	public IBundleProvider retrieveResultList(@Nullable RequestDetails theRequest, @Nonnull String theId) {
+		IBundleProvider retVal = myBundleProviders.getIfPresent(theId);
+		if (retVal != null) {
+			myHitCount.increment();
+		} else {
+			myMissCount.increment();
+		}
+		return retVal;
+	}
+
+	@Override
+	public String storeResultList(@Nullable RequestDetails theRequestDetails, IBundleProvider theList) {
+		String key = UUID.randomUUID().toString();
+		myBundleProviders.put(key, theList);
+		return key;
+	}
+
+	/**
+	 * Returns the number of times a stored result list was found
+	 */
+	public long getHitCount() {
+		return myHitCount.sum();
+	}
+
+	/**
+	 * Returns the number of times a requested result list was not found, either because it
+	 * was evicted or expired, or because it never existed
+	 */
+	public long getMissCount() {
+		return myMissCount.sum();
+	}
+
+	/**
+	 * Returns the number of result lists which have been discarded because of the size limit
+	 * or because they expired
+	 */
+	public long getEvictionCount() {
+		return myEvictionCount.sum();
+	}
+
+	/**
+	 * Returns the approximate number of result lists currently stored
+	 */
+	public long getEstimatedSize() {
+		return myBundleProviders.estimatedSize();
+	}
+
+	/**
+	 * Performs any pending evictions immediately
+	 */
+	@VisibleForTesting
+	void cleanUp() {
+		myBundleProviders.cleanUp();
+	}
+
+	/**
+	 * Creates a paging provider which limits the total number of resources in the stored result
+	 * lists, rather than the number of lists. Since result lists may be loaded lazily,
+	 * {@link IBundleProvider#size()} is used as an estimate of the number of resources in each,
+	 * falling back to the default page size if the size isn't known.
+	 *
+	 * @param theMaximumResourceCount    The maximum total number of resources in the stored result lists
+	 * @param theExpireAfterAccessMillis Result lists which haven't been accessed for this long are discarded
+	 */
+	public static CachingMemoryPagingProvider forMaximumResourceCount(
+			long theMaximumResourceCount, long theExpireAfterAccessMillis) {
+		return new CachingMemoryPagingProvider(
+				theMaximumResourceCount, theExpireAfterAccessMillis, true, System::nanoTime);
+	}
+
+	private int estimateResourceCount(IBundleProvider theBundleProvider) {
+		Integer size = theBundleProvider.size();
+		if (size == null) {
+			return getDefaultPageSize();
+		}
+		return Math.max(size, 1);
+	}
+}
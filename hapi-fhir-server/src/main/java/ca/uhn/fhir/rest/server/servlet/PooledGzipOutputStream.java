@@ -0,0 +1,133 @@
+/*-
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.server.servlet;
+
+import ca.uhn.fhir.i18n.Msg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes GZIP compressed data in the same format as {@link java.util.zip.GZIPOutputStream},
+ * but borrows its {@link Deflater} from a shared pool instead of creating a new one (which
+ * allocates a sizeable block of native memory) for every response. The deflater is reset and
+ * returned to the pool when the stream is closed.
+ *
+ * @since 7.4.0
+ */
+class PooledGzipOutputStream extends DeflaterOutputStream {
+
+	static final int MAX_POOLED_DEFLATERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final byte[] HEADER = {
+		(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+	};
+	private static final Queue<Deflater> ourDeflaterPool = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger ourDeflaterPoolSize = new AtomicInteger();
+
+	private final CRC32 myCrc = new CRC32();
+	private boolean myReleased;
+
+	/**
+	 * Constructor, which writes the GZIP header to the stream
+	 */
+	PooledGzipOutputStream(OutputStream theOutputStream) throws IOException {
+		super(theOutputStream, acquireDeflater(), BUFFER_SIZE);
+		try {
+			out.write(HEADER);
+		} catch (IOException e) {
+			releaseDeflater();
+			throw e;
+		}
+	}
+
+	@Override
+	public synchronized void write(byte[] theBytes, int theOffset, int theLength) throws IOException {
+		if (myReleased) {
+			throw new IOException(Msg.code(2554) + "Stream is closed");
+		}
+		super.write(theBytes, theOffset, theLength);
+		myCrc.update(theBytes, theOffset, theLength);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		// Once released, the deflater may already be in use by another stream
+		if (!myReleased && !def.finished()) {
+			def.finish();
+			while (!def.finished()) {
+				deflate();
+			}
+			byte[] trailer = new byte[8];
+			writeIntLittleEndian(trailer, 0, (int) myCrc.getValue());
+			writeIntLittleEndian(trailer, 4, (int) def.getBytesRead());
+			out.write(trailer);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			releaseDeflater();
+		}
+	}
+
+	private void releaseDeflater() {
+		if (!myReleased) {
+			myReleased = true;
+			def.reset();
+			if (ourDeflaterPoolSize.incrementAndGet() <= MAX_POOLED_DEFLATERS) {
+				ourDeflaterPool.add(def);
+			} else {
+				ourDeflaterPoolSize.decrementAndGet();
+				def.end();
+			}
+		}
+	}
+
+	private static Deflater acquireDeflater() {
+		Deflater retVal = ourDeflaterPool.poll();
+		if (retVal != null) {
+			ourDeflaterPoolSize.decrementAndGet();
+			return retVal;
+		}
+		return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	}
+
+	private static void writeIntLittleEndian(byte[] theBuffer, int theOffset, int theValue) {
+		theBuffer[theOffset] = (byte) theValue;
+		theBuffer[theOffset + 1] = (byte) (theValue >> 8);
+		theBuffer[theOffset + 2] = (byte) (theValue >> 16);
+		theBuffer[theOffset + 3] = (byte) (theValue >> 24);
+	}
+
+	static int getPooledDeflaterCount() {
+		return ourDeflaterPoolSize.get();
+	}
+}
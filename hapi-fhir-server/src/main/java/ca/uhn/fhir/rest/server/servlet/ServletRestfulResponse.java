@@ -22,6 +22,7 @@ package ca.uhn.fhir.rest.server.servlet;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.BaseRestfulResponse;
 import ca.uhn.fhir.util.IoUtil;
+import ca.uhn.fhir.util.Utf8OutputStreamWriter;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
@@ -31,12 +32,9 @@ import org.apache.commons.lang3.Validate;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.zip.GZIPOutputStream;
 
 public class ServletRestfulResponse extends BaseRestfulResponse<ServletRequestDetails> {
 
@@ -83,7 +81,7 @@ public class ServletRestfulResponse extends BaseRestfulResponse<ServletRequestDe
 		if (theRespondGzip) {
 			theHttpResponse.addHeader(Constants.HEADER_CONTENT_ENCODING, Constants.ENCODING_GZIP);
 			ServletOutputStream outputStream = theHttpResponse.getOutputStream();
-			myWriter = new OutputStreamWriter(new GZIPOutputStream(outputStream), StandardCharsets.UTF_8);
+			myWriter = new Utf8OutputStreamWriter(new PooledGzipOutputStream(outputStream));
 			return myWriter;
 		}
 
@@ -0,0 +1,119 @@
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachingMemoryPagingProviderTest {
+
+	@Test
+	public void testStoreAndRetrieve() {
+		CachingMemoryPagingProvider provider = new CachingMemoryPagingProvider(10);
+		SimpleBundleProvider list = new SimpleBundleProvider();
+
+		String id = provider.storeResultList(null, list);
+
+		assertSame(list, provider.retrieveResultList(null, id));
+		assertNull(provider.retrieveResultList(null, "foo"));
+		assertEquals(1, provider.getHitCount());
+		assertEquals(1, provider.getMissCount());
+		assertEquals(1, provider.getEstimatedSize());
+	}
+
+	@Test
+	public void testEvictBySize() {
+		CachingMemoryPagingProvider provider = new CachingMemoryPagingProvider(2);
+
+		for (int i = 0; i < 5; i++) {
+			provider.storeResultList(null, new SimpleBundleProvider());
+		}
+		provider.cleanUp();
+
+		assertEquals(2, provider.getEstimatedSize());
+		assertEquals(3, provider.getEvictionCount());
+	}
+
+	@Test
+	public void testEvictByResourceCount() {
+		CachingMemoryPagingProvider provider = CachingMemoryPagingProvider.forMaximumResourceCount(100, 60_000);
+
+		provider.storeResultList(null, newList(60));
+		provider.storeResultList(null, newList(30));
+		provider.cleanUp();
+		assertEquals(0, provider.getEvictionCount());
+
+		provider.storeResultList(null, newList(30));
+		provider.cleanUp();
+		assertEquals(1, provider.getEvictionCount());
+	}
+
+	@Test
+	public void testExpireAfterAccess() {
+		AtomicLong ticker = new AtomicLong();
+		CachingMemoryPagingProvider provider = new CachingMemoryPagingProvider(10, 200, ticker::get);
+		SimpleBundleProvider list = new SimpleBundleProvider();
+		String id = provider.storeResultList(null, list);
+
+		// Each access restarts the expiry time
+		ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+		assertSame(list, provider.retrieveResultList(null, id));
+		ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+		assertSame(list, provider.retrieveResultList(null, id));
+
+		ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+		assertNull(provider.retrieveResultList(null, id));
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		CachingMemoryPagingProvider provider = new CachingMemoryPagingProvider(100_000);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 1000; j++) {
+						IBundleProvider list = new SimpleBundleProvider();
+						String id = provider.storeResultList(null, list);
+						if (provider.retrieveResultList(null, id) != list) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> next : futures) {
+				assertTrue(next.get(1, TimeUnit.MINUTES));
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(8000, provider.getHitCount());
+	}
+
+	@Test
+	public void testInvalidSize() {
+		assertThrows(IllegalArgumentException.class, () -> new CachingMemoryPagingProvider(0));
+	}
+
+	private static SimpleBundleProvider newList(int theSize) {
+		List<IBaseResource> resources = new ArrayList<>(Collections.nCopies(theSize, null));
+		return new SimpleBundleProvider(resources);
+	}
+}
@@ -0,0 +1,62 @@
+package ca.uhn.fhir.rest.server.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledGzipOutputStreamTest {
+
+	@Test
+	public void testOutputIsReadableByGzipInputStream() throws IOException {
+		byte[] small = "Hello world".getBytes(StandardCharsets.UTF_8);
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < 100_000; i++) {
+			b.append("Value ").append(i).append(" - é中\n");
+		}
+		byte[] large = b.toString().getBytes(StandardCharsets.UTF_8);
+
+		// Several rounds so that pooled deflaters are reused
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(small, gunzip(gzip(small)));
+			assertArrayEquals(large, gunzip(gzip(large)));
+			assertArrayEquals(new byte[0], gunzip(gzip(new byte[0])));
+		}
+		assertTrue(PooledGzipOutputStream.getPooledDeflaterCount() > 0);
+		assertTrue(PooledGzipOutputStream.getPooledDeflaterCount() <= PooledGzipOutputStream.MAX_POOLED_DEFLATERS);
+	}
+
+	@Test
+	public void testWriteAfterClose() throws IOException {
+		PooledGzipOutputStream stream = new PooledGzipOutputStream(new ByteArrayOutputStream());
+		stream.write(1);
+		stream.close();
+		stream.close();
+
+		assertThrows(IOException.class, () -> stream.write(1));
+	}
+
+	private static byte[] gzip(byte[] theInput) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (PooledGzipOutputStream stream = new PooledGzipOutputStream(bos)) {
+			// Write in chunks to exercise the CRC calculation across writes
+			for (int i = 0; i < theInput.length; i += 1000) {
+				stream.write(theInput, i, Math.min(1000, theInput.length - i));
+			}
+		}
+		return bos.toByteArray();
+	}
+
+	private static byte[] gunzip(byte[] theInput) throws IOException {
+		try (GZIPInputStream stream = new GZIPInputStream(new ByteArrayInputStream(theInput))) {
+			return stream.readAllBytes();
+		}
+	}
+}
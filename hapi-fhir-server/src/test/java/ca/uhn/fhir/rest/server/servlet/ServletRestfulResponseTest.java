@@ -1,7 +1,9 @@
 package ca.uhn.fhir.rest.server.servlet;
 
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.server.RestfulServer;
+import ca.uhn.fhir.util.Utf8OutputStreamWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,10 +12,19 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -54,6 +65,38 @@ public class ServletRestfulResponseTest {
 		verify(servletResponse).setHeader(eq("Cache-Control"), eq("no-cache, no-store"));
 	}
 
+	@Test
+	public void testGzipResponseWriter() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		when(servletResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener theWriteListener) {
+				// nothing
+			}
+
+			@Override
+			public void write(int theByte) {
+				bytes.write(theByte);
+			}
+		});
+
+		final ServletRestfulResponse response = new ServletRestfulResponse(requestDetails);
+		Writer writer = response.getResponseWriter(200, "application/fhir+json", "UTF-8", true);
+		assertInstanceOf(Utf8OutputStreamWriter.class, writer);
+		writer.write("{\"text\":\"é中\"}");
+		response.commitResponse(writer);
+
+		verify(servletResponse).addHeader(eq(Constants.HEADER_CONTENT_ENCODING), eq(Constants.ENCODING_GZIP));
+		try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals("{\"text\":\"é中\"}", new String(gunzip.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
 	@Test
 	public void testSanitizeHeaderField() {
 		assertEquals("AB", ServletRestfulResponse.sanitizeHeaderField("A\nB"));
@@ -20,6 +20,8 @@ package ca.uhn.fhir.sl.cache;
  * #L%
  */
 
+import ca.uhn.fhir.i18n.Msg;
+
 import java.util.Map;
 import java.util.function.Function;
 
@@ -50,4 +52,14 @@ public interface Cache<K, V> {
 	long estimatedSize();
 
 	void cleanUp();
+
+	/**
+	 * Returns a live view of the entries currently held by this cache. Iterating the view does not
+	 * affect the expiry or eviction order of the entries.
+	 *
+	 * @since 7.4.0
+	 */
+	default Map<K, V> asMap() {
+		throw new UnsupportedOperationException(Msg.code(2530) + getClass().getName() + " does not support asMap()");
+	}
 }
@@ -24,6 +24,9 @@ import ca.uhn.fhir.i18n.Msg;
 
 import java.util.Iterator;
 import java.util.ServiceLoader;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
 
 @SuppressWarnings("unchecked")
 public class CacheFactory {
@@ -62,4 +65,42 @@ public class CacheFactory {
 		CacheProvider<K, V> cacheProvider = getCacheProvider();
 		return cacheProvider.create(theTimeoutMillis, theMaximumSize, cacheLoader);
 	}
+
+	/**
+	 * @see CacheProvider#createWeighted(long, long, ToIntBiFunction)
+	 * @since 7.4.0
+	 */
+	public static <K, V> Cache<K, V> buildWeighted(
+			long theTimeoutMillis, long theMaximumWeight, ToIntBiFunction<K, V> theWeigher) {
+		CacheProvider<K, V> cacheProvider = getCacheProvider();
+		return cacheProvider.createWeighted(theTimeoutMillis, theMaximumWeight, theWeigher);
+	}
+
+	/**
+	 * @see CacheProvider#createExpiringAfterAccess(long, long, ToIntBiFunction, BiConsumer, LongSupplier)
+	 * @since 7.4.0
+	 */
+	public static <K, V> Cache<K, V> buildExpiringAfterAccess(
+			long theTimeoutMillis,
+			long theMaximumWeight,
+			ToIntBiFunction<K, V> theWeigher,
+			BiConsumer<K, V> theEvictionListener) {
+		return buildExpiringAfterAccess(
+				theTimeoutMillis, theMaximumWeight, theWeigher, theEvictionListener, System::nanoTime);
+	}
+
+	/**
+	 * @see CacheProvider#createExpiringAfterAccess(long, long, ToIntBiFunction, BiConsumer, LongSupplier)
+	 * @since 7.4.0
+	 */
+	public static <K, V> Cache<K, V> buildExpiringAfterAccess(
+			long theTimeoutMillis,
+			long theMaximumWeight,
+			ToIntBiFunction<K, V> theWeigher,
+			BiConsumer<K, V> theEvictionListener,
+			LongSupplier theTicker) {
+		CacheProvider<K, V> cacheProvider = getCacheProvider();
+		return cacheProvider.createExpiringAfterAccess(
+				theTimeoutMillis, theMaximumWeight, theWeigher, theEvictionListener, theTicker);
+	}
 }
@@ -20,6 +20,25 @@ package ca.uhn.fhir.sl.cache;
  * #L%
  */
 
+import ca.uhn.fhir.i18n.Msg;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Creates the caches returned by {@link CacheFactory}. Implementations are discovered using the
+ * {@link java.util.ServiceLoader}, and HAPI FHIR provides implementations backed by Caffeine
+ * (<code>hapi-fhir-caching-caffeine</code>) and by Guava (<code>hapi-fhir-caching-guava</code>).
+ * <p>
+ * <b>Custom implementations must override {@link #createWeighted(long, long, ToIntBiFunction)} and
+ * {@link #createExpiringAfterAccess(long, long, ToIntBiFunction, BiConsumer, LongSupplier)}</b>,
+ * which were added in HAPI FHIR 7.4.0. Their default implementations throw an
+ * {@link UnsupportedOperationException}, so components which need these caches (such as
+ * <code>CachingValidationSupport</code> and <code>CachingMemoryPagingProvider</code>) fail
+ * when they are created if an implementation doesn't provide them.
+ * </p>
+ */
 public interface CacheProvider<K, V> {
 	Cache create(long timeoutMillis);
 
@@ -28,4 +47,40 @@ public interface CacheProvider<K, V> {
 	LoadingCache create(long timeoutMillis, CacheLoader<K, V> cacheLoader);
 
 	LoadingCache create(long timeoutMillis, long maximumSize, CacheLoader<K, V> cacheLoader);
+
+	/**
+	 * Creates a cache whose entries expire a fixed time after they were written, and which evicts
+	 * entries once the total weight of its entries exceeds the given maximum. Unlike
+	 * {@link #create(long, long)}, this lets a cache holding values of very different sizes
+	 * bound the memory it uses rather than the number of entries.
+	 *
+	 * @throws UnsupportedOperationException If this provider doesn't support weighted caches, which is
+	 *                                       the default
+	 * @since 7.4.0
+	 */
+	default Cache<K, V> createWeighted(long theTimeoutMillis, long theMaximumWeight, ToIntBiFunction<K, V> theWeigher) {
+		throw new UnsupportedOperationException(
+				Msg.code(2531) + getClass().getName() + " does not support weighted caches");
+	}
+
+	/**
+	 * Creates a cache whose entries expire once they haven't been read or written for the given
+	 * time, and which evicts entries once the total weight of its entries exceeds the given maximum.
+	 *
+	 * @param theEvictionListener Invoked for each entry which is removed due to its weight or expiry
+	 * @param theTicker           The time source used to determine when entries expire, returning
+	 *                            nanoseconds like {@link System#nanoTime()}
+	 * @throws UnsupportedOperationException If this provider doesn't support caches which expire after
+	 *                                       access, which is the default
+	 * @since 7.4.0
+	 */
+	default Cache<K, V> createExpiringAfterAccess(
+			long theTimeoutMillis,
+			long theMaximumWeight,
+			ToIntBiFunction<K, V> theWeigher,
+			BiConsumer<K, V> theEvictionListener,
+			LongSupplier theTicker) {
+		throw new UnsupportedOperationException(
+				Msg.code(2529) + getClass().getName() + " does not support caches which expire after access");
+	}
 }
@@ -80,4 +80,9 @@ public class CacheDelegator<K, V> implements ca.uhn.fhir.sl.cache.Cache<K, V> {
 	public void cleanUp() {
 		cache.cleanUp();
 	}
+
+	@Override
+	public Map<K, V> asMap() {
+		return cache.asMap();
+	}
 }
@@ -26,6 +26,9 @@ import ca.uhn.fhir.sl.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
 
 public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K, V> {
 
@@ -60,4 +63,33 @@ public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K
 				.maximumSize(maximumSize)
 				.build(loading::load));
 	}
+
+	@Override
+	public Cache<K, V> createWeighted(long theTimeoutMillis, long theMaximumWeight, ToIntBiFunction<K, V> theWeigher) {
+		return new CacheDelegator<K, V>(Caffeine.newBuilder()
+				.expireAfterWrite(theTimeoutMillis, TimeUnit.MILLISECONDS)
+				.maximumWeight(theMaximumWeight)
+				.weigher(theWeigher::applyAsInt)
+				.build());
+	}
+
+	@Override
+	public Cache<K, V> createExpiringAfterAccess(
+			long theTimeoutMillis,
+			long theMaximumWeight,
+			ToIntBiFunction<K, V> theWeigher,
+			BiConsumer<K, V> theEvictionListener,
+			LongSupplier theTicker) {
+		return new CacheDelegator<K, V>(Caffeine.newBuilder()
+				.expireAfterAccess(theTimeoutMillis, TimeUnit.MILLISECONDS)
+				.ticker(theTicker::getAsLong)
+				.maximumWeight(theMaximumWeight)
+				.weigher(theWeigher::applyAsInt)
+				.<K, V>evictionListener((k, v, cause) -> {
+					if (cause.wasEvicted()) {
+						theEvictionListener.accept(k, v);
+					}
+				})
+				.build());
+	}
 }
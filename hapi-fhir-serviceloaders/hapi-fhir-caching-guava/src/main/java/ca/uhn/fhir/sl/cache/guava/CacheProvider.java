@@ -23,9 +23,13 @@ package ca.uhn.fhir.sl.cache.guava;
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheLoader;
 import ca.uhn.fhir.sl.cache.LoadingCache;
+import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
 
 public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K, V> {
 
@@ -64,4 +68,38 @@ public class CacheProvider<K, V> implements ca.uhn.fhir.sl.cache.CacheProvider<K
 					}
 				}));
 	}
+
+	@Override
+	public Cache<K, V> createWeighted(long theTimeoutMillis, long theMaximumWeight, ToIntBiFunction<K, V> theWeigher) {
+		return new CacheDelegator<K, V>(CacheBuilder.newBuilder()
+				.expireAfterWrite(theTimeoutMillis, TimeUnit.MILLISECONDS)
+				.maximumWeight(theMaximumWeight)
+				.weigher(theWeigher::applyAsInt)
+				.build());
+	}
+
+	@Override
+	public Cache<K, V> createExpiringAfterAccess(
+			long theTimeoutMillis,
+			long theMaximumWeight,
+			ToIntBiFunction<K, V> theWeigher,
+			BiConsumer<K, V> theEvictionListener,
+			LongSupplier theTicker) {
+		return new CacheDelegator<K, V>(CacheBuilder.newBuilder()
+				.expireAfterAccess(theTimeoutMillis, TimeUnit.MILLISECONDS)
+				.ticker(new Ticker() {
+					@Override
+					public long read() {
+						return theTicker.getAsLong();
+					}
+				})
+				.maximumWeight(theMaximumWeight)
+				.weigher(theWeigher::applyAsInt)
+				.<K, V>removalListener(notification -> {
+					if (notification.wasEvicted()) {
+						theEvictionListener.accept(notification.getKey(), notification.getValue());
+					}
+				})
+				.build());
+	}
 }
@@ -144,6 +144,11 @@ public class BulkExportAppCtx {
 		return new ExpandResourceAndWriteBinaryStep();
 	}
 
+	@Bean
+	public NdJsonBinaryContentStreamer ndJsonBinaryContentStreamer() {
+		return new NdJsonBinaryContentStreamer();
+	}
+
 	@Bean
 	@Scope("prototype")
 	public BulkExportCreateReportStep createReportStep() {
@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.rest.param.TokenOrListParam;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static ca.uhn.fhir.rest.api.Constants.PARAM_ID;
+
+/**
+ * Fetches the resources for a bulk export work chunk by ID, keeping them in the order of
+ * their IDs. This is shared by {@link ExpandResourcesStep} and
+ * {@link ExpandResourceAndWriteBinaryStep}.
+ */
+public class BulkExportResourceFetcher {
+
+	private final DaoRegistry myDaoRegistry;
+	private final IIdHelperService myIdHelperService;
+	private final IHapiTransactionService myTransactionService;
+	private final JpaStorageSettings myStorageSettings;
+	private final IInterceptorService myInterceptorService;
+
+	/**
+	 * Constructor
+	 */
+	public BulkExportResourceFetcher(
+			DaoRegistry theDaoRegistry,
+			IIdHelperService theIdHelperService,
+			IHapiTransactionService theTransactionService,
+			JpaStorageSettings theStorageSettings,
+			IInterceptorService theInterceptorService) {
+		myDaoRegistry = theDaoRegistry;
+		myIdHelperService = theIdHelperService;
+		myTransactionService = theTransactionService;
+		myStorageSettings = theStorageSettings;
+		myInterceptorService = theInterceptorService;
+	}
+
+	/**
+	 * Resources can only be written directly from their stored JSON if nothing needs to
+	 * inspect or modify the parsed resource on the way out
+	 */
+	public boolean isRawPassThroughPossible(BulkExportJobParameters theParameters, String theResourceType) {
+		boolean hasPostFetchFilterUrls = theParameters.getPostFetchFilterUrls().stream()
+				.anyMatch(t -> t.substring(0, t.indexOf('?')).equals(theResourceType));
+		return myStorageSettings.isBulkExportRawResourcePassThroughEnabled()
+				&& !hasPostFetchFilterUrls
+				&& !theParameters.isExpandMdm()
+				&& !myStorageSettings.isNormalizeTerminologyForBulkExportJobs()
+				&& !myInterceptorService.hasHooks(Pointcut.STORAGE_PREACCESS_RESOURCES)
+				&& !myInterceptorService.hasHooks(Pointcut.STORAGE_PRESHOW_RESOURCES)
+				&& !myInterceptorService.hasHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION);
+	}
+
+	/**
+	 * @return The resources with the given IDs, in the same order as the IDs and with a null entry for
+	 * any which weren't found. Any other resources returned by the search follow these.
+	 */
+	public List<IBaseResource> fetchResourcesInIdOrder(
+			String theResourceType, List<String> theIds, RequestPartitionId theRequestPartitionId) {
+		IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(theResourceType);
+
+		Map<String, IResourcePersistentId> idToPid = new HashMap<>();
+		theIds.forEach(t -> idToPid.put(t, myIdHelperService.newPidFromStringIdAndResourceName(t, theResourceType)));
+		Set<IResourcePersistentId> nextBatchOfPids = new HashSet<>(idToPid.values());
+
+		PersistentIdToForcedIdMap nextBatchOfResourceIds = myTransactionService
+				.withRequest(null)
+				.execute(() -> myIdHelperService.translatePidsToForcedIds(nextBatchOfPids));
+
+		TokenOrListParam idListParam = new TokenOrListParam();
+		for (IResourcePersistentId nextPid : nextBatchOfPids) {
+			idListParam.add(toResourceId(nextBatchOfResourceIds, nextPid));
+		}
+
+		SearchParameterMap spMap = SearchParameterMap.newSynchronous().add(PARAM_ID, idListParam);
+		IBundleProvider outcome =
+				dao.search(spMap, new SystemRequestDetails().setRequestPartitionId(theRequestPartitionId));
+
+		// The search results aren't in any particular order, so match them back up with their IDs
+		Map<String, IBaseResource> resourceIdToResource = new LinkedHashMap<>();
+		for (IBaseResource next : outcome.getAllResources()) {
+			resourceIdToResource.put(next.getIdElement().getIdPart(), next);
+		}
+
+		List<IBaseResource> retVal = new ArrayList<>(theIds.size() + resourceIdToResource.size());
+		for (String nextId : theIds) {
+			retVal.add(resourceIdToResource.remove(toResourceId(nextBatchOfResourceIds, idToPid.get(nextId))));
+		}
+		retVal.addAll(resourceIdToResource.values());
+		return retVal;
+	}
+
+	private static String toResourceId(
+			PersistentIdToForcedIdMap theResourceIds, IResourcePersistentId theResourcePersistentId) {
+		Optional<String> resourceId = theResourceIds.get(theResourcePersistentId);
+		return resourceId.orElse(theResourcePersistentId.getId().toString());
+	}
+}
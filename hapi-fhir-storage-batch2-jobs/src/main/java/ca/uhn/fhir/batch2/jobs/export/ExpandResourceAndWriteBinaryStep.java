@@ -38,22 +38,17 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
-import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.util.JpaConstants;
-import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
 import ca.uhn.fhir.jpa.util.RandomTextUtils;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.api.Constants;
-import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
-import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
-import ca.uhn.fhir.rest.param.TokenOrListParam;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
 import ca.uhn.fhir.util.BinaryUtil;
@@ -79,12 +74,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import static ca.uhn.fhir.rest.api.Constants.PARAM_ID;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -98,6 +91,9 @@ public class ExpandResourceAndWriteBinaryStep
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
+	@Autowired
+	private NdJsonBinaryContentStreamer myNdJsonBinaryContentStreamer;
+
 	@Autowired
 	private InMemoryResourceMatcher myInMemoryResourceMatcher;
 
@@ -133,10 +129,13 @@ public class ExpandResourceAndWriteBinaryStep
 	 * at any given time, so this class works a bit like a stream processor
 	 * (although not using Java streams).
 	 * <p>
-	 * The {@link #fetchResourcesByIdAndConsumeThem(ResourceIdList, RequestPartitionId, Consumer)}
+	 * The {@link #fetchResourcesByIdAndConsumeThem(ResourceIdList, BulkExportJobParameters, ExpandResourcesConsumer)}
 	 * method loads the resources by ID, {@link ExpandResourcesConsumer} handles
 	 * the filtering and whatnot, then the {@link NdJsonResourceWriter}
-	 * ultimately writes them.
+	 * ultimately writes them. Resources which don't need any of that are
+	 * fetched already encoded from the {@link IBulkExportProcessor} where
+	 * possible, and go straight to the writer. Either way, each batch is
+	 * written in the order of its resource IDs.
 	 */
 	@Nonnull
 	@Override
@@ -161,23 +160,26 @@ public class ExpandResourceAndWriteBinaryStep
 		ResourceIdList idList = theStepExecutionDetails.getData();
 		BulkExportJobParameters parameters = theStepExecutionDetails.getParameters();
 
-		Consumer<List<IBaseResource>> resourceListConsumer =
+		ExpandResourcesConsumer resourceListConsumer =
 				new ExpandResourcesConsumer(theStepExecutionDetails, theResourceWriter);
 
 		// search the resources
-		fetchResourcesByIdAndConsumeThem(idList, parameters.getPartitionId(), resourceListConsumer);
+		fetchResourcesByIdAndConsumeThem(idList, parameters, resourceListConsumer);
 	}
 
 	private void fetchResourcesByIdAndConsumeThem(
 			ResourceIdList theIds,
-			RequestPartitionId theRequestPartitionId,
-			Consumer<List<IBaseResource>> theResourceListConsumer) {
+			BulkExportJobParameters theParameters,
+			ExpandResourcesConsumer theResourceListConsumer) {
+		RequestPartitionId requestPartitionId = theParameters.getPartitionId();
 		ArrayListMultimap<String, String> typeToIds = ArrayListMultimap.create();
 		theIds.getIds().forEach(t -> typeToIds.put(t.getResourceType(), t.getId()));
 
+		BulkExportResourceFetcher resourceFetcher = newResourceFetcher();
+		boolean rawPassThrough = resourceFetcher.isRawPassThroughPossible(theParameters, theIds.getResourceType());
+
 		for (String resourceType : typeToIds.keySet()) {
 
-			IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(resourceType);
 			List<String> allIds = typeToIds.get(resourceType);
 			while (!allIds.isEmpty()) {
 
@@ -185,29 +187,36 @@ public class ExpandResourceAndWriteBinaryStep
 				// single SQ statement at once
 				int batchSize = Math.min(500, allIds.size());
 
-				Set<IResourcePersistentId> nextBatchOfPids = allIds.subList(0, batchSize).stream()
-						.map(t -> myIdHelperService.newPidFromStringIdAndResourceName(t, resourceType))
-						.collect(Collectors.toSet());
+				List<String> nextBatchOfIds = allIds.subList(0, batchSize);
 				allIds = allIds.subList(batchSize, allIds.size());
 
-				PersistentIdToForcedIdMap nextBatchOfResourceIds = myTransactionService
-						.withRequest(null)
-						.execute(() -> myIdHelperService.translatePidsToForcedIds(nextBatchOfPids));
-
-				TokenOrListParam idListParam = new TokenOrListParam();
-				for (IResourcePersistentId nextPid : nextBatchOfPids) {
-					Optional<String> resourceId = nextBatchOfResourceIds.get(nextPid);
-					idListParam.add(resourceId.orElse(nextPid.getId().toString()));
+				// Resources which don't need to be inspected are copied straight from storage
+				if (rawPassThrough) {
+					Map<String, String> encoded = myBulkExportProcessor.fetchEncodedResources(
+							resourceType, nextBatchOfIds, requestPartitionId);
+					List<String> idsToFetch = nextBatchOfIds.stream()
+							.filter(t -> !encoded.containsKey(t))
+							.collect(Collectors.toList());
+					List<IBaseResource> fetched = idsToFetch.isEmpty()
+							? List.of()
+							: resourceFetcher.fetchResourcesInIdOrder(resourceType, idsToFetch, requestPartitionId);
+					theResourceListConsumer.acceptEncoded(resourceType, nextBatchOfIds, encoded, fetched);
+					continue;
 				}
 
-				SearchParameterMap spMap = SearchParameterMap.newSynchronous().add(PARAM_ID, idListParam);
-				IBundleProvider outcome =
-						dao.search(spMap, new SystemRequestDetails().setRequestPartitionId(theRequestPartitionId));
-				theResourceListConsumer.accept(outcome.getAllResources());
+				List<IBaseResource> resources =
+						resourceFetcher.fetchResourcesInIdOrder(resourceType, nextBatchOfIds, requestPartitionId);
+				resources.removeIf(Objects::isNull);
+				theResourceListConsumer.accept(resources);
 			}
 		}
 	}
 
+	private BulkExportResourceFetcher newResourceFetcher() {
+		return new BulkExportResourceFetcher(
+				myDaoRegistry, myIdHelperService, myTransactionService, myStorageSettings, myInterceptorService);
+	}
+
 	/**
 	 * Adds 3 extensions to the `binary.meta` element.
 	 *
@@ -342,37 +351,8 @@ public class ExpandResourceAndWriteBinaryStep
 			Map<String, Integer> resourceTypeToTotalSize = new HashMap<>();
 			for (IBaseResource resource : theResources) {
 				String type = myFhirContext.getResourceType(resource);
-				int existingSize = resourceTypeToTotalSize.getOrDefault(type, 0);
-
 				String jsonResource = parser.encodeResourceToString(resource);
-				int newSize = existingSize + jsonResource.length();
-
-				// If adding another stringified resource to the list for the given type
-				// would exceed the configured maximum allowed, then let's send the current
-				// list and flush it. Note that if a single resource exceeds the configurable
-				// maximum then we have no choice but to send it
-				long bulkExportFileMaximumSize = myStorageSettings.getBulkExportFileMaximumSize();
-				if (newSize > bulkExportFileMaximumSize) {
-					if (existingSize == 0) {
-						// If no files are already in the collection, then this one file
-						// is bigger than the maximum allowable. We'll allow it in that
-						// case
-						ourLog.warn(
-								"Single resource size {} exceeds allowable maximum of {}, so will ignore maximum",
-								newSize,
-								bulkExportFileMaximumSize);
-					} else {
-						// Otherwise, flush the contents now before adding the next file
-						List<String> stringifiedResources = resourceTypeToStringifiedResources.get(type);
-						writeStringifiedResources(type, stringifiedResources);
-
-						resourceTypeToStringifiedResources.removeAll(type);
-						newSize = jsonResource.length();
-					}
-				}
-
-				resourceTypeToStringifiedResources.put(type, jsonResource);
-				resourceTypeToTotalSize.put(type, newSize);
+				addStringifiedResource(type, jsonResource, resourceTypeToStringifiedResources, resourceTypeToTotalSize);
 			}
 
 			for (String nextResourceType : resourceTypeToStringifiedResources.keySet()) {
@@ -381,6 +361,81 @@ public class ExpandResourceAndWriteBinaryStep
 			}
 		}
 
+		/**
+		 * Writes a batch of resources which don't need any of the processing done by
+		 * {@link #accept(List)}, in the order of the given IDs. Resources which couldn't be
+		 * fetched already encoded are in the fetched list, in the same order as their IDs
+		 * and with a null entry for any which weren't found.
+		 */
+		public void acceptEncoded(
+				String theResourceType,
+				List<String> theIds,
+				Map<String, String> theEncodedResources,
+				List<IBaseResource> theFetchedResources) {
+			IParser parser = getParser(myStepExecutionDetails.getParameters());
+			Iterator<IBaseResource> fetchedResources = theFetchedResources.iterator();
+
+			ListMultimap<String, String> resourceTypeToStringifiedResources = ArrayListMultimap.create();
+			Map<String, Integer> resourceTypeToTotalSize = new HashMap<>();
+			for (String nextId : theIds) {
+				String jsonResource = theEncodedResources.get(nextId);
+				if (jsonResource == null) {
+					IBaseResource nextResource = fetchedResources.next();
+					if (nextResource == null) {
+						continue;
+					}
+					jsonResource = parser.encodeResourceToString(nextResource);
+				}
+				addStringifiedResource(
+						theResourceType, jsonResource, resourceTypeToStringifiedResources, resourceTypeToTotalSize);
+			}
+
+			// Anything the search returned which doesn't match one of the IDs goes at the end
+			while (fetchedResources.hasNext()) {
+				String jsonResource = parser.encodeResourceToString(fetchedResources.next());
+				addStringifiedResource(
+						theResourceType, jsonResource, resourceTypeToStringifiedResources, resourceTypeToTotalSize);
+			}
+
+			writeStringifiedResources(theResourceType, resourceTypeToStringifiedResources.get(theResourceType));
+		}
+
+		private void addStringifiedResource(
+				String theResourceType,
+				String theJsonResource,
+				ListMultimap<String, String> theResourceTypeToStringifiedResources,
+				Map<String, Integer> theResourceTypeToTotalSize) {
+			int existingSize = theResourceTypeToTotalSize.getOrDefault(theResourceType, 0);
+			int newSize = existingSize + theJsonResource.length();
+
+			// If adding another stringified resource to the list for the given type
+			// would exceed the configured maximum allowed, then let's send the current
+			// list and flush it. Note that if a single resource exceeds the configurable
+			// maximum then we have no choice but to send it
+			long bulkExportFileMaximumSize = myStorageSettings.getBulkExportFileMaximumSize();
+			if (newSize > bulkExportFileMaximumSize) {
+				if (existingSize == 0) {
+					// If no files are already in the collection, then this one file
+					// is bigger than the maximum allowable. We'll allow it in that
+					// case
+					ourLog.warn(
+							"Single resource size {} exceeds allowable maximum of {}, so will ignore maximum",
+							newSize,
+							bulkExportFileMaximumSize);
+				} else {
+					// Otherwise, flush the contents now before adding the next file
+					List<String> stringifiedResources = theResourceTypeToStringifiedResources.get(theResourceType);
+					writeStringifiedResources(theResourceType, stringifiedResources);
+
+					theResourceTypeToStringifiedResources.removeAll(theResourceType);
+					newSize = theJsonResource.length();
+				}
+			}
+
+			theResourceTypeToStringifiedResources.put(theResourceType, theJsonResource);
+			theResourceTypeToTotalSize.put(theResourceType, newSize);
+		}
+
 		private void writeStringifiedResources(String theResourceType, List<String> theStringifiedResources) {
 			if (!theStringifiedResources.isEmpty()) {
 
@@ -485,27 +540,6 @@ public class ExpandResourceAndWriteBinaryStep
 
 			binary.setContentType(Constants.CT_FHIR_NDJSON);
 
-			int processedRecordsCount = 0;
-			try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-				try (OutputStreamWriter streamWriter = getStreamWriter(outputStream)) {
-					for (String stringified : theExpandedResourcesList.getStringifiedResources()) {
-						streamWriter.append(stringified);
-						streamWriter.append("\n");
-						processedRecordsCount++;
-					}
-					streamWriter.flush();
-					outputStream.flush();
-				}
-				binary.setContent(outputStream.toByteArray());
-			} catch (IOException ex) {
-				String errorMsg = String.format(
-						"Failure to process resource of type %s : %s",
-						theExpandedResourcesList.getResourceType(), ex.getMessage());
-				ourLog.error(errorMsg);
-
-				throw new JobExecutionFailedException(Msg.code(2431) + errorMsg);
-			}
-
 			SystemRequestDetails srd = new SystemRequestDetails();
 			BulkExportJobParameters jobParameters = myStepExecutionDetails.getParameters();
 			RequestPartitionId partitionId = jobParameters.getPartitionId();
@@ -537,6 +571,38 @@ public class ExpandResourceAndWriteBinaryStep
 				break;
 			}
 
+			int processedRecordsCount = 0;
+			try {
+				// Files large enough to be externalized are streamed straight into binary storage
+				// instead of being assembled in memory first
+				List<String> stringifiedResources = theExpandedResourcesList.getStringifiedResources();
+				long minimumSize = NdJsonBinaryContentStreamer.getMinimumSize(stringifiedResources);
+				if (myNdJsonBinaryContentStreamer.streamToBinaryStorage(
+						binary, minimumSize, stringifiedResources.iterator(), srd)) {
+					processedRecordsCount = stringifiedResources.size();
+				} else {
+					try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+						try (OutputStreamWriter streamWriter = getStreamWriter(outputStream)) {
+							for (String stringified : stringifiedResources) {
+								streamWriter.append(stringified);
+								streamWriter.append("\n");
+								processedRecordsCount++;
+							}
+							streamWriter.flush();
+							outputStream.flush();
+						}
+						binary.setContent(outputStream.toByteArray());
+					}
+				}
+			} catch (IOException ex) {
+				String errorMsg = String.format(
+						"Failure to process resource of type %s : %s",
+						theExpandedResourcesList.getResourceType(), ex.getMessage());
+				ourLog.error(errorMsg);
+
+				throw new JobExecutionFailedException(Msg.code(2431) + errorMsg);
+			}
+
 			if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
 				if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
 						|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
@@ -552,7 +618,13 @@ public class ExpandResourceAndWriteBinaryStep
 				}
 			}
 
-			DaoMethodOutcome outcome = binaryDao.update(binary, srd);
+			DaoMethodOutcome outcome;
+			try {
+				outcome = binaryDao.update(binary, srd);
+			} catch (RuntimeException e) {
+				myNdJsonBinaryContentStreamer.expungeStreamedContent(binary);
+				throw e;
+			}
 			IIdType id = outcome.getId();
 
 			BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
@@ -34,20 +34,14 @@ import ca.uhn.fhir.interceptor.executor.InterceptorService;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
-import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
-import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
-import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
 import ca.uhn.fhir.parser.IParser;
-import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
-import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
-import ca.uhn.fhir.rest.param.TokenOrListParam;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
@@ -60,13 +54,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
-import static ca.uhn.fhir.rest.api.Constants.PARAM_ID;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class ExpandResourcesStep
@@ -122,52 +116,26 @@ public class ExpandResourcesStep
 		// Partition the ID list in order to only fetch a reasonable number at a time
 		List<List<BatchResourceId>> idLists = ListUtils.partition(data.getIds(), 100);
 
-		for (List<BatchResourceId> idList : idLists) {
-
-			// search the resources
-			List<IBaseResource> allResources = fetchAllResources(idList, parameters.getPartitionId());
-
-			// Apply post-fetch filtering
-			String resourceType = data.getResourceType();
-			List<String> postFetchFilterUrls = parameters.getPostFetchFilterUrls().stream()
-					.filter(t -> t.substring(0, t.indexOf('?')).equals(resourceType))
-					.collect(Collectors.toList());
-
-			if (!postFetchFilterUrls.isEmpty()) {
-				applyPostFetchFiltering(allResources, postFetchFilterUrls, instanceId, chunkId);
-			}
+		// Apply post-fetch filtering
+		String resourceType = data.getResourceType();
+		List<String> postFetchFilterUrls = parameters.getPostFetchFilterUrls().stream()
+				.filter(t -> t.substring(0, t.indexOf('?')).equals(resourceType))
+				.collect(Collectors.toList());
 
-			// if necessary, expand resources
-			if (parameters.isExpandMdm()) {
-				myBulkExportProcessor.expandMdmResources(allResources);
-			}
-
-			// Normalize terminology
-			if (myStorageSettings.isNormalizeTerminologyForBulkExportJobs()) {
-				ResponseTerminologyTranslationSvc terminologyTranslationSvc = myResponseTerminologyTranslationSvc;
-				if (terminologyTranslationSvc == null) {
-					terminologyTranslationSvc = myApplicationContext.getBean(ResponseTerminologyTranslationSvc.class);
-					myResponseTerminologyTranslationSvc = terminologyTranslationSvc;
-				}
-				terminologyTranslationSvc.processResourcesForTerminologyTranslation(allResources);
-			}
+		boolean rawPassThrough = newResourceFetcher().isRawPassThroughPossible(parameters, resourceType);
 
-			// Interceptor call
-			if (myInterceptorService.hasHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION)) {
-				for (Iterator<IBaseResource> iter = allResources.iterator(); iter.hasNext(); ) {
-					HookParams params = new HookParams()
-							.add(BulkExportJobParameters.class, theStepExecutionDetails.getParameters())
-							.add(IBaseResource.class, iter.next());
-					boolean outcome =
-							myInterceptorService.callHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION, params);
-					if (!outcome) {
-						iter.remove();
-					}
-				}
-			}
+		for (List<BatchResourceId> idList : idLists) {
 
 			// encode them - Key is resource type, Value is a collection of serialized resources of that type
-			ListMultimap<String, String> resources = encodeToString(allResources, parameters);
+			ListMultimap<String, String> resources;
+			if (rawPassThrough) {
+				// Resources which don't need to be inspected are copied straight from storage
+				resources = fetchEncodedResources(idList, parameters);
+			} else {
+				List<IBaseResource> allResources =
+						fetchAndProcessResources(theStepExecutionDetails, idList, postFetchFilterUrls);
+				resources = encodeToString(allResources, parameters);
+			}
 
 			// send to datasink
 			long maxFileSize = myStorageSettings.getBulkExportFileMaximumSize();
@@ -209,6 +177,104 @@ public class ExpandResourcesStep
 		return RunOutcome.SUCCESS;
 	}
 
+	/**
+	 * Fetches the given resources and applies any filtering and modifications needed before they are exported
+	 */
+	private List<IBaseResource> fetchAndProcessResources(
+			StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
+			List<BatchResourceId> theIds,
+			List<String> thePostFetchFilterUrls) {
+		String instanceId = theStepExecutionDetails.getInstance().getInstanceId();
+		String chunkId = theStepExecutionDetails.getChunkId();
+		BulkExportJobParameters parameters = theStepExecutionDetails.getParameters();
+
+		// search the resources
+		List<IBaseResource> allResources = fetchAllResources(theIds, parameters.getPartitionId());
+
+		if (!thePostFetchFilterUrls.isEmpty()) {
+			applyPostFetchFiltering(allResources, thePostFetchFilterUrls, instanceId, chunkId);
+		}
+
+		// if necessary, expand resources
+		if (parameters.isExpandMdm()) {
+			myBulkExportProcessor.expandMdmResources(allResources);
+		}
+
+		// Normalize terminology
+		if (myStorageSettings.isNormalizeTerminologyForBulkExportJobs()) {
+			ResponseTerminologyTranslationSvc terminologyTranslationSvc = myResponseTerminologyTranslationSvc;
+			if (terminologyTranslationSvc == null) {
+				terminologyTranslationSvc = myApplicationContext.getBean(ResponseTerminologyTranslationSvc.class);
+				myResponseTerminologyTranslationSvc = terminologyTranslationSvc;
+			}
+			terminologyTranslationSvc.processResourcesForTerminologyTranslation(allResources);
+		}
+
+		// Interceptor call
+		if (myInterceptorService.hasHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION)) {
+			for (Iterator<IBaseResource> iter = allResources.iterator(); iter.hasNext(); ) {
+				HookParams params = new HookParams()
+						.add(BulkExportJobParameters.class, parameters)
+						.add(IBaseResource.class, iter.next());
+				boolean outcome =
+						myInterceptorService.callHooks(Pointcut.STORAGE_BULK_EXPORT_RESOURCE_INCLUSION, params);
+				if (!outcome) {
+					iter.remove();
+				}
+			}
+		}
+
+		return allResources;
+	}
+
+	/**
+	 * Fetches the already encoded form of any of the given resources which can be passed through
+	 * without parsing, and fetches and encodes the rest normally. The resources are kept in the
+	 * order of the given IDs however they were fetched.
+	 *
+	 * @return A map - Key is resource type, Value is a collection of serialized resources of that type
+	 */
+	private ListMultimap<String, String> fetchEncodedResources(
+			List<BatchResourceId> theIds, BulkExportJobParameters theParameters) {
+		RequestPartitionId requestPartitionId = theParameters.getPartitionId();
+		ArrayListMultimap<String, String> typeToIds = ArrayListMultimap.create();
+		theIds.forEach(t -> typeToIds.put(t.getResourceType(), t.getId()));
+
+		// Key is resource type, Value is a map of ID to the encoded resource
+		Map<String, Map<String, String>> typeToEncodedResources = new HashMap<>();
+		for (String resourceType : typeToIds.keySet()) {
+			typeToEncodedResources.put(
+					resourceType,
+					myBulkExportProcessor.fetchEncodedResources(
+							resourceType, typeToIds.get(resourceType), requestPartitionId));
+		}
+
+		List<BatchResourceId> idsToFetch = theIds.stream()
+				.filter(t -> !typeToEncodedResources.get(t.getResourceType()).containsKey(t.getId()))
+				.collect(Collectors.toList());
+		Iterator<IBaseResource> fetchedResources =
+				fetchResourcesInIdOrder(idsToFetch, requestPartitionId).iterator();
+
+		IParser parser = getParser(theParameters);
+		ListMultimap<String, String> retVal = ArrayListMultimap.create();
+		for (BatchResourceId nextId : theIds) {
+			String nextEncoded = typeToEncodedResources.get(nextId.getResourceType()).get(nextId.getId());
+			if (nextEncoded == null) {
+				IBaseResource nextResource = fetchedResources.next();
+				if (nextResource == null) {
+					continue;
+				}
+				nextEncoded = parser.encodeResourceToString(nextResource);
+			}
+			retVal.put(nextId.getResourceType(), nextEncoded);
+		}
+
+		// Anything the search returned which doesn't match one of the IDs goes at the end
+		fetchedResources.forEachRemaining(
+				t -> retVal.put(myFhirContext.getResourceType(t), parser.encodeResourceToString(t)));
+		return retVal;
+	}
+
 	private void applyPostFetchFiltering(
 			List<IBaseResource> theResources,
 			List<String> thePostFetchFilterUrls,
@@ -253,39 +319,53 @@ public class ExpandResourcesStep
 		return false;
 	}
 
+	/**
+	 * @return The resources with the given IDs, in the same order as the IDs
+	 */
 	private List<IBaseResource> fetchAllResources(
 			List<BatchResourceId> theIds, RequestPartitionId theRequestPartitionId) {
+		List<IBaseResource> retVal = fetchResourcesInIdOrder(theIds, theRequestPartitionId);
+		retVal.removeIf(Objects::isNull);
+		return retVal;
+	}
+
+	/**
+	 * @return The resources with the given IDs, in the same order as the IDs and with a null entry for
+	 * any which weren't found. Any other resources returned by the search follow these.
+	 */
+	private List<IBaseResource> fetchResourcesInIdOrder(
+			List<BatchResourceId> theIds, RequestPartitionId theRequestPartitionId) {
 		ArrayListMultimap<String, String> typeToIds = ArrayListMultimap.create();
 		theIds.forEach(t -> typeToIds.put(t.getResourceType(), t.getId()));
 
-		List<IBaseResource> resources = new ArrayList<>(theIds.size());
+		// Key is resource type and ID, Value is the resource which was fetched for that ID
+		Map<String, IBaseResource> idToResource = new HashMap<>();
+		List<IBaseResource> unmatchedResources = new ArrayList<>();
 
+		BulkExportResourceFetcher resourceFetcher = newResourceFetcher();
 		for (String resourceType : typeToIds.keySet()) {
-
-			IFhirResourceDao<?> dao = myDaoRegistry.getResourceDao(resourceType);
 			List<String> allIds = typeToIds.get(resourceType);
-
-			Set<IResourcePersistentId> nextBatchOfPids = allIds.stream()
-					.map(t -> myIdHelperService.newPidFromStringIdAndResourceName(t, resourceType))
-					.collect(Collectors.toSet());
-
-			PersistentIdToForcedIdMap nextBatchOfResourceIds = myTransactionService
-					.withRequest(null)
-					.execute(() -> myIdHelperService.translatePidsToForcedIds(nextBatchOfPids));
-
-			TokenOrListParam idListParam = new TokenOrListParam();
-			for (IResourcePersistentId nextPid : nextBatchOfPids) {
-				Optional<String> resourceId = nextBatchOfResourceIds.get(nextPid);
-				idListParam.add(resourceId.orElse(nextPid.getId().toString()));
+			List<IBaseResource> fetched =
+					resourceFetcher.fetchResourcesInIdOrder(resourceType, allIds, theRequestPartitionId);
+			for (int i = 0; i < allIds.size(); i++) {
+				if (fetched.get(i) != null) {
+					idToResource.put(resourceType + "/" + allIds.get(i), fetched.get(i));
+				}
 			}
+			unmatchedResources.addAll(fetched.subList(allIds.size(), fetched.size()));
+		}
 
-			SearchParameterMap spMap = SearchParameterMap.newSynchronous().add(PARAM_ID, idListParam);
-			IBundleProvider outcome =
-					dao.search(spMap, new SystemRequestDetails().setRequestPartitionId(theRequestPartitionId));
-			resources.addAll(outcome.getAllResources());
+		List<IBaseResource> retVal = new ArrayList<>(theIds.size() + unmatchedResources.size());
+		for (BatchResourceId nextId : theIds) {
+			retVal.add(idToResource.remove(nextId.getResourceType() + "/" + nextId.getId()));
 		}
+		retVal.addAll(unmatchedResources);
+		return retVal;
+	}
 
-		return resources;
+	private BulkExportResourceFetcher newResourceFetcher() {
+		return new BulkExportResourceFetcher(
+				myDaoRegistry, myIdHelperService, myTransactionService, myStorageSettings, myInterceptorService);
 	}
 
 	/**
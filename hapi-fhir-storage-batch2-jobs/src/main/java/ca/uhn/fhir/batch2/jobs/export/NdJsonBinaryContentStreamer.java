@@ -0,0 +1,240 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2024 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binary.api.StoredDetails;
+import ca.uhn.fhir.jpa.binary.interceptor.BinaryStorageInterceptor;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.util.BinaryUtil;
+import ca.uhn.fhir.util.HapiExtensions;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseExtension;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Bulk export files which are large enough to be moved into binary storage when their
+ * Binary resource is saved are streamed into the {@link IBinaryStorageSvc} by this class
+ * instead, one resource at a time, so that the whole NDJSON file never needs to be
+ * assembled into a single string or byte array in memory. Lines are pulled from an
+ * iterator and converted to bytes only as the storage service reads them. The Binary is
+ * then saved with a reference to the stored content, exactly as the
+ * {@link BinaryStorageInterceptor} would have left it.
+ * <p>
+ * Streaming is only used if a {@link BinaryStorageInterceptor} is registered with the
+ * interceptor service, since that interceptor is what loads externalized content back into
+ * the Binary when it is read. Without it (or without an {@link IBinaryStorageSvc} bean)
+ * bulk export files are always stored inline in the Binary, and this class does nothing.
+ * </p>
+ */
+public class NdJsonBinaryContentStreamer {
+	private static final Logger ourLog = getLogger(NdJsonBinaryContentStreamer.class);
+
+	@Autowired
+	private FhirContext myFhirContext;
+
+	@Autowired
+	private IInterceptorService myInterceptorService;
+
+	@Autowired(required = false)
+	private IBinaryStorageSvc myBinaryStorageSvc;
+
+	private volatile boolean myLoggedMissingInterceptor;
+
+	/**
+	 * Streams the NDJSON content for the given resources into binary storage if the binary
+	 * storage service would store it, and replaces the data of the given Binary with a
+	 * reference to the stored content. This is a no-op returning <code>false</code> unless a
+	 * {@link BinaryStorageInterceptor} is registered.
+	 *
+	 * @param theBinary        The Binary, which must already have its ID and content type assigned
+	 * @param theMinimumSize   A lower bound on the size of the content in bytes, used to decide whether
+	 *                         it should be stored (see {@link #getMinimumSize(List)})
+	 * @param theNdJsonLines   The encoded resources, one per NDJSON line. These are only consumed
+	 *                         if the content is stored, and are read lazily as the storage service
+	 *                         reads the content.
+	 * @return <code>true</code> if the content was stored, or <code>false</code> if the caller
+	 * should put the content in the Binary itself
+	 */
+	public boolean streamToBinaryStorage(
+			IBaseBinary theBinary,
+			long theMinimumSize,
+			Iterator<String> theNdJsonLines,
+			RequestDetails theRequestDetails)
+			throws IOException {
+		if (myBinaryStorageSvc == null || !isBinaryStorageInterceptorRegistered() || !isExternalizedDataSupported()) {
+			return false;
+		}
+
+		IPrimitiveType<byte[]> data = BinaryUtil.getOrCreateData(myFhirContext, theBinary);
+		if (!(data instanceof IBaseHasExtensions)) {
+			return false;
+		}
+
+		IIdType resourceId = getResourceId(theBinary);
+		String contentType = theBinary.getContentType();
+		if (!myBinaryStorageSvc.shouldStoreBinaryContent(theMinimumSize, resourceId, contentType)) {
+			return false;
+		}
+
+		StoredDetails storedDetails = myBinaryStorageSvc.storeBinaryContent(
+				resourceId, null, contentType, new NdJsonInputStream(theNdJsonLines), theRequestDetails);
+		String binaryContentId = storedDetails.getBinaryContentId();
+		Validate.notBlank(binaryContentId, "BinaryStorageSvc returned a null binary content ID");
+
+		data.setValue(null);
+		IBaseExtension<?, ?> ext = ((IBaseHasExtensions) data).addExtension();
+		ext.setUrl(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID);
+		ext.setUserData(JpaConstants.EXTENSION_EXT_SYSTEMDEFINED, Boolean.TRUE);
+		ext.setValue(myFhirContext.newPrimitiveString(binaryContentId));
+
+		ourLog.debug(
+				"Streamed {} bytes for {} to binary storage with ID {}",
+				storedDetails.getBytes(),
+				resourceId.getValue(),
+				binaryContentId);
+		return true;
+	}
+
+	/**
+	 * Returns a lower bound on the size in bytes of the NDJSON content for the given lines.
+	 * UTF-8 never uses fewer bytes than chars, so the string lengths are enough for this.
+	 */
+	public static long getMinimumSize(List<String> theNdJsonLines) {
+		long retVal = 0;
+		for (String next : theNdJsonLines) {
+			retVal += next.length() + 1;
+		}
+		return retVal;
+	}
+
+	/**
+	 * Removes the content stored by {@link #streamToBinaryStorage(IBaseBinary, long, Iterator, RequestDetails)},
+	 * for use if the Binary referencing it could not be saved
+	 */
+	public void expungeStreamedContent(IBaseBinary theBinary) {
+		if (myBinaryStorageSvc == null || !isExternalizedDataSupported()) {
+			return;
+		}
+
+		IPrimitiveType<byte[]> data = BinaryUtil.getOrCreateData(myFhirContext, theBinary);
+		if (!(data instanceof IBaseHasExtensions)) {
+			return;
+		}
+
+		((IBaseHasExtensions) data)
+				.getExtension().stream()
+						.filter(t -> HapiExtensions.EXT_EXTERNALIZED_BINARY_ID.equals(t.getUrl()))
+						.map(t -> ((IPrimitiveType<?>) t.getValue()).getValueAsString())
+						.forEach(t -> myBinaryStorageSvc.expungeBinaryContent(getResourceId(theBinary), t));
+	}
+
+	/**
+	 * The reference to the stored content is an extension on the Binary data, which is not
+	 * possible in FHIR versions where primitive datatypes can't have extensions (i.e. DSTU2).
+	 * This is checked before touching the Binary so that it is never modified in that case.
+	 */
+	private boolean isExternalizedDataSupported() {
+		Class<?> base64BinaryType = myFhirContext.getElementDefinition("base64Binary").getImplementingClass();
+		return IBaseHasExtensions.class.isAssignableFrom(base64BinaryType);
+	}
+
+	/**
+	 * Without the interceptor, nothing would load the stored content back into the Binary
+	 * when it is read
+	 */
+	private boolean isBinaryStorageInterceptorRegistered() {
+		boolean retVal = myInterceptorService.getAllRegisteredInterceptors().stream()
+				.anyMatch(t -> t instanceof BinaryStorageInterceptor);
+		if (!retVal && !myLoggedMissingInterceptor) {
+			myLoggedMissingInterceptor = true;
+			ourLog.info(
+					"No BinaryStorageInterceptor is registered, so bulk export files will not be streamed to binary storage");
+		}
+		return retVal;
+	}
+
+	private static IIdType getResourceId(IBaseBinary theBinary) {
+		return theBinary.getIdElement().withResourceType("Binary");
+	}
+
+	/**
+	 * Encodes one resource at a time as it is read, so only a single line of the
+	 * output is ever held as bytes
+	 */
+	private static class NdJsonInputStream extends InputStream {
+		private final Iterator<String> myStringifiedResources;
+		private byte[] myCurrentLine = new byte[0];
+		private int myCurrentLinePosition;
+
+		private NdJsonInputStream(Iterator<String> theStringifiedResources) {
+			myStringifiedResources = theStringifiedResources;
+		}
+
+		@Override
+		public int read() {
+			if (!ensureAvailable()) {
+				return -1;
+			}
+			return myCurrentLine[myCurrentLinePosition++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] theBuffer, int theOffset, int theLength) {
+			if (theLength == 0) {
+				return 0;
+			}
+			if (!ensureAvailable()) {
+				return -1;
+			}
+			int count = Math.min(theLength, myCurrentLine.length - myCurrentLinePosition);
+			System.arraycopy(myCurrentLine, myCurrentLinePosition, theBuffer, theOffset, count);
+			myCurrentLinePosition += count;
+			return count;
+		}
+
+		private boolean ensureAvailable() {
+			while (myCurrentLinePosition >= myCurrentLine.length) {
+				if (!myStringifiedResources.hasNext()) {
+					return false;
+				}
+				myCurrentLine = (myStringifiedResources.next() + "\n").getBytes(StandardCharsets.UTF_8);
+				myCurrentLinePosition = 0;
+			}
+			return true;
+		}
+	}
+}
@@ -53,6 +53,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.List;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -67,6 +68,9 @@ public class WriteBinaryStep
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
+	@Autowired
+	private NdJsonBinaryContentStreamer myNdJsonBinaryContentStreamer;
+
 	@Nonnull
 	@Override
 	public RunOutcome run(
@@ -94,27 +98,6 @@ public class WriteBinaryStep
 		// but for now, only NDJSON is supported
 		binary.setContentType(Constants.CT_FHIR_NDJSON);
 
-		int processedRecordsCount = 0;
-		try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-			try (OutputStreamWriter streamWriter = getStreamWriter(outputStream)) {
-				for (String stringified : expandedResources.getStringifiedResources()) {
-					streamWriter.append(stringified);
-					streamWriter.append("\n");
-					processedRecordsCount++;
-				}
-				streamWriter.flush();
-				outputStream.flush();
-			}
-			binary.setContent(outputStream.toByteArray());
-		} catch (IOException ex) {
-			String errorMsg = String.format(
-					"Failure to process resource of type %s : %s",
-					expandedResources.getResourceType(), ex.getMessage());
-			ourLog.error(errorMsg);
-
-			throw new JobExecutionFailedException(Msg.code(2238) + errorMsg);
-		}
-
 		SystemRequestDetails srd = new SystemRequestDetails();
 		BulkExportJobParameters jobParameters = theStepExecutionDetails.getParameters();
 		RequestPartitionId partitionId = jobParameters.getPartitionId();
@@ -146,6 +129,38 @@ public class WriteBinaryStep
 			break;
 		}
 
+		int processedRecordsCount = 0;
+		try {
+			// Files large enough to be externalized are streamed straight into binary storage
+			// instead of being assembled in memory first
+			List<String> stringifiedResources = expandedResources.getStringifiedResources();
+			long minimumSize = NdJsonBinaryContentStreamer.getMinimumSize(stringifiedResources);
+			if (myNdJsonBinaryContentStreamer.streamToBinaryStorage(
+					binary, minimumSize, stringifiedResources.iterator(), srd)) {
+				processedRecordsCount = stringifiedResources.size();
+			} else {
+				try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+					try (OutputStreamWriter streamWriter = getStreamWriter(outputStream)) {
+						for (String stringified : stringifiedResources) {
+							streamWriter.append(stringified);
+							streamWriter.append("\n");
+							processedRecordsCount++;
+						}
+						streamWriter.flush();
+						outputStream.flush();
+					}
+					binary.setContent(outputStream.toByteArray());
+				}
+			}
+		} catch (IOException ex) {
+			String errorMsg = String.format(
+					"Failure to process resource of type %s : %s",
+					expandedResources.getResourceType(), ex.getMessage());
+			ourLog.error(errorMsg);
+
+			throw new JobExecutionFailedException(Msg.code(2238) + errorMsg);
+		}
+
 		if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
 			if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
 					|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
@@ -161,7 +176,13 @@ public class WriteBinaryStep
 			}
 		}
 
-		DaoMethodOutcome outcome = binaryDao.update(binary, srd);
+		DaoMethodOutcome outcome;
+		try {
+			outcome = binaryDao.update(binary, srd);
+		} catch (RuntimeException e) {
+			myNdJsonBinaryContentStreamer.expungeStreamedContent(binary);
+			throw e;
+		}
 		IIdType id = outcome.getId();
 
 		BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
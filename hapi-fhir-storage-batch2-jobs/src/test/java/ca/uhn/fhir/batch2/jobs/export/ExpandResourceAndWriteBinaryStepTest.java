@@ -18,6 +18,7 @@ import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.dao.tx.NonTransactionalHapiTransactionService;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
@@ -58,6 +59,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -103,9 +105,15 @@ public class ExpandResourceAndWriteBinaryStepTest {
 	@Mock
 	private DaoRegistry myDaoRegistry;
 
+	@Mock
+	private NdJsonBinaryContentStreamer myNdJsonBinaryContentStreamer;
+
 	@Mock
 	IIdHelperService<JpaPid> myIdHelperService;
 
+	@Mock
+	private IBulkExportProcessor<?> myBulkExportProcessor;
+
 	@Spy
 	private InterceptorService myInterceptorService = new InterceptorService();
 
@@ -232,6 +240,67 @@ public class ExpandResourceAndWriteBinaryStepTest {
 		assertEquals(binaryId.getValueAsString(), fileIdArgumentCaptor.getValue().getBinaryId());
 	}
 
+	@Test
+	public void run_withRawPassThrough_onlyFetchesRemainingResources() {
+		// setup
+		myStorageSettings.setBulkExportRawResourcePassThroughEnabled(true);
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		IFhirResourceDao<IBaseBinary> binaryDao = mock(IFhirResourceDao.class);
+		IFhirResourceDao<?> patientDao = mockOutDaoRegistry();
+		IJobDataSink<BulkExportBinaryFileId> sink = mock(IJobDataSink.class);
+
+		ResourceIdList idList = new ResourceIdList();
+		ArrayList<IBaseResource> resources = createResourceList(idList);
+
+		// All but the first resource can be passed through
+		Map<String, String> encoded = new HashMap<>();
+		for (int i = 1; i < resources.size(); i++) {
+			encoded.put(String.valueOf(i), "{\"resourceType\":\"Patient\",\"id\":\"" + i + "\"}");
+		}
+
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> input = createInput(
+			idList,
+			createParameters(false),
+			instance
+		);
+
+		DaoMethodOutcome methodOutcome = new DaoMethodOutcome();
+		methodOutcome.setId(new IdType("Binary/123"));
+
+		// when
+		when(myBulkExportProcessor.fetchEncodedResources(eq("Patient"), any(), any())).thenReturn(encoded);
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(List.of(resources.get(0))));
+		when(myIdHelperService.newPidFromStringIdAndResourceName(anyString(), anyString())).thenAnswer(t -> JpaPid.fromId(Long.parseLong(t.getArgument(0, String.class))));
+		when(myIdHelperService.translatePidsToForcedIds(any())).thenAnswer(t->{
+			Set<IResourcePersistentId<JpaPid>> inputSet = t.getArgument(0, Set.class);
+			assertEquals(Set.of(JpaPid.fromId(0L)), inputSet);
+			Map<IResourcePersistentId<?>, Optional<String>> map = new HashMap<>();
+			for (var next : inputSet) {
+				map.put(next, Optional.empty());
+			}
+			return new PersistentIdToForcedIdMap<>(map);
+		});
+		when(myDaoRegistry.getResourceDao(eq("Binary")))
+			.thenReturn(binaryDao);
+		when(binaryDao.update(any(IBaseBinary.class), any(RequestDetails.class)))
+			.thenReturn(methodOutcome);
+
+		// test
+		RunOutcome outcome = myFinalStep.run(input, sink);
+
+		// verify
+		assertEquals(resources.size(), outcome.getRecordsProcessed());
+		ArgumentCaptor<IBaseBinary> binaryCaptor = ArgumentCaptor.forClass(IBaseBinary.class);
+		verify(binaryDao).update(binaryCaptor.capture(), any(RequestDetails.class));
+		String outputString = new String(binaryCaptor.getValue().getContent());
+		String[] lines = outputString.split("\n");
+		assertEquals(resources.size(), lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			assertEquals("{\"resourceType\":\"Patient\",\"id\":\"" + i + "\"}", lines[i]);
+		}
+	}
+
 	@NotNull
 	private static ArrayList<IBaseResource> createResourceList(ResourceIdList idList) {
 		idList.setResourceType("Patient");
@@ -20,6 +20,8 @@ import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.dao.tx.NonTransactionalHapiTransactionService;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
@@ -28,6 +30,7 @@ import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -41,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -49,7 +53,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -68,6 +74,9 @@ public class ExpandResourcesStepTest {
 	@Mock
 	IIdHelperService<JpaPid> myIdHelperService;
 
+	@Mock
+	private InMemoryResourceMatcher myInMemoryResourceMatcher;
+
 	@Spy
 	private InterceptorService myInterceptorService = new InterceptorService();
 
@@ -184,5 +193,94 @@ public class ExpandResourcesStepTest {
 		verify(patientDao).search(any(), patientSearchCaptor.capture());
 		assertEquals(input.getParameters().getPartitionId(), patientSearchCaptor.getValue().getRequestPartitionId());
 
+		// Raw pass-through is disabled by default
+		verify(myProcessor, never()).fetchEncodedResources(any(), any(), any());
+	}
+
+	@Test
+	public void jobComplete_withRawPassThrough_onlyFetchesRemainingResources() {
+		//setup
+		myStorageSettings.setBulkExportRawResourcePassThroughEnabled(true);
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		IJobDataSink<ExpandedResourcesList> sink = mock(IJobDataSink.class);
+		IFhirResourceDao<?> patientDao = mockOutDaoRegistry();
+		ResourceIdList idList = new ResourceIdList();
+		idList.setResourceType("Patient");
+		ArrayList<BatchResourceId> batchResourceIds = new ArrayList<>();
+		Map<String, String> encoded = new HashMap<>();
+		for (int i = 0; i < 10; i++) {
+			String stringId = String.valueOf(i);
+			batchResourceIds.add(new BatchResourceId().setResourceType("Patient").setId(stringId));
+			if (i != 5) {
+				encoded.put(stringId, "{\"resourceType\":\"Patient\",\"id\":\"" + stringId + "\"}");
+			}
+		}
+		idList.setIds(batchResourceIds);
+
+		Patient notPassedThrough = new Patient();
+		notPassedThrough.setId("5");
+
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> input = createInput(
+			idList,
+			createParameters(false),
+			instance
+		);
+		when(myProcessor.fetchEncodedResources(eq("Patient"), any(), any())).thenReturn(encoded);
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(List.of(notPassedThrough)));
+		when(myIdHelperService.newPidFromStringIdAndResourceName(anyString(), anyString())).thenAnswer(t -> JpaPid.fromId(Long.parseLong(t.getArgument(0, String.class))));
+		when(myIdHelperService.translatePidsToForcedIds(any())).thenAnswer(t->{
+			Set<IResourcePersistentId<JpaPid>> inputSet = t.getArgument(0, Set.class);
+			assertEquals(1, inputSet.size());
+			Map<IResourcePersistentId<?>, Optional<String>> map = new HashMap<>();
+			for (var next : inputSet) {
+				map.put(next, Optional.empty());
+			}
+			return new PersistentIdToForcedIdMap<>(map);
+		});
+
+		// test
+		RunOutcome outcome = mySecondStep.run(input, sink);
+
+		// verify
+		assertEquals(RunOutcome.SUCCESS, outcome);
+		ArgumentCaptor<ExpandedResourcesList> expandedCaptor = ArgumentCaptor.forClass(ExpandedResourcesList.class);
+		verify(sink).accept(expandedCaptor.capture());
+		List<String> stringified = expandedCaptor.getValue().getStringifiedResources();
+		assertEquals(10, stringified.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("{\"resourceType\":\"Patient\",\"id\":\"" + i + "\"}", stringified.get(i));
+		}
+	}
+
+	@Test
+	public void jobComplete_withPostFetchFilter_doesNotPassThrough() {
+		//setup
+		myStorageSettings.setBulkExportRawResourcePassThroughEnabled(true);
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		IJobDataSink<ExpandedResourcesList> sink = mock(IJobDataSink.class);
+		IFhirResourceDao<?> patientDao = mockOutDaoRegistry();
+		ResourceIdList idList = new ResourceIdList();
+		idList.setResourceType("Patient");
+		idList.setIds(List.of(new BatchResourceId().setResourceType("Patient").setId("1")));
+
+		Patient patient = new Patient();
+		patient.setId("1");
+
+		BulkExportJobParameters parameters = createParameters(false);
+		parameters.setPostFetchFilterUrls(List.of("Patient?_id=1"));
+		when(patientDao.search(any(), any())).thenReturn(new SimpleBundleProvider(List.of(patient)));
+		when(myIdHelperService.newPidFromStringIdAndResourceName(anyString(), anyString())).thenReturn(JpaPid.fromId(1L));
+		when(myIdHelperService.translatePidsToForcedIds(any())).thenReturn(new PersistentIdToForcedIdMap<>(Map.of(JpaPid.fromId(1L), Optional.empty())));
+		when(myInMemoryResourceMatcher.match(anyString(), any(), any(), any())).thenReturn(InMemoryMatchResult.successfulMatch());
+
+		// test
+		RunOutcome outcome = mySecondStep.run(createInput(idList, parameters, instance), sink);
+
+		// verify
+		assertEquals(RunOutcome.SUCCESS, outcome);
+		verify(myProcessor, never()).fetchEncodedResources(any(), any(), any());
+		verify(sink).accept(any(ExpandedResourcesList.class));
 	}
 }
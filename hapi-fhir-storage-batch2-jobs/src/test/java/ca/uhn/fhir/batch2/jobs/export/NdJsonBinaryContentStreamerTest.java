@@ -0,0 +1,115 @@
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.jpa.binary.interceptor.BinaryStorageInterceptor;
+import ca.uhn.fhir.jpa.binstore.MemoryBinaryStorageSvcImpl;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.util.HapiExtensions;
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Extension;
+import org.hl7.fhir.r4.model.IdType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NdJsonBinaryContentStreamerTest {
+
+	@Spy
+	private FhirContext myFhirContext = FhirContext.forR4Cached();
+	@Mock
+	private IInterceptorService myInterceptorService;
+	@Mock
+	private IInterceptorBroadcaster myInterceptorBroadcaster;
+	@Spy
+	private MemoryBinaryStorageSvcImpl myBinaryStorageSvc = new MemoryBinaryStorageSvcImpl();
+	@InjectMocks
+	private NdJsonBinaryContentStreamer myStreamer;
+
+	@BeforeEach
+	public void before() {
+		myBinaryStorageSvc.setFhirContextForTests(myFhirContext);
+		myBinaryStorageSvc.setInterceptorBroadcasterForTests(myInterceptorBroadcaster);
+		myBinaryStorageSvc.setMinimumBinarySize(20);
+	}
+
+	@Test
+	public void testStreamLargeContent() throws Exception {
+		BinaryStorageInterceptor<?> interceptor = new BinaryStorageInterceptor<>(myFhirContext);
+		when(myInterceptorService.getAllRegisteredInterceptors()).thenReturn(List.of(interceptor));
+		Binary binary = newBinary();
+		List<String> resources = List.of("{\"resourceType\":\"Patient\",\"name\":\"é\"}", "{\"resourceType\":\"Patient\"}");
+
+		assertTrue(myStreamer.streamToBinaryStorage(binary, NdJsonBinaryContentStreamer.getMinimumSize(resources), resources.iterator(), new SystemRequestDetails()));
+
+		assertNull(binary.getDataElement().getValue());
+		Extension ext = binary.getDataElement().getExtensionByUrl(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID);
+		String binaryContentId = ext.getValue().primitiveValue();
+		byte[] stored = myBinaryStorageSvc.fetchBinaryContent(binary.getIdElement(), binaryContentId);
+		assertEquals(String.join("\n", resources) + "\n", new String(stored, StandardCharsets.UTF_8));
+
+		myStreamer.expungeStreamedContent(binary);
+		assertNull(myBinaryStorageSvc.fetchBinaryContent(binary.getIdElement(), binaryContentId));
+	}
+
+	@Test
+	public void testDontStreamSmallContent() throws Exception {
+		BinaryStorageInterceptor<?> interceptor = new BinaryStorageInterceptor<>(myFhirContext);
+		when(myInterceptorService.getAllRegisteredInterceptors()).thenReturn(List.of(interceptor));
+		Binary binary = newBinary();
+
+		List<String> resources = List.of("{}");
+		assertFalse(myStreamer.streamToBinaryStorage(binary, NdJsonBinaryContentStreamer.getMinimumSize(resources), resources.iterator(), new SystemRequestDetails()));
+		assertFalse(binary.getDataElement().hasExtension());
+	}
+
+	@Test
+	public void testDontStreamWithoutBinaryStorageInterceptor() throws Exception {
+		when(myInterceptorService.getAllRegisteredInterceptors()).thenReturn(List.of());
+		Binary binary = newBinary();
+
+		List<String> resources = List.of("{\"resourceType\":\"Patient\"}", "{\"resourceType\":\"Patient\"}");
+		assertFalse(myStreamer.streamToBinaryStorage(binary, NdJsonBinaryContentStreamer.getMinimumSize(resources), resources.iterator(), new SystemRequestDetails()));
+		assertFalse(binary.getDataElement().hasExtension());
+	}
+
+	@Test
+	public void testLinesOnlyConsumedWhenStored() throws Exception {
+		BinaryStorageInterceptor<?> interceptor = new BinaryStorageInterceptor<>(myFhirContext);
+		when(myInterceptorService.getAllRegisteredInterceptors()).thenReturn(List.of(interceptor));
+		Iterator<String> resources = List.of("{}").iterator();
+
+		assertFalse(myStreamer.streamToBinaryStorage(newBinary(), 3, resources, new SystemRequestDetails()));
+		assertTrue(resources.hasNext());
+	}
+
+	@Test
+	public void testMinimumSize() {
+		assertEquals(0, NdJsonBinaryContentStreamer.getMinimumSize(List.of()));
+		assertEquals(9, NdJsonBinaryContentStreamer.getMinimumSize(List.of("{}", "{\"a\"}")));
+	}
+
+	private static Binary newBinary() {
+		Binary binary = new Binary();
+		binary.setId(new IdType("Binary/ABC"));
+		binary.setContentType(Constants.CT_FHIR_NDJSON);
+		return binary;
+	}
+}
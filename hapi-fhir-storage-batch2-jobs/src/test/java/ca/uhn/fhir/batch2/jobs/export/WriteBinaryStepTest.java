@@ -44,6 +44,7 @@ import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -87,6 +88,9 @@ public class WriteBinaryStepTest {
 	@Mock
 	private DaoRegistry myDaoRegistry;
 
+	@Mock
+	private NdJsonBinaryContentStreamer myNdJsonBinaryContentStreamer;
+
 	@InjectMocks
 	private TestWriteBinaryStep myFinalStep;
 
@@ -223,4 +227,38 @@ public class WriteBinaryStepTest {
 		verify(sink, never())
 			.accept(any(BulkExportBinaryFileId.class));
 	}
+
+	@Test
+	public void run_contentStreamedToBinaryStorage_binaryHasNoInlineContent() throws IOException {
+		// setup
+		ExpandedResourcesList expandedResources = new ExpandedResourcesList();
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		List<String> stringified = Arrays.asList("first", "second", "third", "forth");
+		expandedResources.setStringifiedResources(stringified);
+		expandedResources.setResourceType("Patient");
+		IFhirResourceDao<IBaseBinary> binaryDao = mock(IFhirResourceDao.class);
+		IJobDataSink<BulkExportBinaryFileId> sink = mock(IJobDataSink.class);
+		StepExecutionDetails<BulkExportJobParameters, ExpandedResourcesList> input = createInput(expandedResources, instance, false);
+		DaoMethodOutcome methodOutcome = new DaoMethodOutcome();
+		methodOutcome.setId(new IdType("Binary/123"));
+
+		// when
+		when(myDaoRegistry.getResourceDao(eq("Binary")))
+			.thenReturn(binaryDao);
+		when(myNdJsonBinaryContentStreamer.streamToBinaryStorage(any(IBaseBinary.class), eq(25L), any(), any(RequestDetails.class)))
+			.thenReturn(true);
+		when(binaryDao.update(any(IBaseBinary.class), any(RequestDetails.class)))
+			.thenReturn(methodOutcome);
+
+		// test
+		RunOutcome outcome = myFinalStep.run(input, sink);
+
+		// verify
+		assertEquals(stringified.size(), outcome.getRecordsProcessed());
+		ArgumentCaptor<IBaseBinary> binaryCaptor = ArgumentCaptor.forClass(IBaseBinary.class);
+		verify(binaryDao).update(binaryCaptor.capture(), any(RequestDetails.class));
+		assertNull(binaryCaptor.getValue().getContent());
+		verify(sink).accept(any(BulkExportBinaryFileId.class));
+	}
 }
@@ -99,6 +99,36 @@ public class JpaStorageSettings extends StorageSettings {
 	public static final int DEFAULT_BUNDLE_BATCH_QUEUE_CAPACITY = 200;
 
 	public static final int DEFAULT_BULK_EXPORT_FILE_MAXIMUM_CAPACITY = 1_000;
+	/**
+	 * Default value for {@link #setSearchResultParsingThreadCount(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_SEARCH_RESULT_PARSING_THREAD_COUNT = 1;
+	/**
+	 * Default value for {@link #setSearchSqlTemplateCacheSize(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_SEARCH_SQL_TEMPLATE_CACHE_SIZE = 0;
+	/**
+	 * Default value for {@link #setPreExpandValueSetsThreadCount(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_PRE_EXPAND_VALUE_SETS_THREAD_COUNT = 1;
+	/**
+	 * Default value for {@link #setPreExpandValueSetsJdbcBatchSize(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_PRE_EXPAND_VALUE_SETS_JDBC_BATCH_SIZE = 0;
+	/**
+	 * Default value for {@link #setTransactionIndexJdbcBatchSize(int)}
+	 *
+	 * @since 7.4.0
+	 */
+	public static final int DEFAULT_TRANSACTION_INDEX_JDBC_BATCH_SIZE = 0;
 	/**
 	 * Default value for {@link #setMaximumSearchResultCountInTransaction(Integer)}
 	 *
@@ -321,6 +351,10 @@ public class JpaStorageSettings extends StorageSettings {
 	 * Since 7.2.0
 	 */
 	private long myBulkExportFileMaximumSize = DEFAULT_BULK_EXPORT_MAXIMUM_WORK_CHUNK_SIZE;
+	/**
+	 * Since 7.4.0
+	 */
+	private boolean myBulkExportRawResourcePassThroughEnabled = false;
 	/**
 	 * Since 6.4.0
 	 */
@@ -360,6 +394,36 @@ public class JpaStorageSettings extends StorageSettings {
 	 */
 	private long myRestDeleteByUrlResourceIdThreshold = DEFAULT_REST_DELETE_BY_URL_RESOURCE_ID_THRESHOLD;
 
+	/**
+	 * @since 7.4.0
+	 */
+	private int mySearchResultParsingThreadCount = DEFAULT_SEARCH_RESULT_PARSING_THREAD_COUNT;
+
+	/**
+	 * @since 7.4.0
+	 */
+	private boolean mySearchResultBlockStorageEnabled = false;
+
+	/**
+	 * @since 7.4.0
+	 */
+	private int mySearchSqlTemplateCacheSize = DEFAULT_SEARCH_SQL_TEMPLATE_CACHE_SIZE;
+
+	/**
+	 * @since 7.4.0
+	 */
+	private int myPreExpandValueSetsThreadCount = DEFAULT_PRE_EXPAND_VALUE_SETS_THREAD_COUNT;
+
+	/**
+	 * @since 7.4.0
+	 */
+	private int myPreExpandValueSetsJdbcBatchSize = DEFAULT_PRE_EXPAND_VALUE_SETS_JDBC_BATCH_SIZE;
+
+	/**
+	 * @since 7.4.0
+	 */
+	private int myTransactionIndexJdbcBatchSize = DEFAULT_TRANSACTION_INDEX_JDBC_BATCH_SIZE;
+
 	/**
 	 * Constructor
 	 */
@@ -2345,6 +2409,42 @@ public class JpaStorageSettings extends StorageSettings {
 		myBulkExportFileMaximumSize = theBulkExportFileMaximumSize;
 	}
 
+	/**
+	 * If enabled, bulk export jobs write the stored JSON of each resource
+	 * directly to the export file, adding only the resource ID and version metadata, instead
+	 * of parsing the resource and encoding it again. This is only done for resources which
+	 * don't need to be inspected or modified during the export, so it is skipped for
+	 * resources with tags, and when <code>_typeFilter</code> post-fetch filtering, MDM
+	 * expansion, terminology normalization or interceptors hooking into resource access
+	 * or bulk export resource inclusion apply.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public boolean isBulkExportRawResourcePassThroughEnabled() {
+		return myBulkExportRawResourcePassThroughEnabled;
+	}
+
+	/**
+	 * If enabled, bulk export jobs write the stored JSON of each resource
+	 * directly to the export file, adding only the resource ID and version metadata, instead
+	 * of parsing the resource and encoding it again. This is only done for resources which
+	 * don't need to be inspected or modified during the export, so it is skipped for
+	 * resources with tags, and when <code>_typeFilter</code> post-fetch filtering, MDM
+	 * expansion, terminology normalization or interceptors hooking into resource access
+	 * or bulk export resource inclusion apply.
+	 * <p>
+	 * Default is <code>false</code>
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setBulkExportRawResourcePassThroughEnabled(boolean theBulkExportRawResourcePassThroughEnabled) {
+		myBulkExportRawResourcePassThroughEnabled = theBulkExportRawResourcePassThroughEnabled;
+	}
+
 	/**
 	 * If this setting is enabled, then gated batch jobs that produce only one chunk will immediately trigger a batch
 	 * maintenance job.  This may be useful for testing, but is not recommended for production use.
@@ -2482,6 +2582,242 @@ public class JpaStorageSettings extends StorageSettings {
 		myRestDeleteByUrlResourceIdThreshold = theRestDeleteByUrlResourceIdThreshold;
 	}
 
+	/**
+	 * This setting controls the number of threads used to decode and parse the resources
+	 * of a page of search results (including any <code>_include</code>/<code>_revinclude</code>
+	 * targets) when they are loaded from the database. When set to a value greater than 1,
+	 * resources are parsed on a dedicated thread pool while the database fetch of the next
+	 * chunk of the page proceeds on the request thread.
+	 * <p>
+	 * The default value is {@link #DEFAULT_SEARCH_RESULT_PARSING_THREAD_COUNT}, meaning that
+	 * resources are parsed sequentially on the request thread.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public int getSearchResultParsingThreadCount() {
+		return mySearchResultParsingThreadCount;
+	}
+
+	/**
+	 * This setting controls the number of threads used to decode and parse the resources
+	 * of a page of search results (including any <code>_include</code>/<code>_revinclude</code>
+	 * targets) when they are loaded from the database. When set to a value greater than 1,
+	 * resources are parsed on a dedicated thread pool while the database fetch of the next
+	 * chunk of the page proceeds on the request thread.
+	 * <p>
+	 * The default value is {@link #DEFAULT_SEARCH_RESULT_PARSING_THREAD_COUNT}, meaning that
+	 * resources are parsed sequentially on the request thread. Value for this setting must
+	 * be a positive integer.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setSearchResultParsingThreadCount(int theSearchResultParsingThreadCount) {
+		Validate.isTrue(theSearchResultParsingThreadCount > 0, "theSearchResultParsingThreadCount must be positive");
+		mySearchResultParsingThreadCount = theSearchResultParsingThreadCount;
+	}
+
+	/**
+	 * If enabled, the PIDs of cached search results are stored in blocks of delta-encoded
+	 * and compressed PIDs (in the <code>HFJ_SEARCH_RESULT_BLOCK</code> table) instead of one
+	 * row per PID (in the <code>HFJ_SEARCH_RESULT</code> table). This greatly reduces the number
+	 * of rows inserted for large searches, as well as the cost of deleting them once the
+	 * search expires.
+	 * <p>
+	 * This setting is read when the server starts, and changing it afterwards has no effect.
+	 * Results cached in one format are not visible in the other, so any cached searches should
+	 * be allowed to expire (or be purged) when changing this setting.
+	 * </p>
+	 * <p>
+	 * The default value is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public boolean isSearchResultBlockStorageEnabled() {
+		return mySearchResultBlockStorageEnabled;
+	}
+
+	/**
+	 * If enabled, the PIDs of cached search results are stored in blocks of delta-encoded
+	 * and compressed PIDs (in the <code>HFJ_SEARCH_RESULT_BLOCK</code> table) instead of one
+	 * row per PID (in the <code>HFJ_SEARCH_RESULT</code> table). This greatly reduces the number
+	 * of rows inserted for large searches, as well as the cost of deleting them once the
+	 * search expires.
+	 * <p>
+	 * This setting is read when the server starts, and changing it afterwards has no effect.
+	 * Results cached in one format are not visible in the other, so any cached searches should
+	 * be allowed to expire (or be purged) when changing this setting.
+	 * </p>
+	 * <p>
+	 * The default value is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setSearchResultBlockStorageEnabled(boolean theSearchResultBlockStorageEnabled) {
+		mySearchResultBlockStorageEnabled = theSearchResultBlockStorageEnabled;
+	}
+
+	/**
+	 * This setting controls the maximum number of rendered search SQL statements which are
+	 * cached for reuse. Searches which use the same parameters, modifiers, sort and paging
+	 * and differ only in the values being searched for produce the same SQL, so when this
+	 * setting is greater than 0 the SQL is rendered once per distinct search shape and then
+	 * reused, with only the bind variables changing.
+	 * <p>
+	 * The default value is {@link #DEFAULT_SEARCH_SQL_TEMPLATE_CACHE_SIZE}, meaning that
+	 * the SQL is rendered for every search.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public int getSearchSqlTemplateCacheSize() {
+		return mySearchSqlTemplateCacheSize;
+	}
+
+	/**
+	 * This setting controls the maximum number of rendered search SQL statements which are
+	 * cached for reuse. Searches which use the same parameters, modifiers, sort and paging
+	 * and differ only in the values being searched for produce the same SQL, so when this
+	 * setting is greater than 0 the SQL is rendered once per distinct search shape and then
+	 * reused, with only the bind variables changing.
+	 * <p>
+	 * The default value is {@link #DEFAULT_SEARCH_SQL_TEMPLATE_CACHE_SIZE}, meaning that
+	 * the SQL is rendered for every search.
+	 * </p>
+	 * <p>
+	 * The cache is resized lazily: when the next cacheable search is performed with a size
+	 * which differs from the one the cache was created with, a new empty cache is created
+	 * and any previously cached SQL is discarded. Setting this to 0 disables the cache
+	 * but does not discard its contents, so setting it back to the size it had before
+	 * (e.g. 100, then 0, then 100 again) resumes using the SQL which was cached before it
+	 * was disabled. Use <code>SearchSqlTemplateCache#invalidateAll()</code> to explicitly
+	 * discard cached SQL.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setSearchSqlTemplateCacheSize(int theSearchSqlTemplateCacheSize) {
+		Validate.isTrue(theSearchSqlTemplateCacheSize >= 0, "theSearchSqlTemplateCacheSize must not be negative");
+		mySearchSqlTemplateCacheSize = theSearchSqlTemplateCacheSize;
+	}
+
+	/**
+	 * The number of ValueSets which are pre-expanded into the terminology tables concurrently by the
+	 * scheduled pre-expansion task (see {@link #setEnableTaskPreExpandValueSets(boolean)}). Each ValueSet is
+	 * claimed with an atomic status update before it is expanded, so several servers in a cluster can also
+	 * share the work.
+	 * <p>
+	 * The default value is {@link #DEFAULT_PRE_EXPAND_VALUE_SETS_THREAD_COUNT}, meaning that ValueSets are
+	 * pre-expanded one at a time.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public int getPreExpandValueSetsThreadCount() {
+		return myPreExpandValueSetsThreadCount;
+	}
+
+	/**
+	 * The number of ValueSets which are pre-expanded into the terminology tables concurrently by the
+	 * scheduled pre-expansion task (see {@link #setEnableTaskPreExpandValueSets(boolean)}). Each ValueSet is
+	 * claimed with an atomic status update before it is expanded, so several servers in a cluster can also
+	 * share the work.
+	 * <p>
+	 * The default value is {@link #DEFAULT_PRE_EXPAND_VALUE_SETS_THREAD_COUNT}, meaning that ValueSets are
+	 * pre-expanded one at a time.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setPreExpandValueSetsThreadCount(int thePreExpandValueSetsThreadCount) {
+		Validate.isTrue(thePreExpandValueSetsThreadCount > 0, "thePreExpandValueSetsThreadCount must be positive");
+		myPreExpandValueSetsThreadCount = thePreExpandValueSetsThreadCount;
+	}
+
+	/**
+	 * If set to a value greater than 0, the concepts and designations of pre-expanded ValueSets are written to the
+	 * database in JDBC batches of up to this size, with the designations for each batch of concepts written
+	 * after the concepts themselves so that the inserts are not interleaved.
+	 * <p>
+	 * The default value is {@link #DEFAULT_PRE_EXPAND_VALUE_SETS_JDBC_BATCH_SIZE}, meaning that the JDBC batch
+	 * size configured for Hibernate (if any) applies.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public int getPreExpandValueSetsJdbcBatchSize() {
+		return myPreExpandValueSetsJdbcBatchSize;
+	}
+
+	/**
+	 * If set to a value greater than 0, the concepts and designations of pre-expanded ValueSets are written to the
+	 * database in JDBC batches of up to this size, with the designations for each batch of concepts written
+	 * after the concepts themselves so that the inserts are not interleaved.
+	 * <p>
+	 * The default value is {@link #DEFAULT_PRE_EXPAND_VALUE_SETS_JDBC_BATCH_SIZE}, meaning that the JDBC batch
+	 * size configured for Hibernate (if any) applies.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setPreExpandValueSetsJdbcBatchSize(int thePreExpandValueSetsJdbcBatchSize) {
+		Validate.isTrue(
+				thePreExpandValueSetsJdbcBatchSize >= 0, "thePreExpandValueSetsJdbcBatchSize must not be negative");
+		myPreExpandValueSetsJdbcBatchSize = thePreExpandValueSetsJdbcBatchSize;
+	}
+
+	/**
+	 * If set to a value greater than 0, the search parameter index rows which are added and removed while
+	 * processing a FHIR transaction or batch bundle are collected for the whole bundle instead of being
+	 * handed to Hibernate resource by resource. They are written just before the changes are flushed
+	 * at the end of the bundle, grouped by index table, in JDBC batches of up to this size. This
+	 * greatly reduces the number of database round trips for large bundles, especially when the JDBC
+	 * driver can rewrite batches into multi-row inserts (e.g. <code>reWriteBatchedInserts=true</code>
+	 * for PostgreSQL).
+	 * <p>
+	 * Note that while this is enabled, searches performed while the bundle is being processed (e.g. to
+	 * resolve conditional references) can not see the index rows of resources written earlier in the
+	 * same bundle.
+	 * </p>
+	 * <p>
+	 * The default value is {@link #DEFAULT_TRANSACTION_INDEX_JDBC_BATCH_SIZE}, meaning that index rows
+	 * are written as each resource is stored.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public int getTransactionIndexJdbcBatchSize() {
+		return myTransactionIndexJdbcBatchSize;
+	}
+
+	/**
+	 * If set to a value greater than 0, the search parameter index rows which are added and removed while
+	 * processing a FHIR transaction or batch bundle are collected for the whole bundle instead of being
+	 * handed to Hibernate resource by resource. They are written just before the changes are flushed
+	 * at the end of the bundle, grouped by index table, in JDBC batches of up to this size. This
+	 * greatly reduces the number of database round trips for large bundles, especially when the JDBC
+	 * driver can rewrite batches into multi-row inserts (e.g. <code>reWriteBatchedInserts=true</code>
+	 * for PostgreSQL).
+	 * <p>
+	 * Note that while this is enabled, searches performed while the bundle is being processed (e.g. to
+	 * resolve conditional references) can not see the index rows of resources written earlier in the
+	 * same bundle.
+	 * </p>
+	 * <p>
+	 * The default value is {@link #DEFAULT_TRANSACTION_INDEX_JDBC_BATCH_SIZE}, meaning that index rows
+	 * are written as each resource is stored.
+	 * </p>
+	 *
+	 * @since 7.4.0
+	 */
+	public void setTransactionIndexJdbcBatchSize(int theTransactionIndexJdbcBatchSize) {
+		Validate.isTrue(theTransactionIndexJdbcBatchSize >= 0, "theTransactionIndexJdbcBatchSize must not be negative");
+		myTransactionIndexJdbcBatchSize = theTransactionIndexJdbcBatchSize;
+	}
+
 	public enum StoreMetaSourceInformationEnum {
 		NONE(false, false),
 		SOURCE_URI(true, false),
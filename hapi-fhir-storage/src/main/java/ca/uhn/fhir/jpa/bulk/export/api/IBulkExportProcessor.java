@@ -19,12 +19,16 @@
  */
 package ca.uhn.fhir.jpa.bulk.export.api;
 
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.bulk.export.model.ExportPIDIteratorParameters;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public interface IBulkExportProcessor<T extends IResourcePersistentId> {
 
@@ -40,4 +44,22 @@ public interface IBulkExportProcessor<T extends IResourcePersistentId> {
 	 * @param theResources - the list of resources to expand
 	 */
 	void expandMdmResources(List<IBaseResource> theResources);
+
+	/**
+	 * Fetches the current version of the given resources already encoded as compact JSON, by
+	 * copying the stored resource body and adding the <code>id</code> and <code>meta</code>
+	 * elements to it instead of parsing and re-encoding the resource. Resources which can't
+	 * be handled this way (e.g. because they have tags, or are deleted) are left out of the
+	 * returned map, and the caller must load and encode them normally.
+	 *
+	 * @param theResourceType The resource type of all of the given IDs
+	 * @param theIds The resource IDs, in the same form as the IDs returned by {@link #getResourcePidIterator(ExportPIDIteratorParameters)}
+	 * @param theRequestPartitionId The partition to fetch from
+	 * @return A map where the key is the ID and the value is the encoded resource. The default implementation returns an empty map.
+	 * @since 7.4.0
+	 */
+	default Map<String, String> fetchEncodedResources(
+			String theResourceType, Collection<String> theIds, RequestPartitionId theRequestPartitionId) {
+		return Collections.emptyMap();
+	}
 }
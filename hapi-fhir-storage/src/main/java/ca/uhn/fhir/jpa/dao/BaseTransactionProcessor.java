@@ -1341,7 +1341,7 @@ public abstract class BaseTransactionProcessor {
 			theTransactionStopWatch.startTask("Flush writes to database");
 
 			// flush the changes
-			flushSession(theIdToPersistedOutcome);
+			flushSession(theTransactionDetails, theIdToPersistedOutcome);
 
 			theTransactionStopWatch.endCurrentTask();
 
@@ -1895,6 +1895,17 @@ public abstract class BaseTransactionProcessor {
 
 	protected abstract void flushSession(Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome);
 
+	/**
+	 * Flushes the writes made while processing the transaction. Subclasses may override this
+	 * in order to write anything they have deferred for the given transaction first.
+	 *
+	 * @since 7.4.0
+	 */
+	protected void flushSession(
+			TransactionDetails theTransactionDetails, Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome) {
+		flushSession(theIdToPersistedOutcome);
+	}
+
 	private void validateResourcePresent(IBaseResource theResource, Integer theOrder, String theVerb) {
 		if (theResource == null) {
 			String msg = myContext
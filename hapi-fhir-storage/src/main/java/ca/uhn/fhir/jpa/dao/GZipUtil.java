@@ -25,22 +25,50 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.util.zip.GZIPInputStream;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
 
 public class GZipUtil {
 
+	/**
+	 * Inflaters hold native zlib state which is comparatively expensive to create and
+	 * to release, so they are kept for reuse rather than created for every resource read
+	 */
+	private static final BlockingQueue<Inflater> ourInflaterPool =
+			new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
 	public static String decompress(byte[] theResource) {
-		GZIPInputStream is;
-		try {
-			is = new GZIPInputStream(new ByteArrayInputStream(theResource));
+		try (InputStream is = newDecompressingInputStream(theResource)) {
 			return IOUtils.toString(is, "UTF-8");
 		} catch (IOException e) {
 			throw new DataFormatException(Msg.code(516) + "Failed to decompress contents", e);
 		}
 	}
 
+	/**
+	 * Returns a stream of the decompressed bytes of the given GZIP content, which can be
+	 * handed straight to a parser instead of first decompressing to a String. The stream
+	 * must be closed once it has been read so that its inflater can be reused.
+	 */
+	public static InputStream newDecompressingInputStream(byte[] theResource) throws IOException {
+		Inflater inflater = ourInflaterPool.poll();
+		PooledGZipInputStream retVal =
+				new PooledGZipInputStream(theResource, inflater != null ? inflater : new Inflater(true));
+		if (!retVal.startMember(0)) {
+			retVal.close();
+			throw new ZipException(Msg.code(2564) + "Not in GZIP format");
+		}
+		return retVal;
+	}
+
 	public static byte[] compress(String theEncoded) {
 		try {
 			ByteArrayOutputStream os = new ByteArrayOutputStream();
@@ -54,4 +82,120 @@ public class GZipUtil {
 			throw new DataFormatException(Msg.code(517) + "Compress contents", e);
 		}
 	}
+
+	/**
+	 * Equivalent to {@link java.util.zip.GZIPInputStream}, but reads from the in-memory
+	 * content using a pooled {@link Inflater}. The GZIP header and trailer are checked here,
+	 * and the deflated payload between them is handled by {@link InflaterInputStream}.
+	 */
+	private static class PooledGZipInputStream extends InflaterInputStream {
+		private static final int GZIP_MAGIC = 0x8b1f;
+		private static final int HEADER_LENGTH = 10;
+		private static final int TRAILER_LENGTH = 8;
+		private static final int FHCRC = 2;
+		private static final int FEXTRA = 4;
+		private static final int FNAME = 8;
+		private static final int FCOMMENT = 16;
+
+		private final byte[] myContent;
+		private final CRC32 myCrc = new CRC32();
+		private boolean myEof;
+		private boolean myClosed;
+
+		private PooledGZipInputStream(byte[] theContent, Inflater theInflater) {
+			super(new ByteArrayInputStream(theContent, 0, 0), theInflater);
+			myContent = theContent;
+		}
+
+		@Override
+		public int read(byte[] theBuffer, int theOffset, int theLength) throws IOException {
+			while (!myEof) {
+				int count = super.read(theBuffer, theOffset, theLength);
+				if (count != -1) {
+					myCrc.update(theBuffer, theOffset, count);
+					return count;
+				}
+				finishMember();
+			}
+			return -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!myClosed) {
+				myClosed = true;
+				super.close();
+				if (!ourInflaterPool.offer(inf)) {
+					inf.end();
+				}
+			}
+		}
+
+		private void finishMember() throws IOException {
+			int trailerStart = myContent.length - in.available() - inf.getRemaining();
+			if (trailerStart + TRAILER_LENGTH > myContent.length) {
+				throw new EOFException(Msg.code(2562) + "Unexpected end of GZIP trailer");
+			}
+			if (readUInt(trailerStart) != myCrc.getValue()
+					|| readUInt(trailerStart + 4) != (inf.getBytesWritten() & 0xffffffffL)) {
+				throw new ZipException(Msg.code(2563) + "Corrupt GZIP trailer");
+			}
+
+			// Like GZIPInputStream, support concatenated members and ignore trailing garbage
+			int nextMember = trailerStart + TRAILER_LENGTH;
+			myEof = nextMember >= myContent.length || !startMember(nextMember);
+		}
+
+		/**
+		 * Checks the GZIP header at the given offset and points the inflater at the
+		 * payload which follows it
+		 *
+		 * @return <code>false</code> if there is no valid header at the given offset
+		 */
+		private boolean startMember(int theOffset) {
+			if (theOffset + HEADER_LENGTH > myContent.length
+					|| readUShort(theOffset) != GZIP_MAGIC
+					|| myContent[theOffset + 2] != 8) {
+				return false;
+			}
+			int flags = myContent[theOffset + 3] & 0xFF;
+			int pos = theOffset + HEADER_LENGTH;
+			if ((flags & FEXTRA) == FEXTRA) {
+				pos = pos + 2 <= myContent.length ? pos + readUShort(pos) + 2 : myContent.length + 1;
+			}
+			if ((flags & FNAME) == FNAME) {
+				pos = skipZeroTerminated(pos);
+			}
+			if ((flags & FCOMMENT) == FCOMMENT) {
+				pos = skipZeroTerminated(pos);
+			}
+			if ((flags & FHCRC) == FHCRC) {
+				pos += 2;
+			}
+			if (pos > myContent.length) {
+				return false;
+			}
+
+			in = new ByteArrayInputStream(myContent, pos, myContent.length - pos);
+			inf.reset();
+			myCrc.reset();
+			return true;
+		}
+
+		private int skipZeroTerminated(int thePos) {
+			int pos = thePos;
+			while (pos < myContent.length && myContent[pos] != 0) {
+				pos++;
+			}
+			return pos + 1;
+		}
+
+		private long readUInt(int thePos) {
+			return ((long) readUShort(thePos + 2) << 16) | readUShort(thePos);
+		}
+
+		private int readUShort(int thePos) {
+			return ((myContent[thePos + 1] & 0xFF) << 8) | (myContent[thePos] & 0xFF);
+		}
+	}
 }
@@ -0,0 +1,108 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GZipUtilTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		String input = "{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Smith é 中\"}]}".repeat(1000);
+		byte[] compressed = GZipUtil.compress(input);
+
+		assertEquals(input, GZipUtil.decompress(compressed));
+
+		// Several passes so that pooled inflaters get reused
+		for (int i = 0; i < 10; i++) {
+			try (InputStream is = GZipUtil.newDecompressingInputStream(compressed)) {
+				assertArrayEquals(input.getBytes(StandardCharsets.UTF_8), IOUtils.toByteArray(is));
+			}
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals("", GZipUtil.decompress(GZipUtil.compress("")));
+	}
+
+	@Test
+	public void testConcatenatedMembers() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(GZipUtil.compress("first "));
+		bos.write(GZipUtil.compress("second"));
+
+		assertEquals("first second", GZipUtil.decompress(bos.toByteArray()));
+	}
+
+	@Test
+	public void testHeaderWithFileName() throws IOException {
+		byte[] compressed = GZipUtil.compress("content");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(compressed, 0, 3);
+		// FNAME flag, followed by the rest of the standard header and a zero terminated name
+		bos.write(8);
+		bos.write(compressed, 4, 6);
+		bos.write("name.txt".getBytes(StandardCharsets.US_ASCII));
+		bos.write(0);
+		bos.write(compressed, 10, compressed.length - 10);
+
+		assertEquals("content", GZipUtil.decompress(bos.toByteArray()));
+	}
+
+	@Test
+	public void testCorruptTrailer() {
+		byte[] compressed = GZipUtil.compress("content");
+		compressed[compressed.length - 8]++;
+
+		assertThrows(DataFormatException.class, () -> GZipUtil.decompress(compressed));
+	}
+
+	@Test
+	public void testTruncated() {
+		byte[] compressed = GZipUtil.compress("content".repeat(100));
+		byte[] truncated = new byte[compressed.length / 2];
+		System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+		assertThrows(DataFormatException.class, () -> GZipUtil.decompress(truncated));
+	}
+
+	@Test
+	public void testTruncatedTrailer() {
+		byte[] compressed = GZipUtil.compress("content");
+		byte[] truncated = new byte[compressed.length - 3];
+		System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+		DataFormatException e = assertThrows(DataFormatException.class, () -> GZipUtil.decompress(truncated));
+		assertThat(e.getCause().getMessage(), containsString("Unexpected end of GZIP trailer"));
+	}
+
+	@Test
+	public void testNotGzip() {
+		assertThrows(DataFormatException.class, () -> GZipUtil.decompress("content".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testCompatibleWithGzipOutputStream() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+			gos.write(new byte[100_000]);
+		}
+
+		try (InputStream is = GZipUtil.newDecompressingInputStream(bos.toByteArray())) {
+			assertArrayEquals(new byte[100_000], IOUtils.toByteArray(is));
+		}
+	}
+}
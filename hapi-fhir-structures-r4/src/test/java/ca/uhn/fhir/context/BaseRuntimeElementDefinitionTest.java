@@ -1,11 +1,15 @@
 package ca.uhn.fhir.context;
 
 import ca.uhn.fhir.i18n.Msg;
+import org.hl7.fhir.r4.model.BooleanType;
 import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.HumanName;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class BaseRuntimeElementDefinitionTest {
@@ -25,6 +29,26 @@ public class BaseRuntimeElementDefinitionTest {
 		}
 	}
 
+	@Test
+	void accessorAndMutator_setAndGet() {
+		Patient patient = new Patient();
+		RuntimeResourceDefinition def = ourFhirContext.getResourceDefinition(patient);
+
+		BaseRuntimeChildDefinition nameChild = def.getChildByName("name");
+		assertTrue(nameChild.getAccessor().getValues(patient).isEmpty());
+		HumanName name = new HumanName().setFamily("A1");
+		nameChild.getMutator().addValue(patient, name);
+		assertEquals(1, nameChild.getAccessor().getValues(patient).size());
+		assertSame(name, nameChild.getAccessor().getValues(patient).get(0));
+
+		BaseRuntimeChildDefinition activeChild = def.getChildByName("active");
+		assertTrue(activeChild.getAccessor().getFirstValueOrNull(patient).isEmpty());
+		activeChild.getMutator().setValue(patient, new BooleanType(true));
+		assertTrue(patient.getActive());
+		activeChild.getMutator().setValue(patient, null);
+		assertTrue(activeChild.getAccessor().getValues(patient).isEmpty());
+	}
+
 	@Test
 	void mutator_remove() {
 		Patient patient = new Patient();
@@ -1,15 +1,21 @@
 package ca.uhn.fhir.narrative;
 
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.narrative2.NarrativeTemplateManifest;
 import org.hl7.fhir.r4.model.Practitioner;
 import org.hl7.fhir.r4.model.Quantity;
 import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.messageresolver.StandardMessageResolver;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class CustomThymeleafNarrativeGeneratorR4Test {
 
@@ -45,6 +51,43 @@ public class CustomThymeleafNarrativeGeneratorR4Test {
 
 	}
 
+	@Test
+	public void testTemplateEngineReusedAcrossRenders() {
+		CustomThymeleafNarrativeGenerator gen = new CustomThymeleafNarrativeGenerator("classpath:narrative/standardtypes_r4.properties");
+		myCtx.setNarrativeGenerator(gen);
+		assertNull(gen.getTemplateRenderStatistics().get("practitioner"));
+
+		Practitioner p = new Practitioner();
+		p.addAddress().addLine("line1");
+		p.addName().setFamily("fam1").addGiven("given");
+
+		gen.populateResourceNarrative(myCtx, p);
+		String first = p.getText().getDiv().getValueAsString();
+		TemplateEngine engine = gen.getTemplateEngine(myCtx);
+		p.setText(null);
+		gen.populateResourceNarrative(myCtx, p);
+		assertEquals(first, p.getText().getDiv().getValueAsString());
+		assertSame(engine, gen.getTemplateEngine(myCtx));
+
+		assertEquals(2, gen.getTemplateRenderStatistics().get("practitioner").getRenderCount());
+		assertEquals(2, gen.getTemplateRenderStatistics().get("humanname").getRenderCount());
+		assertEquals(2, gen.getTemplateRenderStatistics().get("address").getRenderCount());
+
+		// Replacing the manifest causes the engine to be rebuilt
+		gen.setManifest(NarrativeTemplateManifest.forManifestFileLocation("classpath:narrative/standardtypes_r4.properties"));
+		p.setText(null);
+		gen.populateResourceNarrative(myCtx, p);
+		assertEquals(first, p.getText().getDiv().getValueAsString());
+		assertEquals(3, gen.getTemplateRenderStatistics().get("practitioner").getRenderCount());
+		TemplateEngine rebuiltEngine = gen.getTemplateEngine(myCtx);
+		assertNotSame(engine, rebuiltEngine);
+		assertSame(rebuiltEngine, gen.getTemplateEngine(myCtx));
+
+		// So does replacing the message resolver
+		gen.setMessageResolver(new StandardMessageResolver());
+		assertNotSame(rebuiltEngine, gen.getTemplateEngine(myCtx));
+	}
+
 	@Test
 	public void testCustomType() {
 		myCtx.setNarrativeGenerator(null);
@@ -9,6 +9,7 @@ import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.test.BaseTest;
 import ca.uhn.fhir.util.StopWatch;
 import ca.uhn.fhir.util.TestUtil;
+import ca.uhn.fhir.util.Utf8OutputStreamWriter;
 import com.google.common.collect.Sets;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullWriter;
@@ -54,7 +55,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
@@ -102,6 +109,41 @@ public class JsonParserR4Test extends BaseTest {
 		ourCtx.getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
 	}
 
+	@Test
+	public void testParseBundleEntries() {
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.setId("BUNDLEID");
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("FAMILY" + i);
+			input.addEntry()
+				.setFullUrl("urn:uuid:0.0.0." + i)
+				.setResource(patient)
+				.getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+		}
+		// Encoded after the entries
+		input.getSignature().setSigFormat("application/jose");
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(input);
+
+		List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
+		Bundle output = (Bundle) ourCtx.newJsonParser()
+			.parseBundleEntries(new StringReader(encoded), t -> entries.add((Bundle.BundleEntryComponent) t));
+
+		assertEquals(Bundle.BundleType.TRANSACTION, output.getType());
+		assertEquals("BUNDLEID", output.getIdElement().getIdPart());
+		assertEquals("application/jose", output.getSignature().getSigFormat());
+		assertEquals(0, output.getEntry().size());
+		assertEquals(3, entries.size());
+		for (int i = 0; i < 3; i++) {
+			Bundle.BundleEntryComponent entry = entries.get(i);
+			assertEquals("urn:uuid:0.0.0." + i, entry.getFullUrl());
+			assertEquals("urn:uuid:0.0.0." + i, entry.getResource().getId());
+			assertEquals("FAMILY" + i, ((Patient) entry.getResource()).getNameFirstRep().getFamily());
+			assertEquals(Bundle.HTTPVerb.POST, entry.getRequest().getMethod());
+		}
+	}
+
 	@Test
 	public void testNonDomainResourcesHaveIdResourceTypeParsed() {
 		//Test a non-domain resource
@@ -123,6 +165,32 @@ public class JsonParserR4Test extends BaseTest {
 		assertThat(resourceType, is(equalTo("Observation")));
 	}
 
+	@Test
+	public void testParseFromInputStream() {
+		String input = "\n  {\"resourceType\":\"Bundle\",\"type\":\"collection\",\"entry\":[{" +
+			"\"fullUrl\":\"http://example.com/Patient/123\"," +
+			"\"resource\":{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Smith é 中\"}]}}]}";
+		InputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+
+		Bundle bundle = ourCtx.newJsonParser().parseResource(Bundle.class, inputStream);
+
+		Patient patient = (Patient) bundle.getEntryFirstRep().getResource();
+		assertEquals("Smith é 中", patient.getNameFirstRep().getFamily());
+		assertEquals("http://example.com/Patient/123", patient.getId());
+	}
+
+	@Test
+	public void testParseFromInputStreamNotJson() {
+		InputStream inputStream = new ByteArrayInputStream("  <Patient/>".getBytes(StandardCharsets.UTF_8));
+
+		try {
+			ourCtx.newJsonParser().parseResource(Patient.class, inputStream);
+			fail();
+		} catch (DataFormatException e) {
+			assertThat(e.getMessage(), containsString("first non-whitespace character was: '<' (must be '{')"));
+		}
+	}
+
 	@Test
 	public void testEntitiesNotConverted() throws IOException {
 		Device input = loadResource(ourCtx, Device.class, "/entities-from-cerner.json");
@@ -424,6 +492,22 @@ public class JsonParserR4Test extends BaseTest {
 		assertEquals("<div xmlns=\"http://www.w3.org/1999/xhtml\">Copy © 1999</div>", p.getText().getDivAsString());
 	}
 
+	@Test
+	public void testEncodeToUtf8OutputStreamWriter() throws IOException {
+		Patient p = new Patient();
+		p.getText().getDiv().setValueAsString("<div>Copy © 1999 中文</div>");
+		p.addName().setFamily("Ørsted");
+		String expected = ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToString(p);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Writer writer = new Utf8OutputStreamWriter(bytes);
+		writer.write("prefix ");
+		ourCtx.newJsonParser().setPrettyPrint(true).encodeResourceToWriter(p, writer);
+		writer.close();
+
+		assertEquals("prefix " + expected, bytes.toString(StandardCharsets.UTF_8));
+	}
+
 	@Test
 	public void testEncodeAndParseBundleWithFullUrlAndResourceIdMismatch() {
 
@@ -11,7 +11,10 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import ca.uhn.fhir.util.ClasspathUtil;
 import org.hl7.fhir.r4.model.Appointment;
@@ -61,6 +64,41 @@ public class XmlParserR4Test extends BaseTest {
 	/**
 	 * See #3890
 	 */
+	@Test
+	public void testParseBundleEntries() {
+		Bundle input = new Bundle();
+		input.setType(Bundle.BundleType.TRANSACTION);
+		input.setId("BUNDLEID");
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("FAMILY" + i);
+			input.addEntry()
+				.setFullUrl("urn:uuid:0.0.0." + i)
+				.setResource(patient)
+				.getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient");
+		}
+		// Encoded after the entries
+		input.getSignature().setSigFormat("application/jose");
+		String encoded = ourCtx.newXmlParser().encodeResourceToString(input);
+
+		List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
+		Bundle output = (Bundle) ourCtx.newXmlParser()
+			.parseBundleEntries(new StringReader(encoded), t -> entries.add((Bundle.BundleEntryComponent) t));
+
+		assertEquals(Bundle.BundleType.TRANSACTION, output.getType());
+		assertEquals("BUNDLEID", output.getIdElement().getIdPart());
+		assertEquals("application/jose", output.getSignature().getSigFormat());
+		assertEquals(0, output.getEntry().size());
+		assertEquals(3, entries.size());
+		for (int i = 0; i < 3; i++) {
+			Bundle.BundleEntryComponent entry = entries.get(i);
+			assertEquals("urn:uuid:0.0.0." + i, entry.getFullUrl());
+			assertEquals("urn:uuid:0.0.0." + i, entry.getResource().getId());
+			assertEquals("FAMILY" + i, ((Patient) entry.getResource()).getNameFirstRep().getFamily());
+			assertEquals(Bundle.HTTPVerb.POST, entry.getRequest().getMethod());
+		}
+	}
+
 	@Test
 	public void testEncodeExtensionWithReferenceObjectValue() {
 
@@ -0,0 +1,138 @@
+package ca.uhn.fhir.rest.client;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
+import ca.uhn.fhir.rest.client.impl.GenericClient;
+import ca.uhn.fhir.rest.client.jdk.JdkHttpResponse;
+import ca.uhn.fhir.rest.client.jdk.JdkRestfulClientFactory;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.rest.server.provider.HashMapResourceProvider;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import ca.uhn.fhir.util.StopWatch;
+import org.apache.commons.io.IOUtils;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JdkRestfulClientFactoryR4Test {
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private final HashMapResourceProvider<Patient> myPatientProvider = new HashMapResourceProvider<>(ourCtx, Patient.class);
+
+	@RegisterExtension
+	private final RestfulServerExtension myServer = new RestfulServerExtension(ourCtx, myPatientProvider);
+	private IGenericClient myClient;
+
+	@BeforeEach
+	public void before() {
+		JdkRestfulClientFactory factory = new JdkRestfulClientFactory(ourCtx);
+		factory.setServerValidationMode(ServerValidationModeEnum.NEVER);
+		myClient = factory.newGenericClient(myServer.getBaseUrl());
+	}
+
+	@Test
+	public void testCreateReadAndSearch() {
+		IIdType id = createPatient("Smith");
+
+		Patient patient = myClient.read().resource(Patient.class).withId(id).execute();
+		assertEquals("Smith", patient.getNameFirstRep().getFamily());
+
+		Bundle bundle = myClient.search().forResource(Patient.class).returnBundle(Bundle.class).execute();
+		assertEquals(1, bundle.getEntry().size());
+	}
+
+	@Test
+	public void testExecuteAsync() throws Exception {
+		List<IIdType> ids = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			ids.add(createPatient("Family " + i));
+		}
+
+		List<CompletableFuture<Patient>> reads = new ArrayList<>();
+		for (IIdType next : ids) {
+			reads.add(myClient.read().resource(Patient.class).withId(next).executeAsync());
+		}
+		CompletableFuture<Bundle> search = myClient.search()
+			.forResource(Patient.class)
+			.returnBundle(Bundle.class)
+			.count(100)
+			.executeAsync();
+
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals("Family " + i, reads.get(i).get().getNameFirstRep().getFamily());
+		}
+		assertEquals(ids.size(), search.get().getEntry().size());
+	}
+
+	@Test
+	public void testExecuteAsyncFailure() {
+		CompletableFuture<Patient> read = myClient.read().resource(Patient.class).withId("Patient/9999").executeAsync();
+
+		ExecutionException e = assertThrows(ExecutionException.class, read::get);
+		assertThat(e.getCause(), instanceOf(ResourceNotFoundException.class));
+		assertTrue(read.isCompletedExceptionally());
+	}
+
+	@Test
+	public void testExecuteAsyncWithKeptResponse() throws Exception {
+		IIdType id = createPatient("Smith");
+		((GenericClient) myClient).setKeepResponses(true);
+
+		Patient patient = myClient.read().resource(Patient.class).withId(id).executeAsync().get();
+
+		assertEquals("Smith", patient.getNameFirstRep().getFamily());
+		assertThat(((GenericClient) myClient).getLastResponse(), instanceOf(JdkHttpResponse.class));
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+		"application/fhir+json; charset=ISO-8859-1, ISO-8859-1",
+		"application/fhir+json;charset=\"iso-8859-1\", ISO-8859-1",
+		"application/fhir+json, UTF-8",
+		"application/fhir+json; charset=nonsense, UTF-8"
+	})
+	public void testResponseCharset(String theContentType, String theExpectedCharset) throws IOException {
+		String body = "{\"family\":\"Müller\"}";
+		HttpResponse<InputStream> response = mock(HttpResponse.class);
+		when(response.statusCode()).thenReturn(200);
+		when(response.headers()).thenReturn(HttpHeaders.of(Map.of(Constants.HEADER_CONTENT_TYPE, List.of(theContentType)), (k, v) -> true));
+		when(response.body()).thenReturn(new ByteArrayInputStream(body.getBytes(Charset.forName(theExpectedCharset))));
+
+		try (Reader reader = new JdkHttpResponse(response, new StopWatch()).createReader()) {
+			assertEquals(body, IOUtils.toString(reader));
+		}
+	}
+
+	private IIdType createPatient(String theFamily) {
+		Patient patient = new Patient();
+		patient.addName().setFamily(theFamily);
+		return myClient.create().resource(patient).execute().getId().toUnqualifiedVersionless();
+	}
+}
@@ -9,17 +9,34 @@ import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.context.support.ValueSetExpansionOptions;
 import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.util.FhirTerser;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,10 +44,11 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
-import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
-import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @SuppressWarnings("unchecked")
@@ -39,13 +57,40 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 	private static final Logger ourLog = LoggerFactory.getLogger(CachingValidationSupport.class);
 	public static final ValueSetExpansionOptions EMPTY_EXPANSION_OPTIONS = new ValueSetExpansionOptions();
 
-	private final Cache<String, Object> myCache;
-	private final Cache<String, Object> myValidateCodeCache;
+	/**
+	 * Default maximum total weight of the ValueSet expansion cache. Expansions are weighed by the number
+	 * of codes they contain, so this is roughly the maximum number of cached codes.
+	 * Can be changed using {@link CacheTimeouts#setExpandValueSetMaxWeight(long)}.
+	 *
+	 * @since 7.4.0
+	 */
+	public static final long EXPAND_VALUE_SET_CACHE_MAX_WEIGHT = 100_000;
+
+	/**
+	 * Default maximum total weight of the code validation, lookup and translation caches. Most of these
+	 * results weigh 1, so this is roughly the maximum number of cached results.
+	 * Can be changed using {@link CacheTimeouts#setCodeMaxWeight(long)}.
+	 *
+	 * @since 7.4.0
+	 */
+	public static final long CODE_CACHE_MAX_WEIGHT = 5_000;
+
+	/**
+	 * Default maximum total weight of the cache holding fetched conformance resources and other results.
+	 * Lists of resources weigh one per resource, and binaries weigh one per kilobyte.
+	 * Can be changed using {@link CacheTimeouts#setMiscMaxWeight(long)}.
+	 *
+	 * @since 7.4.0
+	 */
+	public static final long MISC_CACHE_MAX_WEIGHT = 10_000;
+
+	private final Cache<CacheKey, Object> myCache;
+	private final Cache<CacheKey, Object> myValidateCodeCache;
 	private final Cache<TranslateCodeRequest, Object> myTranslateCodeCache;
-	private final Cache<String, Object> myLookupCodeCache;
+	private final Cache<CacheKey, Object> myLookupCodeCache;
 	private final ThreadPoolExecutor myBackgroundExecutor;
 	private final Map<Object, Object> myNonExpiringCache;
-	private final Cache<String, Object> myExpandValueSetCache;
+	private final Cache<CacheKey, Object> myExpandValueSetCache;
 	private final boolean myIsEnabledValidationForCodingsLogicalAnd;
 
 	/**
@@ -76,11 +121,26 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 			CacheTimeouts theCacheTimeouts,
 			boolean theIsEnabledValidationForCodingsLogicalAnd) {
 		super(theWrap.getFhirContext(), theWrap);
-		myExpandValueSetCache = CacheFactory.build(theCacheTimeouts.getExpandValueSetMillis(), 100);
-		myValidateCodeCache = CacheFactory.build(theCacheTimeouts.getValidateCodeMillis(), 5000);
-		myLookupCodeCache = CacheFactory.build(theCacheTimeouts.getLookupCodeMillis(), 5000);
-		myTranslateCodeCache = CacheFactory.build(theCacheTimeouts.getTranslateCodeMillis(), 5000);
-		myCache = CacheFactory.build(theCacheTimeouts.getMiscMillis(), 5000);
+		myExpandValueSetCache = CacheFactory.buildWeighted(
+				theCacheTimeouts.getExpandValueSetMillis(),
+				theCacheTimeouts.getExpandValueSetMaxWeight(),
+				boundedWeigher(theCacheTimeouts.getExpandValueSetMaxWeight()));
+		myValidateCodeCache = CacheFactory.buildWeighted(
+				theCacheTimeouts.getValidateCodeMillis(),
+				theCacheTimeouts.getCodeMaxWeight(),
+				boundedWeigher(theCacheTimeouts.getCodeMaxWeight()));
+		myLookupCodeCache = CacheFactory.buildWeighted(
+				theCacheTimeouts.getLookupCodeMillis(),
+				theCacheTimeouts.getCodeMaxWeight(),
+				boundedWeigher(theCacheTimeouts.getCodeMaxWeight()));
+		myTranslateCodeCache = CacheFactory.buildWeighted(
+				theCacheTimeouts.getTranslateCodeMillis(),
+				theCacheTimeouts.getCodeMaxWeight(),
+				boundedWeigher(theCacheTimeouts.getCodeMaxWeight()));
+		myCache = CacheFactory.buildWeighted(
+				theCacheTimeouts.getMiscMillis(),
+				theCacheTimeouts.getMiscMaxWeight(),
+				boundedWeigher(theCacheTimeouts.getMiscMaxWeight()));
 		myNonExpiringCache = Collections.synchronizedMap(new HashMap<>());
 
 		LinkedBlockingQueue<Runnable> executorQueue = new LinkedBlockingQueue<>(1000);
@@ -97,59 +157,62 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 
 	@Override
 	public List<IBaseResource> fetchAllConformanceResources() {
-		String key = "fetchAllConformanceResources";
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_ALL_CONFORMANCE_RESOURCES);
 		return loadFromCacheWithAsyncRefresh(myCache, key, t -> super.fetchAllConformanceResources());
 	}
 
 	@Override
 	public <T extends IBaseResource> List<T> fetchAllStructureDefinitions() {
-		String key = "fetchAllStructureDefinitions";
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_ALL_STRUCTURE_DEFINITIONS);
 		return loadFromCacheWithAsyncRefresh(myCache, key, t -> super.fetchAllStructureDefinitions());
 	}
 
 	@Nullable
 	@Override
 	public <T extends IBaseResource> List<T> fetchAllSearchParameters() {
-		String key = "fetchAllSearchParameters";
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_ALL_SEARCH_PARAMETERS);
 		return loadFromCacheWithAsyncRefresh(myCache, key, t -> super.fetchAllSearchParameters());
 	}
 
 	@Override
 	public <T extends IBaseResource> List<T> fetchAllNonBaseStructureDefinitions() {
-		String key = "fetchAllNonBaseStructureDefinitions";
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_ALL_NON_BASE_STRUCTURE_DEFINITIONS);
 		return loadFromCacheWithAsyncRefresh(myCache, key, t -> super.fetchAllNonBaseStructureDefinitions());
 	}
 
 	@Override
 	public IBaseResource fetchCodeSystem(String theSystem) {
-		return loadFromCache(myCache, "fetchCodeSystem " + theSystem, t -> super.fetchCodeSystem(theSystem));
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_CODE_SYSTEM, theSystem);
+		return loadFromCache(myCache, key, t -> super.fetchCodeSystem(theSystem));
 	}
 
 	@Override
 	public IBaseResource fetchValueSet(String theUri) {
-		return loadFromCache(myCache, "fetchValueSet " + theUri, t -> super.fetchValueSet(theUri));
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_VALUE_SET, theUri);
+		return loadFromCache(myCache, key, t -> super.fetchValueSet(theUri));
 	}
 
 	@Override
 	public IBaseResource fetchStructureDefinition(String theUrl) {
-		return loadFromCache(
-				myCache, "fetchStructureDefinition " + theUrl, t -> super.fetchStructureDefinition(theUrl));
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_STRUCTURE_DEFINITION, theUrl);
+		return loadFromCache(myCache, key, t -> super.fetchStructureDefinition(theUrl));
 	}
 
 	@Override
 	public byte[] fetchBinary(String theBinaryKey) {
-		return loadFromCache(myCache, "fetchBinary " + theBinaryKey, t -> super.fetchBinary(theBinaryKey));
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_BINARY, theBinaryKey);
+		return loadFromCache(myCache, key, t -> super.fetchBinary(theBinaryKey));
 	}
 
 	@Override
 	public <T extends IBaseResource> T fetchResource(@Nullable Class<T> theClass, String theUri) {
-		return loadFromCache(
-				myCache, "fetchResource " + theClass + " " + theUri, t -> super.fetchResource(theClass, theUri));
+		CacheKey key = new CacheKey(CacheKeyType.FETCH_RESOURCE, theClass, theUri);
+		return loadFromCache(myCache, key, t -> super.fetchResource(theClass, theUri));
 	}
 
 	@Override
 	public boolean isCodeSystemSupported(ValidationSupportContext theValidationSupportContext, String theSystem) {
-		String key = "isCodeSystemSupported " + theSystem;
+		CacheKey key = new CacheKey(CacheKeyType.IS_CODE_SYSTEM_SUPPORTED, theSystem);
 		Boolean retVal = loadFromCacheReentrantSafe(
 				myCache, key, t -> super.isCodeSystemSupported(theValidationSupportContext, theSystem));
 		assert retVal != null;
@@ -166,11 +229,13 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 		}
 
 		ValueSetExpansionOptions expansionOptions = defaultIfNull(theExpansionOptions, EMPTY_EXPANSION_OPTIONS);
-		String key = "expandValueSet " + theValueSetToExpand.getIdElement().getValue()
-				+ " " + expansionOptions.isIncludeHierarchy()
-				+ " " + expansionOptions.getFilter()
-				+ " " + expansionOptions.getOffset()
-				+ " " + expansionOptions.getCount();
+		CacheKey key = new CacheKey(
+				CacheKeyType.EXPAND_VALUE_SET,
+				theValueSetToExpand.getIdElement().getValue(),
+				expansionOptions.isIncludeHierarchy(),
+				expansionOptions.getFilter(),
+				expansionOptions.getOffset(),
+				expansionOptions.getCount());
 		return loadFromCache(
 				myExpandValueSetCache,
 				key,
@@ -185,8 +250,7 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 			String theCode,
 			String theDisplay,
 			String theValueSetUrl) {
-		String key = "validateCode " + theCodeSystem + " " + theCode + " " + defaultString(theDisplay) + " "
-				+ defaultIfBlank(theValueSetUrl, "NO_VS");
+		CacheKey key = new CacheKey(CacheKeyType.VALIDATE_CODE, theCodeSystem, theCode, theDisplay, theValueSetUrl);
 		return loadFromCache(
 				myValidateCodeCache,
 				key,
@@ -197,10 +261,12 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 	@Override
 	public LookupCodeResult lookupCode(
 			ValidationSupportContext theValidationSupportContext, @Nonnull LookupCodeRequest theLookupCodeRequest) {
-		String key = "lookupCode " + theLookupCodeRequest.getSystem() + " "
-				+ theLookupCodeRequest.getCode()
-				+ " " + defaultIfBlank(theLookupCodeRequest.getDisplayLanguage(), "NO_LANG")
-				+ " " + theLookupCodeRequest.getPropertyNames().toString();
+		CacheKey key = new CacheKey(
+				CacheKeyType.LOOKUP_CODE,
+				theLookupCodeRequest.getSystem(),
+				theLookupCodeRequest.getCode(),
+				theLookupCodeRequest.getDisplayLanguage(),
+				new ArrayList<>(theLookupCodeRequest.getPropertyNames()));
 		return loadFromCache(
 				myLookupCodeCache, key, t -> super.lookupCode(theValidationSupportContext, theLookupCodeRequest));
 	}
@@ -221,9 +287,14 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 				.filter(t -> isNotBlank(t))
 				.findFirst();
 		if (valueSetUrl.isPresent()) {
-			String key =
-					"validateCodeInValueSet " + theValidationOptions.toString() + " " + defaultString(theCodeSystem)
-							+ " " + defaultString(theCode) + " " + defaultString(theDisplay) + " " + valueSetUrl.get();
+			CacheKey key = new CacheKey(
+					CacheKeyType.VALIDATE_CODE_IN_VALUE_SET,
+					theValidationOptions.isInferSystem(),
+					theValidationOptions.isValidateDisplay(),
+					theCodeSystem,
+					theCode,
+					theDisplay,
+					valueSetUrl.get());
 			return loadFromCache(
 					myValidateCodeCache,
 					key,
@@ -286,7 +357,8 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 	}
 
 	private <S, T> T loadFromCacheWithAsyncRefresh(Cache<S, Object> theCache, S theKey, Function<S, T> theLoader) {
-		T retVal = (T) theCache.getIfPresent(theKey);
+		Optional<T> cached = (Optional<T>) theCache.getIfPresent(theKey);
+		T retVal = cached != null ? cached.orElse(null) : null;
 		if (retVal == null) {
 			retVal = (T) myNonExpiringCache.get(theKey);
 			if (retVal != null) {
@@ -315,6 +387,153 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 		myNonExpiringCache.clear();
 	}
 
+	/**
+	 * Writes the ValueSet expansions and fetched conformance resources currently held in this cache to a
+	 * file, so that they can be reloaded with {@link #loadSnapshot(File)} after a restart. Validation
+	 * results and other cached values are not included. The file is replaced atomically so a snapshot
+	 * that is being written is never read.
+	 *
+	 * @param theFile The file to write to
+	 * @return The number of cache entries written
+	 * @since 7.4.0
+	 */
+	public int writeSnapshot(@Nonnull File theFile) throws IOException {
+		Map<CacheKey, Object> entries = new LinkedHashMap<>();
+		addSnapshotEntries(entries, myCache.asMap());
+		addSnapshotEntries(entries, myExpandValueSetCache.asMap());
+		synchronized (myNonExpiringCache) {
+			addSnapshotEntries(entries, myNonExpiringCache);
+		}
+
+		File tempFile = new File(theFile.getPath() + ".tmp");
+		int count;
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile.toPath()))))) {
+			count = new CachingValidationSupportSnapshot(myCtx).write(output, entries);
+		}
+		Files.move(tempFile.toPath(), theFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		ourLog.info("Wrote {} validation cache entries to {}", count, theFile);
+		return count;
+	}
+
+	/**
+	 * Populates this cache from a file previously written by {@link #writeSnapshot(File)}, so that the
+	 * validator does not start cold after a restart. Loaded entries are subject to the same expiry as
+	 * any other cache entry. Lists of resources (e.g. {@link #fetchAllStructureDefinitions()}) are
+	 * returned immediately on first use and then refreshed in the background.
+	 * <p>
+	 * A snapshot is only an optimization, so this method never fails. If the file does not exist, can not
+	 * be read, or was written for a different FHIR version, a message is logged and nothing is loaded.
+	 * </p>
+	 *
+	 * @param theFile The file to read from
+	 * @return The number of cache entries loaded
+	 * @since 7.4.0
+	 */
+	public int loadSnapshot(@Nonnull File theFile) {
+		if (!theFile.isFile()) {
+			ourLog.info("Validation cache snapshot {} does not exist, starting with an empty cache", theFile);
+			return 0;
+		}
+
+		Map<CacheKey, Object> entries = new LinkedHashMap<>();
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(Files.newInputStream(theFile.toPath()))))) {
+			new CachingValidationSupportSnapshot(myCtx).read(input, entries::put);
+		} catch (IOException | RuntimeException e) {
+			ourLog.warn("Unable to load validation cache snapshot {}: {}", theFile, e.toString());
+			return 0;
+		}
+
+		for (Map.Entry<CacheKey, Object> next : entries.entrySet()) {
+			CacheKey key = next.getKey();
+			switch (key.getType()) {
+				case FETCH_ALL_CONFORMANCE_RESOURCES:
+				case FETCH_ALL_STRUCTURE_DEFINITIONS:
+				case FETCH_ALL_SEARCH_PARAMETERS:
+				case FETCH_ALL_NON_BASE_STRUCTURE_DEFINITIONS:
+					myNonExpiringCache.put(key, next.getValue());
+					break;
+				case EXPAND_VALUE_SET:
+					myExpandValueSetCache.put(key, Optional.of(next.getValue()));
+					break;
+				default:
+					myCache.put(key, Optional.of(next.getValue()));
+					break;
+			}
+		}
+
+		ourLog.info("Loaded {} validation cache entries from {}", entries.size(), theFile);
+		return entries.size();
+	}
+
+	private static void addSnapshotEntries(Map<CacheKey, Object> theTarget, Map<?, ?> theSource) {
+		for (Map.Entry<?, ?> next : theSource.entrySet()) {
+			if (!(next.getKey() instanceof CacheKey) || !((CacheKey) next.getKey()).getType().isSnapshotted()) {
+				continue;
+			}
+			Object value = next.getValue();
+			if (value instanceof Optional) {
+				value = ((Optional<?>) value).orElse(null);
+			}
+			if (CachingValidationSupportSnapshot.isSupportedValue(value)) {
+				theTarget.put((CacheKey) next.getKey(), value);
+			}
+		}
+	}
+
+	/**
+	 * Creates a weigher for a cache with the given maximum weight. Entries weighing more than the
+	 * whole cache would never be retained, so they are counted as weighing exactly the maximum. A
+	 * ValueSet expansion larger than the cache is then still cached, replacing the other entries.
+	 */
+	private <K> ToIntBiFunction<K, Object> boundedWeigher(long theMaximumWeight) {
+		return (theKey, theValue) -> (int) Math.min(weigh(theKey, theValue), theMaximumWeight);
+	}
+
+	/**
+	 * Weighs a cached value so that the caches are bounded by the approximate amount of data they hold
+	 * rather than by their number of entries. A ValueSet expansion with thousands of codes should not
+	 * count the same as a single boolean.
+	 */
+	private int weigh(Object theKey, Object theValue) {
+		Object value = theValue;
+		if (value instanceof Optional) {
+			value = ((Optional<?>) value).orElse(null);
+		}
+
+		if (value instanceof ValueSetExpansionOutcome) {
+			IBaseResource valueSet = ((ValueSetExpansionOutcome) value).getValueSet();
+			return valueSet != null ? 1 + countExpansionCodes(valueSet) : 1;
+		}
+		if (value instanceof Collection) {
+			return 1 + ((Collection<?>) value).size();
+		}
+		if (value instanceof byte[]) {
+			return 1 + ((byte[]) value).length / 1024;
+		}
+		if (value instanceof TranslateConceptResults) {
+			return 1 + ((TranslateConceptResults) value).size();
+		}
+		if (value instanceof LookupCodeResult) {
+			LookupCodeResult result = (LookupCodeResult) value;
+			return 1 + result.getProperties().size() + result.getDesignations().size();
+		}
+		return 1;
+	}
+
+	private int countExpansionCodes(IBaseResource theValueSet) {
+		FhirTerser terser = myCtx.newTerser();
+		Deque<IBase> queue = new ArrayDeque<>(terser.getValues(theValueSet, "ValueSet.expansion.contains"));
+		int count = 0;
+		while (!queue.isEmpty()) {
+			count++;
+			queue.addAll(terser.getValues(queue.pop(), "contains"));
+		}
+		return count;
+	}
+
 	/**
 	 * @since 5.4.0
 	 */
@@ -325,6 +544,9 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 		private long myValidateCodeMillis;
 		private long myMiscMillis;
 		private long myExpandValueSetMillis;
+		private long myExpandValueSetMaxWeight = EXPAND_VALUE_SET_CACHE_MAX_WEIGHT;
+		private long myCodeMaxWeight = CODE_CACHE_MAX_WEIGHT;
+		private long myMiscMaxWeight = MISC_CACHE_MAX_WEIGHT;
 
 		public long getExpandValueSetMillis() {
 			return myExpandValueSetMillis;
@@ -371,6 +593,64 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 			return this;
 		}
 
+		/**
+		 * @since 7.4.0
+		 */
+		public long getExpandValueSetMaxWeight() {
+			return myExpandValueSetMaxWeight;
+		}
+
+		/**
+		 * Sets the maximum total weight of the ValueSet expansion cache, which is roughly the maximum
+		 * number of cached codes. Defaults to
+		 * {@link CachingValidationSupport#EXPAND_VALUE_SET_CACHE_MAX_WEIGHT}.
+		 *
+		 * @since 7.4.0
+		 */
+		public CacheTimeouts setExpandValueSetMaxWeight(long theExpandValueSetMaxWeight) {
+			Validate.isTrue(theExpandValueSetMaxWeight > 0, "Maximum weight must be positive");
+			myExpandValueSetMaxWeight = theExpandValueSetMaxWeight;
+			return this;
+		}
+
+		/**
+		 * @since 7.4.0
+		 */
+		public long getCodeMaxWeight() {
+			return myCodeMaxWeight;
+		}
+
+		/**
+		 * Sets the maximum total weight of each of the code validation, lookup and translation
+		 * caches. Defaults to {@link CachingValidationSupport#CODE_CACHE_MAX_WEIGHT}.
+		 *
+		 * @since 7.4.0
+		 */
+		public CacheTimeouts setCodeMaxWeight(long theCodeMaxWeight) {
+			Validate.isTrue(theCodeMaxWeight > 0, "Maximum weight must be positive");
+			myCodeMaxWeight = theCodeMaxWeight;
+			return this;
+		}
+
+		/**
+		 * @since 7.4.0
+		 */
+		public long getMiscMaxWeight() {
+			return myMiscMaxWeight;
+		}
+
+		/**
+		 * Sets the maximum total weight of the cache holding fetched conformance resources and
+		 * other results. Defaults to {@link CachingValidationSupport#MISC_CACHE_MAX_WEIGHT}.
+		 *
+		 * @since 7.4.0
+		 */
+		public CacheTimeouts setMiscMaxWeight(long theMiscMaxWeight) {
+			Validate.isTrue(theMiscMaxWeight > 0, "Maximum weight must be positive");
+			myMiscMaxWeight = theMiscMaxWeight;
+			return this;
+		}
+
 		public static CacheTimeouts defaultValues() {
 			return new CacheTimeouts()
 					.setLookupCodeMillis(10 * DateUtils.MILLIS_PER_MINUTE)
@@ -384,4 +664,87 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 	public boolean isEnabledValidationForCodingsLogicalAnd() {
 		return myIsEnabledValidationForCodingsLogicalAnd;
 	}
+
+	/**
+	 * The operations whose results are cached
+	 */
+	enum CacheKeyType {
+		FETCH_ALL_CONFORMANCE_RESOURCES(true),
+		FETCH_ALL_STRUCTURE_DEFINITIONS(true),
+		FETCH_ALL_SEARCH_PARAMETERS(true),
+		FETCH_ALL_NON_BASE_STRUCTURE_DEFINITIONS(true),
+		FETCH_CODE_SYSTEM(true),
+		FETCH_VALUE_SET(true),
+		FETCH_STRUCTURE_DEFINITION(true),
+		FETCH_RESOURCE(true),
+		FETCH_BINARY(false),
+		IS_CODE_SYSTEM_SUPPORTED(false),
+		EXPAND_VALUE_SET(true),
+		VALIDATE_CODE(false),
+		VALIDATE_CODE_IN_VALUE_SET(false),
+		LOOKUP_CODE(false);
+
+		private final boolean mySnapshotted;
+
+		CacheKeyType(boolean theSnapshotted) {
+			mySnapshotted = theSnapshotted;
+		}
+
+		/**
+		 * Should results of this type be included in snapshots written by
+		 * {@link CachingValidationSupport#writeSnapshot(File)}?
+		 */
+		boolean isSnapshotted() {
+			return mySnapshotted;
+		}
+	}
+
+	/**
+	 * Cache key made up of the cached operation and its arguments. Arguments must be immutable
+	 * and implement {@link Object#equals(Object)}. Using a structured key instead of concatenating
+	 * the arguments into a string avoids building a new string for every cache lookup.
+	 */
+	static final class CacheKey {
+		private final CacheKeyType myType;
+		private final Object[] myArguments;
+		private final int myHashCode;
+
+		CacheKey(CacheKeyType theType, Object... theArguments) {
+			myType = theType;
+			myArguments = theArguments;
+			myHashCode = 31 * theType.ordinal() + Arrays.hashCode(theArguments);
+		}
+
+		CacheKeyType getType() {
+			return myType;
+		}
+
+		Object[] getArguments() {
+			return myArguments;
+		}
+
+		@Override
+		public boolean equals(Object theO) {
+			if (this == theO) {
+				return true;
+			}
+			if (!(theO instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey that = (CacheKey) theO;
+			return myHashCode == that.myHashCode
+					&& myType == that.myType
+					&& Arrays.equals(myArguments, that.myArguments);
+		}
+
+		@Override
+		public int hashCode() {
+			return myHashCode;
+		}
+
+		@Override
+		public String toString() {
+			return myType + " " + Arrays.toString(myArguments);
+		}
+	}
 }
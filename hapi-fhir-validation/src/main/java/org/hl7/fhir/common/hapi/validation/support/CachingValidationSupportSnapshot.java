@@ -0,0 +1,300 @@
+package org.hl7.fhir.common.hapi.validation.support;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport.ValueSetExpansionOutcome;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.IParser;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads and writes the on-disk snapshot format used by {@link CachingValidationSupport#writeSnapshot(java.io.File)}
+ * and {@link CachingValidationSupport#loadSnapshot(java.io.File)}.
+ * <p>
+ * The snapshot is a header followed by a sequence of entries, each of which is a cache key followed by
+ * the cached value. Resources are stored using the FHIR JSON encoding so that the snapshot does not
+ * depend on the Java serialized form of the structure classes. Only resources, lists of resources and
+ * ValueSet expansion outcomes can be stored.
+ * </p>
+ */
+class CachingValidationSupportSnapshot {
+
+	private static final String MAGIC = "HAPI-FHIR-VALIDATION-CACHE";
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte ARGUMENT_NULL = 0;
+	private static final byte ARGUMENT_STRING = 1;
+	private static final byte ARGUMENT_BOOLEAN = 2;
+	private static final byte ARGUMENT_INTEGER = 3;
+	private static final byte ARGUMENT_CLASS = 4;
+
+	private static final byte VALUE_RESOURCE = 1;
+	private static final byte VALUE_RESOURCE_LIST = 2;
+	private static final byte VALUE_EXPANSION_OUTCOME = 3;
+
+	/**
+	 * Lengths and counts read from the snapshot can't be trusted to size an allocation, since the file may
+	 * be truncated or corrupt. Strings are read in chunks of this size, and lists grow from at most this size.
+	 */
+	private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+	private static final int MAX_KEY_ARGUMENTS = 100;
+
+	private final FhirContext myCtx;
+	private final IParser myParser;
+
+	CachingValidationSupportSnapshot(FhirContext theCtx) {
+		myCtx = theCtx;
+		myParser = theCtx.newJsonParser();
+	}
+
+	/**
+	 * Returns <code>true</code> if the given value can be stored in a snapshot
+	 */
+	static boolean isSupportedValue(Object theValue) {
+		if (theValue instanceof IBaseResource) {
+			return true;
+		}
+		if (theValue instanceof ValueSetExpansionOutcome) {
+			return true;
+		}
+		if (theValue instanceof List) {
+			for (Object next : (List<?>) theValue) {
+				if (!(next instanceof IBaseResource)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param theEntries Entries to write. All values must be {@link #isSupportedValue(Object) supported}.
+	 * @return The number of entries written
+	 */
+	int write(DataOutputStream theOutput, Map<CachingValidationSupport.CacheKey, Object> theEntries)
+			throws IOException {
+		theOutput.writeUTF(MAGIC);
+		theOutput.writeInt(FORMAT_VERSION);
+		theOutput.writeUTF(myCtx.getVersion().getVersion().name());
+
+		int count = 0;
+		for (Map.Entry<CachingValidationSupport.CacheKey, Object> next : theEntries.entrySet()) {
+			theOutput.writeBoolean(true);
+			writeKey(theOutput, next.getKey());
+			writeValue(theOutput, next.getValue());
+			count++;
+		}
+		theOutput.writeBoolean(false);
+
+		return count;
+	}
+
+	/**
+	 * @param theConsumer Receives each entry in the snapshot
+	 * @return The number of entries read
+	 * @throws IOException If the snapshot can not be read, including if it was written in an incompatible
+	 *                     format or for a different version of FHIR
+	 */
+	int read(DataInputStream theInput, BiConsumer<CachingValidationSupport.CacheKey, Object> theConsumer)
+			throws IOException {
+		if (!MAGIC.equals(theInput.readUTF())) {
+			throw new IOException(Msg.code(2532) + "File is not a validation cache snapshot");
+		}
+		int formatVersion = theInput.readInt();
+		if (formatVersion != FORMAT_VERSION) {
+			throw new IOException(Msg.code(2533) + "Unsupported snapshot format version: " + formatVersion);
+		}
+		String fhirVersion = theInput.readUTF();
+		if (!myCtx.getVersion().getVersion().name().equals(fhirVersion)) {
+			throw new IOException(Msg.code(2534) + "Snapshot was written for FHIR version " + fhirVersion);
+		}
+
+		int count = 0;
+		while (theInput.readBoolean()) {
+			CachingValidationSupport.CacheKey key = readKey(theInput);
+			Object value = readValue(theInput);
+			theConsumer.accept(key, value);
+			count++;
+		}
+
+		return count;
+	}
+
+	private void writeKey(DataOutputStream theOutput, CachingValidationSupport.CacheKey theKey) throws IOException {
+		theOutput.writeUTF(theKey.getType().name());
+		Object[] arguments = theKey.getArguments();
+		theOutput.writeInt(arguments.length);
+		for (Object next : arguments) {
+			if (next == null) {
+				theOutput.writeByte(ARGUMENT_NULL);
+			} else if (next instanceof String) {
+				theOutput.writeByte(ARGUMENT_STRING);
+				writeString(theOutput, (String) next);
+			} else if (next instanceof Boolean) {
+				theOutput.writeByte(ARGUMENT_BOOLEAN);
+				theOutput.writeBoolean((Boolean) next);
+			} else if (next instanceof Integer) {
+				theOutput.writeByte(ARGUMENT_INTEGER);
+				theOutput.writeInt((Integer) next);
+			} else if (next instanceof Class) {
+				theOutput.writeByte(ARGUMENT_CLASS);
+				writeString(theOutput, ((Class<?>) next).getName());
+			} else {
+				throw new IOException(Msg.code(2535) + "Can not write cache key argument of type " + next.getClass());
+			}
+		}
+	}
+
+	private CachingValidationSupport.CacheKey readKey(DataInputStream theInput) throws IOException {
+		CachingValidationSupport.CacheKeyType type;
+		try {
+			type = CachingValidationSupport.CacheKeyType.valueOf(theInput.readUTF());
+		} catch (IllegalArgumentException e) {
+			throw new IOException(Msg.code(2536) + "Unknown cache key type", e);
+		}
+
+		int argumentCount = theInput.readInt();
+		if (argumentCount < 0 || argumentCount > MAX_KEY_ARGUMENTS) {
+			throw new IOException(
+					Msg.code(2559) + "Corrupt snapshot, invalid cache key argument count: " + argumentCount);
+		}
+		Object[] arguments = new Object[argumentCount];
+		for (int i = 0; i < arguments.length; i++) {
+			byte argumentType = theInput.readByte();
+			switch (argumentType) {
+				case ARGUMENT_NULL:
+					break;
+				case ARGUMENT_STRING:
+					arguments[i] = readString(theInput);
+					break;
+				case ARGUMENT_BOOLEAN:
+					arguments[i] = theInput.readBoolean();
+					break;
+				case ARGUMENT_INTEGER:
+					arguments[i] = theInput.readInt();
+					break;
+				case ARGUMENT_CLASS:
+					arguments[i] = loadClass(readString(theInput));
+					break;
+				default:
+					throw new IOException(Msg.code(2537) + "Unknown cache key argument type: " + argumentType);
+			}
+		}
+
+		return new CachingValidationSupport.CacheKey(type, arguments);
+	}
+
+	private void writeValue(DataOutputStream theOutput, Object theValue) throws IOException {
+		if (theValue instanceof IBaseResource) {
+			theOutput.writeByte(VALUE_RESOURCE);
+			writeResource(theOutput, (IBaseResource) theValue);
+		} else if (theValue instanceof List) {
+			List<?> list = (List<?>) theValue;
+			theOutput.writeByte(VALUE_RESOURCE_LIST);
+			theOutput.writeInt(list.size());
+			for (Object next : list) {
+				writeResource(theOutput, (IBaseResource) next);
+			}
+		} else if (theValue instanceof ValueSetExpansionOutcome) {
+			ValueSetExpansionOutcome outcome = (ValueSetExpansionOutcome) theValue;
+			theOutput.writeByte(VALUE_EXPANSION_OUTCOME);
+			if (outcome.getValueSet() != null) {
+				theOutput.writeBoolean(true);
+				writeResource(theOutput, outcome.getValueSet());
+			} else {
+				theOutput.writeBoolean(false);
+				writeString(theOutput, outcome.getError());
+			}
+		} else {
+			throw new IOException(Msg.code(2538) + "Can not write cached value of type " + theValue.getClass());
+		}
+	}
+
+	private Object readValue(DataInputStream theInput) throws IOException {
+		byte valueType = theInput.readByte();
+		switch (valueType) {
+			case VALUE_RESOURCE:
+				return readResource(theInput);
+			case VALUE_RESOURCE_LIST:
+				int size = theInput.readInt();
+				if (size < 0) {
+					throw new IOException(Msg.code(2560) + "Corrupt snapshot, invalid list size: " + size);
+				}
+				List<IBaseResource> list = new ArrayList<>(Math.min(size, READ_CHUNK_SIZE));
+				for (int i = 0; i < size; i++) {
+					list.add(readResource(theInput));
+				}
+				return list;
+			case VALUE_EXPANSION_OUTCOME:
+				if (theInput.readBoolean()) {
+					return new ValueSetExpansionOutcome(readResource(theInput));
+				}
+				return new ValueSetExpansionOutcome(readString(theInput));
+			default:
+				throw new IOException(Msg.code(2539) + "Unknown cached value type: " + valueType);
+		}
+	}
+
+	private void writeResource(DataOutputStream theOutput, IBaseResource theResource) throws IOException {
+		writeString(theOutput, myParser.encodeResourceToString(theResource));
+	}
+
+	private IBaseResource readResource(DataInputStream theInput) throws IOException {
+		return myParser.parseResource(readString(theInput));
+	}
+
+	/**
+	 * {@link DataOutputStream#writeUTF(String)} is limited to 64KB which isn't enough for an encoded resource
+	 */
+	private static void writeString(DataOutputStream theOutput, String theString) throws IOException {
+		if (theString == null) {
+			theOutput.writeInt(-1);
+			return;
+		}
+		byte[] bytes = theString.getBytes(StandardCharsets.UTF_8);
+		theOutput.writeInt(bytes.length);
+		theOutput.write(bytes);
+	}
+
+	private static String readString(DataInputStream theInput) throws IOException {
+		int length = theInput.readInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0) {
+			throw new IOException(Msg.code(2561) + "Corrupt snapshot, invalid string length: " + length);
+		}
+
+		// A truncated snapshot fails with an EOFException once its data runs out, rather than
+		// after allocating whatever length it claims
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.min(length, READ_CHUNK_SIZE));
+		byte[] buffer = new byte[Math.min(length, READ_CHUNK_SIZE)];
+		int remaining = length;
+		while (remaining > 0) {
+			int count = Math.min(remaining, buffer.length);
+			theInput.readFully(buffer, 0, count);
+			bytes.write(buffer, 0, count);
+			remaining -= count;
+		}
+		return bytes.toString(StandardCharsets.UTF_8);
+	}
+
+	private static Class<?> loadClass(String theClassName) throws IOException {
+		try {
+			return Class.forName(theClassName, false, CachingValidationSupportSnapshot.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new IOException(Msg.code(2540) + "Unknown class in snapshot: " + theClassName, e);
+		}
+	}
+}
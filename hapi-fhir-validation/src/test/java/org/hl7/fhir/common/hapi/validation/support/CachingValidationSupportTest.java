@@ -2,27 +2,44 @@ package org.hl7.fhir.common.hapi.validation.support;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.fhirpath.BaseValidationTestWithInlineMocks;
 import com.google.common.collect.Lists;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.CodeSystem;
 import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static ca.uhn.fhir.util.TestUtil.sleepAtLeast;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -103,6 +120,140 @@ public class CachingValidationSupportTest {
 			support.isEnabledValidationForCodingsLogicalAnd());
 	}
 
+	@Test
+	public void testExpandValueSet_ExpansionLargerThanCacheIsCached() {
+		ValueSet valueSet = new ValueSet();
+		valueSet.setId("ValueSet/LARGE");
+		int codeCount = (int) CachingValidationSupport.EXPAND_VALUE_SET_CACHE_MAX_WEIGHT + 50_000;
+		for (int i = 0; i < codeCount; i++) {
+			valueSet.getExpansion().addContains().setSystem("http://example.com/cs").setCode("code" + i);
+		}
+
+		when(myValidationSupport.getFhirContext()).thenReturn(ourCtx);
+		when(myValidationSupport.expandValueSet(any(), any(), any())).thenReturn(new IValidationSupport.ValueSetExpansionOutcome(valueSet));
+
+		CachingValidationSupport support = new CachingValidationSupport(myValidationSupport);
+		ValidationSupportContext context = new ValidationSupportContext(support);
+		IValidationSupport.ValueSetExpansionOutcome first = support.expandValueSet(context, null, valueSet);
+		IValidationSupport.ValueSetExpansionOutcome second = support.expandValueSet(context, null, valueSet);
+
+		assertSame(first, second);
+		assertEquals(codeCount, ((ValueSet) second.getValueSet()).getExpansion().getContains().size());
+		verify(myValidationSupport, times(1)).expandValueSet(any(), any(), any());
+	}
+
+	@Test
+	public void testCacheTimeouts_MaxWeights() {
+		CachingValidationSupport.CacheTimeouts cacheTimeouts = CachingValidationSupport.CacheTimeouts.defaultValues();
+		assertEquals(CachingValidationSupport.EXPAND_VALUE_SET_CACHE_MAX_WEIGHT, cacheTimeouts.getExpandValueSetMaxWeight());
+		assertEquals(CachingValidationSupport.CODE_CACHE_MAX_WEIGHT, cacheTimeouts.getCodeMaxWeight());
+		assertEquals(CachingValidationSupport.MISC_CACHE_MAX_WEIGHT, cacheTimeouts.getMiscMaxWeight());
+
+		cacheTimeouts.setExpandValueSetMaxWeight(1_000_000).setCodeMaxWeight(20_000).setMiscMaxWeight(30_000);
+		assertEquals(1_000_000, cacheTimeouts.getExpandValueSetMaxWeight());
+		assertEquals(20_000, cacheTimeouts.getCodeMaxWeight());
+		assertEquals(30_000, cacheTimeouts.getMiscMaxWeight());
+		assertThrows(IllegalArgumentException.class, () -> cacheTimeouts.setCodeMaxWeight(0));
+	}
+
+	@Test
+	public void testSnapshot_RoundTrip(@TempDir Path theTempDir) throws IOException {
+		ValueSet valueSet = new ValueSet();
+		valueSet.setId("ValueSet/VS");
+		valueSet.setUrl("http://example.com/vs");
+		valueSet.getExpansion().addContains().setSystem("http://example.com/cs").setCode("A")
+			.addContains().setSystem("http://example.com/cs").setCode("A1");
+		CodeSystem codeSystem = new CodeSystem();
+		codeSystem.setUrl("http://example.com/cs");
+
+		when(myValidationSupport.getFhirContext()).thenReturn(ourCtx);
+		when(myValidationSupport.fetchValueSet("http://example.com/vs")).thenReturn(valueSet);
+		when(myValidationSupport.fetchCodeSystem("http://example.com/cs")).thenReturn(codeSystem);
+		when(myValidationSupport.expandValueSet(any(), any(), any())).thenReturn(new IValidationSupport.ValueSetExpansionOutcome(valueSet));
+		when(myValidationSupport.fetchBinary("binary")).thenReturn(new byte[]{1, 2, 3});
+
+		CachingValidationSupport support = new CachingValidationSupport(myValidationSupport);
+		support.fetchValueSet("http://example.com/vs");
+		support.fetchCodeSystem("http://example.com/cs");
+		support.expandValueSet(new ValidationSupportContext(support), null, valueSet);
+		support.fetchBinary("binary");
+
+		File file = theTempDir.resolve("validation-cache.bin").toFile();
+		assertEquals(3, support.writeSnapshot(file));
+
+		// A new cache wrapping a module that knows nothing should answer from the snapshot
+		IValidationSupport emptySupport = mock(IValidationSupport.class);
+		when(emptySupport.getFhirContext()).thenReturn(ourCtx);
+		CachingValidationSupport restored = new CachingValidationSupport(emptySupport);
+		assertEquals(3, restored.loadSnapshot(file));
+
+		ValueSet restoredValueSet = (ValueSet) restored.fetchValueSet("http://example.com/vs");
+		assertEquals("http://example.com/vs", restoredValueSet.getUrl());
+		assertEquals("http://example.com/cs", ((CodeSystem) restored.fetchCodeSystem("http://example.com/cs")).getUrl());
+		IValidationSupport.ValueSetExpansionOutcome outcome = restored.expandValueSet(new ValidationSupportContext(restored), null, valueSet);
+		ValueSet expansion = (ValueSet) outcome.getValueSet();
+		assertEquals("A1", expansion.getExpansion().getContains().get(0).getContains().get(0).getCode());
+
+		verify(emptySupport, never()).fetchValueSet(any());
+		verify(emptySupport, never()).fetchCodeSystem(any());
+		verify(emptySupport, never()).expandValueSet(any(), any(), any());
+	}
+
+	@Test
+	public void testSnapshot_MissingOrInvalidFile(@TempDir Path theTempDir) throws IOException {
+		when(myValidationSupport.getFhirContext()).thenReturn(ourCtx);
+		CachingValidationSupport support = new CachingValidationSupport(myValidationSupport);
+
+		assertEquals(0, support.loadSnapshot(theTempDir.resolve("missing.bin").toFile()));
+
+		File invalid = theTempDir.resolve("invalid.bin").toFile();
+		Files.write(invalid.toPath(), "not a snapshot".getBytes(StandardCharsets.UTF_8));
+		assertEquals(0, support.loadSnapshot(invalid));
+
+		File otherVersion = theTempDir.resolve("dstu3.bin").toFile();
+		IValidationSupport dstu3Support = mock(IValidationSupport.class);
+		when(dstu3Support.getFhirContext()).thenReturn(FhirContext.forDstu3Cached());
+		new CachingValidationSupport(dstu3Support).writeSnapshot(otherVersion);
+		assertEquals(0, support.loadSnapshot(otherVersion));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {Integer.MAX_VALUE, -2})
+	public void testSnapshot_CorruptStringLength(int theLength, @TempDir Path theTempDir) throws IOException {
+		when(myValidationSupport.getFhirContext()).thenReturn(ourCtx);
+		CachingValidationSupport support = new CachingValidationSupport(myValidationSupport);
+
+		// A single key whose string argument claims far more data than the file holds
+		File corrupt = theTempDir.resolve("corrupt.bin").toFile();
+		try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(corrupt.toPath())))) {
+			output.writeUTF("HAPI-FHIR-VALIDATION-CACHE");
+			output.writeInt(1);
+			output.writeUTF(ourCtx.getVersion().getVersion().name());
+			output.writeBoolean(true);
+			output.writeUTF(CachingValidationSupport.CacheKeyType.FETCH_CODE_SYSTEM.name());
+			output.writeInt(1);
+			output.writeByte(1);
+			output.writeInt(theLength);
+			output.write("http://example.com".getBytes(StandardCharsets.UTF_8));
+		}
+
+		assertEquals(0, support.loadSnapshot(corrupt));
+	}
+
+	@Test
+	public void testCacheKey() {
+		CachingValidationSupport.CacheKey key = new CachingValidationSupport.CacheKey(
+			CachingValidationSupport.CacheKeyType.VALIDATE_CODE, "http://foo", "code", null, null);
+		assertEquals(key, new CachingValidationSupport.CacheKey(
+			CachingValidationSupport.CacheKeyType.VALIDATE_CODE, "http://foo", "code", null, null));
+		assertEquals(key.hashCode(), new CachingValidationSupport.CacheKey(
+			CachingValidationSupport.CacheKeyType.VALIDATE_CODE, "http://foo", "code", null, null).hashCode());
+		assertNotEquals(key, new CachingValidationSupport.CacheKey(
+			CachingValidationSupport.CacheKeyType.VALIDATE_CODE, "http://foo", "code", "display", null));
+		assertNotEquals(key, new CachingValidationSupport.CacheKey(
+			CachingValidationSupport.CacheKeyType.LOOKUP_CODE, "http://foo", "code", null, null));
+	}
+
 	@Nonnull
 	private CachingValidationSupport getSupport(@Nullable CachingValidationSupport.CacheTimeouts theCacheTimeouts, @Nullable Boolean theIsEnabledValidationForCodingsLogicalAnd) {
 		if (theCacheTimeouts == null) {